@@ -0,0 +1,184 @@
+package nablarch.core.repository.di;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import nablarch.core.repository.di.config.BeanComponentCreator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link DiContainer}からコンポーネントを取得する処理のベンチマーク。
+ * <p/>
+ * 保持するコンポーネント数を変えたコンテナに対し、名前・型・IDそれぞれによる取得のスループットを計測する。
+ * コンテナは全スレッドで共有し、スレッド数ごとの計測はスレッド数を指定したサブクラスで行う。
+ * <p/>
+ * 1回の取得あたりのメモリ割り当て量は、GCプロファイラ(-prof gc)を指定して計測する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class DiContainerLookupBenchmark {
+
+    /** 型によるルックアップ対象のコンポーネント名 */
+    private static final String TYPED_COMPONENT_NAME = "typedComponent";
+
+    /** 1スレッドあたりに用意するルックアップキーの数 */
+    private static final int KEY_COUNT = 1024;
+
+    /** コンテナに登録するコンポーネントの数 */
+    @Param({"100", "10000", "100000"})
+    public int componentCount;
+
+    /** 計測対象のコンテナ */
+    private DiContainer container;
+
+    /** ルックアップに使用するコンポーネント名 */
+    private String[] names;
+
+    /** ルックアップに使用するコンポーネントID */
+    private int[] ids;
+
+    /**
+     * コンテナを構築する。
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        container = new DiContainer(new ComponentDefinitionLoader() {
+            public List<ComponentDefinition> load(DiContainer c) {
+                List<ComponentDefinition> defs = new ArrayList<ComponentDefinition>(componentCount);
+                for (int i = 0; i < componentCount - 1; i++) {
+                    defs.add(new ComponentDefinition(c.generateId(), "component" + i,
+                            new BeanComponentCreator(), BenchmarkComponent.class));
+                }
+                defs.add(new ComponentDefinition(c.generateId(), TYPED_COMPONENT_NAME,
+                        new BeanComponentCreator(), TypedComponent.class));
+                return defs;
+            }
+        });
+
+        List<Integer> indexes = new ArrayList<Integer>(componentCount);
+        for (int i = 0; i < componentCount; i++) {
+            indexes.add(i);
+        }
+        Collections.shuffle(indexes, new Random(componentCount));
+
+        names = new String[KEY_COUNT];
+        ids = new int[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            int index = indexes.get(i % componentCount);
+            names[i] = index == componentCount - 1 ? TYPED_COMPONENT_NAME : "component" + index;
+            ids[i] = index;
+        }
+    }
+
+    /**
+     * 名前によるコンポーネントの取得。
+     *
+     * @param cursor ルックアップキーのカーソル
+     * @return 取得したコンポーネント
+     */
+    @Benchmark
+    public Object getComponentByName(Cursor cursor) {
+        return container.getComponentByName(names[cursor.next()]);
+    }
+
+    /**
+     * 型によるコンポーネントの取得。
+     *
+     * @return 取得したコンポーネント
+     */
+    @Benchmark
+    public Object getComponentByType() {
+        return container.getComponentByType(TypedComponent.class);
+    }
+
+    /**
+     * IDによるコンポーネントの取得。
+     *
+     * @param cursor ルックアップキーのカーソル
+     * @return 取得したコンポーネント
+     */
+    @Benchmark
+    public Object getComponentById(Cursor cursor) {
+        return container.getComponentById(ids[cursor.next()]);
+    }
+
+    /**
+     * スレッドごとのルックアップキーの位置。
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        /** 現在位置 */
+        private int position;
+
+        /**
+         * 次のルックアップキーの位置を取得する。
+         *
+         * @return ルックアップキーの位置
+         */
+        int next() {
+            position = (position + 1) & (KEY_COUNT - 1);
+            return position;
+        }
+    }
+
+    /**
+     * シングルスレッドで計測する。
+     */
+    @Threads(1)
+    public static class SingleThread extends DiContainerLookupBenchmark {
+    }
+
+    /**
+     * 8スレッドで計測する。
+     */
+    @Threads(8)
+    public static class Threads8 extends DiContainerLookupBenchmark {
+    }
+
+    /**
+     * 16スレッドで計測する。
+     */
+    @Threads(16)
+    public static class Threads16 extends DiContainerLookupBenchmark {
+    }
+
+    /**
+     * 64スレッドで計測する。
+     */
+    @Threads(64)
+    public static class Threads64 extends DiContainerLookupBenchmark {
+    }
+
+    /**
+     * ベンチマーク用のコンポーネント。
+     */
+    public static class BenchmarkComponent {
+    }
+
+    /**
+     * 型によるルックアップの対象となるコンポーネント。
+     */
+    public static class TypedComponent {
+    }
+}
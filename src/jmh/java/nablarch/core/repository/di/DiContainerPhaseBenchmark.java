@@ -0,0 +1,228 @@
+package nablarch.core.repository.di;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import nablarch.core.repository.di.config.xml.ComponentDefinitionGenerator;
+import nablarch.core.repository.di.config.xml.XmlComponentDefinitionLoader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * {@link DiContainer}の構築の各段階のベンチマーク。
+ * <p/>
+ * 読み込み済み(重複定義のマージ済み)のコンポーネント定義からコンテナを構築する時間を、
+ * 後の段階で行う処理をコンポーネント定義から取り除いて計測する。
+ * <ul>
+ * <li>register : 全てのコンポーネントの生成を遅延し、initializerを除いた構築(登録まで)</li>
+ * <li>create : 参照とインジェクタを除き、initializerを除いた構築(生成まで)</li>
+ * <li>inject : initializerを除いた構築(インジェクションまで)</li>
+ * <li>initialize : 全ての段階を行う構築(初期化まで)</li>
+ * </ul>
+ * 各段階の所要時間は、隣り合うベンチマークの差で求める。
+ * いずれも凍結インデックスの作成を含むが、生成を遅延したコンポーネントは凍結インデックスに追加しないため、
+ * registerでは凍結インデックスの作成に要する時間も短くなる。
+ * 設定ファイルの解析は{@link nablarch.core.repository.di.config.xml.ComponentDefinitionLoadBenchmark}で、
+ * 重複定義のマージは{@link nablarch.core.repository.di.config.xml.ComponentDefinitionMergeBenchmark}で計測する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(3)
+public class DiContainerPhaseBenchmark {
+
+    /** コンポーネント数 */
+    @Param({"1000", "10000"})
+    public int componentCount;
+
+    /** ネストするコンポーネントの深さ */
+    @Param({"0", "3"})
+    public int nestingDepth;
+
+    /** 型によるオートワイヤを行うコンポーネントの割合 */
+    @Param({"0.5"})
+    public double autowireByTypeRatio;
+
+    /** コンポーネントを生成するスレッド数 */
+    @Param({"1"})
+    public int parallelism;
+
+    /** 設定ファイルの出力先ディレクトリ */
+    private File dir;
+
+    /** ルートとなる設定ファイルのURL */
+    private String rootFileUrl;
+
+    /** 読み込み済みのコンポーネント定義 */
+    private List<ComponentDefinition> preparsed;
+
+    /** 読み込み済みのコンポーネント定義のIDの最大値 */
+    private int preparsedMaxId;
+
+    /** 実行中のベンチマークのメソッド名 */
+    private String phase;
+
+    /**
+     * 設定ファイルを生成する。
+     *
+     * @param params ベンチマークのパラメータ
+     * @throws IOException ファイルの出力に失敗した場合
+     */
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkParams params) throws IOException {
+        String benchmark = params.getBenchmark();
+        phase = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+        dir = File.createTempFile("component-definition", "");
+        if (!dir.delete() || !dir.mkdirs()) {
+            throw new IOException("directory creation failed. dir = " + dir);
+        }
+        File rootFile = new ComponentDefinitionGenerator()
+                .setComponentCount(componentCount)
+                .setNestingDepth(nestingDepth)
+                .setAutowireByTypeRatio(autowireByTypeRatio)
+                .generate(dir);
+        rootFileUrl = rootFile.toURI().toString();
+    }
+
+    /**
+     * 生成した設定ファイルを削除する。
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        delete(dir);
+    }
+
+    /**
+     * 計測で使用するコンポーネント定義を読み込み、計測する段階より後の処理を取り除く。
+     * <p/>
+     * 環境設定ファイルのローダは一度しか使用できず、コンポーネント定義も変更するため、計測ごとに読み込み直す。
+     */
+    @Setup(Level.Invocation)
+    public void loadDefinitions() {
+        DiContainer scratch = new DiContainer(new EmptyLoader());
+        preparsed = new XmlComponentDefinitionLoader(rootFileUrl).load(scratch);
+        int maxId = 0;
+        for (Iterator<ComponentDefinition> it = preparsed.iterator(); it.hasNext();) {
+            ComponentDefinition def = it.next();
+            maxId = Math.max(maxId, def.getId());
+            if (phase.equals("initialize")) {
+                continue;
+            }
+            if ("initializer".equals(def.getName())) {
+                it.remove();
+            } else if (phase.equals("create")) {
+                def.updateReferences(Collections.<ComponentReference>emptyList());
+                def.setInjector(null);
+            }
+        }
+        preparsedMaxId = maxId;
+    }
+
+    /**
+     * コンポーネント定義の登録まで。
+     *
+     * @return コンテナ
+     */
+    @Benchmark
+    public DiContainer register() {
+        return build(true);
+    }
+
+    /**
+     * コンポーネントの生成まで。
+     *
+     * @return コンテナ
+     */
+    @Benchmark
+    public DiContainer create() {
+        return build(false);
+    }
+
+    /**
+     * インジェクションまで。
+     *
+     * @return コンテナ
+     */
+    @Benchmark
+    public DiContainer inject() {
+        return build(false);
+    }
+
+    /**
+     * 初期化まで(全ての段階)。
+     *
+     * @return コンテナ
+     */
+    @Benchmark
+    public DiContainer initialize() {
+        return build(false);
+    }
+
+    /**
+     * 読み込み済みのコンポーネント定義からコンテナを構築する。
+     *
+     * @param lazyInit 全てのコンポーネントの生成を遅延する場合 true
+     * @return コンテナ
+     */
+    private DiContainer build(boolean lazyInit) {
+        DiContainerOptions options = new DiContainerOptions();
+        options.setParallelism(parallelism);
+        options.setLazyInit(lazyInit);
+        return new DiContainer(new ComponentDefinitionLoader() {
+            public List<ComponentDefinition> load(DiContainer container) {
+                // コンテナが採番するIDを、読み込み済みの定義のIDと重複させない。
+                while (container.generateId() < preparsedMaxId) {
+                    continue;
+                }
+                return preparsed;
+            }
+        }, options);
+    }
+
+    /**
+     * ファイルまたはディレクトリを削除する。
+     *
+     * @param file ファイルまたはディレクトリ
+     */
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * コンポーネント定義を持たないローダ。
+     */
+    private static class EmptyLoader implements ComponentDefinitionLoader {
+        /** {@inheritDoc} */
+        public List<ComponentDefinition> load(DiContainer container) {
+            return new ArrayList<ComponentDefinition>();
+        }
+    }
+}
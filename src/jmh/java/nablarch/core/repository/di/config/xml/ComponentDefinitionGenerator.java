@@ -0,0 +1,321 @@
+package nablarch.core.repository.di.config.xml;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import nablarch.core.repository.initialization.BasicApplicationInitializer;
+import nablarch.core.util.FileUtil;
+
+/**
+ * ベンチマーク用のコンポーネント設定ファイルを生成するクラス。
+ * <p/>
+ * 下記の規模を指定して、コンポーネント設定ファイルと環境設定ファイルを出力する。
+ * <ul>
+ * <li>コンポーネント数</li>
+ * <li>property要素内にネストするcomponent要素の深さ</li>
+ * <li>import要素(dir指定)で読み込むファイル数</li>
+ * <li>config-file要素で読み込むプロパティ数</li>
+ * <li>型によるオートワイヤを行うコンポーネントの割合</li>
+ * <li>同じ名前で再定義(上書き)するコンポーネントの割合</li>
+ * </ul>
+ * 同じ設定で生成したファイルの内容は常に同一となる。
+ */
+public class ComponentDefinitionGenerator {
+
+    /** ルートとなるコンポーネント設定ファイルの名前 */
+    public static final String ROOT_FILE_NAME = "root.xml";
+
+    /** import対象のファイルを出力するディレクトリの名前 */
+    private static final String IMPORT_DIR_NAME = "components";
+
+    /** 環境設定ファイルの名前 */
+    private static final String CONFIG_FILE_NAME = "env.config";
+
+    /** コンポーネント数 */
+    private int componentCount = 1000;
+
+    /** ネストするコンポーネントの深さ */
+    private int nestingDepth = 0;
+
+    /** import対象のファイル数(0の場合はルートファイルに全て出力する) */
+    private int importFileCount = 0;
+
+    /** 環境設定ファイルのプロパティ数 */
+    private int configPropertyCount = 0;
+
+    /** 型によるオートワイヤを行うコンポーネントの割合(0.0～1.0) */
+    private double autowireByTypeRatio = 0.0;
+
+    /** 同じ名前で再定義するコンポーネントの割合(0.0～1.0) */
+    private double overrideRatio = 0.0;
+
+    /**
+     * コンポーネント設定ファイルを生成する。
+     *
+     * @param dir 出力先ディレクトリ
+     * @return ルートとなるコンポーネント設定ファイル
+     * @throws IOException ファイルの出力に失敗した場合
+     */
+    public File generate(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("directory creation failed. dir = " + dir);
+        }
+
+        if (configPropertyCount > 0) {
+            writeConfigFile(new File(dir, CONFIG_FILE_NAME));
+        }
+
+        List<String> topLevelNames = new ArrayList<String>(componentCount);
+        StringBuilder root = new StringBuilder();
+        if (configPropertyCount > 0) {
+            root.append("  <config-file file=\"")
+                .append(new File(dir, CONFIG_FILE_NAME).toURI())
+                .append("\" />\n");
+        }
+        root.append("  <component name=\"syntheticService\" class=\"")
+            .append(SyntheticServiceImpl.class.getName())
+            .append("\" />\n");
+
+        if (importFileCount > 0) {
+            File importDir = new File(dir, IMPORT_DIR_NAME);
+            if (!importDir.isDirectory() && !importDir.mkdirs()) {
+                throw new IOException("directory creation failed. dir = " + importDir);
+            }
+            root.append("  <import dir=\"").append(IMPORT_DIR_NAME).append("\" file=\"*.xml\" />\n");
+            for (int file = 0; file < importFileCount; file++) {
+                StringBuilder body = new StringBuilder();
+                for (int i = file; i < componentCount; i += importFileCount) {
+                    appendComponent(body, i, topLevelNames);
+                }
+                write(new File(importDir, String.format("components%05d.xml", file)), body);
+            }
+        } else {
+            for (int i = 0; i < componentCount; i++) {
+                appendComponent(root, i, topLevelNames);
+            }
+        }
+
+        for (int i = 0; i < componentCount; i++) {
+            if (isOverridden(i)) {
+                appendOverride(root, i);
+            }
+        }
+
+        appendInitializer(root, topLevelNames);
+
+        File rootFile = new File(dir, ROOT_FILE_NAME);
+        write(rootFile, root);
+        return rootFile;
+    }
+
+    /**
+     * トップレベルのコンポーネント定義を追加する。
+     *
+     * @param sb 出力先
+     * @param index コンポーネントの番号
+     * @param topLevelNames トップレベルのコンポーネント名のリスト
+     */
+    private void appendComponent(StringBuilder sb, int index, List<String> topLevelNames) {
+        String name = "component" + index;
+        topLevelNames.add(name);
+        appendComponent(sb, name, index, nestingDepth, "  ");
+    }
+
+    /**
+     * コンポーネント定義を追加する。
+     *
+     * @param sb 出力先
+     * @param name コンポーネント名
+     * @param index コンポーネントの番号
+     * @param depth 残りのネストの深さ
+     * @param indent インデント
+     */
+    private void appendComponent(StringBuilder sb, String name, int index, int depth, String indent) {
+        sb.append(indent).append("<component name=\"").append(name)
+          .append("\" class=\"").append(SyntheticComponent.class.getName())
+          .append("\" autowireType=\"").append(isAutowireByType(index) ? "ByType" : "None")
+          .append("\">\n");
+
+        String nameValue = configPropertyCount > 0
+                ? "${key" + (index % configPropertyCount) + "}"
+                : "name" + index;
+        sb.append(indent).append("  <property name=\"name\" value=\"").append(nameValue).append("\" />\n");
+        sb.append(indent).append("  <property name=\"timeout\" value=\"").append(index).append("\" />\n");
+
+        if (depth > 0) {
+            sb.append(indent).append("  <property name=\"child\">\n");
+            appendComponent(sb, "child", index, depth - 1, indent + "    ");
+            sb.append(indent).append("  </property>\n");
+        }
+        sb.append(indent).append("</component>\n");
+    }
+
+    /**
+     * 指定した番号のコンポーネントが型によるオートワイヤを行うか否か。
+     * <p/>
+     * 番号の小さいものから順に、割合に達するまで型によるオートワイヤを行う。
+     *
+     * @param index コンポーネントの番号
+     * @return 型によるオートワイヤを行う場合 true
+     */
+    private boolean isAutowireByType(int index) {
+        return index % 100 < Math.round(autowireByTypeRatio * 100);
+    }
+
+    /**
+     * 指定した番号のコンポーネントを再定義するか否か。
+     * <p/>
+     * 番号の小さいものから順に、割合に達するまで再定義する。
+     *
+     * @param index コンポーネントの番号
+     * @return 再定義する場合 true
+     */
+    private boolean isOverridden(int index) {
+        return index % 100 < Math.round(overrideRatio * 100);
+    }
+
+    /**
+     * トップレベルのコンポーネントを同じ名前で再定義し、プロパティを上書きする定義を追加する。
+     *
+     * @param sb 出力先
+     * @param index コンポーネントの番号
+     */
+    private void appendOverride(StringBuilder sb, int index) {
+        sb.append("  <component name=\"component").append(index)
+          .append("\" class=\"").append(SyntheticComponent.class.getName())
+          .append("\" autowireType=\"").append(isAutowireByType(index) ? "ByType" : "None")
+          .append("\">\n");
+        sb.append("    <property name=\"timeout\" value=\"").append(-index).append("\" />\n");
+        sb.append("  </component>\n");
+    }
+
+    /**
+     * 全てのトップレベルのコンポーネントを初期化するinitializerの定義を追加する。
+     *
+     * @param sb 出力先
+     * @param topLevelNames トップレベルのコンポーネント名のリスト
+     */
+    private void appendInitializer(StringBuilder sb, List<String> topLevelNames) {
+        sb.append("  <component name=\"initializer\" class=\"")
+          .append(BasicApplicationInitializer.class.getName())
+          .append("\">\n");
+        sb.append("    <property name=\"initializeList\">\n");
+        sb.append("      <list>\n");
+        for (String name : topLevelNames) {
+            sb.append("        <component-ref name=\"").append(name).append("\" />\n");
+        }
+        sb.append("      </list>\n");
+        sb.append("    </property>\n");
+        sb.append("  </component>\n");
+    }
+
+    /**
+     * 環境設定ファイルを出力する。
+     *
+     * @param file 出力先ファイル
+     * @throws IOException ファイルの出力に失敗した場合
+     */
+    private void writeConfigFile(File file) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            for (int i = 0; i < configPropertyCount; i++) {
+                writer.write("key" + i + " = value" + i + "\n");
+            }
+        } finally {
+            FileUtil.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * コンポーネント設定ファイルを出力する。
+     *
+     * @param file 出力先ファイル
+     * @param body component-configuration要素の内容
+     * @throws IOException ファイルの出力に失敗した場合
+     */
+    private void write(File file, CharSequence body) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<component-configuration xmlns=\"http://tis.co.jp/nablarch/component-configuration\">\n");
+            writer.append(body);
+            writer.write("</component-configuration>\n");
+        } finally {
+            FileUtil.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * コンポーネント数を設定する。
+     *
+     * @param componentCount コンポーネント数
+     * @return 本オブジェクト
+     */
+    public ComponentDefinitionGenerator setComponentCount(int componentCount) {
+        this.componentCount = componentCount;
+        return this;
+    }
+
+    /**
+     * property要素内にネストするcomponent要素の深さを設定する。
+     *
+     * @param nestingDepth ネストの深さ
+     * @return 本オブジェクト
+     */
+    public ComponentDefinitionGenerator setNestingDepth(int nestingDepth) {
+        this.nestingDepth = nestingDepth;
+        return this;
+    }
+
+    /**
+     * import要素(dir指定)で読み込むファイル数を設定する。
+     * 0を指定した場合、全てのコンポーネントをルートファイルに出力する。
+     *
+     * @param importFileCount ファイル数
+     * @return 本オブジェクト
+     */
+    public ComponentDefinitionGenerator setImportFileCount(int importFileCount) {
+        this.importFileCount = importFileCount;
+        return this;
+    }
+
+    /**
+     * config-file要素で読み込むプロパティ数を設定する。
+     * 0を指定した場合、環境設定ファイルは出力しない。
+     *
+     * @param configPropertyCount プロパティ数
+     * @return 本オブジェクト
+     */
+    public ComponentDefinitionGenerator setConfigPropertyCount(int configPropertyCount) {
+        this.configPropertyCount = configPropertyCount;
+        return this;
+    }
+
+    /**
+     * 型によるオートワイヤを行うコンポーネントの割合を設定する。
+     *
+     * @param autowireByTypeRatio 割合(0.0～1.0)
+     * @return 本オブジェクト
+     */
+    public ComponentDefinitionGenerator setAutowireByTypeRatio(double autowireByTypeRatio) {
+        this.autowireByTypeRatio = autowireByTypeRatio;
+        return this;
+    }
+
+    /**
+     * 同じ名前で再定義(上書き)するコンポーネントの割合を設定する。
+     * 再定義はルートファイルの末尾に出力し、timeoutプロパティを上書きする。
+     *
+     * @param overrideRatio 割合(0.0～1.0)
+     * @return 本オブジェクト
+     */
+    public ComponentDefinitionGenerator setOverrideRatio(double overrideRatio) {
+        this.overrideRatio = overrideRatio;
+        return this;
+    }
+}
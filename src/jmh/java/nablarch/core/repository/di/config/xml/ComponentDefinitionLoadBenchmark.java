@@ -0,0 +1,368 @@
+package nablarch.core.repository.di.config.xml;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import nablarch.core.repository.di.ComponentDefinition;
+import nablarch.core.repository.di.ComponentDefinitionLoader;
+import nablarch.core.repository.di.DiContainer;
+import nablarch.core.repository.di.DiContainerOptions;
+import nablarch.core.repository.di.config.xml.schema.ComponentConfiguration;
+import nablarch.core.util.FileUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * コンポーネント設定ファイルの読み込みからコンテナ構築までのベンチマーク。
+ * <p/>
+ * {@link ComponentDefinitionGenerator}で生成した設定ファイルに対し、起動処理の各段階を単発で計測する。
+ * <ul>
+ * <li>parse : 全ての設定ファイルのXML解析</li>
+ * <li>load : {@link XmlComponentDefinitionLoader#load(DiContainer)}(XML解析、定義の作成、重複定義のマージ)</li>
+ * <li>loadCached : {@link CachingXmlComponentDefinitionLoader#load(DiContainer)}(キャッシュファイルからの定義の復元)</li>
+ * <li>reload : {@link DiContainer}のコンストラクタ(loadに加え、登録、生成、インジェクション、初期化)</li>
+ * <li>reloadPreparsed : 読み込み済みの定義を使用した{@link DiContainer}のコンストラクタ(登録、生成、インジェクション、初期化)</li>
+ * <li>reloadGenerated : {@link ComponentDefinitionLoaderGenerator}で生成したローダを使用した{@link DiContainer}のコンストラクタ</li>
+ * <li>reloadIncrementally : 設定ファイルを変更していない場合の{@link DiContainer#reloadIncrementally()}</li>
+ * </ul>
+ * 重複定義のマージは{@link ComponentDefinitionMergeBenchmark}で、
+ * 登録、生成、インジェクション、初期化の各段階は{@link nablarch.core.repository.di.DiContainerPhaseBenchmark}で計測する。
+ * <p/>
+ * 生成する設定ファイルのコンポーネントは生成が軽量なため、reloadIncrementallyは定義の比較に要する時間を計測する。
+ * 生成に時間を要するコンポーネント(コネクションプールなど)を含む場合は、引き継いだ分だけ短縮される。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(3)
+public class ComponentDefinitionLoadBenchmark {
+
+    /** コンポーネント数 */
+    @Param({"1000", "10000"})
+    public int componentCount;
+
+    /** ネストするコンポーネントの深さ */
+    @Param({"0", "3"})
+    public int nestingDepth;
+
+    /** import対象のファイル数 */
+    @Param({"1", "50"})
+    public int importFileCount;
+
+    /** 環境設定ファイルのプロパティ数 */
+    @Param({"1000"})
+    public int configPropertyCount;
+
+    /** 型によるオートワイヤを行うコンポーネントの割合 */
+    @Param({"0.5"})
+    public double autowireByTypeRatio;
+
+    /** コンポーネントを生成するスレッド数(ディレクトリ指定でインポートしたファイルを解析するスレッド数を兼ねる) */
+    @Param({"1"})
+    public int parallelism;
+
+    /** コンポーネント設定ファイルをストリームで解析するか否か */
+    @Param({"false", "true"})
+    public boolean streamingParse;
+
+    /** 設定ファイルの出力先ディレクトリ */
+    private File dir;
+
+    /** ルートとなる設定ファイルのURL */
+    private String rootFileUrl;
+
+    /** コンポーネント定義のキャッシュファイル */
+    private File cacheFile;
+
+    /** {@link ComponentDefinitionLoaderGenerator}で生成したローダ */
+    private ComponentDefinitionLoader generated;
+
+    /** reloadIncrementallyで再読み込みするコンテナ */
+    private DiContainer incremental;
+
+    /** 解析対象の全ての設定ファイル */
+    private List<File> files;
+
+    /** 読み込み済みのコンポーネント定義 */
+    private List<ComponentDefinition> preparsed;
+
+    /** 読み込み済みのコンポーネント定義のIDの最大値 */
+    private int preparsedMaxId;
+
+    /**
+     * 設定ファイルを生成する。
+     * <p/>
+     * 生成したローダのコンパイルは時間とメモリを要するため、reloadGeneratedの場合のみ行う。
+     * コンポーネント定義が多い場合は、-jvmArgs でヒープサイズを指定すること。
+     *
+     * @param params ベンチマークのパラメータ
+     * @throws IOException ファイルの出力に失敗した場合
+     */
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkParams params) throws IOException {
+        dir = File.createTempFile("component-definition", "");
+        if (!dir.delete() || !dir.mkdirs()) {
+            throw new IOException("directory creation failed. dir = " + dir);
+        }
+        File rootFile = new ComponentDefinitionGenerator()
+                .setComponentCount(componentCount)
+                .setNestingDepth(nestingDepth)
+                .setImportFileCount(importFileCount)
+                .setConfigPropertyCount(configPropertyCount)
+                .setAutowireByTypeRatio(autowireByTypeRatio)
+                .generate(dir);
+        rootFileUrl = rootFile.toURI().toString();
+
+        files = new ArrayList<File>();
+        collectFiles(dir, files);
+
+        cacheFile = new File(dir, "definitions.cache");
+        new CachingXmlComponentDefinitionLoader(rootFileUrl, cacheFile).load(new DiContainer(new EmptyLoader()));
+
+        if (params.getBenchmark().endsWith(".reloadGenerated")) {
+            generated = generateLoader();
+        }
+        if (params.getBenchmark().endsWith(".reloadIncrementally")) {
+            incremental = new DiContainer(new XmlComponentDefinitionLoader(rootFileUrl), options());
+        }
+    }
+
+    /**
+     * {@link ComponentDefinitionLoaderGenerator}でローダのソースコードを生成し、コンパイルする。
+     *
+     * @return 生成したローダ
+     * @throws IOException 生成またはコンパイルに失敗した場合
+     */
+    private ComponentDefinitionLoader generateLoader() throws IOException {
+        String className = "generated.BenchmarkComponentDefinitionLoader";
+        File outputDir = new File(dir, "generated");
+        File source = new ComponentDefinitionLoaderGenerator(rootFileUrl).generate(className, outputDir);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IOException("java compiler is not available.");
+        }
+        int result = compiler.run(null, null, null, "-nowarn", "-encoding", "UTF-8",
+                "-classpath", System.getProperty("java.class.path"),
+                "-d", outputDir.getPath(), source.getPath());
+        if (result != 0) {
+            throw new IOException("compilation failed. file = " + source);
+        }
+        try {
+            ClassLoader classLoader = new URLClassLoader(new URL[] {outputDir.toURI().toURL()},
+                    getClass().getClassLoader());
+            return (ComponentDefinitionLoader) classLoader.loadClass(className).newInstance();
+        } catch (Exception e) {
+            throw new IOException("generated loader could not be instantiated. class name = " + className, e);
+        }
+    }
+
+    /**
+     * 生成した設定ファイルを削除する。
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        delete(dir);
+    }
+
+    /**
+     * reloadPreparsedで使用するコンポーネント定義を読み込む。
+     * <p/>
+     * 環境設定ファイルのローダは一度しか使用できないため、計測ごとに読み込み直す。
+     */
+    @Setup(Level.Invocation)
+    public void loadDefinitions() {
+        DiContainer scratch = new DiContainer(new EmptyLoader());
+        preparsed = new XmlComponentDefinitionLoader(rootFileUrl).load(scratch);
+        int maxId = 0;
+        for (ComponentDefinition def : preparsed) {
+            maxId = Math.max(maxId, def.getId());
+        }
+        preparsedMaxId = maxId;
+    }
+
+    /**
+     * 全ての設定ファイルのXML解析。
+     *
+     * @return 解析結果
+     * @throws Exception 解析に失敗した場合
+     */
+    @Benchmark
+    public List<ComponentConfiguration> parse() throws Exception {
+        List<ComponentConfiguration> result = new ArrayList<ComponentConfiguration>(files.size());
+        for (File file : files) {
+            InputStream in = new FileInputStream(file);
+            try {
+                result.add(new ComponentDefinitionFileParser().parse(in));
+            } finally {
+                FileUtil.closeQuietly(in);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * コンポーネント定義の読み込み。
+     *
+     * @return コンポーネント定義
+     */
+    @Benchmark
+    public List<ComponentDefinition> load() {
+        DiContainer scratch = new DiContainer(new EmptyLoader());
+        return xmlLoader().load(scratch);
+    }
+
+    /**
+     * キャッシュファイルからのコンポーネント定義の復元。
+     *
+     * @return コンポーネント定義
+     */
+    @Benchmark
+    public List<ComponentDefinition> loadCached() {
+        DiContainer scratch = new DiContainer(new EmptyLoader());
+        return new CachingXmlComponentDefinitionLoader(rootFileUrl, cacheFile).load(scratch);
+    }
+
+    /**
+     * 設定ファイルからのコンテナの構築。
+     *
+     * @return コンテナ
+     */
+    @Benchmark
+    public DiContainer reload() {
+        return new DiContainer(xmlLoader(), options());
+    }
+
+    /**
+     * 読み込み済みのコンポーネント定義からのコンテナの構築。
+     *
+     * @return コンテナ
+     */
+    @Benchmark
+    public DiContainer reloadPreparsed() {
+        return new DiContainer(new ComponentDefinitionLoader() {
+            public List<ComponentDefinition> load(DiContainer container) {
+                // コンテナが採番するIDを、読み込み済みの定義のIDと重複させない。
+                while (container.generateId() < preparsedMaxId) {
+                    continue;
+                }
+                return preparsed;
+            }
+        }, options());
+    }
+
+    /**
+     * 生成したローダからのコンテナの構築。
+     *
+     * @return コンテナ
+     */
+    @Benchmark
+    public DiContainer reloadGenerated() {
+        return new DiContainer(generated, options());
+    }
+
+    /**
+     * 設定ファイルからのコンテナの差分再読み込み。
+     *
+     * @return コンテナ
+     */
+    @Benchmark
+    public DiContainer reloadIncrementally() {
+        incremental.reloadIncrementally();
+        return incremental;
+    }
+
+    /**
+     * ベンチマークのパラメータに従ったローダを作成する。
+     *
+     * @return ローダ
+     */
+    private XmlComponentDefinitionLoader xmlLoader() {
+        XmlComponentDefinitionLoader loader = new XmlComponentDefinitionLoader(rootFileUrl);
+        loader.setStreamingParse(streamingParse);
+        loader.setParallelism(parallelism);
+        return loader;
+    }
+
+    /**
+     * コンテナのオプションを作成する。
+     *
+     * @return オプション
+     */
+    private DiContainerOptions options() {
+        DiContainerOptions options = new DiContainerOptions();
+        options.setParallelism(parallelism);
+        return options;
+    }
+
+    /**
+     * ディレクトリ配下の設定ファイルを収集する。
+     *
+     * @param file ディレクトリ
+     * @param result 収集結果
+     */
+    private static void collectFiles(File file, List<File> result) {
+        File[] children = file.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (child.isDirectory()) {
+                collectFiles(child, result);
+            } else if (child.getName().endsWith(".xml")) {
+                result.add(child);
+            }
+        }
+    }
+
+    /**
+     * ファイルまたはディレクトリを削除する。
+     *
+     * @param file ファイルまたはディレクトリ
+     */
+    static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * コンポーネント定義を持たないローダ。
+     */
+    static class EmptyLoader implements ComponentDefinitionLoader {
+        /** {@inheritDoc} */
+        public List<ComponentDefinition> load(DiContainer container) {
+            return new ArrayList<ComponentDefinition>();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package nablarch.core.repository.di.config.xml;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import nablarch.core.repository.di.ComponentDefinition;
+import nablarch.core.repository.di.DiContainer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 重複定義のマージの規模に対する性能を計測するベンチマーク。
+ * <p/>
+ * コンポーネント数を倍々に増やした設定ファイルについて、
+ * 全てのコンポーネントを同じ名前で再定義した場合(overrideRatio=1.0)と再定義しない場合(overrideRatio=0.0)の
+ * {@link XmlComponentDefinitionLoader#load(DiContainer)}を計測する。
+ * 両者の差がマージに要する時間であり、マージが定義数に比例する時間で行われる場合は、差もコンポーネント数に比例して増える。
+ * <p/>
+ * 再定義によるプロパティの上書きはワーニングログを出力するため、
+ * ベンチマークのログ設定では{@link XmlComponentDefinitionLoader}のログを抑止している。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(3)
+public class ComponentDefinitionMergeBenchmark {
+
+    /** コンポーネント数 */
+    @Param({"10000", "20000", "40000"})
+    public int componentCount;
+
+    /** 同じ名前で再定義するコンポーネントの割合 */
+    @Param({"0.0", "1.0"})
+    public double overrideRatio;
+
+    /** 設定ファイルの出力先ディレクトリ */
+    private File dir;
+
+    /** ルートとなる設定ファイルのURL */
+    private String rootFileUrl;
+
+    /**
+     * 設定ファイルを生成する。
+     *
+     * @throws IOException ファイルの出力に失敗した場合
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = File.createTempFile("component-definition", "");
+        if (!dir.delete() || !dir.mkdirs()) {
+            throw new IOException("directory creation failed. dir = " + dir);
+        }
+        File rootFile = new ComponentDefinitionGenerator()
+                .setComponentCount(componentCount)
+                .setOverrideRatio(overrideRatio)
+                .generate(dir);
+        rootFileUrl = rootFile.toURI().toString();
+    }
+
+    /**
+     * 生成した設定ファイルを削除する。
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ComponentDefinitionLoadBenchmark.delete(dir);
+    }
+
+    /**
+     * 重複定義のマージを含むコンポーネント定義の読み込み。
+     *
+     * @return コンポーネント定義
+     */
+    @Benchmark
+    public List<ComponentDefinition> load() {
+        DiContainer scratch = new DiContainer(new ComponentDefinitionLoadBenchmark.EmptyLoader());
+        return new XmlComponentDefinitionLoader(rootFileUrl).load(scratch);
+    }
+}
@@ -0,0 +1,76 @@
+package nablarch.core.repository.di.config.xml;
+
+import nablarch.core.repository.initialization.Initializable;
+
+/**
+ * ベンチマーク用に生成したコンポーネント定義で使用するコンポーネント。
+ */
+public class SyntheticComponent implements Initializable {
+
+    /** 名前 */
+    private String name;
+
+    /** タイムアウト */
+    private int timeout;
+
+    /** 子コンポーネント */
+    private SyntheticComponent child;
+
+    /** オートワイヤされるサービス */
+    private SyntheticService service;
+
+    /** 初期化済みか否か */
+    private boolean initialized;
+
+    /**
+     * {@inheritDoc}
+     */
+    public void initialize() {
+        initialized = true;
+    }
+
+    /**
+     * 名前を設定する。
+     *
+     * @param name 名前
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * タイムアウトを設定する。
+     *
+     * @param timeout タイムアウト
+     */
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * 子コンポーネントを設定する。
+     *
+     * @param child 子コンポーネント
+     */
+    public void setChild(SyntheticComponent child) {
+        this.child = child;
+    }
+
+    /**
+     * サービスを設定する。
+     *
+     * @param service サービス
+     */
+    public void setService(SyntheticService service) {
+        this.service = service;
+    }
+
+    /**
+     * 初期化済みか否かを取得する。
+     *
+     * @return 初期化済みの場合 true
+     */
+    public boolean isInitialized() {
+        return initialized;
+    }
+}
@@ -0,0 +1,7 @@
+package nablarch.core.repository.di.config.xml;
+
+/**
+ * ベンチマーク用に生成したコンポーネント定義で、型によるオートワイヤの対象となるインタフェース。
+ */
+public interface SyntheticService {
+}
@@ -0,0 +1,7 @@
+package nablarch.core.repository.di.config.xml;
+
+/**
+ * {@link SyntheticService}の実装クラス。
+ */
+public class SyntheticServiceImpl implements SyntheticService {
+}
@@ -0,0 +1,314 @@
+package nablarch.core.repository;
+
+import java.nio.charset.Charset;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 文字列のキーと値を、UTF-8のバイト配列に詰めて保持する読み取り専用のMap。
+ * <p/>
+ * 大量の設定値を保持する場合に、エントリごとのオブジェクト(Mapのエントリ、キーと値の文字列)を作成しないことで、
+ * ヒープの使用量を削減する。キーと値の文字列は、取得時にデコードして作成する。
+ * このため、同じキーで取得した値は等しいが、同一のインスタンスとは限らない。
+ * <p/>
+ * キーの探索には、オープンアドレス法のハッシュ表を使用し、キーはデコードせずにバイト列のまま比較する。
+ * 同じ値はバイト配列上の同じ位置を共有する。
+ * サロゲートを含む文字列と文字列以外の値は、UTF-8との相互変換で元の値に戻らない場合があるため、別のMapに保持する。
+ * <p/>
+ * 生成後は状態を変更しないため、スレッドセーフである。
+ * 変更するメソッドは{@link UnsupportedOperationException}を送出する。
+ */
+final class CompactStringMap extends AbstractMap<String, Object> {
+
+    /** UTF-8 */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** エントリあたりの{@link #entries}の要素数(キーの位置、キーの長さ、値の位置、値の長さ) */
+    private static final int ENTRY_WIDTH = 4;
+
+    /** キーと値のバイト列 */
+    private final byte[] data;
+
+    /** エントリごとの、{@link #data}上のキーと値の位置と長さ */
+    private final int[] entries;
+
+    /** エントリごとの、キーのハッシュ値 */
+    private final int[] hashes;
+
+    /** ハッシュ表(エントリの添字に1を加えた値。0は空き) */
+    private final int[] table;
+
+    /** バイト配列に保持したエントリの数 */
+    private final int size;
+
+    /** バイト配列に保持できないエントリ */
+    private final Map<String, Object> others;
+
+    /** エントリのSet */
+    private Set<Map.Entry<String, Object>> entrySet;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param values 保持するキーと値
+     */
+    CompactStringMap(Map<String, ?> values) {
+        byte[] buf = new byte[Math.max(values.size() * 16, 16)];
+        int length = 0;
+        int[] positions = new int[values.size() * ENTRY_WIDTH];
+        int[] keyHashes = new int[values.size()];
+        int count = 0;
+        Map<String, Object> unpacked = new HashMap<String, Object>();
+        // 同じ値は同じ位置を共有する(作成時のみ使用する)
+        Map<String, Integer> valuePositions = new HashMap<String, Integer>();
+
+        for (Map.Entry<String, ?> entry : values.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            if (!(value instanceof String) || !isPackable(key) || !isPackable((String) value)) {
+                unpacked.put(key, value);
+                continue;
+            }
+            byte[] keyBytes = key.getBytes(UTF8);
+            buf = ensureCapacity(buf, length + keyBytes.length);
+            System.arraycopy(keyBytes, 0, buf, length, keyBytes.length);
+            int base = count * ENTRY_WIDTH;
+            positions[base] = length;
+            positions[base + 1] = keyBytes.length;
+            length += keyBytes.length;
+
+            Integer valueEntry = valuePositions.get(value);
+            if (valueEntry != null) {
+                positions[base + 2] = positions[valueEntry * ENTRY_WIDTH + 2];
+                positions[base + 3] = positions[valueEntry * ENTRY_WIDTH + 3];
+            } else {
+                byte[] valueBytes = ((String) value).getBytes(UTF8);
+                buf = ensureCapacity(buf, length + valueBytes.length);
+                System.arraycopy(valueBytes, 0, buf, length, valueBytes.length);
+                positions[base + 2] = length;
+                positions[base + 3] = valueBytes.length;
+                length += valueBytes.length;
+                valuePositions.put((String) value, count);
+            }
+            keyHashes[count] = key.hashCode();
+            count++;
+        }
+
+        data = Arrays.copyOf(buf, length);
+        entries = Arrays.copyOf(positions, count * ENTRY_WIDTH);
+        hashes = Arrays.copyOf(keyHashes, count);
+        size = count;
+        others = unpacked.isEmpty() ? Collections.<String, Object>emptyMap() : unpacked;
+
+        // 使用率が1/2以下となるハッシュ表
+        int capacity = 2;
+        while (capacity < count * 2) {
+            capacity <<= 1;
+        }
+        table = new int[capacity];
+        for (int i = 0; i < count; i++) {
+            int slot = spread(hashes[i]) & (capacity - 1);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            table[slot] = i + 1;
+        }
+    }
+
+    @Override
+    public Object get(Object key) {
+        int index = indexOf(key);
+        if (index >= 0) {
+            return decode(entries[index * ENTRY_WIDTH + 2], entries[index * ENTRY_WIDTH + 3]);
+        }
+        return others.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0 || others.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return size + others.size();
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /**
+     * キーに対応するエントリの添字を取得する。
+     *
+     * @param key キー
+     * @return エントリの添字(バイト配列に保持していない場合は-1)
+     */
+    private int indexOf(Object key) {
+        if (!(key instanceof String) || size == 0) {
+            return -1;
+        }
+        int hash = key.hashCode();
+        int mask = table.length - 1;
+        int slot = spread(hash) & mask;
+        while (table[slot] != 0) {
+            int index = table[slot] - 1;
+            if (hashes[index] == hash
+                    && matches((String) key, entries[index * ENTRY_WIDTH], entries[index * ENTRY_WIDTH + 1])) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * 文字列をUTF-8でエンコードしたバイト列が、バイト配列の範囲と一致するか否かを判定する。
+     * <p/>
+     * 文字列は1文字ずつエンコードしながら比較し、新たなオブジェクトは作成しない。
+     * バイト配列にはサロゲートを含む文字列を保持しないため、サロゲートを含む文字列は一致しない。
+     *
+     * @param key 文字列
+     * @param offset 開始位置
+     * @param length 長さ
+     * @return 一致する場合 true
+     */
+    private boolean matches(String key, int offset, int length) {
+        int pos = offset;
+        int end = offset + length;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < 0x80) {
+                if (pos >= end || data[pos++] != (byte) c) {
+                    return false;
+                }
+            } else if (c < 0x800) {
+                if (pos + 2 > end
+                        || data[pos++] != (byte) (0xC0 | (c >> 6))
+                        || data[pos++] != (byte) (0x80 | (c & 0x3F))) {
+                    return false;
+                }
+            } else if (c >= '\uD800' && c <= '\uDFFF') {
+                return false;
+            } else {
+                if (pos + 3 > end
+                        || data[pos++] != (byte) (0xE0 | (c >> 12))
+                        || data[pos++] != (byte) (0x80 | ((c >> 6) & 0x3F))
+                        || data[pos++] != (byte) (0x80 | (c & 0x3F))) {
+                    return false;
+                }
+            }
+        }
+        return pos == end;
+    }
+
+    /**
+     * バイト配列の範囲を文字列にデコードする。
+     *
+     * @param offset 開始位置
+     * @param length 長さ
+     * @return 文字列
+     */
+    private String decode(int offset, int length) {
+        return new String(data, offset, length, UTF8);
+    }
+
+    /**
+     * 文字列がUTF-8との相互変換で元に戻るか否かを判定する。
+     * <p/>
+     * サロゲートを含まない文字列のみ、元に戻るものとする。
+     *
+     * @param value 文字列
+     * @return 元に戻る場合 true
+     */
+    private static boolean isPackable(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '\uD800' && c <= '\uDFFF') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 容量が不足する場合に、バイト配列を拡張する。
+     *
+     * @param buf バイト配列
+     * @param required 必要な長さ
+     * @return 必要な長さ以上のバイト配列
+     */
+    private static byte[] ensureCapacity(byte[] buf, int required) {
+        if (buf.length >= required) {
+            return buf;
+        }
+        return Arrays.copyOf(buf, Math.max(required, buf.length * 2));
+    }
+
+    /**
+     * ハッシュ値の上位ビットを下位ビットに拡散する。
+     *
+     * @param hash ハッシュ値
+     * @return 拡散したハッシュ値
+     */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * エントリのSet。
+     * <p/>
+     * バイト配列に保持したエントリを保持した順に返却し、その後に別のMapに保持したエントリを返却する。
+     */
+    private final class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+
+        @Override
+        public Iterator<Map.Entry<String, Object>> iterator() {
+            return new Iterator<Map.Entry<String, Object>>() {
+
+                /** 次に返却するエントリの添字 */
+                private int next = 0;
+
+                /** 別のMapに保持したエントリのイテレータ */
+                private final Iterator<Map.Entry<String, Object>> rest = others.entrySet().iterator();
+
+                public boolean hasNext() {
+                    return next < size || rest.hasNext();
+                }
+
+                public Map.Entry<String, Object> next() {
+                    if (next < size) {
+                        int base = next++ * ENTRY_WIDTH;
+                        return new SimpleImmutableEntry<String, Object>(
+                                decode(entries[base], entries[base + 1]), decode(entries[base + 2], entries[base + 3]));
+                    }
+                    if (!rest.hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Map.Entry<String, Object> entry = rest.next();
+                    return new SimpleImmutableEntry<String, Object>(entry.getKey(), entry.getValue());
+                }
+
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return CompactStringMap.this.size();
+        }
+    }
+}
@@ -5,6 +5,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -67,6 +71,9 @@ import nablarch.core.util.annotation.Published;
  * <p/>
  * なお、本クラスはデフォルトでは設定ファイルをUTF-8エンコーディングで読み込む。
  * エンコーディングを変更する場合は、ConfigFileクラスのencodingプロパティにエンコーディングを設定してから load() メソッドを呼び出すこと。
+ * <p/>
+ * 大量のキーを記述した設定ファイルを読み込む場合は、{@link #setBulkParse(boolean)}で一括解析を指定できる。
+ * また、読み込み結果を保持し続けるヒープの使用量は、{@link #setCompactValues(boolean)}で削減できる。
  * 
  * @author Koichi Asano 
  * @see nablarch.core.repository.di.config.xml.schema.ConfigFile
@@ -113,6 +120,16 @@ public class ConfigFileLoader implements ObjectLoader {
      */
     private String encoding;
 
+    /**
+     * ファイル全体を一括で読み込んで解析するか否か。
+     */
+    private boolean bulkParse = false;
+
+    /**
+     * 読み込み結果を、文字列をバイト配列に詰めた読み取り専用のMapで返却するか否か。
+     */
+    private boolean compactValues = false;
+
     /**
      * コンストラクタ。
      * 
@@ -152,6 +169,72 @@ public class ConfigFileLoader implements ObjectLoader {
         this.encoding = encoding;
     }
 
+    /**
+     * ロードするファイルを表すURL表現を取得する。
+     * 
+     * @return ロードするファイルを表すURL表現(ストリームを指定した場合はnull)
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * ファイルのエンコーディングを取得する。
+     * 
+     * @return ファイルのエンコーディング(指定しなかった場合はnull)
+     */
+    public String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * ファイル全体を一括で読み込んで解析するか否かを取得する。
+     * 
+     * @return 一括で解析する場合 true
+     */
+    public boolean isBulkParse() {
+        return bulkParse;
+    }
+
+    /**
+     * ファイル全体を一括で読み込んで解析するか否かを設定する。
+     * <p/>
+     * trueを指定した場合、ファイルの内容をバイト列として一括で読み込んでから文字列にデコードし、
+     * 行単位の文字列を作成せずに区切り文字を探索する。
+     * キーと値の文字列は、エスケープ文字を含む場合を除き、デコード結果から直接作成する。
+     * エスケープ、コメント、行連結の解釈と読み込み結果は、一括で解析しない場合と同じとなる。
+     * デフォルトはfalse(1行ずつ読み込んで解析する)。
+     * 
+     * @param bulkParse 一括で解析する場合 true
+     */
+    public void setBulkParse(boolean bulkParse) {
+        this.bulkParse = bulkParse;
+    }
+
+    /**
+     * 読み込み結果を、文字列をバイト配列に詰めた読み取り専用のMapで返却するか否かを取得する。
+     * 
+     * @return 読み取り専用のMapで返却する場合 true
+     */
+    public boolean isCompactValues() {
+        return compactValues;
+    }
+
+    /**
+     * 読み込み結果を、文字列をバイト配列に詰めた読み取り専用のMapで返却するか否かを設定する。
+     * <p/>
+     * trueを指定した場合、キーと値をUTF-8のバイト配列に詰めて保持し、同じ値は1つだけ保持する。
+     * キーと値の文字列は、{@link Map#get(Object)}などで取得する都度デコードするため、
+     * 大量の設定値を読み込む場合に、保持し続けるヒープの使用量を削減できる。
+     * 返却するMapの内容は、falseを指定した場合と同じとなる。
+     * デフォルトはfalse({@link HashMap}で返却する)。
+     * 
+     * @param compactValues 読み取り専用のMapで返却する場合 true
+     */
+    public void setCompactValues(boolean compactValues) {
+        this.compactValues = compactValues;
+    }
+
     /**
      * {@inheritDoc} <br/>
      * 
@@ -183,10 +266,14 @@ public class ConfigFileLoader implements ObjectLoader {
                 configFileEncoding = DEFAULT_CONFIG_FILE_ENCODING;
             }
 
-            reader = new BufferedReader(new InputStreamReader(inStream,
-                    configFileEncoding));
+            if (bulkParse) {
+                values = readBulk(inStream, configFileEncoding);
+            } else {
+                reader = new BufferedReader(new InputStreamReader(inStream,
+                        configFileEncoding));
 
-            values = readFile(reader);
+                values = readFile(reader);
+            }
         } catch (UnsupportedEncodingException e) {
             throw new RuntimeException(
                     "config file read failed.", e);
@@ -196,6 +283,9 @@ public class ConfigFileLoader implements ObjectLoader {
                     "config file read failed.", e);
         } finally {
             FileUtil.closeQuietly(reader);
+            if (bulkParse) {
+                FileUtil.closeQuietly(inStream);
+            }
             if (url != null) {
                 if (LOGGER.isTraceEnabled()) {
                     LOGGER.logTrace(" config file closed. "
@@ -204,6 +294,9 @@ public class ConfigFileLoader implements ObjectLoader {
             }
         }
 
+        if (compactValues) {
+            return new CompactStringMap(values);
+        }
         return values;
     }
 
@@ -277,6 +370,238 @@ public class ConfigFileLoader implements ObjectLoader {
         return values;
     }
 
+    /**
+     * ファイル全体を一括で読み込み、解析する。
+     * 
+     * @param in ファイルの入力ストリーム
+     * @param configFileEncoding ファイルのエンコーディング
+     * @return 読み込み結果
+     * @throws IOException 読み込みに失敗した場合
+     */
+    private Map<String, Object> readBulk(InputStream in, String configFileEncoding) throws IOException {
+        Charset charset;
+        try {
+            charset = Charset.forName(configFileEncoding);
+        } catch (IllegalArgumentException e) {
+            // InputStreamReaderと同じ例外とする。
+            throw new UnsupportedEncodingException(configFileEncoding);
+        }
+        CharBuffer decoded = charset.decode(readAll(in));
+        int offset = decoded.arrayOffset() + decoded.position();
+        return parse(decoded.array(), offset, offset + decoded.remaining());
+    }
+
+    /**
+     * 入力ストリームの内容を全て読み込む。
+     * 
+     * @param in 入力ストリーム
+     * @return 読み込んだバイト列
+     * @throws IOException 読み込みに失敗した場合
+     */
+    private static ByteBuffer readAll(InputStream in) throws IOException {
+        byte[] buf = new byte[Math.max(in.available() + 1, 8192)];
+        int length = 0;
+        int n;
+        while ((n = in.read(buf, length, buf.length - length)) != -1) {
+            length += n;
+            if (length == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+        }
+        return ByteBuffer.wrap(buf, 0, length);
+    }
+
+    /**
+     * デコード済みの文字列を解析する。
+     * <p/>
+     * 行の区切り({@link BufferedReader#readLine()}と同じく、LF、CR、CRLFのいずれか)、
+     * コメント、行連結を文字配列の添字で扱い、1行ずつ読み込む場合と同じ結果を返す。
+     * 行連結した文のみ、連結した文字列を作業用の配列に作成する。
+     * 
+     * @param chars 文字配列
+     * @param offset 開始位置
+     * @param end 終了位置
+     * @return 読み込み結果
+     */
+    private Map<String, Object> parse(char[] chars, int offset, int end) {
+        Map<String, Object> values = new HashMap<String, Object>();
+        char[] joined = new char[0]; // 行連結した文
+        int pos = offset;
+
+        // 一文(行末にESC_CHARがある場合に複数行を連結したもの)を読み込み
+        while (pos < end) {
+            int joinedLength = -1; // 行連結していない場合は-1
+            boolean complete = false;
+            int start = 0;
+            int stop = 0;
+            while (pos < end) {
+                int lineEnd = pos;
+                while (lineEnd < end && chars[lineEnd] != '\n' && chars[lineEnd] != '\r') {
+                    lineEnd++;
+                }
+                start = pos;
+                stop = lineEnd;
+                pos = lineEnd;
+                if (pos < end) {
+                    pos += chars[pos] == '\r' && pos + 1 < end && chars[pos + 1] == '\n' ? 2 : 1;
+                }
+
+                // 前後の空白を除去(String#trimと同じ)
+                while (start < stop && chars[start] <= ' ') {
+                    start++;
+                }
+                while (start < stop && chars[stop - 1] <= ' ') {
+                    stop--;
+                }
+
+                // コメント削除（エスケープされていないCOMMENT_CHARを判定）
+                stop = removeComment(chars, start, stop);
+
+                // 行連結（エスケープされていないESC_CHARを判定）
+                int escCnt = 0; // 文後方からの連続したESC_CHARの数
+                for (int i = stop - 1; i >= start && chars[i] == ESC_CHAR; i--) {
+                    escCnt++;
+                }
+                if (escCnt % 2 != 0) {
+                    // 行末のESC_CHARを削って、次の行を連結
+                    joinedLength = Math.max(joinedLength, 0);
+                    joined = append(joined, joinedLength, chars, start, stop - 1);
+                    joinedLength += stop - 1 - start;
+                    continue;
+                }
+                complete = true;
+                break;
+            }
+            if (!complete) {
+                // 行連結の途中でファイルが終了した文は読み込まない
+                break;
+            }
+            if (joinedLength < 0) {
+                parseSentence(values, chars, start, stop);
+            } else {
+                joined = append(joined, joinedLength, chars, start, stop);
+                parseSentence(values, joined, 0, joinedLength + stop - start);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 一文を解析し、キーと値を格納する。
+     * 
+     * @param values 読み込み結果
+     * @param sentence 文を含む文字配列
+     * @param start 文の開始位置
+     * @param stop 文の終了位置
+     */
+    private void parseSentence(Map<String, Object> values, char[] sentence, int start, int stop) {
+        // キー取得
+        int i = start;
+        for (; i < stop; i++) {
+            if (sentence[i] == ESC_CHAR) {
+                i++;
+            } else if (sentence[i] == DELIMITER_CHAR) {
+                break;
+            }
+        }
+        if (i >= stop) {
+            // 構文NG
+            return;
+        }
+        String trimmedKey = unescapeAndTrim(sentence, start, i);
+        if (trimmedKey.length() == 0) {
+            // 構文NG
+            return;
+        }
+
+        // 値取得
+        String trimmedValue = unescapeAndTrim(sentence, i + 1, stop);
+
+        // キーと値を格納
+        if (0 != trimmedValue.length()) {
+            if (values.containsKey(trimmedKey)) {
+                logWarn("duplicate key ["
+                        + trimmedKey + "]. change [" + values.get(trimmedKey)
+                        + "] to [" + trimmedValue + "]");
+            }
+
+            values.put(trimmedKey, trimmedValue);
+        }
+    }
+
+    /**
+     * エスケープ文字を解釈し、前後の空白を除去した文字列を作成する。
+     * 
+     * @param chars 文字配列
+     * @param start 開始位置
+     * @param stop 終了位置
+     * @return 作成した文字列
+     */
+    private static String unescapeAndTrim(char[] chars, int start, int stop) {
+        int escape = start;
+        while (escape < stop && chars[escape] != ESC_CHAR) {
+            escape++;
+        }
+        if (escape == stop) {
+            while (start < stop && chars[start] <= ' ') {
+                start++;
+            }
+            while (start < stop && chars[stop - 1] <= ' ') {
+                stop--;
+            }
+            return new String(chars, start, stop - start);
+        }
+        StringBuilder sb = new StringBuilder(stop - start);
+        sb.append(chars, start, escape - start);
+        for (int i = escape; i < stop; i++) {
+            if (chars[i] == ESC_CHAR) {
+                // 行末にESC_CHARがないことは保証されている。
+                i++;
+            }
+            sb.append(chars[i]);
+        }
+        return sb.toString().trim();
+    }
+
+    /**
+     * 1行の範囲からコメントを削除する。
+     * 
+     * @param chars 文字配列
+     * @param start 行の開始位置
+     * @param stop 行の終了位置
+     * @return コメントを除いた行の終了位置
+     */
+    private static int removeComment(char[] chars, int start, int stop) {
+        for (int i = start; i < stop; i++) {
+            if (chars[i] == ESC_CHAR) {
+                // エスケープは無視
+                i++;
+            } else if (chars[i] == COMMENT_CHAR) {
+                return i;
+            }
+        }
+        return stop;
+    }
+
+    /**
+     * 作業用の配列に文字を追加する。
+     * 
+     * @param buffer 作業用の配列
+     * @param length 作業用の配列の使用済みの長さ
+     * @param chars 追加する文字を含む文字配列
+     * @param start 追加する文字の開始位置
+     * @param stop 追加する文字の終了位置
+     * @return 作業用の配列(容量が不足した場合は拡張した配列)
+     */
+    private static char[] append(char[] buffer, int length, char[] chars, int start, int stop) {
+        int required = length + stop - start;
+        if (buffer.length < required) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length * 2));
+        }
+        System.arraycopy(chars, start, buffer, length, stop - start);
+        return buffer;
+    }
+
     /**
      * ワーニングログを出力する。
      * @param warnMessage ワーニングログメッセージ
@@ -0,0 +1,350 @@
+package nablarch.core.repository.di;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 差分再読み込みで、再読み込み前のコンポーネントを引き継げるコンポーネントホルダを判定するクラス。
+ * <p/>
+ * 再読み込み後のコンポーネント定義を、再読み込み前のコンポーネント定義と名前で対応付ける。
+ * 名前を持たないコンポーネント(ネストしたコンポーネントやリテラル値)は、
+ * 対応付けたコンポーネント定義の参照先を、参照の定義順に対応付ける。
+ * 対応付けたコンポーネントは、下記の全てを満たす場合に引き継ぐ。
+ * <ul>
+ * <li>再読み込み前のコンポーネントのインジェクションが完了している。</li>
+ * <li>名前、クラス、生成方法({@link ComponentConfigurationComparable})、プロパティの参照の定義が同じ。</li>
+ * <li>参照先のコンポーネント(名前、型、IDのいずれで参照する場合も)が、再読み込み前の参照先から引き継いだものである。</li>
+ * </ul>
+ * 参照先のコンポーネントを引き継げない場合は、参照元のコンポーネントも再生成する。
+ * 循環参照するコンポーネントは、全てを引き継げる場合にのみ引き継ぐ。
+ */
+final class ComponentCarryOver {
+
+    /** 再読み込み前のコンポーネントを引き継げる対応付け(再読み込み後のホルダをキーにする) */
+    private final Map<ComponentHolder, ComponentHolder> pairs = new IdentityHashMap<ComponentHolder, ComponentHolder>();
+
+    /**
+     * コンストラクタ。
+     *
+     * @param previous 再読み込み前のコンポーネントホルダの索引
+     * @param current 再読み込み後のコンポーネントホルダの索引
+     */
+    ComponentCarryOver(Index previous, Index current) {
+        int expectedSize = current.holders.size();
+        Map<ComponentHolder, Pair> candidates = new IdentityHashMap<ComponentHolder, Pair>(expectedSize);
+        Set<ComponentHolder> usedPrevious = Collections.newSetFromMap(
+                new IdentityHashMap<ComponentHolder, Boolean>(expectedSize));
+        List<Pair> queue = new ArrayList<Pair>(expectedSize);
+        for (Map.Entry<String, ComponentHolder> entry : current.nameIndex.entrySet()) {
+            addCandidate(entry.getValue(), previous.nameIndex.get(entry.getKey()), candidates, usedPrevious, queue);
+        }
+        // 対応付けたコンポーネントの参照先を、参照の定義順に対応付ける。
+        for (int i = 0; i < queue.size(); i++) {
+            Pair pair = queue.get(i);
+            if (!isSameDefinition(pair.current.getDefinition(), pair.previous.getDefinition())) {
+                continue;
+            }
+            pair.currentTargets = collectTargets(pair.current.getDefinition(), current);
+            pair.previousTargets = collectTargets(pair.previous.getDefinition(), previous);
+            if (pair.currentTargets.length != pair.previousTargets.length) {
+                continue;
+            }
+            pair.sameDefinition = true;
+            for (int j = 0; j < pair.currentTargets.length; j++) {
+                addCandidate(pair.currentTargets[j], pair.previousTargets[j], candidates, usedPrevious, queue);
+            }
+        }
+
+        // 引き継げないコンポーネントを取り除き、その参照元も取り除く。
+        List<Pair> removed = new ArrayList<Pair>();
+        for (Pair pair : queue) {
+            if (!pair.sameDefinition
+                    || pair.previous.getState() != ComponentState.INJECTED
+                    || pair.current.getState() != ComponentState.NOT_INSTANTIATE
+                    || !linkTargets(pair, candidates)) {
+                pair.removed = true;
+                removed.add(pair);
+            }
+        }
+        for (int i = 0; i < removed.size(); i++) {
+            for (Pair dependent : removed.get(i).dependents) {
+                if (!dependent.removed) {
+                    dependent.removed = true;
+                    removed.add(dependent);
+                }
+            }
+        }
+
+        for (Pair pair : queue) {
+            if (!pair.removed) {
+                pairs.put(pair.current, pair.previous);
+            }
+        }
+    }
+
+    /**
+     * 再読み込み前のコンポーネントを引き継げる対応付けを取得する。
+     *
+     * @return 再読み込み後のコンポーネントホルダをキーに、再読み込み前のコンポーネントホルダを値にしたMap
+     */
+    Map<ComponentHolder, ComponentHolder> getPairs() {
+        return pairs;
+    }
+
+    /**
+     * 対応付けの候補を追加する。
+     * <p/>
+     * 再読み込み前後のいずれかのホルダが、既に別のホルダと対応付けられている場合は追加しない。
+     *
+     * @param current 再読み込み後のホルダ
+     * @param previous 再読み込み前のホルダ
+     * @param candidates 再読み込み後のホルダをキーにした候補
+     * @param usedPrevious 候補に含まれる再読み込み前のホルダ
+     * @param queue 候補のリスト
+     */
+    private static void addCandidate(ComponentHolder current, ComponentHolder previous,
+            Map<ComponentHolder, Pair> candidates, Set<ComponentHolder> usedPrevious, List<Pair> queue) {
+        if (current == null || previous == null
+                || candidates.containsKey(current) || usedPrevious.contains(previous)) {
+            return;
+        }
+        Pair pair = new Pair(current, previous);
+        candidates.put(current, pair);
+        usedPrevious.add(previous);
+        queue.add(pair);
+    }
+
+    /**
+     * 参照先の対応付けを、参照元として登録する。
+     * <p/>
+     * 参照先が、再読み込み前の参照先と対応付けられていない場合は登録しない。
+     *
+     * @param pair 対応付け
+     * @param candidates 再読み込み後のホルダをキーにした候補
+     * @return 全ての参照先が、再読み込み前の参照先と対応付けられている場合 true
+     */
+    private static boolean linkTargets(Pair pair, Map<ComponentHolder, Pair> candidates) {
+        for (int i = 0; i < pair.currentTargets.length; i++) {
+            ComponentHolder currentTarget = pair.currentTargets[i];
+            ComponentHolder previousTarget = pair.previousTargets[i];
+            if (currentTarget == null || previousTarget == null) {
+                if (currentTarget != previousTarget) {
+                    return false;
+                }
+                continue;
+            }
+            Pair target = candidates.get(currentTarget);
+            if (target == null || target.previous != previousTarget) {
+                return false;
+            }
+        }
+        for (ComponentHolder currentTarget : pair.currentTargets) {
+            if (currentTarget != null) {
+                candidates.get(currentTarget).addDependent(pair);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * コンポーネント定義が、IDを除いて同じか否かを判定する。
+     *
+     * @param current 再読み込み後の定義
+     * @param previous 再読み込み前の定義
+     * @return 同じ場合 true
+     */
+    private static boolean isSameDefinition(ComponentDefinition current, ComponentDefinition previous) {
+        if (!equals(current.getName(), previous.getName())
+                || current.getType() != previous.getType()
+                || current.isUseIdOnly() != previous.isUseIdOnly()
+                || current.isLazyInit() != previous.isLazyInit()) {
+            return false;
+        }
+        ComponentCreator creator = current.getCreator();
+        if (!(creator instanceof ComponentConfigurationComparable)
+                || !(creator instanceof ComponentDependencyAware)
+                || !((ComponentConfigurationComparable) creator).isSameConfiguration(previous.getCreator())) {
+            return false;
+        }
+        // インジェクションを委譲する場合は、生成と同じオブジェクトに委譲する場合のみ比較できる。
+        if ((current.getInjector() != null && current.getInjector() != creator)
+                || (previous.getInjector() != null && previous.getInjector() != previous.getCreator())
+                || (current.getInjector() == null) != (previous.getInjector() == null)) {
+            return false;
+        }
+        List<ComponentReference> currentRefs = current.getReferences();
+        List<ComponentReference> previousRefs = previous.getReferences();
+        if (currentRefs.size() != previousRefs.size()) {
+            return false;
+        }
+        for (int i = 0; i < currentRefs.size(); i++) {
+            ComponentReference currentRef = currentRefs.get(i);
+            ComponentReference previousRef = previousRefs.get(i);
+            if (!equals(currentRef.getPropertyName(), previousRef.getPropertyName())
+                    || !equals(currentRef.getReferenceName(), previousRef.getReferenceName())
+                    || currentRef.getRequiredType() != previousRef.getRequiredType()
+                    || currentRef.getInjectionType() != previousRef.getInjectionType()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * コンポーネント定義が参照するコンポーネントのホルダを、参照の定義順に収集する。
+     * <p/>
+     * 参照先が存在しない場合は、nullを要素に含める。
+     *
+     * @param def コンポーネント定義
+     * @param index コンポーネントホルダの索引
+     * @return 参照先のホルダのリスト
+     */
+    private static ComponentHolder[] collectTargets(ComponentDefinition def, Index index) {
+        ComponentDependencyAware aware = (ComponentDependencyAware) def.getCreator();
+        List<Integer> ids = aware.getReferencedIds();
+        List<String> names = aware.getReferencedNames();
+        List<ComponentReference> refs = def.getReferences();
+        ComponentHolder[] targets = new ComponentHolder[ids.size() + names.size() + refs.size()];
+        int i = 0;
+        for (Integer id : ids) {
+            targets[i++] = index.getById(id);
+        }
+        for (String name : names) {
+            targets[i++] = index.nameIndex.get(name);
+        }
+        for (ComponentReference ref : refs) {
+            switch (ref.getInjectionType()) {
+            case ID:
+                targets[i++] = index.getById(ref.getTargetId());
+                break;
+            case BY_TYPE:
+                targets[i++] = index.typeIndex.get(ref.getRequiredType());
+                break;
+            default:
+                targets[i++] = index.nameIndex.get(ref.getReferenceName());
+                break;
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * nullを考慮してオブジェクトが等しいか否かを判定する。
+     *
+     * @param o1 オブジェクト
+     * @param o2 オブジェクト
+     * @return 等しい場合 true
+     */
+    private static boolean equals(Object o1, Object o2) {
+        return o1 == null ? o2 == null : o1.equals(o2);
+    }
+
+    /**
+     * 再読み込み前後のコンポーネントホルダの対応付け。
+     */
+    private static final class Pair {
+
+        /** 再読み込み後のホルダ */
+        private final ComponentHolder current;
+
+        /** 再読み込み前のホルダ */
+        private final ComponentHolder previous;
+
+        /** 定義が同じか否か */
+        private boolean sameDefinition;
+
+        /** 再読み込み後の参照先(参照先が存在しない場合はnullを要素に含む) */
+        private ComponentHolder[] currentTargets;
+
+        /** 再読み込み前の参照先(参照先が存在しない場合はnullを要素に含む) */
+        private ComponentHolder[] previousTargets;
+
+        /** このコンポーネントを参照する対応付け */
+        private List<Pair> dependents = Collections.emptyList();
+
+        /** 引き継げないと判定したか否か */
+        private boolean removed;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param current 再読み込み後のホルダ
+         * @param previous 再読み込み前のホルダ
+         */
+        Pair(ComponentHolder current, ComponentHolder previous) {
+            this.current = current;
+            this.previous = previous;
+        }
+
+        /**
+         * このコンポーネントを参照する対応付けを追加する。
+         *
+         * @param dependent 参照元の対応付け
+         */
+        void addDependent(Pair dependent) {
+            if (dependents.isEmpty()) {
+                dependents = new ArrayList<Pair>(2);
+            }
+            dependents.add(dependent);
+        }
+    }
+
+    /**
+     * コンポーネントホルダの索引。
+     */
+    static final class Index {
+
+        /** idをキーにしたコンポーネントホルダ */
+        private final Map<Integer, ComponentHolder> holders;
+
+        /** コンポーネントIDを添字にしたコンポーネントホルダ */
+        private final ComponentHolder[] byId;
+
+        /** 名前をキーにしたコンポーネントホルダ */
+        private final Map<String, ComponentHolder> nameIndex;
+
+        /** 型をキーにしたコンポーネントホルダ */
+        private final Map<Class<?>, ComponentHolder> typeIndex;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param holders idをキーにしたコンポーネントホルダ
+         * @param nameIndex 名前をキーにしたコンポーネントホルダ
+         * @param typeIndex 型をキーにしたコンポーネントホルダ
+         */
+        Index(Map<Integer, ComponentHolder> holders,
+                Map<String, ComponentHolder> nameIndex,
+                Map<Class<?>, ComponentHolder> typeIndex) {
+            this.holders = holders;
+            this.nameIndex = nameIndex;
+            this.typeIndex = typeIndex;
+            // ローダが任意のIDを採番した場合でも配列が過大とならないよう、長さに上限を設ける。
+            int length = 0;
+            for (Integer id : holders.keySet()) {
+                length = Math.max(length, id + 1);
+            }
+            byId = new ComponentHolder[Math.min(length, holders.size() * 2 + 16)];
+            for (Map.Entry<Integer, ComponentHolder> entry : holders.entrySet()) {
+                int id = entry.getKey();
+                if (id >= 0 && id < byId.length) {
+                    byId[id] = entry.getValue();
+                }
+            }
+        }
+
+        /**
+         * コンポーネントIDをキーにコンポーネントホルダを取得する。
+         *
+         * @param id コンポーネントID
+         * @return コンポーネントホルダ(存在しない場合はnull)
+         */
+        ComponentHolder getById(int id) {
+            return id >= 0 && id < byId.length ? byId[id] : holders.get(id);
+        }
+    }
+}
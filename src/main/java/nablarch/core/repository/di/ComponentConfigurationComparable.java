@@ -0,0 +1,24 @@
+package nablarch.core.repository.di;
+
+/**
+ * コンポーネントを生成する設定が、他の{@link ComponentCreator}と同じか否かを判定するインタフェース。<br/>
+ * {@link ComponentCreator}がこのインタフェースと{@link ComponentDependencyAware}を実装すると、
+ * {@link DiContainer#reloadIncrementally()}は設定が変更されていないコンポーネントを再生成せずに引き継ぐ。
+ * <p/>
+ * このインタフェースを実装しないクラスで生成するコンポーネントは、変更の有無が不明なため常に再生成する。
+ *
+ * @see DiContainer#reloadIncrementally()
+ */
+public interface ComponentConfigurationComparable {
+
+    /**
+     * コンポーネントを生成する設定が同じか否かを判定する。
+     * <p/>
+     * コンポーネントIDはコンポーネント定義の読み込みごとに採番し直すため、IDで参照するコンポーネントのIDは比較しない。
+     * IDで参照するコンポーネントは、{@link ComponentDependencyAware#getReferencedIds()}が返却する順序で対応付ける。
+     *
+     * @param other 比較する{@link ComponentCreator}
+     * @return 設定が同じ場合 true
+     */
+    boolean isSameConfiguration(ComponentCreator other);
+}
@@ -57,6 +57,11 @@ public class ComponentDefinition {
      * 遅延初期化が必要な場合に使用する。
      */
     private ComponentInjector injector;
+
+    /**
+     * 生成を最初に取得されるまで遅延するか否か。
+     */
+    private boolean lazyInit = false;
     
     /**
      * コンポーネントのIDを取得する。
@@ -148,5 +153,23 @@ public class ComponentDefinition {
         this.useIdOnly = useIdOnly;
     }
 
+    /**
+     * 生成を最初に取得されるまで遅延するか否かを取得する。
+     * 
+     * @return 生成を遅延する場合 true
+     */
+    public boolean isLazyInit() {
+        return lazyInit;
+    }
+
+    /**
+     * 生成を最初に取得されるまで遅延するか否かを設定する。
+     * 
+     * @param lazyInit 生成を遅延する場合 true
+     */
+    public void setLazyInit(boolean lazyInit) {
+        this.lazyInit = lazyInit;
+    }
+
     
 }
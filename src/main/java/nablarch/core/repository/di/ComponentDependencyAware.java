@@ -0,0 +1,27 @@
+package nablarch.core.repository.di;
+
+import java.util.List;
+
+/**
+ * コンポーネントの生成およびインジェクションで参照する、他のコンポーネントを公開するインタフェース。<br/>
+ * {@link ComponentCreator}や{@link ComponentInjector}がこのインタフェースを実装すると、
+ * DIコンテナはコンポーネント間の依存関係を解析し、互いに依存しないコンポーネントを並列に生成できる。
+ * <p/>
+ * このインタフェースを実装しないクラスで生成するコンポーネントは、参照先が不明なため逐次に生成する。
+ *
+ * @see DiContainerOptions#setParallelism(int)
+ */
+public interface ComponentDependencyAware {
+
+    /**
+     * IDで参照するコンポーネントのIDを取得する。
+     * @return コンポーネントIDのリスト
+     */
+    List<Integer> getReferencedIds();
+
+    /**
+     * 名前で参照するコンポーネントの名前を取得する。
+     * @return コンポーネント名のリスト
+     */
+    List<String> getReferencedNames();
+}
@@ -0,0 +1,338 @@
+package nablarch.core.repository.di;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 未生成のコンポーネント間の依存関係を表す有向非巡回グラフ。
+ * <p/>
+ * コンポーネント定義の参照と、{@link ComponentDependencyAware}が公開する参照から依存関係を解析する。
+ * 下記のコンポーネントはグラフに含めない。
+ * <ul>
+ * <li>生成を遅延するコンポーネント</li>
+ * <li>参照先が不明なコンポーネント</li>
+ * <li>循環参照に含まれるコンポーネント</li>
+ * <li>上記のコンポーネントに依存するコンポーネント</li>
+ * </ul>
+ * グラフに含まれるコンポーネントは、依存先の生成とインジェクションが完了していれば、
+ * 他のコンポーネントと並行して生成およびインジェクションできる。
+ */
+final class ComponentDependencyGraph {
+
+    /** 探索状態：未探索 */
+    private static final int UNVISITED = 0;
+
+    /** 探索状態：探索中 */
+    private static final int VISITING = 1;
+
+    /** 探索状態：グラフに含められる */
+    private static final int SCHEDULABLE = 2;
+
+    /** 探索状態：グラフに含められない */
+    private static final int EXCLUDED = 3;
+
+    /** グラフに含まれるノード(コンポーネントIDの順) */
+    private final List<Node> nodes = new ArrayList<Node>();
+
+    /**
+     * コンストラクタ。
+     *
+     * @param holders idをキーにしたコンポーネントホルダ
+     * @param nameIndex 名前をキーにしたコンポーネントホルダ
+     * @param typeIndex 型をキーにしたコンポーネントホルダ
+     * @param lazyInit 全てのコンポーネントの生成を遅延するか否か
+     */
+    ComponentDependencyGraph(Map<Integer, ComponentHolder> holders,
+            Map<String, ComponentHolder> nameIndex,
+            Map<Class<?>, ComponentHolder> typeIndex,
+            boolean lazyInit) {
+
+        List<Node> candidates = new ArrayList<Node>();
+        Map<ComponentHolder, Node> nodeMap = new HashMap<ComponentHolder, Node>(holders.size() * 4 / 3 + 1);
+        for (ComponentHolder holder : holders.values()) {
+            if (holder.getState() == ComponentState.NOT_INSTANTIATE
+                    && !lazyInit && !holder.getDefinition().isLazyInit()) {
+                Node node = new Node(holder);
+                candidates.add(node);
+                nodeMap.put(holder, node);
+            }
+        }
+
+        DependencyCollector collector = new DependencyCollector(holders, nameIndex, typeIndex, nodeMap);
+        for (Node node : candidates) {
+            node.dependencies = collector.collect(node);
+        }
+
+        for (Node node : candidates) {
+            visit(node);
+        }
+
+        for (Node node : candidates) {
+            if (node.visitState != SCHEDULABLE) {
+                continue;
+            }
+            node.pending.set(node.dependencies.size());
+            for (Node dependency : node.dependencies) {
+                if (dependency.dependents.isEmpty()) {
+                    dependency.dependents = new ArrayList<Node>(2);
+                }
+                dependency.dependents.add(node);
+            }
+            nodes.add(node);
+        }
+    }
+
+    /**
+     * グラフに含まれるノードを取得する。
+     * @return ノードのリスト
+     */
+    List<Node> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 依存先を持たないノードを取得する。
+     * @return ノードのリスト
+     */
+    List<Node> getRoots() {
+        List<Node> roots = new ArrayList<Node>();
+        for (Node node : nodes) {
+            if (node.dependencies.isEmpty()) {
+                roots.add(node);
+            }
+        }
+        return roots;
+    }
+
+    /**
+     * ノードを深さ優先で探索し、グラフに含められるか判定する。
+     * <p/>
+     * 依存関係が深い場合にスタックオーバーフローとならないよう、明示的なスタックを使用する。
+     * 探索中のノードに再び到達した場合は循環参照とみなす。
+     *
+     * @param start 探索を開始するノード
+     */
+    private static void visit(Node start) {
+        if (start.visitState != UNVISITED) {
+            return;
+        }
+        List<Node> stack = new ArrayList<Node>();
+        start.visitState = VISITING;
+        stack.add(start);
+        while (!stack.isEmpty()) {
+            Node node = stack.get(stack.size() - 1);
+            if (node.dependencies == null) {
+                // 参照先が不明
+                node.visitState = EXCLUDED;
+            }
+            if (node.visitState == VISITING && node.next < node.dependencies.size()) {
+                Node dependency = node.dependencies.get(node.next++);
+                if (dependency.visitState == UNVISITED) {
+                    dependency.visitState = VISITING;
+                    stack.add(dependency);
+                } else if (dependency.visitState != SCHEDULABLE) {
+                    // 探索中(循環参照)、またはグラフに含められないノード
+                    node.visitState = EXCLUDED;
+                }
+                continue;
+            }
+            stack.remove(stack.size() - 1);
+            if (node.visitState == VISITING) {
+                node.visitState = SCHEDULABLE;
+            } else if (!stack.isEmpty()) {
+                stack.get(stack.size() - 1).visitState = EXCLUDED;
+            }
+        }
+    }
+
+    /**
+     * ノードの依存先を収集するクラス。
+     */
+    private static final class DependencyCollector {
+
+        /** idをキーにしたコンポーネントホルダ */
+        private final Map<Integer, ComponentHolder> holders;
+
+        /** 名前をキーにしたコンポーネントホルダ */
+        private final Map<String, ComponentHolder> nameIndex;
+
+        /** 型をキーにしたコンポーネントホルダ */
+        private final Map<Class<?>, ComponentHolder> typeIndex;
+
+        /** 未生成のコンポーネントホルダのノード */
+        private final Map<ComponentHolder, Node> nodeMap;
+
+        /** 収集中の依存先 */
+        private List<Node> result;
+
+        /** 収集中のノード */
+        private Node current;
+
+        /** 生成途中のコンポーネントを参照しているか否か */
+        private boolean unknown;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param holders idをキーにしたコンポーネントホルダ
+         * @param nameIndex 名前をキーにしたコンポーネントホルダ
+         * @param typeIndex 型をキーにしたコンポーネントホルダ
+         * @param nodeMap 未生成のコンポーネントホルダのノード
+         */
+        DependencyCollector(Map<Integer, ComponentHolder> holders,
+                Map<String, ComponentHolder> nameIndex,
+                Map<Class<?>, ComponentHolder> typeIndex,
+                Map<ComponentHolder, Node> nodeMap) {
+            this.holders = holders;
+            this.nameIndex = nameIndex;
+            this.typeIndex = typeIndex;
+            this.nodeMap = nodeMap;
+        }
+
+        /**
+         * ノードの依存先を収集する。
+         *
+         * @param node ノード
+         * @return 依存先(参照先が不明な場合はnull)
+         */
+        List<Node> collect(Node node) {
+            ComponentDefinition def = node.holder.getDefinition();
+            ComponentCreator creator = def.getCreator();
+            ComponentInjector injector = def.getInjector();
+            if (!(creator instanceof ComponentDependencyAware)) {
+                return null;
+            }
+            if (injector != null && !(injector instanceof ComponentDependencyAware)) {
+                return null;
+            }
+
+            current = node;
+            result = null;
+            unknown = false;
+            addAll((ComponentDependencyAware) creator);
+            // インジェクションを委譲する場合も、コンポーネント定義の参照は依存先とする。
+            for (ComponentReference ref : def.getReferences()) {
+                switch (ref.getInjectionType()) {
+                case ID:
+                    add(holders.get(ref.getTargetId()));
+                    break;
+                case BY_TYPE:
+                    add(typeIndex.get(ref.getRequiredType()));
+                    break;
+                default:
+                    add(nameIndex.get(ref.getReferenceName()));
+                    break;
+                }
+            }
+            if (injector != null && injector != creator) {
+                addAll((ComponentDependencyAware) injector);
+            }
+            if (unknown) {
+                return null;
+            }
+            return result == null ? Collections.<Node>emptyList() : result;
+        }
+
+        /**
+         * {@link ComponentDependencyAware}が公開する参照先を依存先に追加する。
+         *
+         * @param aware 参照先を公開するオブジェクト
+         */
+        private void addAll(ComponentDependencyAware aware) {
+            for (Integer id : aware.getReferencedIds()) {
+                add(holders.get(id));
+            }
+            for (String name : aware.getReferencedNames()) {
+                add(nameIndex.get(name));
+            }
+        }
+
+        /**
+         * 依存先を追加する。
+         * <p/>
+         * 参照先が存在しない場合は追加しない。この場合、生成時に従来通りのエラーとなる。
+         * インジェクションまで完了したコンポーネントは追加しない。
+         * 自身、生成途中のコンポーネント、または生成を遅延するコンポーネントを参照する場合は、参照先が不明として扱う。
+         *
+         * @param holder 参照先のコンポーネントホルダ
+         */
+        private void add(ComponentHolder holder) {
+            if (holder == null || holder.getState() == ComponentState.INJECTED) {
+                return;
+            }
+            Node dependency = nodeMap.get(holder);
+            if (dependency == null || dependency == current) {
+                unknown = true;
+            } else if (dependency.collectedBy != current) {
+                dependency.collectedBy = current;
+                if (result == null) {
+                    result = new ArrayList<Node>();
+                }
+                result.add(dependency);
+            }
+        }
+    }
+
+    /**
+     * グラフのノード。
+     */
+    static final class Node {
+
+        /** コンポーネントホルダ */
+        private final ComponentHolder holder;
+
+        /** このノードに依存するノード */
+        private List<Node> dependents = Collections.emptyList();
+
+        /** 完了していない依存先の数 */
+        private final AtomicInteger pending = new AtomicInteger();
+
+        /** 依存先(参照先が不明な場合はnull) */
+        private List<Node> dependencies;
+
+        /** 探索状態 */
+        private int visitState = UNVISITED;
+
+        /** 次に探索する依存先の位置 */
+        private int next;
+
+        /** 最後に依存先として収集したノード(重複の除去に使用する) */
+        private Node collectedBy;
+
+        /**
+         * コンストラクタ。
+         * @param holder コンポーネントホルダ
+         */
+        Node(ComponentHolder holder) {
+            this.holder = holder;
+        }
+
+        /**
+         * コンポーネントホルダを取得する。
+         * @return コンポーネントホルダ
+         */
+        ComponentHolder getHolder() {
+            return holder;
+        }
+
+        /**
+         * このノードに依存するノードを取得する。
+         * @return ノードのリスト
+         */
+        List<Node> getDependents() {
+            return dependents;
+        }
+
+        /**
+         * 依存先の1つが完了したことを通知する。
+         * @return 全ての依存先が完了した場合 true
+         */
+        boolean completeDependency() {
+            return pending.decrementAndGet() == 0;
+        }
+    }
+}
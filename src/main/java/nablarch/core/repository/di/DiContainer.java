@@ -1,22 +1,38 @@
 package nablarch.core.repository.di;
 
-import java.lang.reflect.Method;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import nablarch.core.log.Logger;
 import nablarch.core.log.LoggerManager;
 import nablarch.core.repository.ObjectLoader;
 import nablarch.core.repository.initialization.ApplicationInitializer;
-import nablarch.core.util.Builder;
-import nablarch.core.util.ObjectUtil;
+import nablarch.core.repository.initialization.SelectiveApplicationInitializer;
 import nablarch.core.util.annotation.Published;
 
 
@@ -52,21 +68,95 @@ public class DiContainer implements ObjectLoader {
      */
     private Set<Class<?>> multiRegisteredType;
 
+    /**
+     * 型をキーに、その型で登録した全てのコンポーネントホルダを登録順に保持するMap。
+     * <p/>
+     * 複数登録された型も保持する。
+     */
+    private Map<Class<?>, List<ComponentHolder>> typeHolders;
+
+    /**
+     * ObjectLoaderからロードした結果を、ロードした順に保持するリスト。
+     * <p/>
+     * コンポーネントとして登録していない値は、後にロードした結果から優先して参照する。
+     * ロード結果は複製せずに保持するため、読み込み結果を必要な時点で作成するMapもそのまま保持できる。
+     * {@link DiContainerOptions#isLazyObjectLoaderValues()}がtrueの場合のみ使用し、
+     * {@link #reload()}の完了後は変更しない。
+     */
+    private List<Map<String, Object>> lazySources = Collections.emptyList();
+
     /**
      * 循環参照の情報を保持するための参照スタック。
      */
     private ReferenceStack refStack = new ReferenceStack();
 
+    /**
+     * 初期化完了後のコンポーネントを保持する凍結インデックス。
+     * <p/>
+     * {@link #reload()}と{@link #updateValues(Map)}は、コンポーネントホルダと索引を持つ別のコンテナ(世代)を構築し、
+     * 構築の完了後に、その世代の凍結インデックスに置き換えて公開する。
+     * 凍結インデックスは作成した世代を参照するため、凍結インデックスにないコンポーネントの取得も、
+     * 凍結インデックスを取得した時点の世代から行う。
+     * 世代の構築中はnullとなる(公開するコンテナでは、コンストラクタの完了後にnullとなることはない)。
+     */
+    private volatile FrozenIndex frozenIndex;
+
+    /**
+     * コンポーネントのクラスをキーにしたインジェクションプラン。
+     * <p/>
+     * 同じクラスの全てのコンポーネントで共有し、{@link #reload()}や{@link #updateValues(Map)}をまたいで再利用する。
+     */
+    private final ConcurrentMap<Class<?>, InjectionPlan> injectionPlans;
+
+    /**
+     * コンポーネントのクラスをキーにした、型のインデックスに登録する型。
+     * <p/>
+     * 同じクラスの全てのコンポーネントで共有し、{@link #reload()}や{@link #updateValues(Map)}をまたいで再利用する。
+     */
+    private final ConcurrentMap<Class<?>, TypeHierarchy> typeHierarchies;
+
     /**
      * コンストラクタ。
      * @param loader コンポーネント定義のローダ
      */
     public DiContainer(ComponentDefinitionLoader loader) {
+        this(loader, new DiContainerOptions());
+    }
+
+    /**
+     * コンストラクタ。
+     * @param loader コンポーネント定義のローダ
+     * @param options コンテナの動作を指定するオプション
+     */
+    public DiContainer(ComponentDefinitionLoader loader, DiContainerOptions options) {
         super();
         this.loader = loader;
+        this.options = options;
+        this.typeHierarchies = new ConcurrentHashMap<Class<?>, TypeHierarchy>();
+        this.injectionPlans = new ConcurrentHashMap<Class<?>, InjectionPlan>();
         reload();
     }
 
+    /**
+     * 再生成したコンポーネントを保持する世代のコンテナを作成するコンストラクタ。
+     * <p/>
+     * コンポーネント定義の読み込みとコンポーネントの生成は行わない。
+     *
+     * @param container 世代を公開するコンテナ
+     */
+    private DiContainer(DiContainer container) {
+        super();
+        this.loader = container.loader;
+        this.options = container.options;
+        this.typeHierarchies = container.typeHierarchies;
+        this.injectionPlans = container.injectionPlans;
+    }
+
+    /**
+     * コンテナの動作を指定するオプション。
+     */
+    private DiContainerOptions options;
+
     /**
      * コンポーネント定義のローダ
      */
@@ -75,28 +165,75 @@ public class DiContainer implements ObjectLoader {
     /**
      * コンポーネントIDの最大値。
      */
-    private int maxId = 0;
+    private final AtomicInteger maxId = new AtomicInteger();
 
     /**
      * DIしたオブジェクトを取得するロードメソッド。
+     * <p/>
+     * 初期化の完了後は、初回の呼び出し時に作成したMapを保持し、以降の呼び出しでは同じMapを返却する。
+     * 保持したMapは、{@link #reload()}や{@link #updateValues(Map)}で破棄する。
+     * <p/>
+     * {@link DiContainerOptions#isLazyObjectLoaderValues()}がtrueの場合、
+     * コンポーネントとして登録していないObjectLoaderの値は複製せず、ロード結果を参照するビューとして返却する。
+     * このため、ロード結果が値を取得時に作成するMapの場合も、値を保持し続けることはない。
      *
      * @return 名前をキーにしてロードしたオブジェクトを保持するMap。
      * @see nablarch.core.repository.ObjectLoader#load()
      */
     public Map<String, Object> load() {
-        Map<String, Object> loadedValues = new HashMap<String, Object>();
+        FrozenIndex frozen = frozenIndex;
+        if (frozen == null) {
+            return createLoadedValues();
+        }
+        Map<String, Object> loadedValues = frozen.getLoadedValues();
+        if (loadedValues != null) {
+            return loadedValues;
+        }
+        if (Thread.holdsLock(frozen)) {
+            return frozen.getGeneration().createLoadedValues();
+        }
+        synchronized (frozen) {
+            loadedValues = frozen.getLoadedValues();
+            if (loadedValues == null) {
+                loadedValues = frozen.getGeneration().createLoadedValues();
+                frozen.setLoadedValues(loadedValues);
+            }
+            return loadedValues;
+        }
+    }
+
+    /**
+     * 名前をキーにしてロードしたオブジェクトを保持するMapを作成する。
+     * <p/>
+     * 生成を遅延したコンポーネントは、この時点で生成する。
+     *
+     * @return 名前をキーにしてロードしたオブジェクトを保持する変更不可能なMap
+     */
+    private Map<String, Object> createLoadedValues() {
+        Map<String, Object> loadedValues = new HashMap<String, Object>(nameIndex.size() * 4 / 3 + 1);
         for (Map.Entry<String, ComponentHolder> entry : nameIndex.entrySet()) {
-            loadedValues.put(entry.getKey(), entry.getValue().getInitializedComponent());
+            ComponentHolder holder = entry.getValue();
+            if (holder.getState() == ComponentState.NOT_INSTANTIATE) {
+                // 生成を遅延したコンポーネント
+                loadedValues.put(entry.getKey(), getComponentByName(entry.getKey()));
+            } else {
+                loadedValues.put(entry.getKey(), holder.getInitializedComponent());
+            }
+        }
+        if (!lazySources.isEmpty()) {
+            return new LoadedValues(loadedValues, lazySources);
         }
         return Collections.unmodifiableMap(loadedValues);
     }
 
     /**
      * コンポーネントIDの最大値を取得する。
+     * <p/>
+     * 複数のスレッドから同時に呼び出しても、重複しないIDを返却する。
      * @return コンポーネントIDの最大値
      */
     public int generateId() {
-        return maxId++;
+        return maxId.getAndIncrement();
     }
 
     /**
@@ -107,30 +244,240 @@ public class DiContainer implements ObjectLoader {
      * <li>コンポーネント定義の登録</li>
      * <li>コンポーネント定義にあるObjectLoaderの生成とObjectLoader内のコンポーネントのロード</li>
      * <li>システムプロパティによるコンポーネント定義の上書き</li>
-     * <li>コンポーネントの生成</li>
+     * <li>並列に生成可能なコンポーネントの生成とインジェクション(並列数を指定した場合のみ)</li>
+     * <li>コンポーネントの生成(生成を遅延するコンポーネントを除く)</li>
      * <li>コンポーネントに対するインジェクションの実行</li>
      * <li>初期化対象クラスの初期化実行</li>
+     * <li>凍結インデックスの作成</li>
      * </ol>
+     * 凍結インデックスの作成後は、初期化済みのコンポーネントを
+     * ステータスのチェックや参照スタックの操作なしに取得する。
+     * 凍結インデックスにない登録済みのコンポーネント(生成を遅延したコンポーネント)は、
+     * 同期化した上で凍結インデックスを再確認してから生成し、凍結インデックスに追加する。
+     * コンポーネントホルダの状態は同期化の中でのみ参照するため、生成中のコンポーネントを他のスレッドから参照することはない。
+     * 登録されていないコンポーネントは同期化せずに取得する。
+     * 見つからなかったことは凍結インデックスに保持しないため、取得に使用した名前や型の数だけヒープを使用することはない。
+     * <p/>
+     * 再生成は別の世代のコンテナに対して行い、完了後に凍結インデックスを置き換えて公開する。
+     * 再生成中も、他のスレッドは再生成前のコンポーネントを取得できる。
+     * 再生成に失敗した場合は、再生成前のコンポーネントをそのまま保持する。
+     * {@link #reloadIncrementally()}、{@link #updateValues(Map)}とは同じコンテナで同期化し、同時には実行しない。
      */
     public void reload() {
-        maxId = 0;
+        reload(false);
+    }
+
+    /**
+     * コンテナの保持するオブジェクトのうち、設定が変更されたものだけを再生成する。
+     * <p/>
+     * コンポーネント定義を読み込み直し、再読み込み前のコンポーネント定義と名前で対応付けて比較する。
+     * 名前、クラス、生成方法、プロパティの参照とリテラル値が同じで、参照先のコンポーネントも全て引き継げる場合は、
+     * 再読み込み前のコンポーネント(コネクションプールやキャッシュなど、{@link ComponentFactory}が生成したものも含む)を
+     * 再生成せずに引き継ぐ。
+     * 設定が変更されたコンポーネントと、そのコンポーネントを直接または間接に参照するコンポーネントは、
+     * {@link #reload()}と同じ順序で再生成する。
+     * <p/>
+     * 生成方法を比較できない({@link ComponentConfigurationComparable}を実装しないクラスで生成する)コンポーネントと、
+     * 再読み込み前に生成されていない(生成を遅延した)コンポーネントは、引き継がずに再生成する。
+     * {@link ObjectLoader}は、ロードするコンポーネントを登録するため常に再生成する。
+     * <p/>
+     * 初期化対象クラスの初期化(initializerという名前のコンポーネント)は、initializerを再生成した場合のみ実行する。
+     * この場合、initializerが{@link SelectiveApplicationInitializer}を実装していれば、再生成したコンポーネントのみを初期化し、
+     * 引き継いだコンポーネント(初期化済みのコネクションプールやキャッシュなど)は初期化しない。
+     * 実装していない場合は、ワーニングログを出力し、引き継いだコンポーネントも初期化する。
+     */
+    public void reloadIncrementally() {
+        reload(true);
+    }
+
+    /**
+     * {@link ObjectLoader}からロードした値(環境設定ファイルの値など)を更新する。
+     * <p/>
+     * 更新後の値のコンポーネント定義を、{@link #reloadIncrementally()}と同様に再読み込み前のコンポーネント定義と比較し、
+     * 値が変更されたコンポーネントと、そのコンポーネントを直接または間接に参照するコンポーネント
+     * (値を${...}で参照するリテラル値と、リテラル値をインジェクションしたコンポーネントなど)だけを再生成する。
+     * コンポーネント定義の読み込みと{@link ObjectLoader}のロードは行わない。
+     * <p/>
+     * 再生成は別のコンポーネントホルダに対して行い、完了後に凍結インデックスを置き換えて公開する。
+     * このため、再生成中も他のスレッドは更新前のコンポーネントを待機せずに取得できる。
+     * 再生成に失敗した場合は、更新前のコンポーネントをそのまま保持する。
+     * <p/>
+     * 下記の値は更新しない。
+     * <ul>
+     * <li>値と等しい値(更新の必要がないため)</li>
+     * <li>システムプロパティで上書きした値(システムプロパティが優先されるため。INFOレベルでログを出力する)</li>
+     * </ul>
+     * コンテナに存在しない名前の値は追加する。
+     * {@link ObjectLoader}からロードした値以外のコンポーネントと同じ名前の値を指定した場合は、
+     * 該当する全ての名前を保持した{@link ValueUpdateRejectedException}を送出し、値は更新しない。
+     * 値にnullは指定できない(コンポーネントの値はnullとならないため)。nullを指定した場合は例外を送出し、値は更新しない。
+     * <p/>
+     * {@link #reload()}、{@link #reloadIncrementally()}とは同じコンテナで同期化し、同時には実行しない。
+     *
+     * @param values 名前をキーにした更新後の値
+     * @throws IllegalArgumentException nullの値を指定した場合
+     * @throws ValueUpdateRejectedException 値以外のコンポーネントと同じ名前の値を指定した場合
+     */
+    public synchronized void updateValues(Map<String, ?> values) {
+        for (Map.Entry<String, ?> entry : values.entrySet()) {
+            if (entry.getValue() == null) {
+                throw new IllegalArgumentException("value must not be null. name = [" + entry.getKey() + "]");
+            }
+        }
+        DiContainer current = frozenIndex.getGeneration();
+        List<ComponentDefinition> defs = new ArrayList<ComponentDefinition>(current.holders.size() + values.size());
+        Set<String> added = new HashSet<String>(values.keySet());
+        boolean updated = false;
+        Set<String> rejected = new LinkedHashSet<String>();
+        StringBuilder rejectedMessage = new StringBuilder("component which is not a value can not be updated.");
+        for (ComponentHolder holder : current.holders.values()) {
+            ComponentDefinition def = holder.getDefinition();
+            String name = def.getName();
+            if (name != null && values.containsKey(name) && current.nameIndex.get(name) == holder) {
+                added.remove(name);
+                if (!(def.getCreator() instanceof StoredValueComponentCreator)) {
+                    rejected.add(name);
+                    rejectedMessage.append(" name = [").append(name).append("]")
+                            .append(" , class = [").append(def.getType().getName()).append("]");
+                    continue;
+                }
+                ComponentDefinition updatedDef = updateValue(def, values.get(name));
+                if (updatedDef != def) {
+                    def = updatedDef;
+                    updated = true;
+                }
+            }
+            defs.add(def);
+        }
+        if (!rejected.isEmpty()) {
+            throw new ValueUpdateRejectedException(rejectedMessage.toString(), rejected);
+        }
+
+        DiContainer next = new DiContainer(this);
+        next.maxId.set(maxId.get());
+        for (String name : added) {
+            Object value = values.get(name);
+            if (isOverriddenBySystemProperty(name, value)) {
+                // 登録せずに名前から解決するシステムプロパティ
+                continue;
+            }
+            defs.add(new ComponentDefinition(next.generateId(), name, new StoredValueComponentCreator(value), value.getClass()));
+            updated = true;
+        }
+        if (!updated) {
+            return;
+        }
+
+        next.lazySources = current.lazySources;
+        next.registerAll(defs);
+        next.createAll(current.createIndex());
+        publish(next);
+    }
+
+    /**
+     * 構築が完了した世代のコンテナを公開する。
+     * <p/>
+     * 世代のコンポーネントホルダと索引は、凍結インデックスを経由して参照する。
+     *
+     * @param next 構築が完了した世代のコンテナ
+     */
+    private void publish(DiContainer next) {
+        maxId.set(next.maxId.get());
+        frozenIndex = next.frozenIndex;
+    }
+
+    /**
+     * 再生成時にコンポーネントを引き継ぐための、コンポーネントホルダの索引を作成する。
+     *
+     * @return コンポーネントホルダの索引
+     */
+    private ComponentCarryOver.Index createIndex() {
+        return new ComponentCarryOver.Index(holders, nameIndex, typeIndex);
+    }
+
+    /**
+     * 値のコンポーネント定義を更新する。
+     *
+     * @param def コンポーネント定義
+     * @param value 更新後の値
+     * @return 更新後のコンポーネント定義(更新しない場合は引数のコンポーネント定義)
+     */
+    private ComponentDefinition updateValue(ComponentDefinition def, Object value) {
+        String name = def.getName();
+        if (isOverriddenBySystemProperty(name, value)) {
+            return def;
+        }
+        if (value.equals(((StoredValueComponentCreator) def.getCreator()).getValue())) {
+            return def;
+        }
+        return new ComponentDefinition(def.getId(), name, new StoredValueComponentCreator(value), value.getClass());
+    }
+
+    /**
+     * 値がシステムプロパティで上書きされるか否かを判定する。
+     * <p/>
+     * 上書きされる場合は、値を更新しない旨をINFOレベルでログ出力する。
+     *
+     * @param name 値の名前
+     * @param value 更新後の値
+     * @return システムプロパティで上書きされる場合 true
+     */
+    private static boolean isOverriddenBySystemProperty(String name, Object value) {
+        if (!System.getProperties().containsKey(name)) {
+            return false;
+        }
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.logInfo("value was not updated because it is overridden by system property."
+                    + " key = " + name
+                    + ", ignored value = [" + value + "]");
+        }
+        return true;
+    }
+
+    /**
+     * コンテナの保持するオブジェクトの再生成を行う。
+     *
+     * @param incremental 設定が変更されていないコンポーネントを引き継ぐ場合 true
+     */
+    private synchronized void reload(boolean incremental) {
+        FrozenIndex current = frozenIndex;
+        ComponentCarryOver.Index previousIndex = incremental && current != null
+                ? current.getGeneration().createIndex()
+                : null;
+        DiContainer next = new DiContainer(this);
+        next.build(previousIndex);
+        publish(next);
+    }
+
+    /**
+     * 世代のコンテナに、コンポーネント定義を読み込んでコンポーネントを構築する。
+     *
+     * @param previousIndex 引き継ぐコンポーネントを持つ再生成前のコンポーネントホルダの索引(引き継がない場合はnull)
+     */
+    private void build(ComponentCarryOver.Index previousIndex) {
+        lazySources = options.isLazyObjectLoaderValues()
+                ? new ArrayList<Map<String, Object>>()
+                : Collections.<Map<String, Object>>emptyList();
         List<ComponentDefinition> defs = loader.load(this);
         if (LOGGER.isDebugEnabled()) {
             dump(defs);
         }
 
-        holders = new TreeMap<Integer, ComponentHolder>();
-        nameIndex = new HashMap<String, ComponentHolder>();
-        typeIndex = new HashMap<Class<?>, ComponentHolder>();
-        multiRegisteredType = new HashSet<Class<?>>();
-        for (ComponentDefinition def : defs) {
-            register(def);
-        }
+        registerAll(defs);
 
         // holders内のオブジェクトにObjectLoaderがあった際の処理に使用するループ用List
         List<Map.Entry<Integer, ComponentHolder>> prevEntries = new ArrayList<Map.Entry<Integer, ComponentHolder>>(
                 holders.entrySet());
 
+        // 生成済みのObjectLoaderは、並列にロードしておく
+        Map<ComponentHolder, Future<Map<String, Object>>> preloaded = Collections.emptyMap();
+        int loaderParallelism = options.getObjectLoaderParallelism() > 0
+                ? options.getObjectLoaderParallelism()
+                : options.getParallelism();
+        if (loaderParallelism > 1) {
+            preloaded = preloadObjectLoaders(prevEntries, loaderParallelism);
+        }
+
         // ObjectLoaderを優先的にロード
         for (Map.Entry<Integer, ComponentHolder> entry : prevEntries) {
             ComponentHolder holder = entry.getValue();
@@ -142,7 +489,9 @@ public class DiContainer implements ObjectLoader {
                 // コンポーネントにObjectLoaderが入っていたら、
                 // ObjectLoaderからロードされるものを全てコンポーネントとして扱う
                 Object component = holder.getComponent();
-                if (component instanceof ObjectLoader) {
+                if (preloaded.containsKey(holder)) {
+                    registerAll(getPreloadedValues(preloaded.get(holder)));
+                } else if (component instanceof ObjectLoader) {
                     registerAll((ObjectLoader) component);
                 } else {
                     // def.getType() が ObjectLoader だったらここには到達しない。
@@ -151,11 +500,22 @@ public class DiContainer implements ObjectLoader {
             }
         }
 
+        // 参照されている値のみ、コンポーネントとして登録する
+        if (!lazySources.isEmpty()) {
+            registerReferencedValues();
+        }
+
         // 定義を追加
         for (Map.Entry<Object, Object> entry : System.getProperties().entrySet()) {
             String key = (String) entry.getKey();
             String value = (String) entry.getValue();
 
+            if (options.isSystemPropertyOverlay()
+                    && !nameIndex.containsKey(key) && findLazyValue(key) == null && !hasSystemPropertyPrefix(key)) {
+                // 上書きしないシステムプロパティは登録せず、名前で取得された時点で解決する
+                continue;
+            }
+
             ComponentCreator creator = new StoredValueComponentCreator(value);
             ComponentDefinition def = new ComponentDefinition(generateId(), key, creator, String.class);
             
@@ -178,15 +538,89 @@ public class DiContainer implements ObjectLoader {
                             + ", previous value = [" + previous.getDefinition().getCreator().createComponent(this, previous.getDefinition()) + "]"
                             + ", new value = [" + value + "]");
                 }
+            } else if (findLazyValue(key) != null) {
+                if (LOGGER.isInfoEnabled()) {
+                    LOGGER.logInfo("value was overridden by system property. " 
+                            + " key = " + def.getName() 
+                            + ", previous value = [" + findLazyValue(key) + "]"
+                            + ", new value = [" + value + "]");
+                }
             }
 
             register(def);
         }
 
+        createAll(previousIndex);
+    }
+
+    /**
+     * システムプロパティのキーが、コンポーネントとして登録するプレフィックスで始まるか否かを判定する。
+     *
+     * @param key システムプロパティのキー
+     * @return プレフィックスで始まる場合 true
+     */
+    private boolean hasSystemPropertyPrefix(String key) {
+        for (String prefix : options.getSystemPropertyPrefixes()) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 初期化対象クラスを初期化する。
+     * <p/>
+     * 引き継いだコンポーネントは再読み込み前に初期化済みのため、
+     * initializerが{@link SelectiveApplicationInitializer}を実装する場合は初期化しない。
+     *
+     * @param initializer initializer
+     * @param carriedOver 引き継いだコンポーネントのホルダ
+     */
+    private static void initialize(ApplicationInitializer initializer, Set<ComponentHolder> carriedOver) {
+        if (carriedOver.isEmpty()) {
+            initializer.initialize();
+            return;
+        }
+        if (!(initializer instanceof SelectiveApplicationInitializer)) {
+            if (LOGGER.isWarnEnabled()) {
+                LOGGER.logWarn("initializer does not implement SelectiveApplicationInitializer,"
+                        + " so carried over components are initialized again."
+                        + " class name = " + initializer.getClass().getName());
+            }
+            initializer.initialize();
+            return;
+        }
+        Set<Object> initialized = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        for (ComponentHolder holder : carriedOver) {
+            if (holder.getInitializedComponent() != null) {
+                initialized.add(holder.getInitializedComponent());
+            }
+        }
+        ((SelectiveApplicationInitializer) initializer).initialize(initialized);
+    }
+
+    /**
+     * 登録したコンポーネント定義から、コンポーネントの生成、インジェクション、初期化を行い、凍結インデックスを作成する。
+     *
+     * @param previousIndex 引き継ぐコンポーネントを持つ再生成前のコンポーネントホルダの索引(引き継がない場合はnull)
+     */
+    private void createAll(ComponentCarryOver.Index previousIndex) {
+        // 設定が変更されていないコンポーネントを引き継ぐ
+        Set<ComponentHolder> carriedOver = Collections.emptySet();
+        if (previousIndex != null) {
+            carriedOver = carryOver(previousIndex);
+        }
+
+        // 並列に生成可能なコンポーネントを先に生成する
+        if (options.getParallelism() > 1) {
+            new ParallelCreation(options.getParallelism()).execute();
+        }
+
         // コンポーネント生成ループ
         for (Map.Entry<Integer, ComponentHolder> entry : holders.entrySet()) {
             ComponentHolder holder = entry.getValue();
-            if (holder.getState() == ComponentState.NOT_INSTANTIATE) {
+            if (holder.getState() == ComponentState.NOT_INSTANTIATE && !isLazyInit(holder)) {
                 createComponent(holder);
             }
         }
@@ -201,9 +635,43 @@ public class DiContainer implements ObjectLoader {
 
         // 初期化対象クラスを初期化する。
         ApplicationInitializer initializer = (ApplicationInitializer) this.getComponentByName("initializer");
-        if (initializer != null) {
-            initializer.initialize();
+        if (initializer != null && !carriedOver.contains(nameIndex.get("initializer"))) {
+            initialize(initializer, carriedOver);
+        }
+
+        frozenIndex = new FrozenIndex(this);
+    }
+
+    /**
+     * 再読み込み前のコンポーネントのうち、設定が変更されていないものを引き継ぐ。
+     *
+     * @param previous 再読み込み前のコンポーネントホルダの索引
+     * @return 引き継いだコンポーネントのホルダ
+     */
+    private Set<ComponentHolder> carryOver(ComponentCarryOver.Index previous) {
+        Map<ComponentHolder, ComponentHolder> pairs = new ComponentCarryOver(previous, createIndex()).getPairs();
+        for (Map.Entry<ComponentHolder, ComponentHolder> pair : pairs.entrySet()) {
+            ComponentHolder holder = pair.getKey();
+            ComponentHolder previousHolder = pair.getValue();
+            holder.setComponent(previousHolder.getComponent());
+            holder.setInitializedComponent(previousHolder.getInitializedComponent());
+            holder.setState(ComponentState.INJECTED);
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.logDebug("components were carried over by incremental reload."
+                    + " carried over = " + pairs.size() + ", total = " + holders.size());
         }
+        return pairs.keySet();
+    }
+
+    /**
+     * コンポーネントの生成を最初に取得されるまで遅延するか否か。
+     *
+     * @param holder コンポーネントホルダ
+     * @return 遅延する場合 true
+     */
+    private boolean isLazyInit(ComponentHolder holder) {
+        return options.isLazyInit() || holder.getDefinition().isLazyInit();
     }
 
     /**
@@ -255,23 +723,210 @@ public class DiContainer implements ObjectLoader {
         }
     }
 
+    /**
+     * コンポーネント定義を全て登録する。
+     * <p/>
+     * 登録済みのコンポーネント定義は破棄する。
+     *
+     * @param defs コンポーネント定義
+     */
+    private void registerAll(List<ComponentDefinition> defs) {
+        holders = new TreeMap<Integer, ComponentHolder>();
+        nameIndex = new HashMap<String, ComponentHolder>();
+        typeIndex = new HashMap<Class<?>, ComponentHolder>();
+        multiRegisteredType = new HashSet<Class<?>>();
+        typeHolders = new HashMap<Class<?>, List<ComponentHolder>>();
+        for (ComponentDefinition def : defs) {
+            register(def);
+        }
+    }
+
+    /**
+     * 生成済みの{@link ObjectLoader}(環境設定ファイルの{@link nablarch.core.repository.ConfigFileLoader}など)を並列にロードする。
+     * <p/>
+     * 生成済みのObjectLoaderはコンテナ内の他のコンポーネントに依存しないため、定義順を待たずにロードできる。
+     * ロードした値は、逐次にロードした場合と同じ順序で登録する。
+     * 生成済みのObjectLoaderが1つ以下の場合は、並列にロードしない。
+     *
+     * @param entries コンポーネントホルダ
+     * @param parallelism ロードするスレッド数
+     * @return コンポーネントホルダをキーにしたロード結果
+     */
+    private Map<ComponentHolder, Future<Map<String, Object>>> preloadObjectLoaders(
+            List<Map.Entry<Integer, ComponentHolder>> entries, int parallelism) {
+        Map<ComponentHolder, ObjectLoader> loaders = new LinkedHashMap<ComponentHolder, ObjectLoader>();
+        for (Map.Entry<Integer, ComponentHolder> entry : entries) {
+            ComponentDefinition def = entry.getValue().getDefinition();
+            if (ObjectLoader.class.isAssignableFrom(def.getType())
+                    && def.getCreator() instanceof StoredValueComponentCreator
+                    && ((StoredValueComponentCreator) def.getCreator()).getValue() instanceof ObjectLoader) {
+                loaders.put(entry.getValue(), (ObjectLoader) ((StoredValueComponentCreator) def.getCreator()).getValue());
+            }
+        }
+        if (loaders.size() <= 1) {
+            return Collections.emptyMap();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(parallelism, loaders.size()), new ThreadFactory() {
+                    /** スレッドの連番 */
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "DiContainer-loader-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        Map<ComponentHolder, Future<Map<String, Object>>> preloaded =
+                new HashMap<ComponentHolder, Future<Map<String, Object>>>(loaders.size() * 4 / 3 + 1);
+        for (Map.Entry<ComponentHolder, ObjectLoader> entry : loaders.entrySet()) {
+            final ObjectLoader loader = entry.getValue();
+            preloaded.put(entry.getKey(), executor.submit(new Callable<Map<String, Object>>() {
+                public Map<String, Object> call() {
+                    return loader.load();
+                }
+            }));
+        }
+        // 投入済みのロードは実行し、完了後にスレッドを終了する。
+        executor.shutdown();
+        return preloaded;
+    }
+
+    /**
+     * 並列にロードしたObjectLoaderのロード結果を取得する。
+     *
+     * @param future ロード結果
+     * @return ロードした値
+     */
+    private static Map<String, Object> getPreloadedValues(Future<Map<String, Object>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ContainerProcessException("ObjectLoader load was interrupted.", e);
+        } catch (ExecutionException e) {
+            Throwable t = e.getCause();
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            } else if (t instanceof Error) {
+                throw (Error) t;
+            }
+            throw new ContainerProcessException("ObjectLoader load failed.", t);
+        }
+    }
+
     /**
      * ObjectLoaderからロードできるオブジェクトを全て登録する。
      *
      * @param loader ObjectLoader
      */
     private void registerAll(ObjectLoader loader) {
-        Map<String, Object> loaded = loader.load();
+        registerAll(loader.load());
+    }
+
+    /**
+     * ObjectLoaderからロードしたオブジェクトを全て登録する。
+     *
+     * @param loaded 名前をキーにしたロード結果
+     */
+    private void registerAll(Map<String, Object> loaded) {
+        if (options.isLazyObjectLoaderValues()) {
+            registerOverridingValues(loaded);
+            return;
+        }
         for (Map.Entry<String, Object> entry : loaded.entrySet()) {
-            String key = entry.getKey();
-            Object value = entry.getValue();
+            registerValue(entry.getKey(), entry.getValue());
+        }
+    }
 
-            Class<?> type = value.getClass();
+    /**
+     * ObjectLoaderからロードした値のうち、登録済みのコンポーネントを上書きする値のみを登録する。
+     * <p/>
+     * ロード結果は走査せず、登録済みのコンポーネントの名前で検索する。
+     * 上書きしない値は、参照されるまで登録しない。
+     * 登録順は上書きするコンポーネントの登録順とし、コンポーネントIDは定義から一意に決まる。
+     *
+     * @param loaded 名前をキーにしたロード結果
+     */
+    private void registerOverridingValues(Map<String, Object> loaded) {
+        List<String> overriding = new ArrayList<String>();
+        for (ComponentHolder holder : holders.values()) {
+            String name = holder.getDefinition().getName();
+            if (name != null && nameIndex.get(name) == holder && loaded.containsKey(name)) {
+                overriding.add(name);
+            }
+        }
+        for (String name : overriding) {
+            registerValue(name, loaded.get(name));
+        }
+        lazySources.add(loaded);
+    }
 
-            ComponentCreator creator = new StoredValueComponentCreator(value);
-            ComponentDefinition def = new ComponentDefinition(generateId(), key, creator, type);
-            register(def);
+    /**
+     * ObjectLoaderからロードした値を登録する。
+     *
+     * @param key 名前
+     * @param value 値
+     */
+    private void registerValue(String key, Object value) {
+        Class<?> type = value.getClass();
+
+        ComponentCreator creator = new StoredValueComponentCreator(value);
+        ComponentDefinition def = new ComponentDefinition(generateId(), key, creator, type);
+        register(def);
+    }
+
+    /**
+     * 登録していないObjectLoaderの値のうち、コンポーネント定義から名前で参照されている値を登録する。
+     * <p/>
+     * 参照先をコンポーネントホルダとすることで、再読み込み時の引き継ぎや並列生成の依存関係の判定で、
+     * 値の変更や依存関係を検出できるようにする。
+     * 登録順は参照するコンポーネントの登録順とし、コンポーネントIDは定義から一意に決まる。
+     */
+    private void registerReferencedValues() {
+        Set<String> referenced = new LinkedHashSet<String>();
+        for (ComponentHolder holder : holders.values()) {
+            ComponentDefinition def = holder.getDefinition();
+            if (def.getCreator() instanceof ComponentDependencyAware) {
+                referenced.addAll(((ComponentDependencyAware) def.getCreator()).getReferencedNames());
+            }
+            if (def.getInjector() instanceof ComponentDependencyAware) {
+                referenced.addAll(((ComponentDependencyAware) def.getInjector()).getReferencedNames());
+            }
+            for (ComponentReference ref : def.getReferences()) {
+                if (ref.getInjectionType() != InjectionType.ID && ref.getInjectionType() != InjectionType.BY_TYPE) {
+                    referenced.add(ref.getReferenceName());
+                }
+            }
+        }
+        for (String name : referenced) {
+            if (name == null || nameIndex.containsKey(name)) {
+                continue;
+            }
+            Object value = findLazyValue(name);
+            if (value != null) {
+                registerValue(name, value);
+            }
+        }
+    }
+
+    /**
+     * コンポーネントとして登録していないObjectLoaderの値を取得する。
+     * <p/>
+     * 後にロードした結果から優先して検索する。
+     *
+     * @param name 名前
+     * @return 値(見つからない場合はnull)
+     */
+    private Object findLazyValue(String name) {
+        for (int i = lazySources.size() - 1; i >= 0; i--) {
+            Object value = lazySources.get(i).get(name);
+            if (value != null) {
+                return value;
+            }
         }
+        return null;
     }
 
     /**
@@ -302,42 +957,50 @@ public class DiContainer implements ObjectLoader {
      * @param holder コンポーネントホルダ
      */
     private void registerTypes(ComponentDefinition def, ComponentHolder holder) {
-        Class<?> baseType = def.getType();
-
-        if (ComponentFactory.class.isAssignableFrom(def.getType())) {
-            // ComponentFactoryは特別扱い
-            Method m;
-            try {
-                m = def.getType().getMethod("createObject");
-            } catch (Exception e) {
-                // ComponentFactoryには必ずcreateObjectメソッドがあるはずなので、到達しない。
-                throw new ContainerProcessException("method [createObject] execution failed.", e);
-            }
+        TypeHierarchy hierarchy = getTypeHierarchy(def.getType());
 
-            baseType = m.getReturnType();
+        for (Class<?> type : hierarchy.getRepeatedTypes()) {
+            // 1つのコンポーネントから複数回登録される型は、重複登録された型となる
+            typeIndex.remove(type);
+            multiRegisteredType.add(type);
+            addTypeHolder(type, holder);
+        }
+        for (Class<?> type : hierarchy.getSingleTypes()) {
+            putTypeIndex(type, holder);
+            addTypeHolder(type, holder);
         }
-
-        registerTypeRecursive(baseType, holder);
     }
 
     /**
-     * 再帰的に型インデックスにコンポーネントホルダを登録する。
-     *
-     * @param type 登録する型
+     * 型をキーにした全てのコンポーネントホルダに、コンポーネントホルダを追加する。
+     * @param type 型
      * @param holder コンポーネントホルダ
      */
-    private void registerTypeRecursive(Class<?> type, ComponentHolder holder) {
-        putTypeIndex(type, holder);
-
-        for (Class<?> interfaces : type.getInterfaces()) {
-            putTypeIndex(interfaces, holder);
+    private void addTypeHolder(Class<?> type, ComponentHolder holder) {
+        List<ComponentHolder> list = typeHolders.get(type);
+        if (list == null) {
+            list = new ArrayList<ComponentHolder>(2);
+            typeHolders.put(type, list);
         }
+        list.add(holder);
+    }
 
-        if (!type.isInterface()) {
-            for (Class<?> ancestor : ObjectUtil.getAncestorClasses(type)) {
-                registerTypeRecursive(ancestor, holder);
+    /**
+     * コンポーネントのクラスの、型のインデックスに登録する型を取得する。
+     *
+     * @param type コンポーネントのクラス
+     * @return 型のインデックスに登録する型
+     */
+    private TypeHierarchy getTypeHierarchy(Class<?> type) {
+        TypeHierarchy hierarchy = typeHierarchies.get(type);
+        if (hierarchy == null) {
+            hierarchy = new TypeHierarchy(type);
+            TypeHierarchy existing = typeHierarchies.putIfAbsent(type, hierarchy);
+            if (existing != null) {
+                hierarchy = existing;
             }
         }
+        return hierarchy;
     }
 
     /**
@@ -452,16 +1115,62 @@ public class DiContainer implements ObjectLoader {
             value = getComponentByName(ref.getReferenceName());
         }
         if (value != null) {
-            ObjectUtil.setProperty(component, ref.getPropertyName(), value);
+            getInjectionPlan(component.getClass()).setProperty(component, ref.getPropertyName(), value);
         }
     }
 
     /**
-     * コンポーネントIDをキーにコンポーネントを取得する。
-     * @param id コンポーネントID
-     * @return コンポーネント
+     * コンポーネントのクラスのインジェクションプランを取得する。
+     *
+     * @param type コンポーネントのクラス
+     * @return インジェクションプラン
+     */
+    private InjectionPlan getInjectionPlan(Class<?> type) {
+        InjectionPlan plan = injectionPlans.get(type);
+        if (plan == null) {
+            plan = new InjectionPlan(type);
+            InjectionPlan existing = injectionPlans.putIfAbsent(type, plan);
+            if (existing != null) {
+                plan = existing;
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * コンポーネントIDをキーにコンポーネントを取得する。
+     * @param id コンポーネントID
+     * @return コンポーネント
      */
     public Object getComponentById(int id) {
+        FrozenIndex frozen = frozenIndex;
+        if (frozen == null) {
+            return findComponentById(id);
+        }
+        Object component = frozen.getById(id);
+        if (component != null) {
+            return component;
+        }
+        DiContainer generation = frozen.getGeneration();
+        if (Thread.holdsLock(frozen) || !generation.holders.containsKey(id)) {
+            return generation.findComponentById(id);
+        }
+        synchronized (frozen) {
+            component = frozen.getById(id);
+            if (component == null) {
+                component = generation.findComponentById(id);
+                frozen.addLazyComponent(id, component);
+            }
+            return component;
+        }
+    }
+
+    /**
+     * コンポーネントIDをキーに、コンポーネントホルダからコンポーネントを取得する。
+     * @param id コンポーネントID
+     * @return コンポーネント
+     */
+    private Object findComponentById(int id) {
         if (!holders.containsKey(id)) {
             throw new ContainerProcessException("component id was not found."
                     + " component id = [" + id + "]");
@@ -483,11 +1192,51 @@ public class DiContainer implements ObjectLoader {
      */
     @SuppressWarnings("unchecked")
     public <T> T getComponentByName(String name) {
+        FrozenIndex frozen = frozenIndex;
+        if (frozen == null) {
+            return (T) findComponentByName(name);
+        }
+        Object component = frozen.getByName(name);
+        if (component != null) {
+            return (T) component;
+        }
+        DiContainer generation = frozen.getGeneration();
+        if (Thread.holdsLock(frozen)) {
+            return (T) generation.findComponentByName(name);
+        }
+        if (!generation.nameIndex.containsKey(name)) {
+            return (T) generation.findUnregisteredByName(name);
+        }
+        synchronized (frozen) {
+            component = frozen.getByName(name);
+            if (component == null) {
+                component = generation.findComponentByName(name);
+                frozen.addLazyComponent(name, component);
+            }
+            return (T) component;
+        }
+    }
+
+    /**
+     * コンポーネント名をキーに、コンポーネントホルダからコンポーネントを取得する。
+     * @param name コンポーネント名
+     * @return コンポーネント
+     */
+    private Object findComponentByName(String name) {
         if (!nameIndex.containsKey(name)) {
-            return null;
+            Object value = findLazyValue(name);
+            if (value != null) {
+                // 登録しなかったObjectLoaderの値
+                return value;
+            }
+            return findSystemProperty(name);
         }
 
         ComponentHolder holder = nameIndex.get(name);
+        if (holder.getState() == ComponentState.INJECTED && holder.getInitializedComponent() != null) {
+            // 再生成中でも、インジェクションが完了したコンポーネントは参照スタックを操作せずに返却する
+            return holder.getInitializedComponent();
+        }
         refStack.push(holder.getDefinition());
         Object component = checkStateAndCreateComponent(holder);
         if (component == null) {
@@ -504,7 +1253,36 @@ public class DiContainer implements ObjectLoader {
         }
         completeInject(holder);
         refStack.pop();
-        return (T) component;
+        return component;
+    }
+
+    /**
+     * 凍結インデックスの作成後に、コンポーネントとして登録していない名前で値を取得する。
+     * <p/>
+     * 登録しなかったObjectLoaderの値とシステムプロパティは、取得する都度検索し、凍結インデックスには保持しない。
+     *
+     * @param name 名前
+     * @return 値(見つからない場合はnull)
+     */
+    private Object findUnregisteredByName(String name) {
+        Object value = findLazyValue(name);
+        if (value != null) {
+            return value;
+        }
+        return findSystemProperty(name);
+    }
+
+    /**
+     * コンポーネントとして登録しなかったシステムプロパティを取得する。
+     *
+     * @param name 名前
+     * @return システムプロパティの値(システムプロパティを上書きに使用するもののみ登録しない場合や、見つからない場合はnull)
+     */
+    private String findSystemProperty(String name) {
+        if (name == null || !options.isSystemPropertyOverlay()) {
+            return null;
+        }
+        return System.getProperty(name);
     }
 
     /**
@@ -516,6 +1294,34 @@ public class DiContainer implements ObjectLoader {
      */
     @SuppressWarnings("unchecked")
     public <T> T getComponentByType(Class<T> type) {
+        FrozenIndex frozen = frozenIndex;
+        if (frozen == null) {
+            return (T) findComponentByType(type);
+        }
+        Object component = frozen.getByType(type);
+        if (component != null) {
+            return (T) component;
+        }
+        DiContainer generation = frozen.getGeneration();
+        if (Thread.holdsLock(frozen) || !generation.typeIndex.containsKey(type)) {
+            return (T) generation.findComponentByType(type);
+        }
+        synchronized (frozen) {
+            component = frozen.getByType(type);
+            if (component == null) {
+                component = generation.findComponentByType(type);
+                frozen.addLazyComponent(type, component);
+            }
+            return (T) component;
+        }
+    }
+
+    /**
+     * コンポーネントの型をキーに、コンポーネントホルダからコンポーネントを取得する。
+     * @param type コンポーネントの型
+     * @return コンポーネント
+     */
+    private Object findComponentByType(Class<?> type) {
         if (!typeIndex.containsKey(type)) {
             return null;
         }
@@ -531,7 +1337,72 @@ public class DiContainer implements ObjectLoader {
         }
         completeInject(holder);
         refStack.pop();
-        return (T) component;
+        return component;
+    }
+
+    /**
+     * 型をキーに、その型で登録した全てのコンポーネントを取得する。
+     * <p/>
+     * {@link #getComponentByType(Class)}と異なり、複数のコンポーネントが登録された型でも取得できる。
+     * コンポーネントは、コンポーネント定義の登録順に格納する。
+     * <p/>
+     * 初期化の完了後は、型ごとに初回の取得時に作成したリストを保持し、以降の取得では同じリストを返却する。
+     *
+     * @param <T> コンポーネントの型
+     * @param type コンポーネントの型
+     * @return コンポーネントの変更不可能なリスト(該当するコンポーネントがない場合は空のリスト)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getComponentsByType(Class<T> type) {
+        FrozenIndex frozen = frozenIndex;
+        if (frozen == null) {
+            return (List<T>) findComponentsByType(type);
+        }
+        List<Object> components = frozen.getListByType(type);
+        if (components != null) {
+            return (List<T>) components;
+        }
+        DiContainer generation = frozen.getGeneration();
+        if (Thread.holdsLock(frozen)) {
+            return (List<T>) generation.findComponentsByType(type);
+        }
+        synchronized (frozen) {
+            components = frozen.getListByType(type);
+            if (components == null) {
+                components = generation.findComponentsByType(type);
+                frozen.addListByType(type, components);
+            }
+            return (List<T>) components;
+        }
+    }
+
+    /**
+     * 型をキーに、コンポーネントホルダからその型で登録した全てのコンポーネントを取得する。
+     * @param type コンポーネントの型
+     * @return コンポーネントの変更不可能なリスト
+     */
+    private List<Object> findComponentsByType(Class<?> type) {
+        List<ComponentHolder> list = typeHolders.get(type);
+        if (list == null) {
+            return Collections.emptyList();
+        }
+        Object[] components = new Object[list.size()];
+        for (int i = 0; i < components.length; i++) {
+            ComponentHolder holder = list.get(i);
+            refStack.push(holder.getDefinition(), type);
+            Object component = checkStateAndCreateComponent(holder);
+            if (component == null) {
+                throw new ContainerProcessException(
+                        "recursive referenced was found."
+                        + " component name = [" + holder.getDefinition().getName() + "] "
+                        + " , component type = [" + holder.getDefinition().getType() + "]"
+                        + refStack.getReferenceStack());
+            }
+            completeInject(holder);
+            refStack.pop();
+            components[i] = component;
+        }
+        return Collections.unmodifiableList(Arrays.asList(components));
     }
 
     /**
@@ -544,7 +1415,10 @@ public class DiContainer implements ObjectLoader {
         switch (holder.getState()) {
         case NOT_INSTANTIATE:
             createComponent(holder);
-            return holder.getComponent();
+            // ComponentFactoryの場合は、生成時にインジェクションまで完了している
+            return holder.getState() == ComponentState.INJECTED
+                    ? holder.getInitializedComponent()
+                    : holder.getComponent();
         case INSTANTIATED:
             return holder.getComponent();
         case INJECTING:
@@ -558,8 +1432,460 @@ public class DiContainer implements ObjectLoader {
         }
     }
 
+    /**
+     * 依存関係を解析し、互いに依存しないコンポーネントを並列に生成およびインジェクションするクラス。
+     * <p/>
+     * 依存先の処理が全て完了したコンポーネントから順にスレッドプールへ投入する。
+     * いずれかのコンポーネントの処理で例外が発生した場合、以降のコンポーネントは処理せず、
+     * 最初に発生した例外を呼び出し元へ送出する。
+     */
+    private class ParallelCreation {
+
+        /** スレッドプール */
+        private final ExecutorService executor;
+
+        /** 処理が完了していないコンポーネントの数 */
+        private final AtomicInteger remaining = new AtomicInteger();
+
+        /** 最初に発生した例外 */
+        private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        /** 全てのコンポーネントの処理完了、または例外の発生を通知するラッチ */
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        /**
+         * コンストラクタ。
+         * @param parallelism スレッド数
+         */
+        ParallelCreation(int parallelism) {
+            executor = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+                /** スレッドの連番 */
+                private final AtomicInteger count = new AtomicInteger();
+
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "DiContainer-creation-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        /**
+         * 並列に生成可能なコンポーネントを生成し、完了を待つ。
+         */
+        void execute() {
+            ComponentDependencyGraph graph = new ComponentDependencyGraph(holders, nameIndex, typeIndex, options.isLazyInit());
+            if (graph.getNodes().isEmpty()) {
+                executor.shutdown();
+                return;
+            }
+            remaining.set(graph.getNodes().size());
+            try {
+                for (ComponentDependencyGraph.Node node : graph.getRoots()) {
+                    submit(node);
+                }
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ContainerProcessException("parallel component creation was interrupted.", e);
+            } finally {
+                executor.shutdownNow();
+            }
+
+            Throwable t = failure.get();
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            } else if (t instanceof Error) {
+                throw (Error) t;
+            } else if (t != null) {
+                throw new ContainerProcessException("parallel component creation failed.", t);
+            }
+        }
+
+        /**
+         * コンポーネントの処理をスレッドプールに投入する。
+         * @param node 処理するノード
+         */
+        private void submit(final ComponentDependencyGraph.Node node) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    process(node);
+                }
+            });
+        }
+
+        /**
+         * コンポーネントを生成およびインジェクションし、処理可能となった依存元を投入する。
+         * <p/>
+         * スレッド間の受け渡しを減らすため、処理可能となった依存元のうち1つは同じスレッドで続けて処理する。
+         * @param first 処理するノード
+         */
+        private void process(ComponentDependencyGraph.Node first) {
+            ComponentDependencyGraph.Node node = first;
+            while (node != null) {
+                if (failure.get() != null) {
+                    return;
+                }
+                ComponentDependencyGraph.Node next = null;
+                try {
+                    ComponentHolder holder = node.getHolder();
+                    createComponent(holder);
+                    completeInject(holder);
+                    for (ComponentDependencyGraph.Node dependent : node.getDependents()) {
+                        if (dependent.completeDependency()) {
+                            if (next == null) {
+                                next = dependent;
+                            } else {
+                                submit(dependent);
+                            }
+                        }
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                    done.countDown();
+                    return;
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    done.countDown();
+                }
+                node = next;
+            }
+        }
+    }
+
+    /**
+     * 初期化が完了したコンポーネントを保持する不変のインデックス。
+     * <p/>
+     * 作成後は変更しないため、volatileフィールドを経由して公開すれば複数スレッドから同期なしで参照できる。
+     * 初期化が完了していないコンポーネントや値がnullのコンポーネントは保持しない。
+     * この場合は、通常の取得処理で扱う。
+     * <p/>
+     * 作成後に生成を遅延したコンポーネントを生成した場合は、取得に使用したキーで別のMapに追加する。
+     * 取得に使用するキーは呼び出し元が任意に指定できるため、見つからなかったことは追加しない。
+     */
+    private static final class FrozenIndex {
+
+        /** 凍結インデックスを作成した世代のコンテナ */
+        private final DiContainer generation;
+
+        /** 名前をキーにした初期化済みコンポーネント */
+        private final Map<String, Object> byName;
+
+        /** 型をキーにした初期化済みコンポーネント */
+        private final Map<Class<?>, Object> byType;
+
+        /** コンポーネントIDを添字にした初期化済みコンポーネント */
+        private final Object[] byId;
+
+        /** 作成後に生成したコンポーネント(キーは名前、型、コンポーネントIDのいずれか) */
+        private final ConcurrentMap<Object, Object> lazyComponents = new ConcurrentHashMap<Object, Object>();
+
+        /** 名前をキーにしてロードしたオブジェクトを保持するMap(初回の{@link DiContainer#load()}で作成する) */
+        private volatile Map<String, Object> loadedValues;
+
+        /** 型をキーにした、その型で登録した全てのコンポーネントのリスト(初回の取得時に追加する) */
+        private final ConcurrentMap<Class<?>, List<Object>> listsByType =
+                new ConcurrentHashMap<Class<?>, List<Object>>();
+
+        /**
+         * コンストラクタ。
+         * <p/>
+         * 世代のコンテナのコンポーネントホルダと索引は、作成後に変更しないこと。
+         * @param generation 初期化が完了した世代のコンテナ
+         */
+        FrozenIndex(DiContainer generation) {
+            this.generation = generation;
+            Map<Integer, ComponentHolder> holders = generation.holders;
+            Map<String, ComponentHolder> nameIndex = generation.nameIndex;
+            Map<Class<?>, ComponentHolder> typeIndex = generation.typeIndex;
+            byName = new HashMap<String, Object>(capacity(nameIndex.size()));
+            for (Map.Entry<String, ComponentHolder> entry : nameIndex.entrySet()) {
+                Object component = getInjectedComponent(entry.getValue());
+                if (component != null) {
+                    byName.put(entry.getKey(), component);
+                }
+            }
+            byType = new HashMap<Class<?>, Object>(capacity(typeIndex.size()));
+            for (Map.Entry<Class<?>, ComponentHolder> entry : typeIndex.entrySet()) {
+                Object component = getInjectedComponent(entry.getValue());
+                if (component != null) {
+                    byType.put(entry.getKey(), component);
+                }
+            }
+            // コンポーネントIDは通常0からの連番となる。
+            // ローダが任意のIDを採番した場合でも配列が過大とならないよう、長さに上限を設ける。
+            int length = 0;
+            for (Integer id : holders.keySet()) {
+                length = Math.max(length, id + 1);
+            }
+            byId = new Object[Math.min(length, holders.size() * 2 + 16)];
+            for (Map.Entry<Integer, ComponentHolder> entry : holders.entrySet()) {
+                int id = entry.getKey();
+                if (id >= 0 && id < byId.length) {
+                    byId[id] = getInjectedComponent(entry.getValue());
+                }
+            }
+        }
+
+        /**
+         * 凍結インデックスを作成した世代のコンテナを取得する。
+         * @return 世代のコンテナ
+         */
+        DiContainer getGeneration() {
+            return generation;
+        }
+
+        /**
+         * コンポーネントIDをキーにコンポーネントを取得する。
+         * @param id コンポーネントID
+         * @return コンポーネント(保持していない場合はnull)
+         */
+        Object getById(int id) {
+            Object component = id >= 0 && id < byId.length ? byId[id] : null;
+            return component != null ? component : getLazyComponent(id);
+        }
+
+        /**
+         * コンポーネント名をキーにコンポーネントを取得する。
+         * @param name コンポーネント名
+         * @return コンポーネント(保持していない場合はnull)
+         */
+        Object getByName(String name) {
+            Object component = byName.get(name);
+            return component != null ? component : getLazyComponent(name);
+        }
+
+        /**
+         * コンポーネントの型をキーにコンポーネントを取得する。
+         * @param type コンポーネントの型
+         * @return コンポーネント(保持していない場合はnull)
+         */
+        Object getByType(Class<?> type) {
+            Object component = byType.get(type);
+            return component != null ? component : getLazyComponent(type);
+        }
+
+        /**
+         * 作成後に生成したコンポーネントを取得する。
+         * @param key 名前、型、コンポーネントIDのいずれか
+         * @return コンポーネント(保持していない場合はnull)
+         */
+        private Object getLazyComponent(Object key) {
+            return lazyComponents.isEmpty() ? null : lazyComponents.get(key);
+        }
+
+        /**
+         * 作成後に生成したコンポーネントを追加する。
+         * <p/>
+         * 見つからなかったことは保持しない。
+         * @param key 取得に使用した名前、型、コンポーネントIDのいずれか(nullの場合は追加しない)
+         * @param component インジェクションが完了したコンポーネント(nullの場合は追加しない)
+         */
+        void addLazyComponent(Object key, Object component) {
+            if (key != null && component != null) {
+                lazyComponents.put(key, component);
+            }
+        }
+
+        /**
+         * 名前をキーにしてロードしたオブジェクトを保持するMapを取得する。
+         * @return 名前をキーにしてロードしたオブジェクトを保持するMap(作成していない場合はnull)
+         */
+        Map<String, Object> getLoadedValues() {
+            return loadedValues;
+        }
+
+        /**
+         * 名前をキーにしてロードしたオブジェクトを保持するMapを設定する。
+         * @param loadedValues 名前をキーにしてロードしたオブジェクトを保持する変更不可能なMap
+         */
+        void setLoadedValues(Map<String, Object> loadedValues) {
+            this.loadedValues = loadedValues;
+        }
+
+        /**
+         * 型をキーに、その型で登録した全てのコンポーネントのリストを取得する。
+         * @param type コンポーネントの型
+         * @return コンポーネントのリスト(保持していない場合はnull)
+         */
+        List<Object> getListByType(Class<?> type) {
+            return listsByType.get(type);
+        }
+
+        /**
+         * 型をキーに、その型で登録した全てのコンポーネントのリストを追加する。
+         * @param type コンポーネントの型
+         * @param components コンポーネントの変更不可能なリスト
+         */
+        void addListByType(Class<?> type, List<Object> components) {
+            listsByType.put(type, components);
+        }
+
+        /**
+         * インジェクションが完了したコンポーネントを取得する。
+         * @param holder コンポーネントホルダ
+         * @return コンポーネント(インジェクションが完了していない場合はnull)
+         */
+        private static Object getInjectedComponent(ComponentHolder holder) {
+            return holder.getState() == ComponentState.INJECTED ? holder.getInitializedComponent() : null;
+        }
+
+        /**
+         * 要素数から再ハッシュが発生しないHashMapの初期容量を求める。
+         * @param size 要素数
+         * @return 初期容量
+         */
+        private static int capacity(int size) {
+            return size * 4 / 3 + 1;
+        }
+    }
+
+    /**
+     * コンポーネントとして登録したオブジェクトと、登録していないObjectLoaderのロード結果を合わせた読み取り専用のMap。
+     * <p/>
+     * 登録したオブジェクトを優先し、ロード結果は後にロードしたものを優先する。
+     * ロード結果は複製せず、取得と走査の都度参照する。
+     */
+    private static final class LoadedValues extends AbstractMap<String, Object> {
+
+        /** 名前をキーにした登録したオブジェクト */
+        private final Map<String, Object> registered;
+
+        /** ロードした順のロード結果 */
+        private final List<Map<String, Object>> sources;
+
+        /** エントリのSet */
+        private final Set<Map.Entry<String, Object>> entrySet = new AbstractSet<Map.Entry<String, Object>>() {
+
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                int count = 0;
+                for (Iterator<Map.Entry<String, Object>> it = iterator(); it.hasNext(); it.next()) {
+                    count++;
+                }
+                return count;
+            }
+        };
+
+        /**
+         * コンストラクタ。
+         *
+         * @param registered 名前をキーにした登録したオブジェクト
+         * @param sources ロードした順のロード結果
+         */
+        LoadedValues(Map<String, Object> registered, List<Map<String, Object>> sources) {
+            this.registered = Collections.unmodifiableMap(registered);
+            this.sources = sources;
+        }
+
+        @Override
+        public Object get(Object key) {
+            if (registered.containsKey(key)) {
+                return registered.get(key);
+            }
+            for (int i = sources.size() - 1; i >= 0; i--) {
+                Object value = sources.get(i).get(key);
+                if (value != null) {
+                    return value;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null || registered.containsKey(key);
+        }
+
+        @Override
+        public Set<Map.Entry<String, Object>> entrySet() {
+            return entrySet;
+        }
+
+        /**
+         * 登録したオブジェクト、後にロードしたロード結果の順に、上書きされていないエントリを返却するイテレータ。
+         */
+        private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+
+            /** 登録したオブジェクトのイテレータ */
+            private final Iterator<Map.Entry<String, Object>> registeredEntries = registered.entrySet().iterator();
+
+            /** 走査中のロード結果の添字 */
+            private int source = sources.size();
+
+            /** 走査中のロード結果のイテレータ */
+            private Iterator<Map.Entry<String, Object>> sourceEntries;
+
+            /** 次に返却するエントリ */
+            private Map.Entry<String, Object> next;
+
+            public boolean hasNext() {
+                if (next != null) {
+                    return true;
+                }
+                if (registeredEntries.hasNext()) {
+                    next = registeredEntries.next();
+                    return true;
+                }
+                while (true) {
+                    if (sourceEntries == null || !sourceEntries.hasNext()) {
+                        if (source == 0) {
+                            return false;
+                        }
+                        sourceEntries = sources.get(--source).entrySet().iterator();
+                        continue;
+                    }
+                    Map.Entry<String, Object> entry = sourceEntries.next();
+                    if (entry.getValue() != null && !isOverridden(entry.getKey())) {
+                        next = new SimpleImmutableEntry<String, Object>(entry.getKey(), entry.getValue());
+                        return true;
+                    }
+                }
+            }
+
+            public Map.Entry<String, Object> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Map.Entry<String, Object> entry = next;
+                next = null;
+                return entry;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+            /**
+             * 走査中のロード結果の値が、登録したオブジェクトか後にロードしたロード結果で上書きされているか否か。
+             *
+             * @param key 名前
+             * @return 上書きされている場合 true
+             */
+            private boolean isOverridden(String key) {
+                if (registered.containsKey(key)) {
+                    return true;
+                }
+                for (int i = sources.size() - 1; i > source; i--) {
+                    if (sources.get(i).get(key) != null) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }
+    }
+
     /**
      * コンポーネントの参照階層を保持するスタッククラス。
+     * <p/>
+     * 取得処理のたびにメッセージを作成しないよう、コンポーネント定義とルックアップする型のみを保持し、
+     * メッセージは循環参照を検出した場合にのみ作成する。
      */
     private static class ReferenceStack {
 
@@ -568,10 +1894,10 @@ public class DiContainer implements ObjectLoader {
          * {@link DiContainer}インスタンスが、マルチスレッドで共用される場合を考慮して
          * {@link ThreadLocal}を使用する。
          */
-        private ThreadLocal<List<String>> stack = new ThreadLocal<List<String>>() {
+        private ThreadLocal<Frames> stack = new ThreadLocal<Frames>() {
             @Override
-            protected List<String> initialValue() {
-                return new LinkedList<String>();
+            protected Frames initialValue() {
+                return new Frames();
             }
         };
 
@@ -580,37 +1906,23 @@ public class DiContainer implements ObjectLoader {
          * @param definition コンポーネント定義
          */
         void push(ComponentDefinition definition) {
-            push(definition, "");
+            stack.get().push(definition, null);
         }
 
-
         /**
          * コンポーネント定義をスタックに格納する。
          * @param definition コンポーネント定義
          * @param lookUpType ルックアップする型
          */
         void push(ComponentDefinition definition, Class<?> lookUpType) {
-            String type = Builder.concat("lookup type=[", lookUpType.getName(), "]");
-            push(definition, type);
-        }
-
-        /**
-         * コンポーネント定義をスタックに格納する。
-         * @param definition コンポーネント定義
-         * @param lookUpType ルックアップする型
-         */
-        private void push(ComponentDefinition definition, String lookUpType) {
-            stack.get().add(createStackElement(definition, lookUpType));
+            stack.get().push(definition, lookUpType);
         }
 
         /**
          * スタックから要素を取り出す。
-         * @return メッセージ
          */
-        String pop() {
-            List<String> s = stack.get();
-            int lastIndex = s.size() - 1;
-            return s.remove(lastIndex);
+        void pop() {
+            stack.get().pop();
         }
 
         /**
@@ -618,27 +1930,80 @@ public class DiContainer implements ObjectLoader {
          * @return 参照スタック
          */
         String getReferenceStack() {
+            Frames frames = stack.get();
             StringBuilder sb = new StringBuilder("\nReference stack is below.\n");
-            for (String e : stack.get()) {
-                sb.append(e);
+            for (int i = 0; i < frames.size; i++) {
+                appendStackElement(sb, frames.definitions[i], frames.lookUpTypes[i]);
             }
             return sb.toString();
         }
 
         /**
-         * スタックの要素を作成する。
+         * スタックの要素を追加する。
+         * @param sb 追加先
          * @param def コンポーネント定義
-         * @param lookUpType ルックアップする型
-         * @return スタックの要素
+         * @param lookUpType ルックアップする型(型によるルックアップでない場合はnull)
+         */
+        private void appendStackElement(StringBuilder sb, ComponentDefinition def, Class<?> lookUpType) {
+            sb.append("\t")
+              .append("id=[").append(def.getId()).append("] ")
+              .append("name=[");
+            if (def.getName() != null) {
+                sb.append(def.getName());
+            }
+            sb.append("] ")
+              .append("component type=[").append(def.getType().getName()).append("] ");
+            if (lookUpType != null) {
+                sb.append("lookup type=[").append(lookUpType.getName()).append("]");
+            }
+            sb.append("\n");
+        }
+
+        /**
+         * スレッドごとのスタックの要素。
+         * 要素を保持する配列は再利用し、不足した場合のみ拡張する。
          */
-        private String createStackElement(ComponentDefinition def, String lookUpType) {
-            return Builder.concat(
-                    "\t",
-                    "id=[", def.getId(), "] ",
-                    "name=[", def.getName(), "] ",
-                    "component type=[", def.getType().getName(), "] ",
-                    lookUpType,
-                    "\n");
+        private static final class Frames {
+
+            /** 配列の初期長 */
+            private static final int INITIAL_CAPACITY = 16;
+
+            /** コンポーネント定義 */
+            private ComponentDefinition[] definitions = new ComponentDefinition[INITIAL_CAPACITY];
+
+            /** ルックアップする型 */
+            private Class<?>[] lookUpTypes = new Class<?>[INITIAL_CAPACITY];
+
+            /** 要素数 */
+            private int size;
+
+            /**
+             * 要素を格納する。
+             * @param definition コンポーネント定義
+             * @param lookUpType ルックアップする型
+             */
+            void push(ComponentDefinition definition, Class<?> lookUpType) {
+                if (size == definitions.length) {
+                    ComponentDefinition[] newDefinitions = new ComponentDefinition[size * 2];
+                    System.arraycopy(definitions, 0, newDefinitions, 0, size);
+                    definitions = newDefinitions;
+                    Class<?>[] newLookUpTypes = new Class<?>[size * 2];
+                    System.arraycopy(lookUpTypes, 0, newLookUpTypes, 0, size);
+                    lookUpTypes = newLookUpTypes;
+                }
+                definitions[size] = definition;
+                lookUpTypes[size] = lookUpType;
+                size++;
+            }
+
+            /**
+             * 要素を取り出す。
+             */
+            void pop() {
+                size--;
+                definitions[size] = null;
+                lookUpTypes[size] = null;
+            }
         }
     }
 
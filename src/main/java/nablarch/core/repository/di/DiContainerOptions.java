@@ -0,0 +1,210 @@
+package nablarch.core.repository.di;
+
+import java.util.Collections;
+import java.util.List;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * {@link DiContainer}の動作を指定するクラス。
+ * <p/>
+ * 何も指定しない場合、従来と同じ動作となる。
+ */
+@Published(tag = "architect")
+public class DiContainerOptions {
+
+    /**
+     * コンポーネントを生成するスレッド数。
+     */
+    private int parallelism = 1;
+
+    /**
+     * 生成済みの{@link nablarch.core.repository.ObjectLoader}をロードするスレッド数(0以下の場合はコンポーネントを生成するスレッド数)。
+     */
+    private int objectLoaderParallelism = 0;
+
+    /**
+     * 全てのコンポーネントの生成を最初に取得されるまで遅延するか否か。
+     */
+    private boolean lazyInit = false;
+
+    /**
+     * ObjectLoaderからロードした値を、参照されるまでコンポーネントとして登録しないか否か。
+     */
+    private boolean lazyObjectLoaderValues = false;
+
+    /**
+     * 上書きに使用するシステムプロパティのみをコンポーネントとして登録するか否か。
+     */
+    private boolean systemPropertyOverlay = false;
+
+    /**
+     * 上書きに使用しない場合もコンポーネントとして登録するシステムプロパティのキーのプレフィックス。
+     */
+    private List<String> systemPropertyPrefixes = Collections.emptyList();
+
+    /**
+     * コンポーネントを生成するスレッド数を取得する。
+     * @return コンポーネントを生成するスレッド数
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * コンポーネントを生成するスレッド数を設定する。
+     * <p/>
+     * 2以上を指定した場合、コンポーネント定義の参照関係から依存関係を解析し、
+     * 互いに依存しないコンポーネントを指定したスレッド数で並列に生成およびインジェクションする。
+     * 1以下を指定した場合(デフォルト)、コンポーネントIDの順に逐次生成する。
+     * <p/>
+     * 並列に生成する場合、コンポーネントのコンストラクタや{@link ComponentFactory#createObject()}が
+     * 呼び出される順序は保証されない。
+     * 循環参照を含むコンポーネント、参照先が不明なコンポーネント
+     * ({@link ComponentDependencyAware}を実装しない{@link ComponentCreator}や{@link ComponentInjector}を使用するもの)、
+     * およびそれらに依存するコンポーネントは、並列処理の完了後に従来通り逐次生成する。
+     * <p/>
+     * また、{@link #setObjectLoaderParallelism(int)}を指定しない場合は、
+     * 生成済みの{@link nablarch.core.repository.ObjectLoader}(環境設定ファイルのローダなど)のロードも
+     * このスレッド数で並列に行う。
+     *
+     * @param parallelism コンポーネントを生成するスレッド数
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * 生成済みの{@link nablarch.core.repository.ObjectLoader}をロードするスレッド数を取得する。
+     * @return ObjectLoaderをロードするスレッド数(0以下の場合はコンポーネントを生成するスレッド数を使用する)
+     */
+    public int getObjectLoaderParallelism() {
+        return objectLoaderParallelism;
+    }
+
+    /**
+     * 生成済みの{@link nablarch.core.repository.ObjectLoader}をロードするスレッド数を設定する。
+     * <p/>
+     * 2以上を指定した場合、コンポーネント定義に値として登録された{@link nablarch.core.repository.ObjectLoader}
+     * (config-file要素で指定した環境設定ファイルのローダなど)が複数あれば、それらのロードを指定したスレッド数で並列に行う。
+     * コンポーネントの生成は、{@link #setParallelism(int)}の指定に従う。
+     * ロードした値は、逐次にロードした場合と同じ順序で登録するため、値の上書きとコンポーネントIDは逐次にロードした場合と同じとなる。
+     * インジェクションが必要な{@link nablarch.core.repository.ObjectLoader}は、他のコンポーネントに依存するため、並列にロードしない。
+     * <p/>
+     * 1を指定した場合は、逐次にロードする。
+     * 0以下を指定した場合(デフォルト)は、{@link #setParallelism(int)}で指定したスレッド数を使用する。
+     *
+     * @param objectLoaderParallelism ObjectLoaderをロードするスレッド数
+     */
+    public void setObjectLoaderParallelism(int objectLoaderParallelism) {
+        this.objectLoaderParallelism = objectLoaderParallelism;
+    }
+
+    /**
+     * 全てのコンポーネントの生成を最初に取得されるまで遅延するか否かを取得する。
+     * @return 遅延する場合 true
+     */
+    public boolean isLazyInit() {
+        return lazyInit;
+    }
+
+    /**
+     * 全てのコンポーネントの生成を最初に取得されるまで遅延するか否かを設定する。
+     * <p/>
+     * trueを指定した場合、コンポーネントは{@link DiContainer}の構築時には生成せず、
+     * 名前、型、IDのいずれかで最初に取得された時点で生成およびインジェクションする。
+     * falseを指定した場合(デフォルト)でも、コンポーネント定義で遅延を指定したコンポーネント
+     * ({@link ComponentDefinition#isLazyInit()}がtrueのもの)は遅延して生成する。
+     * <p/>
+     * 下記のコンポーネントは、遅延を指定した場合でも構築時に生成する。
+     * <ul>
+     * <li>{@link nablarch.core.repository.ObjectLoader}を実装したコンポーネント</li>
+     * <li>"initializer"という名前のコンポーネントと、そこから参照されるコンポーネント</li>
+     * <li>遅延しないコンポーネントから参照されるコンポーネント</li>
+     * </ul>
+     * また、{@link DiContainer#load()}を呼び出した場合は、名前を持つ全てのコンポーネントを生成する。
+     *
+     * @param lazyInit 遅延する場合 true
+     */
+    public void setLazyInit(boolean lazyInit) {
+        this.lazyInit = lazyInit;
+    }
+
+    /**
+     * ObjectLoaderからロードした値を、参照されるまでコンポーネントとして登録しないか否かを取得する。
+     * @return 参照されるまで登録しない場合 true
+     */
+    public boolean isLazyObjectLoaderValues() {
+        return lazyObjectLoaderValues;
+    }
+
+    /**
+     * ObjectLoaderからロードした値を、参照されるまでコンポーネントとして登録しないか否かを設定する。
+     * <p/>
+     * falseを指定した場合(デフォルト)、{@link nablarch.core.repository.ObjectLoader}からロードした全ての値を、
+     * それぞれコンポーネント定義とコンポーネントホルダを持つコンポーネントとして登録する。
+     * <p/>
+     * trueを指定した場合、ObjectLoaderのロード結果は複製せずにそのまま保持し、下記の値のみをコンポーネントとして登録する。
+     * 値の上書きの順序は、falseを指定した場合と同じである。
+     * <ul>
+     * <li>同じ名前のコンポーネントを上書きする値</li>
+     * <li>コンポーネント定義から名前で参照されている値(リテラルの${}による参照を含む)</li>
+     * </ul>
+     * その他の値は、名前で取得した際に該当するコンポーネントがない場合に、保持したロード結果から取得する。
+     * {@link DiContainer#load()}の結果には含むが、型による取得の対象とはならない。
+     * また、コンポーネントIDは登録した値にのみ採番するため、falseを指定した場合とは異なる。
+     *
+     * @param lazyObjectLoaderValues 参照されるまで登録しない場合 true
+     */
+    public void setLazyObjectLoaderValues(boolean lazyObjectLoaderValues) {
+        this.lazyObjectLoaderValues = lazyObjectLoaderValues;
+    }
+
+    /**
+     * 上書きに使用するシステムプロパティのみをコンポーネントとして登録するか否かを取得する。
+     * @return 上書きに使用するシステムプロパティのみを登録する場合 true
+     */
+    public boolean isSystemPropertyOverlay() {
+        return systemPropertyOverlay;
+    }
+
+    /**
+     * 上書きに使用するシステムプロパティのみをコンポーネントとして登録するか否かを設定する。
+     * <p/>
+     * falseを指定した場合(デフォルト)、全てのシステムプロパティをコンポーネントとして登録する。
+     * <p/>
+     * trueを指定した場合、下記のシステムプロパティのみをコンポーネントとして登録する。
+     * 上書きに関するチェックとログ出力は、falseを指定した場合と同じである。
+     * <ul>
+     * <li>同じ名前のコンポーネントを上書きするもの</li>
+     * <li>キーが{@link #setSystemPropertyPrefixes(List)}で指定したプレフィックスで始まるもの</li>
+     * </ul>
+     * その他のシステムプロパティは、名前で取得した際に該当するコンポーネントがない場合にのみ解決する。
+     * このため、型による取得や{@link DiContainer#load()}の結果には含まれない。
+     * また、{@link DiContainer#reloadIncrementally()}では、これらのシステムプロパティの変更を検出しない。
+     *
+     * @param systemPropertyOverlay 上書きに使用するシステムプロパティのみを登録する場合 true
+     */
+    public void setSystemPropertyOverlay(boolean systemPropertyOverlay) {
+        this.systemPropertyOverlay = systemPropertyOverlay;
+    }
+
+    /**
+     * 上書きに使用しない場合もコンポーネントとして登録するシステムプロパティのキーのプレフィックスを取得する。
+     * @return システムプロパティのキーのプレフィックス
+     */
+    public List<String> getSystemPropertyPrefixes() {
+        return systemPropertyPrefixes;
+    }
+
+    /**
+     * 上書きに使用しない場合もコンポーネントとして登録するシステムプロパティのキーのプレフィックスを設定する。
+     * <p/>
+     * {@link #setSystemPropertyOverlay(boolean)}でtrueを指定した場合のみ使用する。
+     *
+     * @param systemPropertyPrefixes システムプロパティのキーのプレフィックス
+     */
+    public void setSystemPropertyPrefixes(List<String> systemPropertyPrefixes) {
+        this.systemPropertyPrefixes = systemPropertyPrefixes;
+    }
+}
@@ -0,0 +1,129 @@
+package nablarch.core.repository.di;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import nablarch.core.util.ObjectUtil;
+
+/**
+ * コンポーネントのクラスごとに、プロパティのsetterを解決済みの状態で保持するクラス。
+ * <p/>
+ * {@link ObjectUtil#setProperty(Object, String, Object)}はプロパティを設定するたびにsetterを検索するが、
+ * 本クラスはクラスのsetterを一度だけ検索し、プロパティ名ごとの候補を配列で保持する。
+ * 候補の中から、{@link ObjectUtil#findMatchMethod(Class, String, Class[])}と同じ順序で、
+ * 値の型を引数に受け取れる最初のsetterを呼び出す。
+ * <p/>
+ * 本クラスはスレッドセーフである。
+ */
+final class InjectionPlan {
+
+    /** プリミティブ型をキーにしたラッパー型 */
+    private static final Map<Class<?>, Class<?>> WRAPPER_TYPES = new HashMap<Class<?>, Class<?>>();
+
+    static {
+        WRAPPER_TYPES.put(boolean.class, Boolean.class);
+        WRAPPER_TYPES.put(byte.class, Byte.class);
+        WRAPPER_TYPES.put(char.class, Character.class);
+        WRAPPER_TYPES.put(short.class, Short.class);
+        WRAPPER_TYPES.put(int.class, Integer.class);
+        WRAPPER_TYPES.put(long.class, Long.class);
+        WRAPPER_TYPES.put(float.class, Float.class);
+        WRAPPER_TYPES.put(double.class, Double.class);
+    }
+
+    /** setterが存在しないことを表す候補 */
+    private static final Setter[] NO_SETTERS = new Setter[0];
+
+    /** メソッド名をキーにしたsetterの候補 */
+    private final Map<String, Setter[]> settersByMethodName;
+
+    /** プロパティ名をキーにしたsetterの候補 */
+    private final ConcurrentMap<String, Setter[]> settersByPropertyName = new ConcurrentHashMap<String, Setter[]>();
+
+    /**
+     * コンストラクタ。
+     *
+     * @param type コンポーネントのクラス
+     */
+    InjectionPlan(Class<?> type) {
+        Map<String, List<Setter>> setters = new LinkedHashMap<String, List<Setter>>();
+        for (Method method : type.getMethods()) {
+            if (!method.getName().startsWith("set") || method.getParameterTypes().length != 1) {
+                continue;
+            }
+            List<Setter> candidates = setters.get(method.getName());
+            if (candidates == null) {
+                candidates = new ArrayList<Setter>(1);
+                setters.put(method.getName(), candidates);
+            }
+            candidates.add(new Setter(method));
+        }
+        settersByMethodName = new HashMap<String, Setter[]>(setters.size() * 4 / 3 + 1);
+        for (Map.Entry<String, List<Setter>> entry : setters.entrySet()) {
+            settersByMethodName.put(entry.getKey(), entry.getValue().toArray(new Setter[entry.getValue().size()]));
+        }
+    }
+
+    /**
+     * プロパティに値を設定する。
+     * <p/>
+     * 値の型に合うsetterが存在しない場合は、{@link ObjectUtil#setProperty(Object, String, Object)}と同じ例外を送出する。
+     *
+     * @param component コンポーネント
+     * @param propertyName プロパティ名
+     * @param value 設定する値
+     */
+    void setProperty(Object component, String propertyName, Object value) {
+        Setter[] candidates = settersByPropertyName.get(propertyName);
+        if (candidates == null) {
+            candidates = settersByMethodName.get(ObjectUtil.getSetterMethodName(propertyName));
+            if (candidates == null) {
+                candidates = NO_SETTERS;
+            }
+            settersByPropertyName.putIfAbsent(propertyName, candidates);
+        }
+
+        Class<?> valueType = value.getClass();
+        for (Setter setter : candidates) {
+            if (setter.parameterType.isAssignableFrom(valueType)) {
+                try {
+                    setter.method.invoke(component, value);
+                } catch (Exception e) {
+                    throw new RuntimeException("can't set property [" + propertyName + "]", e);
+                }
+                return;
+            }
+        }
+        // 例外のメッセージを従来と合わせるため、setterの検索から委譲する。
+        ObjectUtil.setProperty(component, propertyName, value);
+    }
+
+    /**
+     * setterの候補。
+     */
+    private static final class Setter {
+
+        /** setter */
+        private final Method method;
+
+        /** 引数の型(プリミティブ型の場合はラッパー型) */
+        private final Class<?> parameterType;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param method setter
+         */
+        Setter(Method method) {
+            this.method = method;
+            Class<?> type = method.getParameterTypes()[0];
+            this.parameterType = type.isPrimitive() ? WRAPPER_TYPES.get(type) : type;
+        }
+    }
+}
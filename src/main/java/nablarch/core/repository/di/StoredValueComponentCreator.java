@@ -1,5 +1,8 @@
 package nablarch.core.repository.di;
 
+import java.util.Collections;
+import java.util.List;
+
 
 /**
  * 作成済みのオブジェクトをコンポーネントとして生成するクラス。<br/>
@@ -7,7 +10,8 @@ package nablarch.core.repository.di;
  * @author Koichi Asano 
  *
  */
-public class StoredValueComponentCreator implements ComponentCreator {
+public class StoredValueComponentCreator
+        implements ComponentCreator, ComponentDependencyAware, ComponentConfigurationComparable {
 
     /**
      * コンストラクタ。
@@ -23,6 +27,14 @@ public class StoredValueComponentCreator implements ComponentCreator {
      */
     private Object obj;
 
+    /**
+     * 作成済みオブジェクトを取得する。
+     * @return 作成済みオブジェクト
+     */
+    public Object getValue() {
+        return obj;
+    }
+
     /**
      * コンポーネントを生成する。
      * @param container コンテナ
@@ -33,6 +45,42 @@ public class StoredValueComponentCreator implements ComponentCreator {
         return obj;
     }
 
+    /**
+     * IDで参照するコンポーネントのIDを取得する。
+     * <p/>
+     * 作成済みオブジェクトは他のコンポーネントを参照しないため、常に空のリストを返却する。
+     * @return 空のリスト
+     */
+    public List<Integer> getReferencedIds() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * 名前で参照するコンポーネントの名前を取得する。
+     * <p/>
+     * 作成済みオブジェクトは他のコンポーネントを参照しないため、常に空のリストを返却する。
+     * @return 空のリスト
+     */
+    public List<String> getReferencedNames() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * コンポーネントを生成する設定が同じか否かを判定する。
+     * <p/>
+     * 同じクラスで、作成済みオブジェクトが等しい({@link Object#equals(Object)}がtrueを返却する)場合に同じ設定とみなす。
+     * 
+     * @param other 比較する{@link ComponentCreator}
+     * @return 設定が同じ場合 true
+     */
+    public boolean isSameConfiguration(ComponentCreator other) {
+        if (other == null || other.getClass() != getClass()) {
+            return false;
+        }
+        Object otherValue = ((StoredValueComponentCreator) other).obj;
+        return obj == otherValue || (obj != null && obj.equals(otherValue));
+    }
+
     @Override
     public String toString() {
         return "stored value object = " + obj.toString();
@@ -0,0 +1,124 @@
+package nablarch.core.repository.di;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import nablarch.core.util.ObjectUtil;
+
+/**
+ * コンポーネントのクラスごとに、型のインデックスに登録する型を展開済みの状態で保持するクラス。
+ * <p/>
+ * 型のインデックスには、コンポーネントの型と直接実装したインタフェースを登録し、
+ * 祖先クラスごとに同じ登録を再帰的に行う。
+ * このため、祖先クラスや複数の階層で実装したインタフェースは、1つのコンポーネントから複数回登録され、
+ * 型では取得できない型となる。
+ * 本クラスは登録の回数を一度だけ数え、1回だけ登録する型と、複数回登録する型に分けて保持する。
+ * <p/>
+ * {@link ComponentFactory}の場合は、{@link ComponentFactory#createObject()}の戻り値の型を展開する。
+ * <p/>
+ * 生成後は状態を変更しないため、スレッドセーフである。
+ */
+final class TypeHierarchy {
+
+    /** 1つのコンポーネントから1回だけ登録する型 */
+    private final Class<?>[] singleTypes;
+
+    /** 1つのコンポーネントから複数回登録する型 */
+    private final Class<?>[] repeatedTypes;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param componentType コンポーネントのクラス
+     */
+    TypeHierarchy(Class<?> componentType) {
+        Map<Class<?>, Integer> counts = new LinkedHashMap<Class<?>, Integer>();
+        collect(getBaseType(componentType), counts);
+        List<Class<?>> singles = new ArrayList<Class<?>>(counts.size());
+        List<Class<?>> repeated = new ArrayList<Class<?>>();
+        for (Map.Entry<Class<?>, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() == 1) {
+                singles.add(entry.getKey());
+            } else {
+                repeated.add(entry.getKey());
+            }
+        }
+        singleTypes = singles.toArray(new Class<?>[singles.size()]);
+        repeatedTypes = repeated.toArray(new Class<?>[repeated.size()]);
+    }
+
+    /**
+     * 1つのコンポーネントから1回だけ登録する型を取得する。
+     *
+     * @return 1回だけ登録する型(呼び出し元で変更しないこと)
+     */
+    Class<?>[] getSingleTypes() {
+        return singleTypes;
+    }
+
+    /**
+     * 1つのコンポーネントから複数回登録する型を取得する。
+     * <p/>
+     * これらの型は、コンポーネントが1つでも型では取得できない。
+     *
+     * @return 複数回登録する型(呼び出し元で変更しないこと)
+     */
+    Class<?>[] getRepeatedTypes() {
+        return repeatedTypes;
+    }
+
+    /**
+     * 型のインデックスに登録する起点の型を取得する。
+     *
+     * @param componentType コンポーネントのクラス
+     * @return 起点の型
+     */
+    private static Class<?> getBaseType(Class<?> componentType) {
+        if (!ComponentFactory.class.isAssignableFrom(componentType)) {
+            return componentType;
+        }
+        // ComponentFactoryは特別扱い
+        Method m;
+        try {
+            m = componentType.getMethod("createObject");
+        } catch (Exception e) {
+            // ComponentFactoryには必ずcreateObjectメソッドがあるはずなので、到達しない。
+            throw new ContainerProcessException("method [createObject] execution failed.", e);
+        }
+        return m.getReturnType();
+    }
+
+    /**
+     * 型のインデックスに登録する型を、再帰的に数える。
+     *
+     * @param type 登録する型
+     * @param counts 型をキーにした登録の回数
+     */
+    private static void collect(Class<?> type, Map<Class<?>, Integer> counts) {
+        count(type, counts);
+
+        for (Class<?> interfaces : type.getInterfaces()) {
+            count(interfaces, counts);
+        }
+
+        if (!type.isInterface()) {
+            for (Class<?> ancestor : ObjectUtil.getAncestorClasses(type)) {
+                collect(ancestor, counts);
+            }
+        }
+    }
+
+    /**
+     * 型の登録の回数を数える。
+     *
+     * @param type 型
+     * @param counts 型をキーにした登録の回数
+     */
+    private static void count(Class<?> type, Map<Class<?>, Integer> counts) {
+        Integer count = counts.get(type);
+        counts.put(type, count == null ? 1 : count + 1);
+    }
+}
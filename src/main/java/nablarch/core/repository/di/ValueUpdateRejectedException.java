@@ -0,0 +1,40 @@
+package nablarch.core.repository.di;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * {@link DiContainer#updateValues(java.util.Map)}で、更新できない名前の値を指定した場合に発生する例外。
+ * <p/>
+ * 値以外のコンポーネントと同じ名前の値は、指定した値によらず更新できない。
+ * 更新できない名前を除けば、残りの値は更新できる。
+ */
+@Published(tag = "architect")
+public class ValueUpdateRejectedException extends ContainerProcessException {
+
+    /**
+     * 更新できない値の名前。
+     */
+    private final Set<String> rejectedNames;
+
+    /**
+     * コンストラクタ。
+     * @param message メッセージ
+     * @param rejectedNames 更新できない値の名前
+     */
+    public ValueUpdateRejectedException(String message, Set<String> rejectedNames) {
+        super(message);
+        this.rejectedNames = Collections.unmodifiableSet(new LinkedHashSet<String>(rejectedNames));
+    }
+
+    /**
+     * 更新できない値の名前を取得する。
+     * @return 更新できない値の名前の変更不可能なSet
+     */
+    public Set<String> getRejectedNames() {
+        return rejectedNames;
+    }
+}
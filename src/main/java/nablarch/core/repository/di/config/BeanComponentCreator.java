@@ -1,21 +1,70 @@
 package nablarch.core.repository.di.config;
 
+import java.util.Collections;
+import java.util.List;
+
 import nablarch.core.repository.di.ComponentCreator;
+import nablarch.core.repository.di.ComponentConfigurationComparable;
 import nablarch.core.repository.di.ComponentDefinition;
+import nablarch.core.repository.di.ComponentDependencyAware;
 import nablarch.core.repository.di.ContainerProcessException;
 import nablarch.core.repository.di.DiContainer;
 
 
 /**
  * JavaBeans型のコンポーネントを生成するクラス。
+ * <p/>
+ * 引数なしのコンストラクタ、またはコンポーネントのクラスに定義された引数なしのstaticファクトリメソッドを使用して、
+ * コンポーネントを生成する。
+ * コンストラクタとファクトリメソッドは最初の生成時に一度だけ解決し、以降の生成では解決済みのものを使用する。
+ * private以外の非publicなコンストラクタと、非publicなファクトリメソッドも使用できる。
  * 
  * @author Koichi Asano 
  *
  */
-public class BeanComponentCreator implements ComponentCreator {
+public class BeanComponentCreator
+        implements ComponentCreator, ComponentDependencyAware, ComponentConfigurationComparable {
+
+    /**
+     * ファクトリメソッドの名前。
+     */
+    private final String factoryMethodName;
+
+    /**
+     * 解決済みのコンストラクタまたはファクトリメソッド。
+     */
+    private volatile ComponentInstantiator instantiator;
+
+    /**
+     * 引数なしのコンストラクタを使ってコンポーネントを生成するインスタンスを作成する。
+     */
+    public BeanComponentCreator() {
+        this(null);
+    }
+
+    /**
+     * ファクトリメソッドを使ってコンポーネントを生成するインスタンスを作成する。
+     * 
+     * @param factoryMethodName ファクトリメソッドの名前(nullの場合は引数なしのコンストラクタを使用する)
+     */
+    public BeanComponentCreator(String factoryMethodName) {
+        this.factoryMethodName = factoryMethodName;
+    }
+
+    /**
+     * ファクトリメソッドの名前を取得する。
+     * 
+     * @return ファクトリメソッドの名前(引数なしのコンストラクタを使用する場合はnull)
+     */
+    public String getFactoryMethodName() {
+        return factoryMethodName;
+    }
 
     /**
-     * デフォルトコンストラクタを使ってコンポーネントを生成する。
+     * デフォルトコンストラクタ、またはファクトリメソッドを使ってコンポーネントを生成する。
+     * <p/>
+     * コンストラクタまたはファクトリメソッドが送出した実行時例外はそのまま送出し、
+     * 検査例外は{@link ContainerProcessException}でラップして送出する。
      * 
      * @param container コンテナ
      * @param def 生成するコンポーネントの定義
@@ -24,19 +73,49 @@ public class BeanComponentCreator implements ComponentCreator {
      * @see nablarch.core.repository.di.ComponentCreator#createComponent(DiContainer, ComponentDefinition)
      */
     public Object createComponent(DiContainer container, ComponentDefinition def) {
-        try {
-            return def.getType().newInstance();
-        } catch (InstantiationException e) {
-            throw new ContainerProcessException(
-                    "component instantiation failed."
-                    + " component class name = " + def.getType()
-                    , e);
-        } catch (IllegalAccessException e) {
-            throw new ContainerProcessException(
-                    "component instantiation failed."
-                    + " component class name = " + def.getType()
-                    , e);
+        ComponentInstantiator resolved = instantiator;
+        if (resolved == null || !resolved.matches(def.getType(), factoryMethodName)) {
+            resolved = ComponentInstantiator.get(def.getType(), factoryMethodName);
+            instantiator = resolved;
+        }
+        return resolved.newInstance();
+    }
+
+    /**
+     * コンポーネントを生成する設定が同じか否かを判定する。
+     * <p/>
+     * 同じクラスで、ファクトリメソッドの名前が同じ場合に同じ設定とみなす。
+     * 
+     * @param other 比較する{@link ComponentCreator}
+     * @return 設定が同じ場合 true
+     */
+    public boolean isSameConfiguration(ComponentCreator other) {
+        if (other == null || other.getClass() != getClass()) {
+            return false;
         }
+        String otherName = ((BeanComponentCreator) other).factoryMethodName;
+        return factoryMethodName == null ? otherName == null : factoryMethodName.equals(otherName);
     }
 
+    /**
+     * IDで参照するコンポーネントのIDを取得する。
+     * <p/>
+     * プロパティの参照はコンポーネント定義が保持するため、常に空のリストを返却する。
+     * 
+     * @return 空のリスト
+     */
+    public List<Integer> getReferencedIds() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * 名前で参照するコンポーネントの名前を取得する。
+     * <p/>
+     * プロパティの参照はコンポーネント定義が保持するため、常に空のリストを返却する。
+     * 
+     * @return 空のリスト
+     */
+    public List<String> getReferencedNames() {
+        return Collections.emptyList();
+    }
 }
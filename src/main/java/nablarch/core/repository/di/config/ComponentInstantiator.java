@@ -0,0 +1,221 @@
+package nablarch.core.repository.di.config;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import nablarch.core.repository.di.ContainerProcessException;
+
+/**
+ * 解決済みのコンストラクタまたはstaticファクトリメソッドを使用して、コンポーネントを生成するクラス。
+ * <p/>
+ * {@link Class#newInstance()}は生成のたびにコンストラクタの検索とアクセスチェックを行うが、
+ * 本クラスはコンストラクタまたはファクトリメソッドをクラスごとに一度だけ解決し、
+ * 以降の生成では解決済みのものを呼び出す。
+ * 非publicなコンストラクタとファクトリメソッドは、アクセス可能に設定して使用する。
+ * ただし、privateなコンストラクタはインスタンス化を意図しないクラス(ユーティリティクラスなど)で使用されるため、
+ * 従来通り生成に失敗する。
+ * <p/>
+ * 引数なしのコンストラクタを使用するインスタンスはクラスをキーにキャッシュし、
+ * 同じクラスのコンポーネント定義で共有する。
+ * キャッシュはクラスを弱参照で保持するため、クラスローダのアンロードを妨げない。
+ * <p/>
+ * 本クラスはスレッドセーフである。
+ */
+final class ComponentInstantiator {
+
+    /** 引数なしのコンストラクタを使用するインスタンスのキャッシュ */
+    private static final Map<Class<?>, WeakReference<ComponentInstantiator>> CONSTRUCTOR_INSTANTIATORS =
+            Collections.synchronizedMap(new WeakHashMap<Class<?>, WeakReference<ComponentInstantiator>>());
+
+    /** 生成するコンポーネントのクラス */
+    private final Class<?> type;
+
+    /** ファクトリメソッドの名前(コンストラクタを使用する場合はnull) */
+    private final String factoryMethodName;
+
+    /** 引数なしのコンストラクタ(ファクトリメソッドを使用する場合はnull) */
+    private final Constructor<?> constructor;
+
+    /** ファクトリメソッド(コンストラクタを使用する場合はnull) */
+    private final Method factoryMethod;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param type 生成するコンポーネントのクラス
+     * @param factoryMethodName ファクトリメソッドの名前(コンストラクタを使用する場合はnull)
+     * @param constructor 引数なしのコンストラクタ
+     * @param factoryMethod ファクトリメソッド
+     */
+    private ComponentInstantiator(Class<?> type, String factoryMethodName,
+            Constructor<?> constructor, Method factoryMethod) {
+        this.type = type;
+        this.factoryMethodName = factoryMethodName;
+        this.constructor = constructor;
+        this.factoryMethod = factoryMethod;
+    }
+
+    /**
+     * クラスとファクトリメソッドの名前に対応するインスタンスを取得する。
+     * <p/>
+     * コンストラクタまたはファクトリメソッドが存在しない場合は、
+     * コンポーネントの生成に失敗した場合と同じ例外を送出する。
+     *
+     * @param type 生成するコンポーネントのクラス
+     * @param factoryMethodName ファクトリメソッドの名前(コンストラクタを使用する場合はnull)
+     * @return インスタンス
+     */
+    static ComponentInstantiator get(Class<?> type, String factoryMethodName) {
+        if (factoryMethodName != null) {
+            return new ComponentInstantiator(type, factoryMethodName, null,
+                    resolveFactoryMethod(type, factoryMethodName));
+        }
+        WeakReference<ComponentInstantiator> ref = CONSTRUCTOR_INSTANTIATORS.get(type);
+        ComponentInstantiator instantiator = ref == null ? null : ref.get();
+        if (instantiator == null) {
+            instantiator = new ComponentInstantiator(type, null, resolveConstructor(type), null);
+            CONSTRUCTOR_INSTANTIATORS.put(type, new WeakReference<ComponentInstantiator>(instantiator));
+        }
+        return instantiator;
+    }
+
+    /**
+     * このインスタンスが、クラスとファクトリメソッドの名前に対応するか否かを判定する。
+     *
+     * @param type 生成するコンポーネントのクラス
+     * @param factoryMethodName ファクトリメソッドの名前(コンストラクタを使用する場合はnull)
+     * @return 対応する場合はtrue
+     */
+    boolean matches(Class<?> type, String factoryMethodName) {
+        return this.type == type
+                && (factoryMethodName == null
+                        ? this.factoryMethodName == null : factoryMethodName.equals(this.factoryMethodName));
+    }
+
+    /**
+     * コンポーネントを生成する。
+     * <p/>
+     * コンストラクタまたはファクトリメソッドが送出した実行時例外とエラーはそのまま送出し、
+     * 検査例外は{@link ContainerProcessException}でラップして送出する。
+     *
+     * @return 生成したコンポーネント
+     */
+    Object newInstance() {
+        try {
+            if (constructor != null) {
+                return constructor.newInstance();
+            }
+            return factoryMethod.invoke(null);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw instantiationFailed(type, cause);
+        } catch (InstantiationException e) {
+            throw instantiationFailed(type, e);
+        } catch (IllegalAccessException e) {
+            throw instantiationFailed(type, e);
+        }
+    }
+
+    /**
+     * 引数なしのコンストラクタを解決する。
+     *
+     * @param type 生成するコンポーネントのクラス
+     * @return 引数なしのコンストラクタ
+     */
+    private static Constructor<?> resolveConstructor(Class<?> type) {
+        if (Modifier.isAbstract(type.getModifiers())) {
+            throw instantiationFailed(type, new InstantiationException(type.getName()));
+        }
+        Constructor<?> constructor;
+        try {
+            constructor = type.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            throw instantiationFailed(type, e);
+        }
+        if (Modifier.isPrivate(constructor.getModifiers())) {
+            throw instantiationFailed(type, new IllegalAccessException("constructor is private. constructor = "
+                    + constructor));
+        }
+        makeAccessible(constructor, Modifier.isPublic(constructor.getModifiers()));
+        return constructor;
+    }
+
+    /**
+     * ファクトリメソッドを解決する。
+     * <p/>
+     * ファクトリメソッドは、クラスまたはスーパークラスに定義された引数なしのstaticメソッドで、
+     * 戻り値の型がクラスに代入可能である必要がある。
+     *
+     * @param type 生成するコンポーネントのクラス
+     * @param factoryMethodName ファクトリメソッドの名前
+     * @return ファクトリメソッド
+     */
+    private static Method resolveFactoryMethod(Class<?> type, String factoryMethodName) {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            Method method;
+            try {
+                method = c.getDeclaredMethod(factoryMethodName);
+            } catch (NoSuchMethodException e) {
+                continue;
+            }
+            if (!Modifier.isStatic(method.getModifiers()) || !type.isAssignableFrom(method.getReturnType())) {
+                break;
+            }
+            makeAccessible(method, Modifier.isPublic(method.getModifiers()));
+            return method;
+        }
+        throw new ContainerProcessException(
+                "component factory method was not found. the factory method must be static, "
+                + "have no parameters and return the component class."
+                + " component class name = " + type
+                + ", factory method name = " + factoryMethodName);
+    }
+
+    /**
+     * コンストラクタまたはメソッドをアクセス可能に設定する。
+     * <p/>
+     * publicなクラスのpublicなメンバーであってもアクセスチェックを省略するため、常に設定を試みる。
+     * セキュリティマネージャにより設定できない場合、非publicなメンバーは使用できない。
+     *
+     * @param member コンストラクタまたはメソッド
+     * @param isPublic メンバーがpublicか否か
+     */
+    private static void makeAccessible(AccessibleObject member, boolean isPublic) {
+        try {
+            member.setAccessible(true);
+        } catch (SecurityException e) {
+            if (!isPublic) {
+                throw new ContainerProcessException(
+                        "component instantiation failed. non-public member is not accessible."
+                        + " member = " + member, e);
+            }
+        }
+    }
+
+    /**
+     * コンポーネントの生成に失敗したことを表す例外を生成する。
+     *
+     * @param type 生成するコンポーネントのクラス
+     * @param cause 原因
+     * @return 例外
+     */
+    private static ContainerProcessException instantiationFailed(Class<?> type, Throwable cause) {
+        return new ContainerProcessException(
+                "component instantiation failed."
+                + " component class name = " + type
+                , cause);
+    }
+}
@@ -0,0 +1,168 @@
+package nablarch.core.repository.di.config;
+
+import java.util.Collections;
+import java.util.List;
+
+import nablarch.core.repository.di.ComponentConfigurationComparable;
+import nablarch.core.repository.di.ComponentCreator;
+import nablarch.core.repository.di.ComponentDefinition;
+import nablarch.core.repository.di.ComponentDependencyAware;
+import nablarch.core.repository.di.ComponentInjector;
+import nablarch.core.repository.di.ComponentReference;
+import nablarch.core.repository.di.ConfigurationLoadException;
+import nablarch.core.repository.di.ContainerProcessException;
+import nablarch.core.repository.di.DiContainer;
+import nablarch.core.repository.di.InjectionType;
+
+/**
+ * コンポーネント設定ファイルから生成したソースコードで、コンポーネントの生成とインジェクションを行うクラスの基底クラス。
+ * <p/>
+ * {@link BeanComponentCreator}とDIコンテナによるインジェクションはリフレクションを使用するが、
+ * 本クラスのサブクラスはコンストラクタとsetterを直接呼び出す。
+ * サブクラスは、担当する複数のコンポーネントを番号で区別し、番号に応じた生成とインジェクションを実装する。
+ * <p/>
+ * プロパティの参照はコンポーネント定義が保持するため、
+ * {@link #getReferencedIds()}と{@link #getReferencedNames()}は常に空のリストを返却する。
+ *
+ * @see nablarch.core.repository.di.config.xml.ComponentDefinitionLoaderGenerator
+ */
+public abstract class GeneratedComponentCreator
+        implements ComponentCreator, ComponentInjector, ComponentDependencyAware, ComponentConfigurationComparable {
+
+    /**
+     * コンポーネントの番号。
+     */
+    private final int index;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param index コンポーネントの番号
+     */
+    protected GeneratedComponentCreator(int index) {
+        this.index = index;
+    }
+
+    /**
+     * コンポーネントを生成する。
+     *
+     * @param container コンテナ
+     * @param def 生成するコンポーネントの定義
+     * @return 生成したコンポーネント
+     */
+    public Object createComponent(DiContainer container, ComponentDefinition def) {
+        return create(index);
+    }
+
+    /**
+     * コンポーネントのインジェクション処理を行う。
+     *
+     * @param container コンテナ
+     * @param def インジェクションするコンポーネントの定義
+     * @param component インジェクションするコンポーネント
+     */
+    public void completeInject(DiContainer container, ComponentDefinition def, Object component) {
+        inject(index, container, def.getReferences(), component);
+    }
+
+    /**
+     * IDで参照するコンポーネントのIDを取得する。
+     * <p/>
+     * プロパティの参照はコンポーネント定義が保持するため、常に空のリストを返却する。
+     *
+     * @return 空のリスト
+     */
+    public List<Integer> getReferencedIds() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * 名前で参照するコンポーネントの名前を取得する。
+     * <p/>
+     * プロパティの参照はコンポーネント定義が保持するため、常に空のリストを返却する。
+     *
+     * @return 空のリスト
+     */
+    public List<String> getReferencedNames() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * コンポーネントを生成する設定が同じか否かを判定する。
+     * <p/>
+     * 同じ生成クラスで、コンポーネントの番号が同じ場合に同じ設定とみなす。
+     *
+     * @param other 比較する{@link ComponentCreator}
+     * @return 設定が同じ場合 true
+     */
+    public boolean isSameConfiguration(ComponentCreator other) {
+        return other != null && other.getClass() == getClass()
+                && ((GeneratedComponentCreator) other).index == index;
+    }
+
+    /**
+     * 番号に対応するコンポーネントを生成する。
+     *
+     * @param index コンポーネントの番号
+     * @return 生成したコンポーネント
+     */
+    protected abstract Object create(int index);
+
+    /**
+     * 番号に対応するコンポーネントのインジェクションを行う。
+     *
+     * @param index コンポーネントの番号
+     * @param container コンテナ
+     * @param references コンポーネント定義が保持する参照
+     * @param component インジェクションするコンポーネント
+     */
+    protected abstract void inject(int index, DiContainer container,
+            List<ComponentReference> references, Object component);
+
+    /**
+     * プロパティに設定するコンポーネントを取得する。
+     * <p/>
+     * DIコンテナによるインジェクションと同じく、IDまたは名前で参照するコンポーネントが存在しない場合は例外を送出し、
+     * オートワイヤの対象が存在しない場合はnullを返却する。
+     *
+     * @param container コンテナ
+     * @param ref 参照の定義
+     * @return プロパティに設定するコンポーネント(オートワイヤの対象が存在しない場合はnull)
+     */
+    protected static Object getReferencedComponent(DiContainer container, ComponentReference ref) {
+        Object value;
+        if (ref.getInjectionType() == InjectionType.ID) {
+            value = container.getComponentById(ref.getTargetId());
+            if (value == null) {
+                throw new ContainerProcessException("component id was not found."
+                        + " id = [" + ref.getTargetId() + "]");
+            }
+        } else if (ref.getInjectionType() == InjectionType.REF) {
+            value = container.getComponentByName(ref.getReferenceName());
+            if (value == null) {
+                throw new ContainerProcessException("component name was not found."
+                        + " name = [" + ref.getReferenceName() + "]");
+            }
+        } else if (ref.getInjectionType() == InjectionType.BY_TYPE) {
+            value = container.getComponentByType(ref.getRequiredType());
+        } else {
+            value = container.getComponentByName(ref.getReferenceName());
+        }
+        return value;
+    }
+
+    /**
+     * 生成したソースコードから直接参照できないクラスを読み込む。
+     *
+     * @param className クラス名
+     * @return クラス
+     */
+    protected static Class<?> loadClass(String className) {
+        try {
+            return Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            throw new ConfigurationLoadException("component class load failed. "
+                    + "component class name = " + className, e);
+        }
+    }
+}
@@ -4,7 +4,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 import nablarch.core.repository.di.ComponentCreator;
+import nablarch.core.repository.di.ComponentConfigurationComparable;
 import nablarch.core.repository.di.ComponentDefinition;
+import nablarch.core.repository.di.ComponentDependencyAware;
 import nablarch.core.repository.di.ComponentInjector;
 import nablarch.core.repository.di.ContainerProcessException;
 import nablarch.core.repository.di.DiContainer;
@@ -20,7 +22,8 @@ import nablarch.core.util.StringUtil;
  * @author Koichi Asano 
  *
  */
-public class ListComponentCreator implements ComponentCreator, ComponentInjector {
+public class ListComponentCreator
+        implements ComponentCreator, ComponentInjector, ComponentDependencyAware, ComponentConfigurationComparable {
 
     /**
      * 要素となるコンポーネントのIDリスト。
@@ -36,6 +39,14 @@ public class ListComponentCreator implements ComponentCreator, ComponentInjector
         super();
         this.elementDefinitions = elementDefs;
     }
+
+    /**
+     * 要素となるコンポーネントの定義を取得する。
+     * @return 要素となるコンポーネントの定義のリスト
+     */
+    public List<ListElementDefinition> getElementDefinitions() {
+        return elementDefinitions;
+    }
     /**
      * Listコンポーネントを生成する。
      * 
@@ -78,6 +89,66 @@ public class ListComponentCreator implements ComponentCreator, ComponentInjector
         }
     }
 
+    /**
+     * 要素としてIDで参照するコンポーネントのIDを取得する。
+     * 
+     * @return コンポーネントIDのリスト
+     */
+    public List<Integer> getReferencedIds() {
+        List<Integer> ids = new ArrayList<Integer>();
+        for (ListElementDefinition elementDef : elementDefinitions) {
+            if (elementDef.getId() != null) {
+                ids.add(elementDef.getId());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 要素として名前で参照するコンポーネントの名前を取得する。
+     * 
+     * @return コンポーネント名のリスト
+     */
+    public List<String> getReferencedNames() {
+        List<String> names = new ArrayList<String>();
+        for (ListElementDefinition elementDef : elementDefinitions) {
+            if (elementDef.getId() == null) {
+                names.add(elementDef.getName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * コンポーネントを生成する設定が同じか否かを判定する。
+     * <p/>
+     * 同じクラスで、要素の数と各要素の参照方法が同じ場合に同じ設定とみなす。
+     * 名前で参照する要素は名前を比較し、IDで参照する要素はIDを比較しない。
+     * 
+     * @param other 比較する{@link ComponentCreator}
+     * @return 設定が同じ場合 true
+     */
+    public boolean isSameConfiguration(ComponentCreator other) {
+        if (other == null || other.getClass() != getClass()) {
+            return false;
+        }
+        List<ListElementDefinition> otherElements = ((ListComponentCreator) other).elementDefinitions;
+        if (elementDefinitions.size() != otherElements.size()) {
+            return false;
+        }
+        for (int i = 0; i < elementDefinitions.size(); i++) {
+            ListElementDefinition element = elementDefinitions.get(i);
+            ListElementDefinition otherElement = otherElements.get(i);
+            if ((element.getId() == null) != (otherElement.getId() == null)) {
+                return false;
+            }
+            if (element.getId() == null && !element.getName().equals(otherElement.getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public String toString() {
         List<String> values = new ArrayList<String>();
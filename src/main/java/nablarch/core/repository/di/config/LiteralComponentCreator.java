@@ -1,8 +1,13 @@
 package nablarch.core.repository.di.config;
 
 
+import java.util.Collections;
+import java.util.List;
+
 import nablarch.core.repository.di.ComponentCreator;
+import nablarch.core.repository.di.ComponentConfigurationComparable;
 import nablarch.core.repository.di.ComponentDefinition;
+import nablarch.core.repository.di.ComponentDependencyAware;
 import nablarch.core.repository.di.DiContainer;
 
 
@@ -13,7 +18,8 @@ import nablarch.core.repository.di.DiContainer;
  * @author Koichi Asano 
  *
  */
-public class LiteralComponentCreator implements ComponentCreator {
+public class LiteralComponentCreator
+        implements ComponentCreator, ComponentDependencyAware, ComponentConfigurationComparable {
 
     /**
      * オブジェクトの型。
@@ -23,6 +29,10 @@ public class LiteralComponentCreator implements ComponentCreator {
      * 文字列オブジェクトの文字列表現。
      */
     private String literal;
+    /**
+     * 解析済みの値の文字列表現。
+     */
+    private LiteralTemplate template;
     /**
      * コンストラクタ
      * 
@@ -33,6 +43,25 @@ public class LiteralComponentCreator implements ComponentCreator {
         super();
         this.type = type;
         this.literal = literal;
+        this.template = LiteralTemplate.compile(literal);
+    }
+
+    /**
+     * オブジェクトの型を取得する。
+     * 
+     * @return オブジェクトの型
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * 値の文字列表現を取得する。
+     * 
+     * @return 値の文字列表現
+     */
+    public String getLiteral() {
+        return literal;
     }
 
     /**
@@ -45,10 +74,49 @@ public class LiteralComponentCreator implements ComponentCreator {
      * @see nablarch.core.repository.di.ComponentCreator#createComponent(DiContainer, ComponentDefinition)
      */
     public Object createComponent(DiContainer container, ComponentDefinition def) {
-        Object converted = LiteralExpressionUtil.convertLiteralExpressionToObject(container, literal, type);
+        Object converted = LiteralExpressionUtil.convertLiteralExpressionToObject(container, template, type);
         return converted;
     }
 
+    /**
+     * IDで参照するコンポーネントのIDを取得する。
+     * <p/>
+     * リテラルはIDでコンポーネントを参照しないため、常に空のリストを返却する。
+     * 
+     * @return 空のリスト
+     */
+    public List<Integer> getReferencedIds() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * 名前で参照するコンポーネントの名前を取得する。
+     * <p/>
+     * リテラルに含まれる変数名を返却する。
+     * 
+     * @return 変数名のリスト
+     */
+    public List<String> getReferencedNames() {
+        return template.getVariableNames();
+    }
+
+    /**
+     * コンポーネントを生成する設定が同じか否かを判定する。
+     * <p/>
+     * 同じクラスで、オブジェクトの型と値の文字列表現が同じ場合に同じ設定とみなす。
+     * 値に含まれる変数が参照するコンポーネントの変更は、DIコンテナが依存先として判定する。
+     * 
+     * @param other 比較する{@link ComponentCreator}
+     * @return 設定が同じ場合 true
+     */
+    public boolean isSameConfiguration(ComponentCreator other) {
+        if (other == null || other.getClass() != getClass()) {
+            return false;
+        }
+        LiteralComponentCreator literalCreator = (LiteralComponentCreator) other;
+        return type == literalCreator.type && literal.equals(literalCreator.literal);
+    }
+
     @Override
     public String toString() {
         return "literal object = [type=" + type.getName() + ",value=" + literal + "]";
@@ -1,7 +1,6 @@
 package nablarch.core.repository.di.config;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
 
 import nablarch.core.log.Logger;
 import nablarch.core.log.LoggerManager;
@@ -24,14 +23,6 @@ public final class LiteralExpressionUtil {
      */
     static final Logger LOGGER = LoggerManager
             .get(LiteralExpressionUtil.class);
-    /**
-     * 文字列のパターン。
-     */
-    private static final Pattern VARIABLE_FIND_PATTERN = Pattern.compile("(\\$\\{[^}]*\\})");
-    /**
-     * ブレースをとりのぞくパターン。
-     */
-    private static final Pattern STRIP_BRACE = Pattern.compile("\\$\\{(.*)\\}");
 
     /**
      * 隠蔽コンストラクタ。
@@ -50,7 +41,20 @@ public final class LiteralExpressionUtil {
      * @return 変換後のオブジェクト
      */
     static Object convertLiteralExpressionToObject(DiContainer container, String literal, Class<?> type) {
-        String resolved = resolveVariable(container, literal);
+        return convertLiteralExpressionToObject(container, LiteralTemplate.compile(literal), type);
+    }
+
+    /**
+     * 解析済みのリテラル表現をオブジェクトに変換する。
+     * リテラル表現に現れる変数をDiContainerを使用して文字列に置き換え、置き換え後の文字列をオブジェクトに変換する。
+     * 
+     * @param container コンテナ
+     * @param template 値のリテラル表現のテンプレート
+     * @param type 値の型
+     * @return 変換後のオブジェクト
+     */
+    static Object convertLiteralExpressionToObject(DiContainer container, LiteralTemplate template, Class<?> type) {
+        String resolved = template.resolve(container);
         Object converted = convertTo(resolved, type);
         return converted;
     }
@@ -63,34 +67,17 @@ public final class LiteralExpressionUtil {
      * @return 変数を解決した文字列
      */
     static String resolveVariable(DiContainer container, String literal) {
-        StringBuilder builder = new StringBuilder(literal);
-        Matcher matcher = VARIABLE_FIND_PATTERN.matcher(literal);
-        while (matcher.find()) {
-            String group = matcher.group(1);
-            Matcher keyMatcher = STRIP_BRACE.matcher(group);
-            keyMatcher.matches();
-            String key = keyMatcher.group(1);
-            
-            Object value = container.getComponentByName(key);
-            if (value == null) {
-                logWarn("property value was not found."
-                        + " parameter = " + group);
-                continue;
-            }
-            if (!(value instanceof String)) {
-                logWarn("property type was not string."
-                        + " parameter = " + group);
-                continue;
-            }
-            String valueStr = (String) value;
-            
-            // ${xxx} を置き換える
-            int pos = builder.indexOf(group);
-            builder.delete(pos, pos + group.length());
-            builder.insert(pos, valueStr);
-        }
-        
-        return builder.toString();
+        return LiteralTemplate.compile(literal).resolve(container);
+    }
+
+    /**
+     * リテラルに含まれる ${ } にはさまれた変数名を取得する。
+     * 
+     * @param literal 文字列表現
+     * @return 変数名のリスト
+     */
+    static List<String> getVariableNames(String literal) {
+        return LiteralTemplate.compile(literal).getVariableNames();
     }
 
     /**
@@ -190,7 +177,7 @@ public final class LiteralExpressionUtil {
      * 
      * @param message ログのメッセージ
      */
-    private static void logWarn(String message) {
+    static void logWarn(String message) {
         if (LOGGER.isWarnEnabled()) {
             LOGGER.logWarn(message);
         }
@@ -0,0 +1,137 @@
+package nablarch.core.repository.di.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import nablarch.core.repository.di.DiContainer;
+
+/**
+ * リテラル表現を、固定の文字列と ${ } にはさまれた変数に分割したテンプレート。
+ * <p/>
+ * リテラル表現の解析は作成時に一度だけ行い、変数の解決では先頭から順に文字列を連結する。
+ * 変数を含まないリテラル表現は、解決時にリテラル表現をそのまま返却する。
+ * <p/>
+ * 生成後は状態を変更しないため、スレッドセーフである。
+ */
+final class LiteralTemplate {
+
+    /** 変数の開始 */
+    private static final String VARIABLE_START = "${";
+
+    /** 変数の終了 */
+    private static final char VARIABLE_END = '}';
+
+    /** リテラル表現 */
+    private final String literal;
+
+    /** 変数の前後の固定の文字列(変数の数より1つ多い) */
+    private final String[] segments;
+
+    /** 変数名 */
+    private final String[] keys;
+
+    /** 変数名のリスト */
+    private final List<String> variableNames;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param literal リテラル表現
+     * @param segments 変数の前後の固定の文字列
+     * @param keys 変数名
+     */
+    private LiteralTemplate(String literal, String[] segments, String[] keys) {
+        this.literal = literal;
+        this.segments = segments;
+        this.keys = keys;
+        this.variableNames = keys.length == 0
+                ? Collections.<String>emptyList()
+                : Collections.unmodifiableList(Arrays.asList(keys));
+    }
+
+    /**
+     * リテラル表現を解析し、テンプレートを作成する。
+     * <p/>
+     * "${"から、その後の最初の"}"までを変数とする。"}"がない場合は変数としない。
+     *
+     * @param literal リテラル表現
+     * @return テンプレート
+     */
+    static LiteralTemplate compile(String literal) {
+        int start = literal == null ? -1 : literal.indexOf(VARIABLE_START);
+        if (start < 0) {
+            return new LiteralTemplate(literal, new String[] {literal}, new String[0]);
+        }
+        List<String> segments = new ArrayList<String>();
+        List<String> keys = new ArrayList<String>();
+        int pos = 0;
+        while (start >= 0) {
+            int end = literal.indexOf(VARIABLE_END, start + VARIABLE_START.length());
+            if (end < 0) {
+                break;
+            }
+            segments.add(literal.substring(pos, start));
+            keys.add(literal.substring(start + VARIABLE_START.length(), end));
+            pos = end + 1;
+            start = literal.indexOf(VARIABLE_START, pos);
+        }
+        segments.add(literal.substring(pos));
+        return new LiteralTemplate(literal,
+                segments.toArray(new String[segments.size()]), keys.toArray(new String[keys.size()]));
+    }
+
+    /**
+     * リテラル表現を取得する。
+     *
+     * @return リテラル表現
+     */
+    String getLiteral() {
+        return literal;
+    }
+
+    /**
+     * 変数名を取得する。
+     *
+     * @return 変数名の変更不可能なリスト
+     */
+    List<String> getVariableNames() {
+        return variableNames;
+    }
+
+    /**
+     * 変数をコンテナが持つ文字列設定で置き換える。
+     * <p/>
+     * 値が見つからない変数と、値が文字列でない変数は、ワーニングレベルのログを出力し、置き換えずに残す。
+     *
+     * @param container コンテナ
+     * @return 変数を解決した文字列
+     */
+    String resolve(DiContainer container) {
+        if (keys.length == 0) {
+            return literal;
+        }
+        StringBuilder builder = new StringBuilder(literal.length() + 16 * keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            builder.append(segments[i]);
+            String key = keys[i];
+            Object value = container.getComponentByName(key);
+            if (value instanceof String) {
+                builder.append((String) value);
+                continue;
+            }
+            String parameter = VARIABLE_START + key + VARIABLE_END;
+            if (value == null) {
+                LiteralExpressionUtil.logWarn("property value was not found."
+                        + " parameter = " + parameter);
+            } else {
+                LiteralExpressionUtil.logWarn("property type was not string."
+                        + " parameter = " + parameter);
+            }
+            builder.append(parameter);
+        }
+        builder.append(segments[keys.length]);
+        return builder.toString();
+    }
+}
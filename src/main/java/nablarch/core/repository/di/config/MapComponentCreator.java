@@ -5,8 +5,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import nablarch.core.repository.di.ComponentConfigurationComparable;
 import nablarch.core.repository.di.ComponentCreator;
 import nablarch.core.repository.di.ComponentDefinition;
+import nablarch.core.repository.di.ComponentDependencyAware;
 import nablarch.core.repository.di.ComponentInjector;
 import nablarch.core.repository.di.ContainerProcessException;
 import nablarch.core.repository.di.DiContainer;
@@ -22,7 +24,8 @@ import nablarch.core.util.StringUtil;
  * @author Koichi Asano 
  *
  */
-public class MapComponentCreator implements ComponentCreator, ComponentInjector {
+public class MapComponentCreator
+        implements ComponentCreator, ComponentInjector, ComponentDependencyAware, ComponentConfigurationComparable {
 
     /**
      * Map定義のリスト。
@@ -39,6 +42,14 @@ public class MapComponentCreator implements ComponentCreator, ComponentInjector
         this.entries = entries;
     }
 
+    /**
+     * Map定義のリストを取得する。
+     * @return Map定義のリスト
+     */
+    public List<MapEntryDefinition> getEntries() {
+        return entries;
+    }
+
     /**
      * Mapを生成する。
      * 
@@ -115,6 +126,104 @@ public class MapComponentCreator implements ComponentCreator, ComponentInjector
         }
     }
 
+    /**
+     * キーまたは値としてIDで参照するコンポーネントのIDを取得する。
+     * 
+     * @return コンポーネントIDのリスト
+     */
+    public List<Integer> getReferencedIds() {
+        List<Integer> ids = new ArrayList<Integer>();
+        for (MapEntryDefinition entry : entries) {
+            if (entry.getKeyType() == MapEntryDefinition.DataType.COMPONENT) {
+                ids.add(entry.getKeyId());
+            }
+            if (entry.getValueType() == MapEntryDefinition.DataType.COMPONENT) {
+                ids.add(entry.getValueId());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * キーまたは値として名前で参照するコンポーネントの名前を取得する。
+     * <p/>
+     * 文字列のキーおよび値に含まれる変数名も含む。
+     * 
+     * @return コンポーネント名のリスト
+     */
+    public List<String> getReferencedNames() {
+        List<String> names = new ArrayList<String>();
+        for (MapEntryDefinition entry : entries) {
+            if (entry.getKeyType() == MapEntryDefinition.DataType.REF) {
+                names.add(entry.getKeyRef());
+            } else if (entry.getKeyType() == MapEntryDefinition.DataType.STRING) {
+                names.addAll(LiteralExpressionUtil.getVariableNames(entry.getKey()));
+            }
+            if (entry.getValueType() == MapEntryDefinition.DataType.REF) {
+                names.add(entry.getValueRef());
+            } else if (entry.getValueType() == MapEntryDefinition.DataType.STRING) {
+                names.addAll(LiteralExpressionUtil.getVariableNames(entry.getValue()));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * コンポーネントを生成する設定が同じか否かを判定する。
+     * <p/>
+     * 同じクラスで、エントリーの数と各エントリーのキーおよび値の定義が同じ場合に同じ設定とみなす。
+     * コンポーネントを直接定義したキーおよび値は、IDを比較しない。
+     * 
+     * @param other 比較する{@link ComponentCreator}
+     * @return 設定が同じ場合 true
+     */
+    public boolean isSameConfiguration(ComponentCreator other) {
+        if (other == null || other.getClass() != getClass()) {
+            return false;
+        }
+        List<MapEntryDefinition> otherEntries = ((MapComponentCreator) other).entries;
+        if (entries.size() != otherEntries.size()) {
+            return false;
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            MapEntryDefinition entry = entries.get(i);
+            MapEntryDefinition otherEntry = otherEntries.get(i);
+            if (!isSameData(entry.getKeyType(), entry.getKey(), entry.getKeyRef(),
+                    otherEntry.getKeyType(), otherEntry.getKey(), otherEntry.getKeyRef())
+                    || !isSameData(entry.getValueType(), entry.getValue(), entry.getValueRef(),
+                    otherEntry.getValueType(), otherEntry.getValue(), otherEntry.getValueRef())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * エントリーのキーまたは値の定義が同じか否かを判定する。
+     * 
+     * @param type データの種類
+     * @param string 文字列表現
+     * @param ref 参照名
+     * @param otherType 比較するデータの種類
+     * @param otherString 比較する文字列表現
+     * @param otherRef 比較する参照名
+     * @return 定義が同じ場合 true
+     */
+    private static boolean isSameData(MapEntryDefinition.DataType type, String string, String ref,
+            MapEntryDefinition.DataType otherType, String otherString, String otherRef) {
+        if (type != otherType) {
+            return false;
+        }
+        switch (type) {
+        case STRING:
+            return string.equals(otherString);
+        case REF:
+            return ref.equals(otherRef);
+        default:
+            return true;
+        }
+    }
+
     @Override
     public String toString() {
         List<String> values = new ArrayList<String>();
@@ -0,0 +1,218 @@
+package nablarch.core.repository.di.config.xml;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.repository.ConfigFileLoader;
+import nablarch.core.repository.di.ComponentCreator;
+import nablarch.core.repository.di.ComponentDefinition;
+import nablarch.core.repository.di.DiContainer;
+import nablarch.core.repository.di.StoredValueComponentCreator;
+import nablarch.core.repository.di.config.DuplicateDefinitionPolicy;
+import nablarch.core.util.annotation.Published;
+
+/**
+ * 読み込んだコンポーネント定義をファイルにキャッシュする{@link XmlComponentDefinitionLoader}。
+ * <p/>
+ * 初回の読み込み時に、重複定義のマージ(または重複チェック)まで完了したコンポーネント定義を
+ * バイナリ形式のキャッシュファイルに保存する。
+ * 次回以降の読み込み時には、下記の全てが保存時と一致する場合に、
+ * XMLの解析やクラスのプロパティの解析を行わずにキャッシュファイルからコンポーネント定義を復元する。
+ * <ul>
+ * <li>ルートとなるコンポーネント設定ファイルのURLと、重複定義のポリシー</li>
+ * <li>読み込んだ全てのコンポーネント設定ファイルと環境設定ファイルの内容</li>
+ * <li>ディレクトリ指定で読み込んだファイルの一覧</li>
+ * </ul>
+ * クラスのプロパティ(オートワイヤの対象となるsetter)はキャッシュのキーに含まれないため、
+ * コンポーネントのクラスを変更した場合はキャッシュファイルを削除すること。
+ * <p/>
+ * キャッシュファイルの読み込みや保存に失敗した場合は、ワーニングログを出力し、
+ * 通常通り設定ファイルからコンポーネント定義を読み込む。
+ */
+@Published(tag = "architect")
+public class CachingXmlComponentDefinitionLoader extends XmlComponentDefinitionLoader {
+
+    /**
+     * ロガー。
+     */
+    private static final Logger LOGGER = LoggerManager.get(CachingXmlComponentDefinitionLoader.class);
+
+    /**
+     * キャッシュのキーとなる設定。
+     */
+    private final String cacheKey;
+
+    /**
+     * キャッシュファイル。
+     */
+    private final File cacheFile;
+
+    /**
+     * 読み込み中の設定ファイルを記録するキャッシュ。
+     */
+    private volatile ComponentDefinitionCache recording;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param inputFileUrl 読み込むファイルのURL表現
+     * @param cacheFile キャッシュファイル
+     */
+    public CachingXmlComponentDefinitionLoader(String inputFileUrl, File cacheFile) {
+        this(inputFileUrl, DuplicateDefinitionPolicy.OVERRIDE, cacheFile);
+    }
+
+    /**
+     * コンストラクタ。
+     * 重複した設定時の動作を指定する場合、こちらを使用する。
+     *
+     * @param inputFileUrl 読み込むファイルのURL表現
+     * @param policy 重複した設定値を検出した際の動作ポリシー
+     * @param cacheFile キャッシュファイル
+     */
+    public CachingXmlComponentDefinitionLoader(String inputFileUrl, DuplicateDefinitionPolicy policy,
+            File cacheFile) {
+        super(inputFileUrl, policy);
+        String url = inputFileUrl.contains(":") ? inputFileUrl : "classpath:" + inputFileUrl;
+        this.cacheKey = url + " " + policy.name();
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * コンポーネント定義のロードを行う。
+     * <p/>
+     * キャッシュファイルが有効な場合はキャッシュファイルから復元し、
+     * 有効でない場合は設定ファイルから読み込んでキャッシュファイルを保存する。
+     *
+     * @param container ロードするコンテナ
+     * @return コンポーネント定義のリスト
+     */
+    @Override
+    public List<ComponentDefinition> load(DiContainer container) {
+        List<ComponentDefinition> cached = readCache(container);
+        if (cached != null) {
+            configureConfigFileLoaders(cached);
+            setConfigFileSources(configFileSources(cached));
+            return cached;
+        }
+
+        ComponentDefinitionCache cache = new ComponentDefinitionCache(cacheKey);
+        List<ComponentDefinition> definitions;
+        recording = cache;
+        try {
+            definitions = super.load(container);
+        } finally {
+            recording = null;
+        }
+        try {
+            cache.write(cacheFile, definitions);
+        } catch (IOException e) {
+            logWarn("component definition cache could not be written. file = " + cacheFile, e);
+        }
+        return definitions;
+    }
+
+    /**
+     * キャッシュファイルからコンポーネント定義を復元する。
+     *
+     * @param container ロードするコンテナ
+     * @return コンポーネント定義(キャッシュファイルが有効でない場合はnull)
+     */
+    private List<ComponentDefinition> readCache(DiContainer container) {
+        try {
+            List<ComponentDefinition> definitions = new ComponentDefinitionCache(cacheKey).read(cacheFile, container);
+            if (definitions != null) {
+                LOGGER.logInfo("load component definitions from cache. file = " + cacheFile);
+            }
+            return definitions;
+        } catch (IOException e) {
+            logWarn("component definition cache could not be read. file = " + cacheFile, e);
+        } catch (ClassNotFoundException e) {
+            logWarn("component definition cache could not be read. file = " + cacheFile, e);
+        } catch (RuntimeException e) {
+            // 破損したキャッシュファイルの場合
+            logWarn("component definition cache could not be read. file = " + cacheFile, e);
+        }
+        return null;
+    }
+
+    /**
+     * キャッシュファイルから復元した環境設定ファイルのローダに、読み込み方法を設定する。
+     *
+     * @param definitions コンポーネント定義
+     */
+    private void configureConfigFileLoaders(List<ComponentDefinition> definitions) {
+        for (ComponentDefinition def : definitions) {
+            ComponentCreator creator = def.getCreator();
+            if (creator instanceof StoredValueComponentCreator
+                    && ((StoredValueComponentCreator) creator).getValue() instanceof ConfigFileLoader) {
+                configure((ConfigFileLoader) ((StoredValueComponentCreator) creator).getValue());
+            }
+        }
+    }
+
+    /**
+     * キャッシュファイルから復元したコンポーネント定義から、環境設定ファイルの読み込み元を作成する。
+     * <p/>
+     * キャッシュファイルにはディレクトリ指定のパターンを保存しないため、
+     * ディレクトリ指定で読み込んだ環境設定ファイルも、ファイル指定の読み込み元とする。
+     *
+     * @param definitions コンポーネント定義
+     * @return 環境設定ファイルの読み込み元
+     */
+    private static List<ConfigFileSource> configFileSources(List<ComponentDefinition> definitions) {
+        List<ConfigFileSource> sources = new ArrayList<ConfigFileSource>();
+        for (ComponentDefinition def : definitions) {
+            ComponentCreator creator = def.getCreator();
+            if (creator instanceof StoredValueComponentCreator
+                    && ((StoredValueComponentCreator) creator).getValue() instanceof ConfigFileLoader) {
+                ConfigFileLoader loader = (ConfigFileLoader) ((StoredValueComponentCreator) creator).getValue();
+                if (loader.getUrl() != null) {
+                    sources.add(ConfigFileSource.file(loader.getUrl(), loader.getEncoding()));
+                }
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * 読み込んだ設定ファイルを、キャッシュのキーとして記録する。
+     */
+    @Override
+    void resourceLoaded(String url) {
+        ComponentDefinitionCache cache = recording;
+        if (cache != null) {
+            cache.addResource(url);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * 検索したファイルの一覧を、キャッシュのキーとして記録する。
+     */
+    @Override
+    void directoryListed(File dir, String pattern, File[] files) {
+        ComponentDefinitionCache cache = recording;
+        if (cache != null) {
+            cache.addDirectory(dir, pattern, files);
+        }
+    }
+
+    /**
+     * ワーニングログを出力する。
+     * @param message ログメッセージ
+     * @param e 例外
+     */
+    private static void logWarn(String message, Throwable e) {
+        if (LOGGER.isWarnEnabled()) {
+            LOGGER.logWarn(message, e);
+        }
+    }
+}
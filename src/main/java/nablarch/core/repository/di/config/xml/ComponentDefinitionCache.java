@@ -0,0 +1,674 @@
+package nablarch.core.repository.di.config.xml;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import nablarch.core.repository.ConfigFileLoader;
+import nablarch.core.repository.di.ComponentCreator;
+import nablarch.core.repository.di.ComponentDefinition;
+import nablarch.core.repository.di.ComponentInjector;
+import nablarch.core.repository.di.ComponentReference;
+import nablarch.core.repository.di.DiContainer;
+import nablarch.core.repository.di.InjectionType;
+import nablarch.core.repository.di.StoredValueComponentCreator;
+import nablarch.core.repository.di.config.BeanComponentCreator;
+import nablarch.core.repository.di.config.ListComponentCreator;
+import nablarch.core.repository.di.config.ListElementDefinition;
+import nablarch.core.repository.di.config.LiteralComponentCreator;
+import nablarch.core.repository.di.config.MapComponentCreator;
+import nablarch.core.repository.di.config.MapEntryDefinition;
+import nablarch.core.repository.di.config.MapEntryDefinition.DataType;
+import nablarch.core.util.FileUtil;
+
+/**
+ * 読み込み済みのコンポーネント定義をバイナリ形式で保存、復元するクラス。
+ * <p/>
+ * キャッシュファイルには、コンポーネント定義と、その作成に使用した設定ファイルの内容のハッシュ値、
+ * およびディレクトリ指定で検索したファイルの一覧を保存する。
+ * 復元時には、設定ファイルの内容とディレクトリの内容が保存時と一致する場合のみ、コンポーネント定義を復元する。
+ * <p/>
+ * 文字列は出現順に番号を採番し、2回目以降の出現は番号のみを出力する。
+ */
+final class ComponentDefinitionCache {
+
+    /** キャッシュファイルの識別子 */
+    private static final int MAGIC = 0x4e434443;
+
+    /** キャッシュファイルの形式のバージョン */
+    private static final int VERSION = 2;
+
+    /** ハッシュ値の算出に使用するアルゴリズム */
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    /** 文字列の参照：null */
+    private static final int NULL_STRING = -1;
+
+    /** 文字列の参照：新しい文字列 */
+    private static final int NEW_STRING = -2;
+
+    /** コンポーネントの生成方法：Bean */
+    private static final byte BEAN = 0;
+
+    /** コンポーネントの生成方法：リテラル */
+    private static final byte LITERAL = 1;
+
+    /** コンポーネントの生成方法：環境設定ファイル */
+    private static final byte CONFIG_FILE = 2;
+
+    /** コンポーネントの生成方法：List */
+    private static final byte LIST = 3;
+
+    /** コンポーネントの生成方法：Map */
+    private static final byte MAP = 4;
+
+    /** フラグ：IDのみ参照を許す */
+    private static final int FLAG_USE_ID_ONLY = 1;
+
+    /** フラグ：生成を遅延する */
+    private static final int FLAG_LAZY_INIT = 2;
+
+    /** フラグ：ComponentCreatorをComponentInjectorとして使用する */
+    private static final int FLAG_CREATOR_INJECTOR = 4;
+
+    /** プリミティブ型の名前とクラス */
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES = new HashMap<String, Class<?>>();
+
+    static {
+        for (Class<?> type : new Class<?>[] {boolean.class, byte.class, char.class, short.class,
+                int.class, long.class, float.class, double.class, void.class}) {
+            PRIMITIVE_TYPES.put(type.getName(), type);
+        }
+    }
+
+    /** キャッシュのキーとなる設定(ルートとなるファイルのURLと重複定義のポリシー) */
+    private final String key;
+
+    /** 読み込んだ設定ファイルのURL表現 */
+    private final List<String> resources = new ArrayList<String>();
+
+    /** ディレクトリ指定で検索したファイル(キーはディレクトリのパスとファイル名のパターン) */
+    private final Map<List<String>, List<String>> directories = new LinkedHashMap<List<String>, List<String>>();
+
+    /**
+     * コンストラクタ。
+     *
+     * @param key キャッシュのキーとなる設定
+     */
+    ComponentDefinitionCache(String key) {
+        this.key = key;
+    }
+
+    /**
+     * 読み込んだ設定ファイルを記録する。
+     *
+     * @param url 設定ファイルのURL表現
+     */
+    synchronized void addResource(String url) {
+        if (!resources.contains(url)) {
+            resources.add(url);
+        }
+    }
+
+    /**
+     * ディレクトリ指定で検索したファイルを記録する。
+     *
+     * @param dir ディレクトリ
+     * @param pattern ファイル名のパターン
+     * @param files 検索結果
+     */
+    synchronized void addDirectory(File dir, String pattern, File[] files) {
+        directories.put(Arrays.asList(dir.getAbsolutePath(), pattern), fileNames(files));
+    }
+
+    /**
+     * コンポーネント定義をキャッシュファイルに保存する。
+     * <p/>
+     * 一時ファイルに出力した後にキャッシュファイルを置き換えるため、
+     * 保存中のキャッシュファイルが読み込まれることはない。
+     *
+     * @param file キャッシュファイル
+     * @param definitions コンポーネント定義
+     * @throws IOException 保存に失敗した場合
+     */
+    synchronized void write(File file, List<ComponentDefinition> definitions) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("directory creation failed. dir = " + dir);
+        }
+        File temp = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            try {
+                new Writer(out).write(definitions);
+            } finally {
+                FileUtil.closeQuietly(out);
+            }
+            if (file.exists() && !file.delete()) {
+                throw new IOException("cache file deletion failed. file = " + file);
+            }
+            if (!temp.renameTo(file)) {
+                throw new IOException("cache file rename failed. file = " + file);
+            }
+        } finally {
+            if (temp.exists() && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * キャッシュファイルからコンポーネント定義を復元する。
+     * <p/>
+     * コンポーネントIDはコンテナで採番し直す。採番の順序は保存時のIDの順序と同じとなる。
+     *
+     * @param file キャッシュファイル
+     * @param container DIコンテナ
+     * @return コンポーネント定義(キャッシュファイルが存在しない場合、または設定ファイルが変更された場合はnull)
+     * @throws IOException キャッシュファイルの読み込みに失敗した場合
+     * @throws ClassNotFoundException コンポーネントのクラスが見つからない場合
+     */
+    List<ComponentDefinition> read(File file, DiContainer container) throws IOException, ClassNotFoundException {
+        if (!file.isFile()) {
+            return null;
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            return new Reader(in).read(container);
+        } finally {
+            FileUtil.closeQuietly(in);
+        }
+    }
+
+    /**
+     * 検索結果のファイル名を、順序に依存しないよう並べ替えて取得する。
+     *
+     * @param files 検索結果
+     * @return ファイル名のリスト
+     */
+    private static List<String> fileNames(File[] files) {
+        String[] names = new String[files == null ? 0 : files.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = files[i].getName();
+        }
+        Arrays.sort(names);
+        return Arrays.asList(names);
+    }
+
+    /**
+     * 設定ファイルの内容のハッシュ値を算出する。
+     *
+     * @param url 設定ファイルのURL表現
+     * @return ハッシュ値(設定ファイルが存在しない場合は空の配列)
+     * @throws IOException 読み込みに失敗した場合
+     */
+    private static byte[] digest(String url) throws IOException {
+        InputStream in;
+        try {
+            in = FileUtil.getResource(url);
+        } catch (IllegalArgumentException e) {
+            return new byte[0];
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, length);
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256は全てのJava実装で提供されるため、ここには到達しない。
+            throw new IllegalStateException(e);
+        } finally {
+            FileUtil.closeQuietly(in);
+        }
+    }
+
+    /**
+     * キャッシュファイルを出力するクラス。
+     */
+    private final class Writer {
+
+        /** 出力先 */
+        private final DataOutputStream out;
+
+        /** 出力済みの文字列と番号 */
+        private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+        /**
+         * コンストラクタ。
+         *
+         * @param out 出力先
+         */
+        Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        /**
+         * コンポーネント定義を出力する。
+         *
+         * @param definitions コンポーネント定義
+         * @throws IOException 出力に失敗した場合
+         */
+        void write(List<ComponentDefinition> definitions) throws IOException {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(key);
+
+            out.writeInt(resources.size());
+            for (String url : resources) {
+                writeString(url);
+                byte[] hash = digest(url);
+                out.writeInt(hash.length);
+                out.write(hash);
+            }
+            out.writeInt(directories.size());
+            for (Map.Entry<List<String>, List<String>> entry : directories.entrySet()) {
+                writeString(entry.getKey().get(0));
+                writeString(entry.getKey().get(1));
+                out.writeInt(entry.getValue().size());
+                for (String name : entry.getValue()) {
+                    writeString(name);
+                }
+            }
+
+            out.writeInt(definitions.size());
+            for (ComponentDefinition def : definitions) {
+                out.writeInt(def.getId());
+            }
+            for (ComponentDefinition def : definitions) {
+                writeDefinition(def);
+            }
+        }
+
+        /**
+         * コンポーネント定義を出力する。
+         *
+         * @param def コンポーネント定義
+         * @throws IOException 出力に失敗した場合
+         */
+        private void writeDefinition(ComponentDefinition def) throws IOException {
+            ComponentCreator creator = def.getCreator();
+            int flags = 0;
+            if (def.isUseIdOnly()) {
+                flags |= FLAG_USE_ID_ONLY;
+            }
+            if (def.isLazyInit()) {
+                flags |= FLAG_LAZY_INIT;
+            }
+            if (def.getInjector() != null) {
+                if (def.getInjector() != creator) {
+                    throw new IOException("unsupported component injector."
+                            + " component name = " + def.getName()
+                            + ", injector class name = " + def.getInjector().getClass().getName());
+                }
+                flags |= FLAG_CREATOR_INJECTOR;
+            }
+            writeString(def.getName());
+            writeString(def.getType().getName());
+            out.writeByte(flags);
+
+            if (creator.getClass() == BeanComponentCreator.class) {
+                out.writeByte(BEAN);
+                writeString(((BeanComponentCreator) creator).getFactoryMethodName());
+            } else if (creator.getClass() == LiteralComponentCreator.class) {
+                LiteralComponentCreator literal = (LiteralComponentCreator) creator;
+                out.writeByte(LITERAL);
+                writeString(literal.getType().getName());
+                writeString(literal.getLiteral());
+            } else if (creator.getClass() == StoredValueComponentCreator.class
+                    && ((StoredValueComponentCreator) creator).getValue() instanceof ConfigFileLoader
+                    && ((ConfigFileLoader) ((StoredValueComponentCreator) creator).getValue()).getUrl() != null) {
+                ConfigFileLoader loader = (ConfigFileLoader) ((StoredValueComponentCreator) creator).getValue();
+                out.writeByte(CONFIG_FILE);
+                writeString(loader.getUrl());
+                writeString(loader.getEncoding());
+            } else if (creator.getClass() == ListComponentCreator.class) {
+                List<ListElementDefinition> elements = ((ListComponentCreator) creator).getElementDefinitions();
+                out.writeByte(LIST);
+                out.writeInt(elements.size());
+                for (ListElementDefinition element : elements) {
+                    out.writeBoolean(element.getId() != null);
+                    if (element.getId() != null) {
+                        out.writeInt(element.getId());
+                    } else {
+                        writeString(element.getName());
+                    }
+                }
+            } else if (creator.getClass() == MapComponentCreator.class) {
+                List<MapEntryDefinition> entries = ((MapComponentCreator) creator).getEntries();
+                out.writeByte(MAP);
+                out.writeInt(entries.size());
+                for (MapEntryDefinition entry : entries) {
+                    writeMapValue(entry.getKeyType(), entry.getKey(), entry.getKeyRef(), entry.getKeyId());
+                    writeMapValue(entry.getValueType(), entry.getValue(), entry.getValueRef(), entry.getValueId());
+                }
+            } else {
+                throw new IOException("unsupported component creator."
+                        + " component name = " + def.getName()
+                        + ", creator class name = " + creator.getClass().getName());
+            }
+
+            out.writeInt(def.getReferences().size());
+            for (ComponentReference ref : def.getReferences()) {
+                writeString(ref.getPropertyName());
+                writeString(ref.getReferenceName());
+                writeString(ref.getRequiredType() == null ? null : ref.getRequiredType().getName());
+                out.writeByte(ref.getInjectionType().ordinal());
+                out.writeInt(ref.getTargetId());
+            }
+        }
+
+        /**
+         * Mapのキーまたは値の定義を出力する。
+         *
+         * @param type 種類
+         * @param value 文字列
+         * @param ref 参照するコンポーネント名
+         * @param id 参照するコンポーネントID
+         * @throws IOException 出力に失敗した場合
+         */
+        private void writeMapValue(DataType type, String value, String ref, int id) throws IOException {
+            out.writeByte(type.ordinal());
+            switch (type) {
+            case STRING:
+                writeString(value);
+                break;
+            case REF:
+                writeString(ref);
+                break;
+            default:
+                out.writeInt(id);
+                break;
+            }
+        }
+
+        /**
+         * 文字列を出力する。
+         *
+         * @param value 文字列
+         * @throws IOException 出力に失敗した場合
+         */
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                out.writeInt(NULL_STRING);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null) {
+                out.writeInt(index);
+                return;
+            }
+            strings.put(value, strings.size());
+            byte[] bytes = value.getBytes("UTF-8");
+            out.writeInt(NEW_STRING);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * キャッシュファイルを読み込むクラス。
+     */
+    private final class Reader {
+
+        /** 入力元 */
+        private final DataInputStream in;
+
+        /** 読み込み済みの文字列 */
+        private final List<String> strings = new ArrayList<String>();
+
+        /** 読み込み済みのクラス */
+        private final Map<String, Class<?>> classes = new HashMap<String, Class<?>>();
+
+        /** 保存時のコンポーネントIDと採番し直したコンポーネントID */
+        private final Map<Integer, Integer> ids = new HashMap<Integer, Integer>();
+
+        /**
+         * コンストラクタ。
+         *
+         * @param in 入力元
+         */
+        Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * コンポーネント定義を読み込む。
+         *
+         * @param container DIコンテナ
+         * @return コンポーネント定義(設定ファイルが変更された場合はnull)
+         * @throws IOException 読み込みに失敗した場合
+         * @throws ClassNotFoundException コンポーネントのクラスが見つからない場合
+         */
+        List<ComponentDefinition> read(DiContainer container) throws IOException, ClassNotFoundException {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !key.equals(readString())) {
+                return null;
+            }
+
+            int resourceCount = in.readInt();
+            for (int i = 0; i < resourceCount; i++) {
+                String url = readString();
+                byte[] hash = new byte[in.readInt()];
+                in.readFully(hash);
+                if (!Arrays.equals(hash, digest(url))) {
+                    return null;
+                }
+            }
+            int directoryCount = in.readInt();
+            for (int i = 0; i < directoryCount; i++) {
+                String directory = readString();
+                String pattern = readString();
+                List<String> names = new ArrayList<String>();
+                int nameCount = in.readInt();
+                for (int j = 0; j < nameCount; j++) {
+                    names.add(readString());
+                }
+                File[] files = FileUtil.listFiles(directory, pattern);
+                if (files == null || !names.equals(fileNames(files))) {
+                    return null;
+                }
+            }
+
+            // コンポーネントIDは、保存時のIDの順序を保ったままコンテナで採番し直す。
+            int count = in.readInt();
+            int[] originalIds = new int[count];
+            for (int i = 0; i < count; i++) {
+                originalIds[i] = in.readInt();
+            }
+            int[] sortedIds = originalIds.clone();
+            Arrays.sort(sortedIds);
+            for (int originalId : sortedIds) {
+                ids.put(originalId, container.generateId());
+            }
+
+            List<ComponentDefinition> definitions = new ArrayList<ComponentDefinition>(count);
+            for (int i = 0; i < count; i++) {
+                definitions.add(readDefinition(newId(originalIds[i])));
+            }
+            return definitions;
+        }
+
+        /**
+         * コンポーネント定義を読み込む。
+         *
+         * @param id 採番し直したコンポーネントID
+         * @return コンポーネント定義
+         * @throws IOException 読み込みに失敗した場合
+         * @throws ClassNotFoundException コンポーネントのクラスが見つからない場合
+         */
+        private ComponentDefinition readDefinition(int id) throws IOException, ClassNotFoundException {
+            String name = readString();
+            Class<?> type = readClass();
+            int flags = in.readByte();
+
+            ComponentCreator creator;
+            byte kind = in.readByte();
+            switch (kind) {
+            case BEAN:
+                creator = new BeanComponentCreator(readString());
+                break;
+            case LITERAL:
+                Class<?> literalType = readClass();
+                creator = new LiteralComponentCreator(literalType, readString());
+                break;
+            case CONFIG_FILE:
+                String url = readString();
+                creator = new StoredValueComponentCreator(new ConfigFileLoader(url, readString()));
+                break;
+            case LIST:
+                int elementCount = in.readInt();
+                List<ListElementDefinition> elements = new ArrayList<ListElementDefinition>(elementCount);
+                for (int i = 0; i < elementCount; i++) {
+                    if (in.readBoolean()) {
+                        elements.add(new ListElementDefinition(newId(in.readInt()), null));
+                    } else {
+                        elements.add(new ListElementDefinition(null, readString()));
+                    }
+                }
+                creator = new ListComponentCreator(elements);
+                break;
+            case MAP:
+                int entryCount = in.readInt();
+                List<MapEntryDefinition> entries = new ArrayList<MapEntryDefinition>(entryCount);
+                for (int i = 0; i < entryCount; i++) {
+                    MapEntryDefinition entry = new MapEntryDefinition();
+                    entry.setKeyType(DataType.values()[in.readByte()]);
+                    switch (entry.getKeyType()) {
+                    case STRING:
+                        entry.setKey(readString());
+                        break;
+                    case REF:
+                        entry.setKeyRef(readString());
+                        break;
+                    default:
+                        entry.setKeyId(newId(in.readInt()));
+                        break;
+                    }
+                    entry.setValueType(DataType.values()[in.readByte()]);
+                    switch (entry.getValueType()) {
+                    case STRING:
+                        entry.setValue(readString());
+                        break;
+                    case REF:
+                        entry.setValueRef(readString());
+                        break;
+                    default:
+                        entry.setValueId(newId(in.readInt()));
+                        break;
+                    }
+                    entries.add(entry);
+                }
+                creator = new MapComponentCreator(entries);
+                break;
+            default:
+                throw new IOException("invalid component creator kind. kind = " + kind);
+            }
+
+            ComponentDefinition def = new ComponentDefinition(id, name, creator, type);
+            def.setUseIdOnly((flags & FLAG_USE_ID_ONLY) != 0);
+            def.setLazyInit((flags & FLAG_LAZY_INIT) != 0);
+            if ((flags & FLAG_CREATOR_INJECTOR) != 0) {
+                def.setInjector((ComponentInjector) creator);
+            }
+
+            int refCount = in.readInt();
+            for (int i = 0; i < refCount; i++) {
+                String propertyName = readString();
+                String referenceName = readString();
+                Class<?> requiredType = readClass();
+                InjectionType injectionType = InjectionType.values()[in.readByte()];
+                int targetId = in.readInt();
+                def.addReference(new ComponentReference(propertyName, referenceName, requiredType,
+                        injectionType, injectionType == InjectionType.ID ? newId(targetId) : targetId));
+            }
+            return def;
+        }
+
+        /**
+         * 採番し直したコンポーネントIDを取得する。
+         *
+         * @param originalId 保存時のコンポーネントID
+         * @return 採番し直したコンポーネントID(保存時のIDを持つ定義が存在しない場合は保存時のID)
+         */
+        private int newId(int originalId) {
+            Integer id = ids.get(originalId);
+            return id == null ? originalId : id;
+        }
+
+        /**
+         * クラスを読み込む。
+         *
+         * @return クラス(クラス名がnullの場合はnull)
+         * @throws IOException 読み込みに失敗した場合
+         * @throws ClassNotFoundException クラスが見つからない場合
+         */
+        private Class<?> readClass() throws IOException, ClassNotFoundException {
+            String name = readString();
+            if (name == null) {
+                return null;
+            }
+            Class<?> type = classes.get(name);
+            if (type == null) {
+                type = PRIMITIVE_TYPES.get(name);
+                if (type == null) {
+                    type = Class.forName(name);
+                }
+                classes.put(name, type);
+            }
+            return type;
+        }
+
+        /**
+         * 文字列を読み込む。
+         *
+         * @return 文字列
+         * @throws IOException 読み込みに失敗した場合
+         */
+        private String readString() throws IOException {
+            int index = in.readInt();
+            if (index == NULL_STRING) {
+                return null;
+            }
+            if (index != NEW_STRING) {
+                return strings.get(index);
+            }
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            String value = toString(bytes);
+            strings.add(value);
+            return value;
+        }
+
+        /**
+         * UTF-8のバイト列を文字列に変換する。
+         *
+         * @param bytes バイト列
+         * @return 文字列
+         */
+        private String toString(byte[] bytes) {
+            try {
+                return new String(bytes, "UTF-8");
+            } catch (UnsupportedEncodingException e) {
+                // UTF-8は全てのJava実装で提供されるため、ここには到達しない。
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
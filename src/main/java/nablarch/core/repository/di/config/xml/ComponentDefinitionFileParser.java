@@ -2,10 +2,10 @@ package nablarch.core.repository.di.config.xml;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Stack;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -33,7 +33,13 @@ import org.xml.sax.helpers.DefaultHandler;
  */
 public class ComponentDefinitionFileParser {
 
-    
+    /**
+     * SAXパーサのファクトリ。
+     * <p/>
+     * ファクトリの検索は重いため、全ての解析で共有する。
+     */
+    private static final SAXParserFactory PARSER_FACTORY = SAXParserFactory.newInstance();
+
     /**
      * コンポーネント設定ファイルをパースする。
      * 
@@ -44,9 +50,10 @@ public class ComponentDefinitionFileParser {
      * @throws IOException ファイルの読み込みに失敗した場合
      */
     public ComponentConfiguration parse(InputStream in) throws ParserConfigurationException, SAXException, IOException {
-        SAXParserFactory parserFactory = SAXParserFactory.newInstance();
-    
-        SAXParser parser = parserFactory.newSAXParser();
+        SAXParser parser;
+        synchronized (PARSER_FACTORY) {
+            parser = PARSER_FACTORY.newSAXParser();
+        }
         ComponentConfigurationHandler handler = new ComponentConfigurationHandler();
         parser.parse(in, handler);
         return handler.getResult();
@@ -98,7 +105,7 @@ public class ComponentDefinitionFileParser {
         /**
          * 処理中の要素をマップしたオブジェクトのスタック。
          */
-        private Stack<Object> targetStack;
+        private ArrayList<Object> targetStack;
         
         /**
          * 処理中の要素をマップしたオブジェクト。
@@ -108,7 +115,7 @@ public class ComponentDefinitionFileParser {
         /**
          * 処理中の ElementProcessor のスタック。
          */
-        private Stack<ElementProcessor<?>> processorStack;
+        private ArrayList<ElementProcessor<?>> processorStack;
         
         /**
          * 処理中の ElementProcessor
@@ -118,57 +125,56 @@ public class ComponentDefinitionFileParser {
          * コンストラクタ。
          */
         private ComponentConfigurationHandler() {
-            targetStack = new Stack<Object>();
-            processorStack = new Stack<ElementProcessor<?>>();
+            targetStack = new ArrayList<Object>();
+            processorStack = new ArrayList<ElementProcessor<?>>();
         }
 
         @Override
         public void startElement(String uri, String localName, String qName,
                 Attributes attributes) throws SAXException {
             currentProcessor = ELEMENT_PROCESSOR_MAP.get(qName);
-            processorStack.push(currentProcessor);
+            processorStack.add(currentProcessor);
             if (currentProcessor == null) {
                 throw new ConfigurationLoadException("processor was not found." 
                         + " element name = " + qName);
             }
             
             currentElement = currentProcessor.process(uri, localName, qName, attributes, currentElement);
-            targetStack.push(currentElement);
+            targetStack.add(currentElement);
             if (rootElement == null) {
                 rootElement = (ComponentConfiguration) currentElement;
             }
-            innerText = new StringBuilder();
+            innerText.setLength(0);
         }
 
         @Override
         public void characters(char[] ch, int start, int length)
                 throws SAXException {
-            innerText.append(new String(ch, start, length));
-            
+            innerText.append(ch, start, length);
         }
 
         /**
-         * 内部文字列の一時領域。
+         * 内部文字列の一時領域。要素の開始ごとにクリアして再利用する。
          */
-        private StringBuilder innerText = null;
+        private final StringBuilder innerText = new StringBuilder();
 
         @Override
         public void endElement(String uri, String localName, String qName)
                 throws SAXException {
             currentProcessor.processCharacters(innerText.toString(), targetStack);
             
-            targetStack.pop();
+            targetStack.remove(targetStack.size() - 1);
             if (targetStack.isEmpty()) {
                 currentElement = null;
             } else {
-                currentElement = targetStack.peek();
+                currentElement = targetStack.get(targetStack.size() - 1);
             }
 
-            processorStack.pop();
+            processorStack.remove(processorStack.size() - 1);
             if (processorStack.isEmpty()) {
                 currentProcessor = null;
             } else {
-                currentProcessor = processorStack.peek();
+                currentProcessor = processorStack.get(processorStack.size() - 1);
             }
         }
 
@@ -214,7 +220,7 @@ public class ComponentDefinitionFileParser {
          * 
          * @see DefaultHandler#characters(char[], int, int)
          */
-        void processCharacters(String innerText, Stack<?> targetStack);
+        void processCharacters(String innerText, java.util.List<?> targetStack);
     }
 
     /**
@@ -244,7 +250,7 @@ public class ComponentDefinitionFileParser {
         /**
          * {@inheritDoc}
          */
-        public void processCharacters(String innerText, Stack<?> targetStack) {
+        public void processCharacters(String innerText, java.util.List<?> targetStack) {
         }
     }
 
@@ -273,6 +279,12 @@ public class ComponentDefinitionFileParser {
             if (autowireType != null) {
                 ret.setAutowireType(AutowireType.fromValue(autowireType));
             }
+            String lazyInit = attributes.getValue("lazy-init");
+            if (lazyInit != null) {
+                // xs:booleanの字句表現は true, false, 1, 0
+                ret.setLazyInit("true".equals(lazyInit) || "1".equals(lazyInit));
+            }
+            ret.setFactoryMethod(attributes.getValue("factory-method"));
             ret.setClazz(attributes.getValue("class"));
             ret.setName(attributes.getValue("name"));
             return ret;
@@ -314,7 +326,7 @@ public class ComponentDefinitionFileParser {
         /**
          * {@inheritDoc}
          */
-        public void processCharacters(String innerText, Stack<?> targetStack) {
+        public void processCharacters(String innerText, java.util.List<?> targetStack) {
         }
     }
 
@@ -347,7 +359,7 @@ public class ComponentDefinitionFileParser {
         /**
          * {@inheritDoc}
          */
-        public void processCharacters(String innerText, Stack<?> targetStack) {
+        public void processCharacters(String innerText, java.util.List<?> targetStack) {
         }
     }
 
@@ -380,7 +392,7 @@ public class ComponentDefinitionFileParser {
         /**
          * {@inheritDoc}
          */
-        public void processCharacters(String innerText, Stack<?> targetStack) {
+        public void processCharacters(String innerText, java.util.List<?> targetStack) {
         }
     }
 
@@ -419,7 +431,7 @@ public class ComponentDefinitionFileParser {
         /**
          * {@inheritDoc}
          */
-        public void processCharacters(String innerText, Stack<?> targetStack) {
+        public void processCharacters(String innerText, java.util.List<?> targetStack) {
         }
     }
 
@@ -454,7 +466,7 @@ public class ComponentDefinitionFileParser {
         /**
          * {@inheritDoc}
          */
-        public void processCharacters(String innerText, Stack<?> targetStack) {
+        public void processCharacters(String innerText, java.util.List<?> targetStack) {
         }
     }
 
@@ -493,7 +505,7 @@ public class ComponentDefinitionFileParser {
         /**
          * {@inheritDoc}
          */
-        public void processCharacters(String innerText, Stack<?> targetStack) {
+        public void processCharacters(String innerText, java.util.List<?> targetStack) {
         }
     }
 
@@ -532,7 +544,7 @@ public class ComponentDefinitionFileParser {
         /**
          * {@inheritDoc}
          */
-        public void processCharacters(String innerText, Stack<?> targetStack) {
+        public void processCharacters(String innerText, java.util.List<?> targetStack) {
         }
     }
 
@@ -572,7 +584,7 @@ public class ComponentDefinitionFileParser {
         /**
          * {@inheritDoc}
          */
-        public void processCharacters(String innerText, Stack<?> targetStack) {
+        public void processCharacters(String innerText, java.util.List<?> targetStack) {
         }
     }
 
@@ -612,7 +624,7 @@ public class ComponentDefinitionFileParser {
         /**
          * {@inheritDoc}
          */
-        public void processCharacters(String innerText, Stack<?> targetStack) {
+        public void processCharacters(String innerText, java.util.List<?> targetStack) {
         }
     }
 
@@ -651,7 +663,7 @@ public class ComponentDefinitionFileParser {
         /**
          * {@inheritDoc}
          */
-        public void processCharacters(String innerText, Stack<?> targetStack) {
+        public void processCharacters(String innerText, java.util.List<?> targetStack) {
         }
     }
     
@@ -680,7 +692,7 @@ public class ComponentDefinitionFileParser {
         /**
          * {@inheritDoc}
          */
-        public void processCharacters(String innerText, Stack<?> targetStack) {
+        public void processCharacters(String innerText, java.util.List<?> targetStack) {
             Object parent = targetStack.get(targetStack.size() - 2);
             if (parent instanceof List) {
                 ((List) parent).getComponentOrValueOrComponentRef().add(innerText);
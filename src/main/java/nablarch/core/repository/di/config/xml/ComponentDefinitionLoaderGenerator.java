@@ -0,0 +1,762 @@
+package nablarch.core.repository.di.config.xml;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.repository.ConfigFileLoader;
+import nablarch.core.repository.di.ComponentCreator;
+import nablarch.core.repository.di.ComponentDefinition;
+import nablarch.core.repository.di.ComponentDefinitionLoader;
+import nablarch.core.repository.di.ComponentReference;
+import nablarch.core.repository.di.ConfigurationLoadException;
+import nablarch.core.repository.di.DiContainer;
+import nablarch.core.repository.di.InjectionType;
+import nablarch.core.repository.di.StoredValueComponentCreator;
+import nablarch.core.repository.di.config.BeanComponentCreator;
+import nablarch.core.repository.di.config.DuplicateDefinitionPolicy;
+import nablarch.core.repository.di.config.GeneratedComponentCreator;
+import nablarch.core.repository.di.config.ListComponentCreator;
+import nablarch.core.repository.di.config.ListElementDefinition;
+import nablarch.core.repository.di.config.LiteralComponentCreator;
+import nablarch.core.repository.di.config.MapComponentCreator;
+import nablarch.core.repository.di.config.MapEntryDefinition;
+import nablarch.core.repository.di.config.MapEntryDefinition.DataType;
+import nablarch.core.util.ObjectUtil;
+import nablarch.core.util.annotation.Published;
+
+/**
+ * コンポーネント設定ファイルから、{@link ComponentDefinitionLoader}を実装したクラスのソースコードを生成するクラス。
+ * <p/>
+ * {@link XmlComponentDefinitionLoader}で読み込んだコンポーネント定義を、同じ定義を作成するソースコードとして出力する。
+ * JavaBeans型のコンポーネントは、{@link BeanComponentCreator}とリフレクションによるインジェクションの代わりに、
+ * コンストラクタとsetterを直接呼び出す{@link GeneratedComponentCreator}で生成、インジェクションする。
+ * ただし、下記のコンポーネントは従来通りリフレクションを使用する。
+ * <ul>
+ * <li>クラスやデフォルトコンストラクタ、ファクトリメソッドがpublicでないコンポーネント(生成、インジェクションともにリフレクションを使用する)</li>
+ * <li>setterがオーバーロードされている、またはsetterの引数の型がpublicでないプロパティ(インジェクションのみリフレクションを使用する)</li>
+ * </ul>
+ * 環境設定ファイルの読み込みと、リテラル値の変換および埋め込み文字列の置き換えは、生成したクラスの実行時に行う。
+ * コンポーネント設定ファイルやコンポーネントのクラスを変更した場合は、ソースコードを生成し直すこと。
+ * <p/>
+ * 生成するソースコードは、コンパイル時の文字コードの指定に依存しないように、ASCII文字のみで出力する。
+ * <p/>
+ * ビルド時に下記の引数を指定して{@link #main(String[])}を実行し、出力したソースコードをアプリケーションと共にコンパイルする。
+ * <ol>
+ * <li>ルートとなるコンポーネント設定ファイルのURL表現</li>
+ * <li>生成するクラスの完全修飾名</li>
+ * <li>出力先ディレクトリ</li>
+ * <li>重複定義のポリシー({@link DuplicateDefinitionPolicy}の列挙子名。省略時は{@link DuplicateDefinitionPolicy#OVERRIDE})</li>
+ * </ol>
+ */
+@Published(tag = "architect")
+public class ComponentDefinitionLoaderGenerator {
+
+    /**
+     * ロガー。
+     */
+    private static final Logger LOGGER = LoggerManager.get(ComponentDefinitionLoaderGenerator.class);
+
+    /**
+     * 1つのネストクラスが担当するコンポーネント定義の数。
+     * <p/>
+     * メソッドのサイズやクラスファイルの定数の数の上限を超えないように、コンポーネント定義を分割して出力する。
+     */
+    private static final int CHUNK_SIZE = 100;
+
+    /**
+     * 1つのメソッドで出力するListの要素、またはMapのエントリの数。
+     * <p/>
+     * 要素の多いListやMapは、メソッドのサイズの上限を超えないように、要素を分割して複数のメソッドで出力する。
+     */
+    private static final int PART_SIZE = 500;
+
+    /**
+     * インデント。
+     */
+    private static final String INDENT = "    ";
+
+    /**
+     * 読み込むファイルのURL表現。
+     */
+    private final String inputFileUrl;
+
+    /**
+     * 重複した設定値を検出した際の動作ポリシー。
+     */
+    private final DuplicateDefinitionPolicy policy;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param inputFileUrl 読み込むファイルのURL表現
+     */
+    public ComponentDefinitionLoaderGenerator(String inputFileUrl) {
+        this(inputFileUrl, DuplicateDefinitionPolicy.OVERRIDE);
+    }
+
+    /**
+     * コンストラクタ。
+     * 重複した設定時の動作を指定する場合、こちらを使用する。
+     *
+     * @param inputFileUrl 読み込むファイルのURL表現
+     * @param policy 重複した設定値を検出した際の動作ポリシー
+     */
+    public ComponentDefinitionLoaderGenerator(String inputFileUrl, DuplicateDefinitionPolicy policy) {
+        this.inputFileUrl = inputFileUrl;
+        this.policy = policy;
+    }
+
+    /**
+     * ソースコードを生成する。
+     *
+     * @param args ルートとなるコンポーネント設定ファイルのURL表現、生成するクラスの完全修飾名、出力先ディレクトリ、
+     *             重複定義のポリシー(省略可)
+     * @throws IOException ソースコードの出力に失敗した場合
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3 && args.length != 4) {
+            throw new IllegalArgumentException("usage: " + ComponentDefinitionLoaderGenerator.class.getName()
+                    + " <input file url> <class name> <output directory> [duplicate definition policy]");
+        }
+        DuplicateDefinitionPolicy policy = args.length == 4
+                ? DuplicateDefinitionPolicy.valueOf(args[3])
+                : DuplicateDefinitionPolicy.OVERRIDE;
+        new ComponentDefinitionLoaderGenerator(args[0], policy).generate(args[1], new File(args[2]));
+    }
+
+    /**
+     * ソースコードを生成し、出力先ディレクトリ配下のパッケージに対応するディレクトリに出力する。
+     *
+     * @param className 生成するクラスの完全修飾名
+     * @param outputDir 出力先ディレクトリ
+     * @return 出力したファイル
+     * @throws IOException ソースコードの出力に失敗した場合
+     */
+    public File generate(String className, File outputDir) throws IOException {
+        File file = new File(outputDir, className.replace('.', File.separatorChar) + ".java");
+        File dir = file.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("directory creation failed. dir = " + dir);
+        }
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            generate(className, out);
+        } finally {
+            out.close();
+        }
+        LOGGER.logInfo("component definition loader was generated. file = " + file);
+        return file;
+    }
+
+    /**
+     * ソースコードを生成する。
+     *
+     * @param className 生成するクラスの完全修飾名
+     * @param out 出力先
+     * @throws IOException ソースコードの出力に失敗した場合
+     */
+    public void generate(String className, Writer out) throws IOException {
+        DiContainer scratch = new DiContainer(new ComponentDefinitionLoader() {
+            public List<ComponentDefinition> load(DiContainer container) {
+                return new ArrayList<ComponentDefinition>();
+            }
+        });
+        List<ComponentDefinition> definitions = new XmlComponentDefinitionLoader(inputFileUrl, policy).load(scratch);
+        out.write(new SourceBuilder(className, definitions).build());
+        out.flush();
+    }
+
+    /**
+     * ソースコードを組み立てるクラス。
+     */
+    private final class SourceBuilder {
+
+        /** 出力先 */
+        private final StringBuilder sb = new StringBuilder();
+
+        /** 生成するクラスのパッケージ名 */
+        private final String packageName;
+
+        /** 生成するクラスの単純名 */
+        private final String simpleName;
+
+        /** コンポーネント定義 */
+        private final List<ComponentDefinition> definitions;
+
+        /** コンポーネントIDをキーにした、生成したクラスで採番するIDの添字 */
+        private final Map<Integer, Integer> idIndexes = new HashMap<Integer, Integer>();
+
+        /**
+         * コンストラクタ。
+         *
+         * @param className 生成するクラスの完全修飾名
+         * @param definitions コンポーネント定義
+         */
+        SourceBuilder(String className, List<ComponentDefinition> definitions) {
+            int lastDot = className.lastIndexOf('.');
+            this.packageName = lastDot < 0 ? null : className.substring(0, lastDot);
+            this.simpleName = className.substring(lastDot + 1);
+            this.definitions = definitions;
+
+            // コンポーネントIDは、読み込み時のIDの順序を保ったままコンテナで採番し直す。
+            List<Integer> ids = new ArrayList<Integer>(definitions.size());
+            for (ComponentDefinition def : definitions) {
+                ids.add(def.getId());
+            }
+            Collections.sort(ids);
+            for (int i = 0; i < ids.size(); i++) {
+                idIndexes.put(ids.get(i), i);
+            }
+        }
+
+        /**
+         * ソースコードを組み立てる。
+         *
+         * @return ソースコード
+         */
+        String build() {
+            line(0, "// Generated by " + ComponentDefinitionLoaderGenerator.class.getName() + ". Do not edit.");
+            line(0, "// Source: " + stringLiteral(inputFileUrl) + " (" + policy.name() + ")");
+            if (packageName != null) {
+                line(0, "package " + packageName + ";");
+            }
+            line(0, "");
+            line(0, "import java.util.ArrayList;");
+            line(0, "import java.util.List;");
+            line(0, "");
+            for (Class<?> type : new Class<?>[] {
+                    ConfigFileLoader.class, ComponentDefinition.class, ComponentDefinitionLoader.class,
+                    ComponentReference.class, DiContainer.class, InjectionType.class, StoredValueComponentCreator.class,
+                    BeanComponentCreator.class, GeneratedComponentCreator.class, ListComponentCreator.class,
+                    ListElementDefinition.class, LiteralComponentCreator.class, MapComponentCreator.class,
+                    MapEntryDefinition.class, ObjectUtil.class}) {
+                line(0, "import " + type.getName() + ";");
+            }
+            line(0, "");
+            line(0, "/**");
+            line(0, " * Component definition loader generated from component configuration files.");
+            line(0, " */");
+            line(0, "@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+            line(0, "public final class " + simpleName + " implements ComponentDefinitionLoader {");
+            line(0, "");
+            line(1, "/**");
+            line(1, " * Creates the component definitions.");
+            line(1, " *");
+            line(1, " * @param container the container to load");
+            line(1, " * @return the component definitions");
+            line(1, " */");
+            line(1, "public List<ComponentDefinition> load(DiContainer container) {");
+            line(2, "int[] ids = new int[" + definitions.size() + "];");
+            line(2, "for (int i = 0; i < ids.length; i++) {");
+            line(3, "ids[i] = container.generateId();");
+            line(2, "}");
+            line(2, "List<ComponentDefinition> definitions = new ArrayList<ComponentDefinition>(ids.length);");
+            for (int chunk = 0; chunk * CHUNK_SIZE < definitions.size(); chunk++) {
+                line(2, chunkName(chunk) + ".define(definitions, ids);");
+            }
+            line(2, "return definitions;");
+            line(1, "}");
+            for (int chunk = 0; chunk * CHUNK_SIZE < definitions.size(); chunk++) {
+                appendChunk(chunk);
+            }
+            line(0, "}");
+            return sb.toString();
+        }
+
+        /**
+         * 一定数のコンポーネント定義を担当するネストクラスを出力する。
+         *
+         * @param chunk ネストクラスの番号
+         */
+        private void appendChunk(int chunk) {
+            String name = chunkName(chunk);
+            int start = chunk * CHUNK_SIZE;
+            int end = Math.min(start + CHUNK_SIZE, definitions.size());
+            List<Integer> generated = new ArrayList<Integer>();
+            for (int i = start; i < end; i++) {
+                if (isGenerated(definitions.get(i))) {
+                    generated.add(i);
+                }
+            }
+
+            line(0, "");
+            line(1, "/**");
+            line(1, " * Component definitions " + start + " to " + (end - 1) + ".");
+            line(1, " */");
+            line(1, "private static final class " + name + " extends GeneratedComponentCreator {");
+            line(0, "");
+            line(2, "private " + name + "(int index) {");
+            line(3, "super(index);");
+            line(2, "}");
+            line(0, "");
+            line(2, "static void define(List<ComponentDefinition> definitions, int[] ids) {");
+            for (int i = start; i < end; i++) {
+                line(3, "definitions.add(definition" + i + "(ids));");
+            }
+            line(2, "}");
+            line(0, "");
+            line(2, "@Override");
+            line(2, "protected Object create(int index) {");
+            line(3, "switch (index) {");
+            for (int i : generated) {
+                line(3, "case " + i + ":");
+                ComponentDefinition def = definitions.get(i);
+                String factoryMethodName = ((BeanComponentCreator) def.getCreator()).getFactoryMethodName();
+                if (factoryMethodName == null) {
+                    line(4, "return new " + def.getType().getCanonicalName() + "();");
+                } else {
+                    line(4, "return " + def.getType().getCanonicalName() + "." + factoryMethodName + "();");
+                }
+            }
+            line(3, "default:");
+            line(4, "throw new IllegalArgumentException(\"index = \" + index);");
+            line(3, "}");
+            line(2, "}");
+            line(0, "");
+            line(2, "@Override");
+            line(2, "protected void inject(int index, DiContainer container,");
+            line(4, "List<ComponentReference> references, Object component) {");
+            line(3, "switch (index) {");
+            for (int i : generated) {
+                line(3, "case " + i + ":");
+                line(4, "inject" + i + "(container, references, ("
+                        + definitions.get(i).getType().getCanonicalName() + ") component);");
+                line(4, "break;");
+            }
+            line(3, "default:");
+            line(4, "throw new IllegalArgumentException(\"index = \" + index);");
+            line(3, "}");
+            line(2, "}");
+            for (int i = start; i < end; i++) {
+                appendDefinition(name, i);
+                if (isGenerated(definitions.get(i))) {
+                    appendInjection(i);
+                }
+            }
+            line(1, "}");
+        }
+
+        /**
+         * コンポーネント定義を作成するメソッドを出力する。
+         *
+         * @param chunkName ネストクラスの名前
+         * @param index コンポーネント定義の番号
+         */
+        private void appendDefinition(String chunkName, int index) {
+            ComponentDefinition def = definitions.get(index);
+            ComponentCreator creator = def.getCreator();
+
+            line(0, "");
+            line(2, "private static ComponentDefinition definition" + index + "(int[] ids) {");
+            if (isGenerated(def)) {
+                line(3, chunkName + " creator = new " + chunkName + "(" + index + ");");
+            } else if (creator.getClass() == BeanComponentCreator.class) {
+                String factoryMethodName = ((BeanComponentCreator) creator).getFactoryMethodName();
+                line(3, "BeanComponentCreator creator = new BeanComponentCreator("
+                        + (factoryMethodName == null ? "" : stringLiteral(factoryMethodName)) + ");");
+            } else if (creator.getClass() == LiteralComponentCreator.class) {
+                LiteralComponentCreator literal = (LiteralComponentCreator) creator;
+                line(3, "LiteralComponentCreator creator = new LiteralComponentCreator("
+                        + classLiteral(literal.getType()) + ", " + stringLiteral(literal.getLiteral()) + ");");
+            } else if (creator.getClass() == StoredValueComponentCreator.class
+                    && ((StoredValueComponentCreator) creator).getValue() instanceof ConfigFileLoader
+                    && ((ConfigFileLoader) ((StoredValueComponentCreator) creator).getValue()).getUrl() != null) {
+                ConfigFileLoader loader = (ConfigFileLoader) ((StoredValueComponentCreator) creator).getValue();
+                line(3, "StoredValueComponentCreator creator = new StoredValueComponentCreator(new ConfigFileLoader("
+                        + stringLiteral(loader.getUrl()) + ", " + stringLiteral(loader.getEncoding()) + "));");
+            } else if (creator.getClass() == ListComponentCreator.class) {
+                List<ListElementDefinition> elements = ((ListComponentCreator) creator).getElementDefinitions();
+                line(3, "List<ListElementDefinition> elements = new ArrayList<ListElementDefinition>("
+                        + elements.size() + ");");
+                if (elements.size() <= PART_SIZE) {
+                    appendListElements(elements, 0, elements.size());
+                } else {
+                    for (int part = 0; part * PART_SIZE < elements.size(); part++) {
+                        line(3, "elements" + index + "_" + part + "(elements, ids);");
+                    }
+                }
+                line(3, "ListComponentCreator creator = new ListComponentCreator(elements);");
+            } else if (creator.getClass() == MapComponentCreator.class) {
+                List<MapEntryDefinition> entries = ((MapComponentCreator) creator).getEntries();
+                line(3, "List<MapEntryDefinition> entries = new ArrayList<MapEntryDefinition>("
+                        + entries.size() + ");");
+                if (entries.size() <= PART_SIZE) {
+                    appendMapEntries(entries, 0, entries.size());
+                } else {
+                    for (int part = 0; part * PART_SIZE < entries.size(); part++) {
+                        line(3, "entries" + index + "_" + part + "(entries, ids);");
+                    }
+                }
+                line(3, "MapComponentCreator creator = new MapComponentCreator(entries);");
+            } else {
+                throw new ConfigurationLoadException("unsupported component creator."
+                        + " component name = " + def.getName()
+                        + ", creator class name = " + creator.getClass().getName());
+            }
+
+            line(3, "ComponentDefinition definition = new ComponentDefinition(" + id(def.getId()) + ", "
+                    + stringLiteral(def.getName()) + ", creator, " + classLiteral(def.getType()) + ");");
+            if (isGenerated(def)) {
+                line(3, "definition.setInjector(creator);");
+            } else if (def.getInjector() != null) {
+                if (def.getInjector() != creator) {
+                    throw new ConfigurationLoadException("unsupported component injector."
+                            + " component name = " + def.getName()
+                            + ", injector class name = " + def.getInjector().getClass().getName());
+                }
+                line(3, "definition.setInjector(creator);");
+            }
+            if (def.isUseIdOnly()) {
+                line(3, "definition.setUseIdOnly(true);");
+            }
+            if (def.isLazyInit()) {
+                line(3, "definition.setLazyInit(true);");
+            }
+            for (ComponentReference ref : def.getReferences()) {
+                line(3, "definition.addReference(new ComponentReference("
+                        + stringLiteral(ref.getPropertyName()) + ", "
+                        + stringLiteral(ref.getReferenceName()) + ", "
+                        + (ref.getRequiredType() == null ? "null" : classLiteral(ref.getRequiredType())) + ", "
+                        + "InjectionType." + ref.getInjectionType().name() + ", "
+                        + id(ref.getTargetId()) + "));");
+            }
+            line(3, "return definition;");
+            line(2, "}");
+
+            if (creator.getClass() == ListComponentCreator.class) {
+                List<ListElementDefinition> elements = ((ListComponentCreator) creator).getElementDefinitions();
+                for (int part = 0; elements.size() > PART_SIZE && part * PART_SIZE < elements.size(); part++) {
+                    line(0, "");
+                    line(2, "private static void elements" + index + "_" + part
+                            + "(List<ListElementDefinition> elements, int[] ids) {");
+                    appendListElements(elements, part * PART_SIZE,
+                            Math.min((part + 1) * PART_SIZE, elements.size()));
+                    line(2, "}");
+                }
+            } else if (creator.getClass() == MapComponentCreator.class) {
+                List<MapEntryDefinition> entries = ((MapComponentCreator) creator).getEntries();
+                for (int part = 0; entries.size() > PART_SIZE && part * PART_SIZE < entries.size(); part++) {
+                    line(0, "");
+                    line(2, "private static void entries" + index + "_" + part
+                            + "(List<MapEntryDefinition> entries, int[] ids) {");
+                    appendMapEntries(entries, part * PART_SIZE, Math.min((part + 1) * PART_SIZE, entries.size()));
+                    line(2, "}");
+                }
+            }
+        }
+
+        /**
+         * Listの要素の定義を出力する。
+         *
+         * @param elements Listの要素の定義
+         * @param start 出力する最初の要素の位置
+         * @param end 出力する最後の要素の次の位置
+         */
+        private void appendListElements(List<ListElementDefinition> elements, int start, int end) {
+            for (int i = start; i < end; i++) {
+                ListElementDefinition element = elements.get(i);
+                line(3, "elements.add(new ListElementDefinition("
+                        + (element.getId() == null ? "null" : id(element.getId())) + ", "
+                        + stringLiteral(element.getName()) + "));");
+            }
+        }
+
+        /**
+         * Mapのエントリの定義を出力する。
+         *
+         * @param entries Mapのエントリの定義
+         * @param start 出力する最初のエントリの位置
+         * @param end 出力する最後のエントリの次の位置
+         */
+        private void appendMapEntries(List<MapEntryDefinition> entries, int start, int end) {
+            if (start < end) {
+                line(3, "MapEntryDefinition entry;");
+            }
+            for (int i = start; i < end; i++) {
+                MapEntryDefinition entry = entries.get(i);
+                line(3, "entry = new MapEntryDefinition();");
+                appendMapValue("Key", entry.getKeyType(), entry.getKey(), entry.getKeyRef(), entry.getKeyId());
+                appendMapValue("Value", entry.getValueType(),
+                        entry.getValue(), entry.getValueRef(), entry.getValueId());
+                line(3, "entries.add(entry);");
+            }
+        }
+
+        /**
+         * Mapのキーまたは値の定義を出力する。
+         *
+         * @param kind "Key"または"Value"
+         * @param type 種類
+         * @param value 文字列
+         * @param ref 参照するコンポーネント名
+         * @param id 参照するコンポーネントID
+         */
+        private void appendMapValue(String kind, DataType type, String value, String ref, int id) {
+            line(3, "entry.set" + kind + "Type(MapEntryDefinition.DataType." + type.name() + ");");
+            switch (type) {
+            case STRING:
+                line(3, "entry.set" + kind + "(" + stringLiteral(value) + ");");
+                break;
+            case REF:
+                line(3, "entry.set" + kind + "Ref(" + stringLiteral(ref) + ");");
+                break;
+            default:
+                line(3, "entry.set" + kind + "Id(" + id(id) + ");");
+                break;
+            }
+        }
+
+        /**
+         * コンポーネントのインジェクションを行うメソッドを出力する。
+         *
+         * @param index コンポーネント定義の番号
+         */
+        private void appendInjection(int index) {
+            ComponentDefinition def = definitions.get(index);
+            List<ComponentReference> references = def.getReferences();
+
+            line(0, "");
+            line(2, "private static void inject" + index + "(DiContainer container,");
+            line(4, "List<ComponentReference> references, " + def.getType().getCanonicalName() + " component) {");
+            if (!references.isEmpty()) {
+                line(3, "Object value;");
+            }
+            for (int i = 0; i < references.size(); i++) {
+                String propertyName = references.get(i).getPropertyName();
+                Method setter = findSetter(def.getType(), propertyName);
+                line(3, "value = getReferencedComponent(container, references.get(" + i + "));");
+                line(3, "if (value != null) {");
+                if (setter == null) {
+                    line(4, "ObjectUtil.setProperty(component, " + stringLiteral(propertyName) + ", value);");
+                } else {
+                    line(4, "component." + setter.getName() + "((" + castType(setter.getParameterTypes()[0])
+                            + ") value);");
+                }
+                line(3, "}");
+            }
+            line(2, "}");
+        }
+
+        /**
+         * コンポーネントIDの式を取得する。
+         *
+         * @param id 読み込み時のコンポーネントID
+         * @return コンポーネントIDの式(読み込み時のIDを持つ定義が存在しない場合は読み込み時のID)
+         */
+        private String id(int id) {
+            Integer index = idIndexes.get(id);
+            return index == null ? String.valueOf(id) : "ids[" + index + "]";
+        }
+
+        /**
+         * 1行出力する。
+         *
+         * @param depth インデントの深さ
+         * @param line 出力する行
+         */
+        private void line(int depth, String line) {
+            if (line.length() > 0) {
+                for (int i = 0; i < depth; i++) {
+                    sb.append(INDENT);
+                }
+                sb.append(line);
+            }
+            sb.append('\n');
+        }
+    }
+
+    /**
+     * コンポーネントの生成とインジェクションを、生成したソースコードで行うか否か。
+     *
+     * @param def コンポーネント定義
+     * @return 生成したソースコードで行う場合は{@code true}
+     */
+    private static boolean isGenerated(ComponentDefinition def) {
+        if (def.getCreator().getClass() != BeanComponentCreator.class || def.getInjector() != null) {
+            return false;
+        }
+        Class<?> type = def.getType();
+        if (!isAccessible(type) || type.isArray() || type.isPrimitive()) {
+            return false;
+        }
+        String factoryMethodName = ((BeanComponentCreator) def.getCreator()).getFactoryMethodName();
+        try {
+            if (factoryMethodName != null) {
+                Method factoryMethod = type.getMethod(factoryMethodName);
+                return Modifier.isStatic(factoryMethod.getModifiers())
+                        && isAccessible(factoryMethod.getDeclaringClass())
+                        && type.isAssignableFrom(factoryMethod.getReturnType())
+                        && !throwsCheckedException(factoryMethod.getExceptionTypes());
+            }
+            if (type.isInterface() || Modifier.isAbstract(type.getModifiers())
+                    || (type.getDeclaringClass() != null && !Modifier.isStatic(type.getModifiers()))) {
+                return false;
+            }
+            return !throwsCheckedException(type.getConstructor().getExceptionTypes());
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 検査例外が宣言されているか否か。
+     * <p/>
+     * 検査例外を宣言したコンストラクタやメソッドは、生成したソースコードから直接呼び出せない。
+     *
+     * @param exceptionTypes 宣言された例外の型
+     * @return 検査例外が宣言されている場合は{@code true}
+     */
+    private static boolean throwsCheckedException(Class<?>[] exceptionTypes) {
+        for (Class<?> exceptionType : exceptionTypes) {
+            if (!RuntimeException.class.isAssignableFrom(exceptionType) && !Error.class.isAssignableFrom(exceptionType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * プロパティに値を設定するsetterを取得する。
+     *
+     * @param type コンポーネントのクラス
+     * @param propertyName プロパティ名
+     * @return setter(オーバーロードされている場合や、引数の型がpublicでない場合はnull)
+     */
+    private static Method findSetter(Class<?> type, String propertyName) {
+        String name = ObjectUtil.getSetterMethodName(propertyName);
+        Method found = null;
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(name) && method.getParameterTypes().length == 1
+                    && !method.isBridge() && !Modifier.isStatic(method.getModifiers())) {
+                if (found != null) {
+                    // 値の型によって呼び出すsetterが決まるため、実行時に決定する。
+                    return null;
+                }
+                found = method;
+            }
+        }
+        if (found == null || !isAccessible(found.getParameterTypes()[0])) {
+            return null;
+        }
+        return found;
+    }
+
+    /**
+     * 生成したソースコードからクラスを参照できるか否か。
+     *
+     * @param type クラス
+     * @return 参照できる場合は{@code true}
+     */
+    private static boolean isAccessible(Class<?> type) {
+        if (type.isPrimitive()) {
+            return true;
+        }
+        if (type.isArray()) {
+            return isAccessible(type.getComponentType());
+        }
+        if (type.getCanonicalName() == null || !Modifier.isPublic(type.getModifiers())) {
+            return false;
+        }
+        return type.getDeclaringClass() == null || isAccessible(type.getDeclaringClass());
+    }
+
+    /**
+     * クラスを表す式を取得する。
+     *
+     * @param type クラス
+     * @return クラスを表す式
+     */
+    private static String classLiteral(Class<?> type) {
+        if (isAccessible(type)) {
+            return type.getCanonicalName() + ".class";
+        }
+        return "loadClass(" + stringLiteral(type.getName()) + ")";
+    }
+
+    /**
+     * setterの引数にキャストする型を取得する。
+     * <p/>
+     * プリミティブ型の場合は、ラッパー型にキャストしてアンボクシングする。
+     *
+     * @param type setterの引数の型
+     * @return キャストする型
+     */
+    private static String castType(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type.getCanonicalName();
+        }
+        if (type == int.class) {
+            return Integer.class.getName();
+        } else if (type == char.class) {
+            return Character.class.getName();
+        }
+        String name = type.getName();
+        return "java.lang." + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * 文字列リテラルを取得する。
+     * <p/>
+     * 制御文字とASCII以外の文字はUnicodeエスケープする。
+     *
+     * @param value 文字列
+     * @return 文字列リテラル(文字列がnullの場合は"null")
+     */
+    private static String stringLiteral(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '"':
+                sb.append("\\\"");
+                break;
+            case '\\':
+                sb.append("\\\\");
+                break;
+            case '\n':
+                sb.append("\\n");
+                break;
+            case '\r':
+                sb.append("\\r");
+                break;
+            case '\t':
+                sb.append("\\t");
+                break;
+            default:
+                if (c < 0x20 || c > 0x7e) {
+                    sb.append(String.format("\\u%04x", (int) c));
+                } else {
+                    sb.append(c);
+                }
+                break;
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * ネストクラスの名前を取得する。
+     *
+     * @param chunk ネストクラスの番号
+     * @return ネストクラスの名前
+     */
+    private static String chunkName(int chunk) {
+        return "Components" + chunk;
+    }
+}
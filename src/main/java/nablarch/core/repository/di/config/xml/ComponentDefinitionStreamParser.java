@@ -0,0 +1,455 @@
+package nablarch.core.repository.di.config.xml;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import nablarch.core.repository.di.ComponentDefinition;
+import nablarch.core.repository.di.ComponentReference;
+import nablarch.core.repository.di.ConfigurationLoadException;
+import nablarch.core.repository.di.DiContainer;
+import nablarch.core.repository.di.InjectionType;
+import nablarch.core.repository.di.config.ListElementDefinition;
+import nablarch.core.repository.di.config.MapEntryDefinition;
+import nablarch.core.repository.di.config.MapEntryDefinition.DataType;
+import nablarch.core.repository.di.config.xml.schema.AutowireType;
+import nablarch.core.repository.di.config.xml.schema.ConfigFile;
+import nablarch.core.repository.di.config.xml.schema.Import;
+
+/**
+ * コンポーネント設定ファイルをStAXで読み進めながら、コンポーネント定義を作成するクラス。
+ * <p/>
+ * {@link ComponentDefinitionFileParser}と異なり、解析結果のツリーを作成せずに、
+ * 要素を読み終えた時点でコンポーネント定義を作成する。
+ * コンポーネントIDの採番とコンポーネント定義の順序は、解析結果のツリーから作成する
+ * {@link XmlComponentDefinitionLoader}と同じとなる。
+ * <p/>
+ * 1ファイルの読み込みごとに作成する。重複した設定のマージは呼び出し元で行う。
+ */
+final class ComponentDefinitionStreamParser {
+
+    /**
+     * StAXのファクトリ。
+     * <p/>
+     * ファクトリの検索は重いため、全ての解析で共有する。
+     */
+    private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    /**
+     * コンポーネント設定ファイルに記述できる要素名のセット。
+     */
+    private static final Set<String> ELEMENT_NAMES = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+            "component-configuration", "component", "property", "component-ref", "config-file", "import",
+            "list", "map", "entry", "key-component", "value-component", "value")));
+
+    /**
+     * コンポーネント定義の作成を委譲するローダ。
+     */
+    private final XmlComponentDefinitionLoader loader;
+
+    /**
+     * ロードの状態。
+     */
+    private final XmlComponentDefinitionLoader.LoadContext context;
+
+    /**
+     * DIコンテナ。
+     */
+    private final DiContainer container;
+
+    /**
+     * 入力ファイルのURL。
+     */
+    private final String inputFileUrl;
+
+    /**
+     * 作成したコンポーネント定義のリスト。
+     */
+    private final List<ComponentDefinition> definitions = new ArrayList<ComponentDefinition>();
+
+    /**
+     * 解析中のストリーム。
+     */
+    private XMLStreamReader reader;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param loader コンポーネント定義の作成を委譲するローダ
+     * @param context ロードの状態
+     * @param container DIコンテナ
+     * @param inputFileUrl 入力ファイルのURL
+     */
+    ComponentDefinitionStreamParser(XmlComponentDefinitionLoader loader,
+            XmlComponentDefinitionLoader.LoadContext context, DiContainer container, String inputFileUrl) {
+        this.loader = loader;
+        this.context = context;
+        this.container = container;
+        this.inputFileUrl = inputFileUrl;
+    }
+
+    /**
+     * コンポーネント設定ファイルを解析し、コンポーネント定義を作成する。
+     *
+     * @param in コンポーネント設定ファイルのストリーム
+     * @return 重複した設定をマージする前のコンポーネント定義のリスト
+     */
+    List<ComponentDefinition> parse(InputStream in) {
+        try {
+            synchronized (INPUT_FACTORY) {
+                reader = INPUT_FACTORY.createXMLStreamReader(in);
+            }
+            try {
+                nextElement();
+                String name = reader.getLocalName();
+                if (!"component-configuration".equals(name)) {
+                    throw invalidElement(name);
+                }
+                readConfiguration();
+                while (reader.hasNext()) {
+                    reader.next();
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new ConfigurationLoadException("component definition load failed.", e);
+        }
+        return definitions;
+    }
+
+    /**
+     * component-configuration要素の子要素を読み込む。
+     *
+     * @throws XMLStreamException XMLの解析に失敗した場合
+     */
+    private void readConfiguration() throws XMLStreamException {
+        while (nextElement() == XMLStreamConstants.START_ELEMENT) {
+            String name = reader.getLocalName();
+            if ("component".equals(name)) {
+                definitions.add(readComponent(""));
+            } else if ("import".equals(name)) {
+                Import importDef = new Import();
+                importDef.setFile(attribute("file"));
+                importDef.setDir(attribute("dir"));
+                readEmpty();
+                definitions.addAll(loader.prepareImport(context, definitions, container, importDef, inputFileUrl));
+            } else if ("config-file".equals(name)) {
+                ConfigFile configFile = new ConfigFile();
+                configFile.setFile(attribute("file"));
+                configFile.setEncoding(attribute("encoding"));
+                configFile.setDir(attribute("dir"));
+                readEmpty();
+                definitions.addAll(loader.prepareConfigFile(context, container, configFile));
+            } else if ("list".equals(name)) {
+                definitions.add(readList(""));
+            } else if ("map".equals(name)) {
+                definitions.add(readMap(""));
+            } else {
+                throw invalidElement(name);
+            }
+        }
+    }
+
+    /**
+     * component要素、key-component要素、value-component要素を読み込む。
+     * <p/>
+     * 作成したコンポーネント定義は、呼び出し元でリストに追加する。
+     *
+     * @param prefix コンポーネント名のプレフィクス
+     * @return コンポーネントの定義
+     * @throws XMLStreamException XMLの解析に失敗した場合
+     */
+    private ComponentDefinition readComponent(String prefix) throws XMLStreamException {
+        String autowire = attribute("autowireType");
+        AutowireType autowireType = autowire == null ? AutowireType.BY_TYPE : AutowireType.fromValue(autowire);
+        String lazyInit = attribute("lazy-init");
+        // xs:booleanの字句表現は true, false, 1, 0
+        ComponentDefinition def = loader.createComponentDefinition(container, prefix,
+                attribute("class"), attribute("name"), attribute("factory-method"),
+                "true".equals(lazyInit) || "1".equals(lazyInit));
+
+        Set<String> propertyNames = new HashSet<String>();
+        while (nextElement() == XMLStreamConstants.START_ELEMENT) {
+            String name = reader.getLocalName();
+            if (!"property".equals(name)) {
+                throw invalidElement(name);
+            }
+            propertyNames.add(readProperty(prefix, def));
+        }
+        loader.addAutowireReferences(context, def, autowireType, propertyNames);
+        return def;
+    }
+
+    /**
+     * property要素を読み込み、コンポーネントに参照を追加する。
+     * <p/>
+     * 複数の設定を記述した場合は、value属性、component要素、ref属性、map要素、list要素の順に優先する。
+     * 使用しない子要素からはコンポーネント定義を作成しない。
+     *
+     * @param prefix コンポーネントのプレフィクス
+     * @param def コンポーネントの定義
+     * @return プロパティ名
+     * @throws XMLStreamException XMLの解析に失敗した場合
+     */
+    private String readProperty(String prefix, ComponentDefinition def) throws XMLStreamException {
+        String propertyName = attribute("name");
+        String value = attribute("value");
+        String ref = attribute("ref");
+
+        if (value != null) {
+            skipChildren();
+            // literalのコンポーネントを登録
+            ComponentDefinition valueComponent = loader.createLiteralComponentDefinition(
+                    context, container, value, def.getType(), propertyName);
+            definitions.add(valueComponent);
+            def.addReference(new ComponentReference(propertyName,
+                    null, null, InjectionType.ID, valueComponent.getId()));
+            return propertyName;
+        }
+
+        ComponentDefinition child = null;
+        boolean hasChild = false;
+        while (nextElement() == XMLStreamConstants.START_ELEMENT) {
+            String name = reader.getLocalName();
+            if (hasChild) {
+                // XMLスキーマでは子要素は1つまで
+                throw invalidElement(name);
+            }
+            hasChild = true;
+            if ("component".equals(name)) {
+                child = readComponent(def.getName());
+                definitions.add(child);
+            } else if ("map".equals(name) || "list".equals(name)) {
+                if (ref != null) {
+                    skipChildren();
+                } else if ("map".equals(name)) {
+                    child = readMap(prefix);
+                    definitions.add(child);
+                } else {
+                    child = readList(prefix);
+                    definitions.add(child);
+                }
+            } else {
+                throw invalidElement(name);
+            }
+        }
+
+        if (child != null) {
+            def.addReference(new ComponentReference(propertyName,
+                    null, child.getType(), InjectionType.ID, child.getId()));
+        } else if (ref != null) {
+            def.addReference(new ComponentReference(propertyName,
+                    ref, null, InjectionType.REF, -1));
+        } else {
+            throw new ConfigurationLoadException(
+                    "property value was not found. "
+                    + "propertyName = " + propertyName);
+        }
+        return propertyName;
+    }
+
+    /**
+     * list要素を読み込む。
+     * <p/>
+     * 作成したコンポーネント定義は、呼び出し元でリストに追加する。
+     *
+     * @param prefix プレフィクス
+     * @return Listの定義から作られたComponentDefinition
+     * @throws XMLStreamException XMLの解析に失敗した場合
+     */
+    private ComponentDefinition readList(String prefix) throws XMLStreamException {
+        String componentFullName = loader.generateComponentFullname(prefix, attribute("name"));
+        List<ListElementDefinition> elementIds = new ArrayList<ListElementDefinition>();
+
+        while (nextElement() == XMLStreamConstants.START_ELEMENT) {
+            String name = reader.getLocalName();
+            if ("component".equals(name)) {
+                ComponentDefinition elementDef = readComponent(componentFullName);
+                definitions.add(elementDef);
+                elementIds.add(new ListElementDefinition(elementDef.getId(), null));
+            } else if ("component-ref".equals(name)) {
+                String refName = attribute("name");
+                readEmpty();
+                elementIds.add(new ListElementDefinition(null, refName));
+            } else if ("value".equals(name)) {
+                ComponentDefinition elementDef = loader.createListValueDefinition(container, reader.getElementText());
+                definitions.add(elementDef);
+                elementIds.add(new ListElementDefinition(elementDef.getId(), null));
+            } else {
+                throw invalidElement(name);
+            }
+        }
+        return loader.createListDefinition(container, componentFullName, elementIds);
+    }
+
+    /**
+     * map要素を読み込む。
+     * <p/>
+     * 作成したコンポーネント定義は、呼び出し元でリストに追加する。
+     *
+     * @param prefix プレフィクス
+     * @return Mapの定義から作られたComponentDefinition
+     * @throws XMLStreamException XMLの解析に失敗した場合
+     */
+    private ComponentDefinition readMap(String prefix) throws XMLStreamException {
+        String componentFullName = loader.generateComponentFullname(prefix, attribute("name"));
+        List<MapEntryDefinition> entries = new ArrayList<MapEntryDefinition>();
+
+        while (nextElement() == XMLStreamConstants.START_ELEMENT) {
+            String name = reader.getLocalName();
+            if (!"entry".equals(name)) {
+                throw invalidElement(name);
+            }
+            entries.add(readEntry(componentFullName));
+        }
+        return loader.createMapDefinition(container, componentFullName, entries);
+    }
+
+    /**
+     * entry要素を読み込む。
+     * <p/>
+     * キーと値は、それぞれ属性をkey-component要素、value-component要素より優先する。
+     *
+     * @param componentFullName Mapのコンポーネントのフルネーム
+     * @return Mapのエントリの定義
+     * @throws XMLStreamException XMLの解析に失敗した場合
+     */
+    private MapEntryDefinition readEntry(String componentFullName) throws XMLStreamException {
+        MapEntryDefinition entryDef = new MapEntryDefinition();
+        String key = attribute("key");
+        String keyName = attribute("key-name");
+        if (key != null) {
+            entryDef.setKeyType(DataType.STRING);
+            entryDef.setKey(key);
+        } else if (keyName != null) {
+            entryDef.setKeyType(DataType.REF);
+            entryDef.setKeyRef(keyName);
+        }
+        String value = attribute("value");
+        String valueName = attribute("value-name");
+        if (value != null) {
+            entryDef.setValueType(DataType.STRING);
+            entryDef.setValue(value);
+        } else if (valueName != null) {
+            entryDef.setValueType(DataType.REF);
+            entryDef.setValueRef(valueName);
+        }
+
+        // XMLスキーマではkey-component要素、value-component要素の順に1つまで
+        boolean keyRead = false;
+        boolean valueRead = false;
+        while (nextElement() == XMLStreamConstants.START_ELEMENT) {
+            String name = reader.getLocalName();
+            if ("key-component".equals(name) && !keyRead && !valueRead) {
+                keyRead = true;
+                if (entryDef.getKeyType() != null) {
+                    skipChildren();
+                } else {
+                    ComponentDefinition compDef = readComponent(componentFullName);
+                    definitions.add(compDef);
+                    entryDef.setKeyType(DataType.COMPONENT);
+                    entryDef.setKeyId(compDef.getId());
+                }
+            } else if ("value-component".equals(name) && !valueRead) {
+                valueRead = true;
+                if (entryDef.getValueType() != null) {
+                    skipChildren();
+                } else {
+                    ComponentDefinition compDef = readComponent(componentFullName);
+                    definitions.add(compDef);
+                    entryDef.setValueType(DataType.COMPONENT);
+                    entryDef.setValueId(compDef.getId());
+                }
+            } else {
+                throw invalidElement(name);
+            }
+        }
+
+        if (entryDef.getKeyType() == null || entryDef.getValueType() == null) {
+            throw new ConfigurationLoadException("map entry must have key value.");
+        }
+        return entryDef;
+    }
+
+    /**
+     * 子要素を持たない要素を読み終える。
+     *
+     * @throws XMLStreamException XMLの解析に失敗した場合
+     */
+    private void readEmpty() throws XMLStreamException {
+        if (nextElement() == XMLStreamConstants.START_ELEMENT) {
+            throw invalidElement(reader.getLocalName());
+        }
+    }
+
+    /**
+     * 使用しない子要素を、コンポーネント定義を作成せずに読み飛ばす。
+     *
+     * @throws XMLStreamException XMLの解析に失敗した場合
+     */
+    private void skipChildren() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            if (nextElement() == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                if (!ELEMENT_NAMES.contains(name)) {
+                    throw invalidElement(name);
+                }
+                depth++;
+            } else {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * 次の開始タグまたは終了タグまで読み進める。
+     * <p/>
+     * 要素間の文字列、コメント、処理命令は読み飛ばす。
+     *
+     * @return 開始タグの場合は{@link XMLStreamConstants#START_ELEMENT}、終了タグの場合は{@link XMLStreamConstants#END_ELEMENT}
+     * @throws XMLStreamException XMLの解析に失敗した場合
+     */
+    private int nextElement() throws XMLStreamException {
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT || event == XMLStreamConstants.END_ELEMENT) {
+                return event;
+            }
+        }
+    }
+
+    /**
+     * 現在の要素の属性値を取得する。
+     *
+     * @param name 属性名
+     * @return 属性値(属性がない場合はnull)
+     */
+    private String attribute(String name) {
+        return reader.getAttributeValue(null, name);
+    }
+
+    /**
+     * 記述できない位置に要素がある場合の例外を作成する。
+     *
+     * @param name 要素名
+     * @return 例外
+     */
+    private static ConfigurationLoadException invalidElement(String name) {
+        if (!ELEMENT_NAMES.contains(name)) {
+            return new ConfigurationLoadException("processor was not found."
+                    + " element name = " + name);
+        }
+        return new ConfigurationLoadException("xml format was not valid.");
+    }
+}
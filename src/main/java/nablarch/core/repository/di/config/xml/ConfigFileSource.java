@@ -0,0 +1,100 @@
+package nablarch.core.repository.di.config.xml;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import nablarch.core.util.FileUtil;
+
+/**
+ * コンポーネント設定ファイルのconfig-file要素で指定した環境設定ファイルの読み込み元。
+ * <p/>
+ * ファイル指定の場合は環境設定ファイルのURL表現を、ディレクトリ指定の場合はディレクトリとファイル名のパターンを保持する。
+ */
+final class ConfigFileSource {
+
+    /** 環境設定ファイルのURL表現(ディレクトリ指定の場合はnull) */
+    private final String url;
+
+    /** ディレクトリ(ファイル指定の場合はnull) */
+    private final File dir;
+
+    /** ファイル名のパターン(ファイル指定の場合はnull) */
+    private final String pattern;
+
+    /** 環境設定ファイルの文字エンコーディング */
+    private final String encoding;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param url 環境設定ファイルのURL表現
+     * @param dir ディレクトリ
+     * @param pattern ファイル名のパターン
+     * @param encoding 環境設定ファイルの文字エンコーディング
+     */
+    private ConfigFileSource(String url, File dir, String pattern, String encoding) {
+        this.url = url;
+        this.dir = dir;
+        this.pattern = pattern;
+        this.encoding = encoding;
+    }
+
+    /**
+     * ファイル指定の読み込み元を作成する。
+     *
+     * @param url 環境設定ファイルのURL表現
+     * @param encoding 環境設定ファイルの文字エンコーディング
+     * @return 読み込み元
+     */
+    static ConfigFileSource file(String url, String encoding) {
+        return new ConfigFileSource(url, null, null, encoding);
+    }
+
+    /**
+     * ディレクトリ指定の読み込み元を作成する。
+     *
+     * @param dir ディレクトリ
+     * @param pattern ファイル名のパターン
+     * @param encoding 環境設定ファイルの文字エンコーディング
+     * @return 読み込み元
+     */
+    static ConfigFileSource directory(File dir, String pattern, String encoding) {
+        return new ConfigFileSource(null, dir, pattern, encoding);
+    }
+
+    /**
+     * 読み込み元の環境設定ファイルのURL表現を取得する。
+     * <p/>
+     * ディレクトリ指定の場合は、呼び出し時点でパターンに一致するファイルを検索する。
+     * ディレクトリが存在しない場合は空のリストを返却する。
+     *
+     * @return 環境設定ファイルのURL表現
+     */
+    List<String> listUrls() {
+        if (url != null) {
+            return Collections.singletonList(url);
+        }
+        File[] files = FileUtil.listFiles(dir.getAbsolutePath(), pattern);
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        List<String> urls = new ArrayList<String>(files.length);
+        for (File file : files) {
+            if (file.isFile()) {
+                urls.add(file.toURI().toString());
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * 環境設定ファイルの文字エンコーディングを取得する。
+     *
+     * @return 環境設定ファイルの文字エンコーディング
+     */
+    String getEncoding() {
+        return encoding;
+    }
+}
@@ -0,0 +1,422 @@
+package nablarch.core.repository.di.config.xml;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.repository.ConfigFileLoader;
+import nablarch.core.repository.di.DiContainer;
+import nablarch.core.repository.di.ValueUpdateRejectedException;
+import nablarch.core.util.FileUtil;
+import nablarch.core.util.annotation.Published;
+
+/**
+ * コンポーネント設定ファイルのconfig-file要素で指定した環境設定ファイルを監視し、
+ * 変更された値をDIコンテナに反映するクラス。
+ * <p/>
+ * {@link XmlComponentDefinitionLoader}が最後に読み込んだ環境設定ファイルを、一定間隔で監視する。
+ * ディレクトリ指定の場合は、パターンに一致するファイルの追加も検知する。
+ * 環境設定ファイルの最終更新日時またはサイズが変わり、その後{@link #setQuietPeriod(long)}で指定した時間変化しなかった場合に、
+ * 変更されたファイルだけを読み込み直し、値が変わったものを{@link DiContainer#updateValues(Map)}でDIコンテナに反映する。
+ * 同じ監視で検知した全てのファイルの変更は、一度にまとめて反映する。
+ * 反映する値は、全ての環境設定ファイルの値をconfig-file要素の順に上書きした結果とし、
+ * 後のconfig-file要素で上書きされているキーは、前の環境設定ファイルで変更されても反映しない。
+ * <p/>
+ * 値以外のコンポーネントと同じ名前の値など、DIコンテナが受け付けない値は、ワーニングログを出力して反映せず、
+ * 残りの値を反映する。受け付けない値は、環境設定ファイルで再度変更されるまで反映しない。
+ * コンポーネントの生成に失敗するなど、反映に失敗した場合は、ワーニングログを出力し、次の監視で改めて反映する。
+ * <p/>
+ * 環境設定ファイルから削除された値と、削除された環境設定ファイルの値は、DIコンテナから削除せずにワーニングログを出力する。
+ * また、jarファイル内など、ファイルシステム上に存在しない環境設定ファイルは監視しない。
+ * <p/>
+ * {@link CachingXmlComponentDefinitionLoader}がキャッシュファイルからコンポーネント定義を復元した場合、
+ * ディレクトリ指定のパターンは分からないため、読み込んだファイルの変更のみを監視する。
+ */
+@Published(tag = "architect")
+public class ConfigFileWatcher {
+
+    /**
+     * ロガー。
+     */
+    private static final Logger LOGGER = LoggerManager.get(ConfigFileWatcher.class);
+
+    /**
+     * 値を反映するDIコンテナ。
+     */
+    private final DiContainer container;
+
+    /**
+     * 監視する環境設定ファイルの読み込み元。
+     */
+    private final List<ConfigFileSource> sources;
+
+    /**
+     * URL表現をキーにした監視中の環境設定ファイル。
+     */
+    private final Map<String, WatchedFile> files = new LinkedHashMap<String, WatchedFile>();
+
+    /**
+     * 監視の間隔(ミリ秒)。
+     */
+    private long interval = 1000;
+
+    /**
+     * 変更を反映するまでに、ファイルが変化しないことを待つ時間(ミリ秒)。
+     */
+    private long quietPeriod = 500;
+
+    /**
+     * 監視スレッド。
+     */
+    private Thread thread;
+
+    /**
+     * コンストラクタ。
+     * <p/>
+     * ローダが最後に読み込んだ環境設定ファイルを読み込み、監視を開始する前の値とする。
+     *
+     * @param container 値を反映するDIコンテナ
+     * @param loader DIコンテナのコンポーネント定義を読み込んだローダ
+     */
+    public ConfigFileWatcher(DiContainer container, XmlComponentDefinitionLoader loader) {
+        this.container = container;
+        this.sources = loader.getConfigFileSources();
+        for (ConfigFileSource source : sources) {
+            for (String url : source.listUrls()) {
+                File file = toFile(url);
+                if (file != null && !files.containsKey(url)) {
+                    WatchedFile watched = new WatchedFile(url, source.getEncoding(), file);
+                    watched.load();
+                    files.put(url, watched);
+                }
+            }
+        }
+    }
+
+    /**
+     * 監視の間隔を設定する。
+     * <p/>
+     * デフォルトは1000ミリ秒。
+     *
+     * @param interval 監視の間隔(ミリ秒)
+     */
+    public void setInterval(long interval) {
+        this.interval = interval;
+    }
+
+    /**
+     * 変更を反映するまでに、ファイルが変化しないことを待つ時間を設定する。
+     * <p/>
+     * 書き込み途中のファイルを読み込まないために使用する。デフォルトは500ミリ秒。
+     *
+     * @param quietPeriod 待つ時間(ミリ秒)
+     */
+    public void setQuietPeriod(long quietPeriod) {
+        this.quietPeriod = quietPeriod;
+    }
+
+    /**
+     * 監視スレッドを開始する。
+     * <p/>
+     * 監視スレッドはデーモンスレッドとして動作する。既に開始している場合は何もしない。
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        thread = new Thread(new Runnable() {
+            public void run() {
+                while (!Thread.currentThread().isInterrupted()) {
+                    try {
+                        Thread.sleep(interval);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    try {
+                        check();
+                    } catch (RuntimeException e) {
+                        logWarn("config file watching failed.", e);
+                    }
+                }
+            }
+        }, "config-file-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 監視スレッドを停止する。
+     * <p/>
+     * 開始していない場合は何もしない。
+     */
+    public synchronized void stop() {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    /**
+     * 環境設定ファイルの変更を確認し、変更された値をDIコンテナに反映する。
+     * <p/>
+     * 監視スレッドから一定間隔で呼び出す。監視スレッドを使用せずに、任意のタイミングで呼び出してもよい。
+     * DIコンテナが受け付けない値は、ワーニングログを出力して反映せず、環境設定ファイルで再度変更されるまで反映しない。
+     * DIコンテナへの反映に失敗した場合は、ワーニングログを出力し、次の呼び出しで改めて反映する。
+     *
+     * @return 変更された値をDIコンテナに反映した場合 true
+     */
+    public synchronized boolean check() {
+        long now = System.currentTimeMillis();
+        // 読み込み元の順(config-file要素の順)に並べた環境設定ファイル
+        List<WatchedFile> ordered = new ArrayList<WatchedFile>();
+        for (ConfigFileSource source : sources) {
+            for (String url : source.listUrls()) {
+                if (!files.containsKey(url)) {
+                    File file = toFile(url);
+                    if (file != null) {
+                        // 追加されたファイルは、全ての値を変更された値とする。
+                        files.put(url, new WatchedFile(url, source.getEncoding(), file));
+                    }
+                }
+                if (files.containsKey(url)) {
+                    ordered.add(files.get(url));
+                }
+            }
+        }
+
+        Map<WatchedFile, Map<String, Object>> reloaded = new LinkedHashMap<WatchedFile, Map<String, Object>>();
+        for (WatchedFile watched : files.values()) {
+            if (!watched.isChanged(now, quietPeriod)) {
+                continue;
+            }
+            Map<String, Object> values = watched.reload();
+            if (values == null) {
+                // 読み込めないファイルは、次に変更されるまで読み込まない。
+                watched.commit(watched.values);
+                continue;
+            }
+            for (String key : watched.values.keySet()) {
+                if (!values.containsKey(key)) {
+                    logWarn("value removed from config file was not removed from container."
+                            + " key = " + key + ", file = " + watched.url, null);
+                }
+            }
+            reloaded.put(watched, values);
+        }
+        if (reloaded.isEmpty()) {
+            return false;
+        }
+
+        // 反映済みの値と読み込み直した値を、それぞれconfig-file要素の順に上書きして比較する。
+        Map<String, Object> current = new HashMap<String, Object>();
+        Map<String, Object> next = new HashMap<String, Object>();
+        for (WatchedFile watched : ordered) {
+            current.putAll(watched.values);
+            next.putAll(reloaded.containsKey(watched) ? reloaded.get(watched) : watched.values);
+        }
+        Map<String, Object> changed = new HashMap<String, Object>();
+        for (Map.Entry<String, Object> entry : next.entrySet()) {
+            if (!entry.getValue().equals(current.get(entry.getKey()))) {
+                changed.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        if (!changed.isEmpty()) {
+            try {
+                apply(changed);
+            } catch (RuntimeException e) {
+                logWarn("changed values could not be applied to container. keys = " + changed.keySet(), e);
+                return false;
+            }
+            if (!changed.isEmpty()) {
+                LOGGER.logInfo("changed values of config file were applied to container. keys = " + changed.keySet());
+            }
+        }
+        // 受け付けられなかった値も反映済みとし、再度変更されるまで反映しない。
+        for (Map.Entry<WatchedFile, Map<String, Object>> entry : reloaded.entrySet()) {
+            entry.getKey().commit(entry.getValue());
+        }
+        return !changed.isEmpty();
+    }
+
+    /**
+     * 変更された値をDIコンテナに反映する。
+     * <p/>
+     * DIコンテナが受け付けない値は、ワーニングログを出力して変更された値から取り除き、残りの値を反映する。
+     *
+     * @param changed 名前をキーにした変更された値(受け付けられなかった値を取り除く)
+     */
+    private void apply(Map<String, Object> changed) {
+        try {
+            container.updateValues(changed);
+        } catch (ValueUpdateRejectedException e) {
+            logWarn("changed values which can not be applied to container were ignored until they are changed again."
+                    + " keys = " + e.getRejectedNames(), e);
+            changed.keySet().removeAll(e.getRejectedNames());
+            if (!changed.isEmpty()) {
+                container.updateValues(changed);
+            }
+        }
+    }
+
+    /**
+     * URL表現から、ファイルシステム上の環境設定ファイルを取得する。
+     *
+     * @param url 環境設定ファイルのURL表現
+     * @return 環境設定ファイル(ファイルシステム上に存在しない場合はnull)
+     */
+    private static File toFile(String url) {
+        URL resource = FileUtil.getResourceURL(url);
+        if (resource == null || !"file".equals(resource.getProtocol())) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.logDebug("config file is not watched because it is not in file system. file = " + url);
+            }
+            return null;
+        }
+        try {
+            return new File(resource.toURI());
+        } catch (URISyntaxException e) {
+            return new File(resource.getFile());
+        }
+    }
+
+    /**
+     * ワーニングログを出力する。
+     * @param message ログメッセージ
+     * @param e 例外(ない場合はnull)
+     */
+    private static void logWarn(String message, Throwable e) {
+        if (LOGGER.isWarnEnabled()) {
+            LOGGER.logWarn(message, e);
+        }
+    }
+
+    /**
+     * 監視中の環境設定ファイル。
+     */
+    private static final class WatchedFile {
+
+        /** 環境設定ファイルのURL表現 */
+        private final String url;
+
+        /** 環境設定ファイルの文字エンコーディング */
+        private final String encoding;
+
+        /** 環境設定ファイル */
+        private final File file;
+
+        /** DIコンテナに反映済みの値 */
+        private Map<String, Object> values = new HashMap<String, Object>();
+
+        /** DIコンテナに反映済みの値を読み込んだ時点の最終更新日時 */
+        private long lastModified = -1;
+
+        /** DIコンテナに反映済みの値を読み込んだ時点のサイズ */
+        private long length = -1;
+
+        /** 最後に読み込んだ時点の最終更新日時 */
+        private long readModified = -1;
+
+        /** 最後に読み込んだ時点のサイズ */
+        private long readLength = -1;
+
+        /** 変化を検知した最終更新日時 */
+        private long pendingModified = -1;
+
+        /** 変化を検知したサイズ */
+        private long pendingLength = -1;
+
+        /** 変化を検知した時刻(検知していない場合は-1) */
+        private long pendingSince = -1;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param url 環境設定ファイルのURL表現
+         * @param encoding 環境設定ファイルの文字エンコーディング
+         * @param file 環境設定ファイル
+         */
+        WatchedFile(String url, String encoding, File file) {
+            this.url = url;
+            this.encoding = encoding;
+            this.file = file;
+        }
+
+        /**
+         * 環境設定ファイルを読み込み、DIコンテナに反映済みの値とする。
+         */
+        void load() {
+            Map<String, Object> loaded = reload();
+            commit(loaded != null ? loaded : values);
+        }
+
+        /**
+         * 最後に読み込んだ値を、DIコンテナに反映済みの値とする。
+         * <p/>
+         * 反映するまでは最終更新日時を更新しないため、反映に失敗した場合は次の監視で改めて読み込む。
+         *
+         * @param reflected DIコンテナに反映済みの値
+         */
+        void commit(Map<String, Object> reflected) {
+            values = reflected;
+            lastModified = readModified;
+            length = readLength;
+            pendingSince = -1;
+        }
+
+        /**
+         * 環境設定ファイルが変更され、その後変化していないか否か。
+         *
+         * @param now 現在時刻
+         * @param quietPeriod ファイルが変化しないことを待つ時間(ミリ秒)
+         * @return 変更され、その後変化していない場合 true
+         */
+        boolean isChanged(long now, long quietPeriod) {
+            if (!file.isFile()) {
+                if (lastModified != 0) {
+                    lastModified = 0;
+                    logWarn("values of deleted config file were not removed from container. file = " + url, null);
+                }
+                return false;
+            }
+            long modified = file.lastModified();
+            long size = file.length();
+            if (modified == lastModified && size == length) {
+                pendingSince = -1;
+                return false;
+            }
+            if (pendingSince < 0 || modified != pendingModified || size != pendingLength) {
+                pendingModified = modified;
+                pendingLength = size;
+                pendingSince = now;
+            }
+            return now - pendingSince >= quietPeriod;
+        }
+
+        /**
+         * 環境設定ファイルを読み込む。
+         * <p/>
+         * 読み込みに失敗した場合は、ワーニングログを出力する。
+         * 読み込んだ値は、{@link #commit(Map)}を呼び出すまでDIコンテナに反映済みの値としない。
+         *
+         * @return 読み込んだ値(読み込みに失敗した場合はnull)
+         */
+        Map<String, Object> reload() {
+            readModified = file.lastModified();
+            readLength = file.length();
+            try {
+                return new ConfigFileLoader(url, encoding).load();
+            } catch (RuntimeException e) {
+                logWarn("config file could not be loaded. file = " + url, e);
+                return null;
+            }
+        }
+    }
+}
@@ -13,10 +13,18 @@ import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -87,13 +95,29 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
     private String inputFileUrl;
 
     /**
-     * import したファイルのスタック。(参照ループが発生しないようにするため。)
+     * ディレクトリ指定でインポートしたファイルを解析するスレッド数。
      */
-    private ThreadLocal<Deque<URL>> importFileNames = new ThreadLocal<Deque<URL>>() {
-        protected Deque<URL> initialValue() {
-            return new ArrayDeque<URL>();
-        };
-    };
+    private int parallelism = 1;
+
+    /**
+     * コンポーネント設定ファイルをストリームで解析するか否か。
+     */
+    private boolean streamingParse = false;
+
+    /**
+     * 環境設定ファイルを一括で読み込んで解析するか否か。
+     */
+    private boolean bulkConfigFileParse = false;
+
+    /**
+     * 環境設定ファイルの読み込み結果を、文字列をバイト配列に詰めた読み取り専用のMapで保持するか否か。
+     */
+    private boolean compactConfigFileValues = false;
+
+    /**
+     * 最後に読み込んだ環境設定ファイルの読み込み元。
+     */
+    private volatile List<ConfigFileSource> configFileSources = Collections.emptyList();
 
     static {
         Set<Class<?>> tmpIgnoreAutowiredClasses = new HashSet<Class<?>>();
@@ -133,6 +157,80 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
         this.inputFileUrl = inputFileUrl;
         this.duplicateDefinitionPolicy = policy;
     }
+
+    /**
+     * ディレクトリ指定でインポートしたファイルを解析するスレッド数を設定する。
+     * <p/>
+     * 2以上を指定した場合、ディレクトリ内のファイルの読み込みとXMLの解析を並列に行う。
+     * コンポーネント定義の作成は解析の完了後にファイル名順に行うため、
+     * コンポーネントIDやコンポーネント定義の順序は逐次に解析した場合と同じとなる。
+     * デフォルトは1(逐次に解析する)。
+     * <p/>
+     * {@link #setStreamingParse(boolean)}でストリームでの解析を指定した場合、
+     * 解析とコンポーネント定義の作成を同時に行うため、この設定によらず逐次に解析する。
+     *
+     * @param parallelism ファイルを解析するスレッド数
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * コンポーネント設定ファイルをストリームで解析するか否かを設定する。
+     * <p/>
+     * trueを指定した場合、XMLファイル全体をオブジェクトのツリーに変換せずに、
+     * StAXで読み進めながら要素ごとにコンポーネント定義を作成する。
+     * 大量のコンポーネントを定義した設定ファイルで、解析時間とヒープの使用量を削減できる。
+     * 作成するコンポーネント定義とコンポーネントIDは、ストリームで解析しない場合と同じとなる。
+     * <p/>
+     * ただし、XMLスキーマで1つまでとしている要素を複数記述した場合や、
+     * entry要素のkey-component要素とvalue-component要素の順序が逆の場合は、設定ファイルの不正として例外を送出する。
+     * デフォルトはfalse(解析結果のツリーからコンポーネント定義を作成する)。
+     *
+     * @param streamingParse ストリームで解析する場合 true
+     */
+    public void setStreamingParse(boolean streamingParse) {
+        this.streamingParse = streamingParse;
+    }
+
+    /**
+     * 環境設定ファイルを一括で読み込んで解析するか否かを設定する。
+     * <p/>
+     * trueを指定した場合、config-file要素で指定した環境設定ファイルを
+     * {@link ConfigFileLoader#setBulkParse(boolean)}にtrueを指定して読み込む。
+     * 読み込み結果は、一括で解析しない場合と同じとなる。
+     * デフォルトはfalse(1行ずつ読み込んで解析する)。
+     *
+     * @param bulkConfigFileParse 環境設定ファイルを一括で解析する場合 true
+     */
+    public void setBulkConfigFileParse(boolean bulkConfigFileParse) {
+        this.bulkConfigFileParse = bulkConfigFileParse;
+    }
+
+    /**
+     * 環境設定ファイルの読み込み結果を、文字列をバイト配列に詰めた読み取り専用のMapで保持するか否かを設定する。
+     * <p/>
+     * trueを指定した場合、config-file要素で指定した環境設定ファイルを
+     * {@link ConfigFileLoader#setCompactValues(boolean)}にtrueを指定して読み込む。
+     * 大量の設定値を{@link nablarch.core.repository.di.DiContainerOptions#setLazyObjectLoaderValues(boolean)}と
+     * 組み合わせて読み込む場合に、保持し続けるヒープの使用量を削減できる。
+     * デフォルトはfalse。
+     *
+     * @param compactConfigFileValues 読み取り専用のMapで保持する場合 true
+     */
+    public void setCompactConfigFileValues(boolean compactConfigFileValues) {
+        this.compactConfigFileValues = compactConfigFileValues;
+    }
+
+    /**
+     * 環境設定ファイルのローダに、読み込み方法を設定する。
+     *
+     * @param loader 環境設定ファイルのローダ
+     */
+    void configure(ConfigFileLoader loader) {
+        loader.setBulkParse(bulkConfigFileParse);
+        loader.setCompactValues(compactConfigFileValues);
+    }
     /**
      * コンポーネント定義のロードを行う。
      * 
@@ -143,8 +241,8 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
     public List<ComponentDefinition> load(DiContainer container) {
         InputStream in = null;
 
-        // load毎にimportのスタックをクリア
-        importFileNames.get().clear();
+        // load毎にimportのスタックなどを作成
+        LoadContext context = new LoadContext();
 
         try {
             if (!inputFileUrl.contains(":")) {
@@ -153,70 +251,53 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
             }
             LOGGER.logInfo("load component config file." 
                     + " file = " + inputFileUrl);
+            resourceLoaded(inputFileUrl);
             in = FileUtil.getResource(inputFileUrl);
 
-            return loadInner(container, in, inputFileUrl);
+            List<ComponentDefinition> definitions = loadFile(context, container, in, inputFileUrl);
+            setConfigFileSources(context.configFileSources);
+            return definitions;
         } catch (ConfigurationLoadException e) {
             throw new ConfigurationLoadException("file processing failed."
                     + " file = " + inputFileUrl
                     , e);
         } finally {
             FileUtil.closeQuietly(in);
-            importFileNames.remove();
+            if (context.executor != null) {
+                context.executor.shutdown();
+            }
         }
 
     }
 
     /**
-     * XMLファイルからコンポーネント定義をロードする。
-     * 
-     * @param container DIコンテナ
+     * 最後に読み込んだ環境設定ファイルの読み込み元を取得する。
+     *
+     * @return 環境設定ファイルの読み込み元
+     */
+    List<ConfigFileSource> getConfigFileSources() {
+        return configFileSources;
+    }
+
+    /**
+     * 環境設定ファイルの読み込み元を設定する。
+     *
+     * @param sources 環境設定ファイルの読み込み元
+     */
+    void setConfigFileSources(List<ConfigFileSource> sources) {
+        configFileSources = Collections.unmodifiableList(new ArrayList<ConfigFileSource>(sources));
+    }
+
+    /**
+     * XMLファイルを解析する。
+     *
      * @param in 入力ストリーム
-     * @param inputFileUrl 入力ファイルのURL
-     * @return コンポーネント定義のリスト
+     * @return 解析結果
      */
-    private List<ComponentDefinition> loadInner(DiContainer container,
-            InputStream in, String inputFileUrl) {
+    private ComponentConfiguration parse(InputStream in) {
         try {
-            List<ComponentDefinition> definitions = new ArrayList<ComponentDefinition>();
-            
             ComponentDefinitionFileParser unmarshaller = new ComponentDefinitionFileParser();
-            
-            ComponentConfiguration configuration = unmarshaller.parse(in);
-            
-            List<Object> l = configuration.getImportOrConfigFileOrComponent();
-
-            for (Object o : l) {
-                if (o instanceof Component) {
-                    ComponentDefinition def = createComponentDefinition(
-                            definitions, container, "", (Component) o);
-                    definitions.add(def);
-                } else if (o instanceof Import) {
-                    definitions.addAll(prepareImport(definitions, container,
-                            (Import) o, inputFileUrl));
-                } else if (o instanceof nablarch.core.repository.di.config.xml.schema.List) {
-                    ComponentDefinition def = createListDefinition(definitions,
-                            container,
-                            "", (nablarch.core.repository.di.config.xml.schema.List) o);
-                    definitions.add(def);
-                } else if (o instanceof nablarch.core.repository.di.config.xml.schema.Map) {
-                    ComponentDefinition def = createMapDefinition(definitions,
-                            container,
-                            "", (nablarch.core.repository.di.config.xml.schema.Map) o);
-                    definitions.add(def);
-                } else {
-                    definitions.addAll(prepareConfigFile(container,
-                            (ConfigFile) o));
-                }
-            }
-
-            if (duplicateDefinitionPolicy == DuplicateDefinitionPolicy.OVERRIDE) {
-                definitions = mergeComponentDefinitions(definitions);
-            } else {
-                checkDuplicateName(definitions);
-            }
-
-            return definitions;
+            return unmarshaller.parse(in);
         } catch (SAXException e) {
             throw new ConfigurationLoadException("component definition load failed.", e);
         } catch (ParserConfigurationException e) {
@@ -228,9 +309,86 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
         }
     }
 
+    /**
+     * XMLファイルからコンポーネント定義をロードする。
+     *
+     * @param context ロードの状態
+     * @param container DIコンテナ
+     * @param in 入力ストリーム
+     * @param inputFileUrl 入力ファイルのURL
+     * @return コンポーネント定義のリスト
+     */
+    private List<ComponentDefinition> loadFile(LoadContext context, DiContainer container,
+            InputStream in, String inputFileUrl) {
+        if (streamingParse) {
+            return resolveDuplicates(new ComponentDefinitionStreamParser(
+                    this, context, container, inputFileUrl).parse(in));
+        }
+        return loadInner(context, container, parse(in), inputFileUrl);
+    }
+
+    /**
+     * XMLファイルの解析結果からコンポーネント定義をロードする。
+     * 
+     * @param context ロードの状態
+     * @param container DIコンテナ
+     * @param configuration XMLファイルの解析結果
+     * @param inputFileUrl 入力ファイルのURL
+     * @return コンポーネント定義のリスト
+     */
+    private List<ComponentDefinition> loadInner(LoadContext context, DiContainer container,
+            ComponentConfiguration configuration, String inputFileUrl) {
+        List<ComponentDefinition> definitions = new ArrayList<ComponentDefinition>();
+
+        List<Object> l = configuration.getImportOrConfigFileOrComponent();
+
+        for (Object o : l) {
+            if (o instanceof Component) {
+                ComponentDefinition def = createComponentDefinition(
+                        context, definitions, container, "", (Component) o);
+                definitions.add(def);
+            } else if (o instanceof Import) {
+                definitions.addAll(prepareImport(context, definitions, container,
+                        (Import) o, inputFileUrl));
+            } else if (o instanceof nablarch.core.repository.di.config.xml.schema.List) {
+                ComponentDefinition def = createListDefinition(context, definitions,
+                        container,
+                        "", (nablarch.core.repository.di.config.xml.schema.List) o);
+                definitions.add(def);
+            } else if (o instanceof nablarch.core.repository.di.config.xml.schema.Map) {
+                ComponentDefinition def = createMapDefinition(context, definitions,
+                        container,
+                        "", (nablarch.core.repository.di.config.xml.schema.Map) o);
+                definitions.add(def);
+            } else {
+                definitions.addAll(prepareConfigFile(context, container,
+                        (ConfigFile) o));
+            }
+        }
+
+        return resolveDuplicates(definitions);
+    }
+
+    /**
+     * 重複した設定を、動作ポリシーに従ってマージまたはチェックする。
+     *
+     * @param definitions 1ファイルから作成したコンポーネント定義のリスト
+     * @return マージ後のコンポーネントのリスト
+     */
+    private List<ComponentDefinition> resolveDuplicates(List<ComponentDefinition> definitions) {
+        if (duplicateDefinitionPolicy == DuplicateDefinitionPolicy.OVERRIDE) {
+            return mergeComponentDefinitions(definitions);
+        }
+        checkDuplicateName(definitions);
+        return definitions;
+    }
+
 
     /**
      * 重複した設定のマージを行う。
+     * <p/>
+     * マージしたコンポーネント定義は、後から定義した位置に移動する。
+     * 移動元の位置は空きとしておき、最後にまとめて詰めることで、定義数に比例する時間でマージする。
      * @param definitions 定義
      * 
      * @return マージ後のコンポーネントのリスト
@@ -239,33 +397,48 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
 
         Map<String, ComponentDefinition> defMap = new HashMap<String, ComponentDefinition>();
         Map<Integer, ComponentDefinition> removedRef = new HashMap<Integer, ComponentDefinition>();
-        List<ComponentDefinition> list = new ArrayList<ComponentDefinition>();
+        // 移動元の位置をnullとしたコンポーネント定義のリストと、コンポーネント定義の位置
+        List<ComponentDefinition> slots = new ArrayList<ComponentDefinition>(definitions.size());
+        Map<ComponentDefinition, Integer> positions = new IdentityHashMap<ComponentDefinition, Integer>();
 
         for (ComponentDefinition def : definitions) {
             if (def.getName() != null) {
                 if (defMap.containsKey(def.getName())) {
                     ComponentDefinition oldDef = defMap.get(def.getName());
                     ComponentDefinition newDef = def;
-                    list.remove(oldDef);
+                    Integer position = positions.remove(oldDef);
+                    if (position != null) {
+                        slots.set(position, null);
+                    }
                     def = marge(definitions, oldDef, def);
 
                     // 削除したものは、nameは削除するが、いったん復活候補として置いておく。
                     removedRef.put(newDef.getId(), newDef);
                 }
                 defMap.put(def.getName(), def);
+                positions.put(def, slots.size());
             } 
 
-            list.add(def);
+            slots.add(def);
+        }
+
+        List<ComponentDefinition> list = new ArrayList<ComponentDefinition>(slots.size());
+        for (ComponentDefinition def : slots) {
+            if (def != null) {
+                list.add(def);
+            }
         }
 
         // 必要に応じて復活させる
-        for (ComponentDefinition def : definitions) {
-            for (ComponentReference ref : def.getReferences()) {
-                if (ref.getInjectionType() == InjectionType.ID && removedRef.containsKey(ref.getTargetId())) {
-                    // 復活させるが、ID参照以外NGに設定。
-                    ComponentDefinition oldDef = removedRef.remove(ref.getTargetId());
-                    oldDef.setUseIdOnly(true);
-                    list.add(oldDef);
+        if (!removedRef.isEmpty()) {
+            for (ComponentDefinition def : definitions) {
+                for (ComponentReference ref : def.getReferences()) {
+                    if (ref.getInjectionType() == InjectionType.ID && removedRef.containsKey(ref.getTargetId())) {
+                        // 復活させるが、ID参照以外NGに設定。
+                        ComponentDefinition oldDef = removedRef.remove(ref.getTargetId());
+                        oldDef.setUseIdOnly(true);
+                        list.add(oldDef);
+                    }
                 }
             }
         }
@@ -357,11 +530,12 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
      * <p/>
      * ディレクトリ指定で環境設定ファイルを読み込む場合は、dir属性にディレクトリパスを指定する。<br/>
      * dir属性に設定されたディレクトリパスは、dir属性が記述されているコンポーネント設定ファイルからの相対パスとして解釈する。
+     * @param context ロードの状態
      * @param container DIコンテナ
      * @param configFile 設定ファイルの定義
      * @return インポートした設定ファイルの定義のリスト
      */
-    private List<ComponentDefinition> prepareConfigFile(
+    List<ComponentDefinition> prepareConfigFile(LoadContext context,
             DiContainer container, ConfigFile configFile) {
         List<ComponentDefinition> values = new ArrayList<ComponentDefinition>();
         if (configFile.getDir() == null) {
@@ -374,6 +548,8 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
             }
             ComponentDefinition def = createConfigFileLoaderDefinition(
                     container, propFileUrl, configFile.getEncoding());
+            resourceLoaded(propFileUrl);
+            context.configFileSources.add(ConfigFileSource.file(propFileUrl, configFile.getEncoding()));
             values.add(def);
         } else {
             File parentDir = getParentDir(inputFileUrl);
@@ -381,8 +557,12 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
             if (listFiles == null) {
                 throwDirectoryNotFoundException(new File(parentDir, configFile.getDir()).getAbsolutePath());
             }
+            directoryListed(new File(parentDir, configFile.getDir()), configFile.getFile(), listFiles);
+            context.configFileSources.add(ConfigFileSource.directory(
+                    new File(parentDir, configFile.getDir()), configFile.getFile(), configFile.getEncoding()));
             for (File listFile : listFiles) {
                 if (listFile.isFile()) {
+                    resourceLoaded(listFile.toURI().toString());
                     ComponentDefinition def = createConfigFileLoaderDefinition(
                             container, listFile.toURI().toString(), configFile.getEncoding());
                     values.add(def);
@@ -422,6 +602,7 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
             DiContainer container, String pathname, String encoding) {
         ConfigFileLoader loader;
         loader = new ConfigFileLoader(pathname, encoding);
+        configure(loader);
         int id = container.generateId();
         ComponentCreator creator = new StoredValueComponentCreator(loader);
         ComponentDefinition def = new ComponentDefinition(id, null, creator, loader.getClass());
@@ -431,13 +612,15 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
     /**
      * インポートの定義を処理する。
      * 
+     * @param context ロードの状態
      * @param definitions コンポーネント定義のリスト
      * @param container コンテナ
      * @param importDef インポート定義
      * @param inputFileUrl 入力ファイルのURL
      * @return インポートしたコンポーネント定義のリスト
      */
-    private List<ComponentDefinition> prepareImport(List<ComponentDefinition> definitions, DiContainer container, Import importDef, String inputFileUrl) {
+    List<ComponentDefinition> prepareImport(LoadContext context, List<ComponentDefinition> definitions,
+            DiContainer container, Import importDef, String inputFileUrl) {
         String dir = importDef.getDir();
         String file = importDef.getFile();
         
@@ -453,19 +636,20 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
                 throw new ConfigurationLoadException(
                         "file to import not found. path=[" + fileUrl + "]");
             }
-            if (importFileNames.get().contains(url)) {
+            if (context.importStack.contains(url)) {
                 throw new ConfigurationLoadException("import directive is circular.\n"
-                       + "import stack = [" + importFileNames.get() + "]");
+                       + "import stack = [" + context.importStack + "]");
             }
-            importFileNames.get().push(url);
+            context.importStack.push(url);
             try {
                 LOGGER.logInfo("load component config file." 
                         + " file = " + fileUrl);
+                resourceLoaded(fileUrl);
                 in = FileUtil.getResource(fileUrl);
-                return loadInner(container, in, "file:" + inputFileUrl);
+                return loadFile(context, container, in, "file:" + inputFileUrl);
             } finally {
                 FileUtil.closeQuietly(in);
-                importFileNames.get().pop();
+                context.importStack.pop();
             }
             
         } else {
@@ -475,21 +659,25 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
             if (listFiles == null) {
                 throwDirectoryNotFoundException(new File(parentDir, dir).getAbsolutePath());
             }
+            directoryListed(new File(parentDir, dir), file, listFiles);
+            List<File> files = new ArrayList<File>(listFiles.length);
             for (File f : listFiles) {
                 if (f.isFile()) {
-                    InputStream in = null;
-                    try {
-                        in = new FileInputStream(f);
-                        defs.addAll(loadInner(container, in, "file:" + f.getPath()));
-                    } catch (FileNotFoundException e) {
-                        // listFiles 実行後なので、通常到達不能コードです。
-                        throw new ConfigurationLoadException("configuration load failed.", e);
-                    } finally {
-                        if (in != null) {
-                            FileUtil.closeQuietly(in);
-                        }
-                    }
+                    files.add(f);
+                }
+            }
+            if (streamingParse) {
+                for (File f : files) {
+                    resourceLoaded(f.toURI().toString());
+                    defs.addAll(loadFile(context, container, f));
                 }
+                return defs;
+            }
+            List<ComponentConfiguration> configurations = parseAll(context, files);
+            for (int i = 0; i < files.size(); i++) {
+                File f = files.get(i);
+                resourceLoaded(f.toURI().toString());
+                defs.addAll(loadInner(context, container, configurations.get(i), "file:" + f.getPath()));
             }
             return defs;
         }
@@ -498,36 +686,27 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
     /**
      * コンポーネントの定義を作成する。
      * 
+     * @param context ロードの状態
      * @param definitions コンポーネント定義のリスト
      * @param container DIコンテナ
      * @param prefix コンポーネント名のプレフィクス
      * @param component xmlファイル中のコンポーネント定義
      * @return コンポーネントの定義
      */
-    private ComponentDefinition createComponentDefinition(
+    private ComponentDefinition createComponentDefinition(LoadContext context,
             List<ComponentDefinition> definitions, DiContainer container,
             String prefix, Component component) {
         
-        ComponentCreator creator = new BeanComponentCreator();
-        
-        Class<?> componentClass;
-        try {
-            componentClass = Class.forName(component.getClazz());
-        } catch (ClassNotFoundException e) {
-            throw new ConfigurationLoadException("component class load failed. " 
-                    + "component class name = " + component.getClazz(),
-                    e);
-        }
+        ComponentDefinition def = createComponentDefinition(container, prefix, component.getClazz(),
+                component.getName(), component.getFactoryMethod(), component.isLazyInit());
+        Class<?> componentClass = def.getType();
+        String componentFullName = def.getName();
         Set<String> propertyNames = new HashSet<String>();
-        String componentFullName = generateComponentFullname(prefix, component.getName());
-        
-        ComponentDefinition def = new ComponentDefinition(container
-                .generateId(), componentFullName, creator, componentClass);
         for (Property prop : component.getProperty()) {
             if (prop.getValue() != null) {
                 // literalのコンポーネントを登録
                 ComponentDefinition valueComponent = createLiteralComponentDefinition(
-                        container, prop.getValue(), componentClass, prop.getName());
+                        context, container, prop.getValue(), componentClass, prop.getName());
                 definitions.add(valueComponent);
                 ComponentReference ref = new ComponentReference(prop.getName(),
                         null, null, InjectionType.ID, valueComponent.getId());
@@ -535,7 +714,7 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
             } else if (prop.getComponent() != null) {
                 String childPrefix = componentFullName;
                 ComponentDefinition propComponent = createComponentDefinition(
-                        definitions, container, childPrefix, prop.getComponent());
+                        context, definitions, container, childPrefix, prop.getComponent());
                 definitions.add(propComponent);
                 ComponentReference ref = new ComponentReference(prop.getName(),
                         null, propComponent.getType(), InjectionType.ID,
@@ -547,7 +726,7 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
                 def.addReference(ref);
             } else if (prop.getMap() != null) {
                 ComponentDefinition mapComponent = createMapDefinition(
-                        definitions, container, prefix, prop.getMap());
+                        context, definitions, container, prefix, prop.getMap());
                 ComponentReference ref = new ComponentReference(prop.getName(),
                         null, mapComponent.getType(), InjectionType.ID,
                         mapComponent.getId());
@@ -555,7 +734,7 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
                 definitions.add(mapComponent);
             } else if (prop.getList() != null) {
                 ComponentDefinition listComponent = createListDefinition(
-                        definitions, container, prefix, prop.getList());
+                        context, definitions, container, prefix, prop.getList());
                 ComponentReference ref = new ComponentReference(prop.getName(),
                         null, listComponent.getType(), InjectionType.ID,
                         listComponent.getId());
@@ -570,15 +749,60 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
             propertyNames.add(prop.getName());
         }
 
-        for (String propertyName : ObjectUtil.getWritablePropertyNames(componentClass)) {
+        addAutowireReferences(context, def, component.getAutowireType(), propertyNames);
+        return def;
+    }
+
+    /**
+     * プロパティを含まないコンポーネントの定義を作成する。
+     *
+     * @param container DIコンテナ
+     * @param prefix コンポーネント名のプレフィクス
+     * @param className コンポーネントのクラス名
+     * @param name コンポーネント名
+     * @param factoryMethod ファクトリメソッド名
+     * @param lazyInit 遅延初期化する場合 true
+     * @return コンポーネントの定義
+     */
+    ComponentDefinition createComponentDefinition(DiContainer container, String prefix,
+            String className, String name, String factoryMethod, boolean lazyInit) {
+
+        ComponentCreator creator = new BeanComponentCreator(factoryMethod);
+
+        Class<?> componentClass;
+        try {
+            componentClass = Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            throw new ConfigurationLoadException("component class load failed. " 
+                    + "component class name = " + className,
+                    e);
+        }
+        String componentFullName = generateComponentFullname(prefix, name);
+
+        ComponentDefinition def = new ComponentDefinition(container
+                .generateId(), componentFullName, creator, componentClass);
+        def.setLazyInit(lazyInit);
+        return def;
+    }
+
+    /**
+     * 設定が書かれていないプロパティに、オートワイヤの参照を設定する。
+     *
+     * @param context ロードの状態
+     * @param def コンポーネントの定義
+     * @param autowireType オートワイヤのタイプ
+     * @param propertyNames 設定が書かれたプロパティ名
+     */
+    void addAutowireReferences(LoadContext context, ComponentDefinition def,
+            AutowireType autowireType, Set<String> propertyNames) {
+        Class<?> componentClass = def.getType();
+        for (String propertyName : context.getWritablePropertyNames(componentClass)) {
             if (!propertyNames.contains(propertyName)) {
-                Method method = ObjectUtil.getSetterMethod(componentClass, propertyName);
+                Method method = context.getSetterMethod(componentClass, propertyName);
                 // 設定が書かれていないsetterはオートワイヤ対象
-                setAutowireInjection(component, def, method, propertyName);
+                setAutowireInjection(autowireType, def, method, propertyName);
             }
         }
-        
-        return def;
     }
 
     /**
@@ -588,7 +812,7 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
      * @param componentName コンポーネント名
      * @return コンポーネントのフルネーム
      */
-    private String generateComponentFullname(String prefix, String componentName) {
+    String generateComponentFullname(String prefix, String componentName) {
         String componentFullName;
         if (prefix == null || componentName == null) {
             componentFullName = null; 
@@ -602,13 +826,14 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
 
     /**
      * Listの定義からComponentDefinitionを作成する。
+     * @param context ロードの状態
      * @param definitions コンポーネント定義のリスト
      * @param container コンテナ
      * @param prefix プレフィクス
      * @param list  Listの定義
      * @return Mapの定義から作られたComponentDefinition
      */
-    private ComponentDefinition createListDefinition(
+    private ComponentDefinition createListDefinition(LoadContext context,
             List<ComponentDefinition> definitions, DiContainer container,
             String prefix, nablarch.core.repository.di.config.xml.schema.List list) {
 
@@ -619,15 +844,15 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
         for (Object obj : list.getComponentOrValueOrComponentRef()) {
             if (obj instanceof Component) {
                 Component comp = (Component) obj;
-                ComponentDefinition elementDef = createComponentDefinition(definitions, container, childPrefix, comp);
+                ComponentDefinition elementDef = createComponentDefinition(
+                        context, definitions, container, childPrefix, comp);
                 definitions.add(elementDef);
                 elementIds.add(new ListElementDefinition(elementDef.getId(), null));
             } else if (obj instanceof ComponentRef) {
                 ComponentRef ref = (ComponentRef) obj;
                 elementIds.add(new ListElementDefinition(null, ref.getName()));
             } else if (obj instanceof String) {
-                LiteralComponentCreator creator = new LiteralComponentCreator(String.class, (String) obj);
-                ComponentDefinition elementDef = new ComponentDefinition(container.generateId(), null, creator, String.class);
+                ComponentDefinition elementDef = createListValueDefinition(container, (String) obj);
                 definitions.add(elementDef);
                 elementIds.add(new ListElementDefinition(elementDef.getId(), null));
             } else {
@@ -636,22 +861,48 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
             }
         }
 
+        return createListDefinition(container, componentFullName, elementIds);
+    }
+
+    /**
+     * Listの要素の定義からComponentDefinitionを作成する。
+     *
+     * @param container コンテナ
+     * @param componentFullName コンポーネントのフルネーム
+     * @param elementIds Listの要素の定義
+     * @return Listの要素の定義から作られたComponentDefinition
+     */
+    ComponentDefinition createListDefinition(DiContainer container, String componentFullName,
+            List<ListElementDefinition> elementIds) {
         ListComponentCreator creator = new ListComponentCreator(elementIds);
         ComponentDefinition def = new ComponentDefinition(container.generateId(), componentFullName, creator, List.class);
         def.setInjector(creator);
         return def;
     }
 
+    /**
+     * Listの要素に記述された文字列の定義を作成する。
+     *
+     * @param container コンテナ
+     * @param value 文字列
+     * @return 文字列の定義
+     */
+    ComponentDefinition createListValueDefinition(DiContainer container, String value) {
+        LiteralComponentCreator creator = new LiteralComponentCreator(String.class, value);
+        return new ComponentDefinition(container.generateId(), null, creator, String.class);
+    }
+
     /**
      * Mapの定義からComponentDefinitionを作成する。
      * 
+     * @param context ロードの状態
      * @param definitions コンポーネント定義のリスト
      * @param container コンテナ
      * @param prefix プレフィクス
      * @param map Mapの定義
      * @return Mapの定義から作られたComponentDefinition
      */
-    private ComponentDefinition createMapDefinition(List<ComponentDefinition> definitions,
+    private ComponentDefinition createMapDefinition(LoadContext context, List<ComponentDefinition> definitions,
             DiContainer container, String prefix, nablarch.core.repository.di.config.xml.schema.Map map) {
         List<MapEntryDefinition> entries = new ArrayList<MapEntryDefinition>();
 
@@ -667,7 +918,8 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
                 entryDef.setKeyRef(entry.getKeyName());
             } else if (entry.getKeyComponent() != null) {
                 entryDef.setKeyType(DataType.COMPONENT);
-                ComponentDefinition compDef = createComponentDefinition(definitions, container, componentFullName, entry.getKeyComponent());
+                ComponentDefinition compDef = createComponentDefinition(
+                        context, definitions, container, componentFullName, entry.getKeyComponent());
                 definitions.add(compDef);
                 entryDef.setKeyId(compDef.getId());
             } else {
@@ -682,7 +934,8 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
                 entryDef.setValueRef(entry.getValueName());
             } else if (entry.getValueComponent() != null) {
                 entryDef.setValueType(DataType.COMPONENT);
-                ComponentDefinition compDef = createComponentDefinition(definitions, container, componentFullName, entry.getValueComponent());
+                ComponentDefinition compDef = createComponentDefinition(
+                        context, definitions, container, componentFullName, entry.getValueComponent());
                 definitions.add(compDef);
                 entryDef.setValueId(compDef.getId());
             } else {
@@ -690,7 +943,20 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
             }
             entries.add(entryDef);
         }
-        
+
+        return createMapDefinition(container, componentFullName, entries);
+    }
+
+    /**
+     * Mapのエントリの定義からComponentDefinitionを作成する。
+     *
+     * @param container コンテナ
+     * @param componentFullName コンポーネントのフルネーム
+     * @param entries Mapのエントリの定義
+     * @return Mapのエントリの定義から作られたComponentDefinition
+     */
+    ComponentDefinition createMapDefinition(DiContainer container, String componentFullName,
+            List<MapEntryDefinition> entries) {
         MapComponentCreator creator = new MapComponentCreator(entries);
         ComponentDefinition def = new ComponentDefinition(container.generateId(), componentFullName, creator, java.util.Map.class);
         def.setInjector(creator);
@@ -700,12 +966,12 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
     /**
      * オートワイヤの参照を設定する。
      * 
-     * @param component XML上のコンポーネントの定義
+     * @param autowireType オートワイヤのタイプ
      * @param def DIコンテナにわたすコンポーネントの定義
      * @param method セッタメソッド
      * @param propertyName プロパティ名
      */
-    private void setAutowireInjection(Component component,
+    private void setAutowireInjection(AutowireType autowireType,
             ComponentDefinition def, Method method, String propertyName) {
         Class<?>[] paramTypes = method.getParameterTypes();
         if (paramTypes.length != 1) {
@@ -717,12 +983,12 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
             return;
         }
 
-        if (component.getAutowireType() == AutowireType.BY_TYPE) {
+        if (autowireType == AutowireType.BY_TYPE) {
             ComponentReference ref = new ComponentReference(
                     propertyName, null, paramTypes[0],
                     InjectionType.BY_TYPE, -1);
             def.addReference(ref);
-        } else if (component.getAutowireType() == AutowireType.BY_NAME) {
+        } else if (autowireType == AutowireType.BY_NAME) {
             // 名前ベースのオートワイヤ
             ComponentReference ref = new ComponentReference(
                     propertyName, propertyName, null,
@@ -735,15 +1001,16 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
     /**
      * リテラルで記述されたオブジェクトの定義を作成する。
      * 
+     * @param context ロードの状態
      * @param container コンテナ
      * @param literal 値のリテラル表現
      * @param componentClass インジェクト対象のコンポーネントのClass
      * @param propertyName プロパティ名
      * @return リテラルで記述されたオブジェクトの定義
      */
-    private ComponentDefinition createLiteralComponentDefinition(
+    ComponentDefinition createLiteralComponentDefinition(LoadContext context,
             DiContainer container, String literal, Class<?> componentClass, String propertyName) {
-        Class<?> propertyType = ObjectUtil.getPropertyType(
+        Class<?> propertyType = context.getPropertyType(
                 componentClass, propertyName);
         if (propertyType == null) {
             throw new ConfigurationLoadException("property not found in  class. "
@@ -758,6 +1025,139 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
         return def;
     }
 
+    /**
+     * ディレクトリ指定でインポートしたファイルを解析する。
+     * <p/>
+     * スレッド数に2以上を指定した場合は、ファイルごとに並列に解析する。
+     *
+     * @param context ロードの状態
+     * @param files 解析するファイル
+     * @return ファイルと同じ順序の解析結果
+     */
+    private List<ComponentConfiguration> parseAll(LoadContext context, List<File> files) {
+        List<ComponentConfiguration> configurations = new ArrayList<ComponentConfiguration>(files.size());
+        if (parallelism <= 1 || files.size() <= 1) {
+            for (File f : files) {
+                configurations.add(parse(f));
+            }
+            return configurations;
+        }
+
+        if (context.executor == null) {
+            context.executor = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+                /** スレッドの連番 */
+                private final AtomicInteger count = new AtomicInteger();
+
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "XmlComponentDefinitionLoader-parser-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        List<Future<ComponentConfiguration>> futures = new ArrayList<Future<ComponentConfiguration>>(files.size());
+        for (final File f : files) {
+            futures.add(context.executor.submit(new Callable<ComponentConfiguration>() {
+                public ComponentConfiguration call() {
+                    return parse(f);
+                }
+            }));
+        }
+        try {
+            for (Future<ComponentConfiguration> future : futures) {
+                configurations.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConfigurationLoadException("component definition load was interrupted.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            // parseは非検査例外のみ送出するため、通常到達不能コードです。
+            throw new ConfigurationLoadException("component definition load failed.", cause);
+        } finally {
+            for (Future<ComponentConfiguration> future : futures) {
+                future.cancel(false);
+            }
+        }
+        return configurations;
+    }
+
+    /**
+     * ファイルを解析する。
+     *
+     * @param f 解析するファイル
+     * @return 解析結果
+     */
+    private ComponentConfiguration parse(File f) {
+        InputStream in = open(f);
+        try {
+            return parse(in);
+        } finally {
+            FileUtil.closeQuietly(in);
+        }
+    }
+
+    /**
+     * ファイルからコンポーネント定義をロードする。
+     *
+     * @param context ロードの状態
+     * @param container DIコンテナ
+     * @param f 読み込むファイル
+     * @return コンポーネント定義のリスト
+     */
+    private List<ComponentDefinition> loadFile(LoadContext context, DiContainer container, File f) {
+        InputStream in = open(f);
+        try {
+            return loadFile(context, container, in, "file:" + f.getPath());
+        } finally {
+            FileUtil.closeQuietly(in);
+        }
+    }
+
+    /**
+     * ディレクトリ指定で検索したファイルを開く。
+     *
+     * @param f ファイル
+     * @return 入力ストリーム
+     */
+    private static InputStream open(File f) {
+        try {
+            return new FileInputStream(f);
+        } catch (FileNotFoundException e) {
+            // listFiles 実行後なので、通常到達不能コードです。
+            throw new ConfigurationLoadException("configuration load failed.", e);
+        }
+    }
+
+    /**
+     * 設定ファイルを読み込んだことを通知する。
+     * <p/>
+     * 読み込んだ設定ファイルを記録するサブクラスでオーバーライドする。
+     * 
+     * @param url 読み込んだ設定ファイルのURL表現
+     */
+    void resourceLoaded(String url) {
+        // デフォルトでは何もしない
+    }
+
+    /**
+     * ディレクトリ指定で設定ファイルを検索したことを通知する。
+     * <p/>
+     * 読み込んだ設定ファイルを記録するサブクラスでオーバーライドする。
+     * 
+     * @param dir 検索したディレクトリ
+     * @param pattern ファイル名のパターン
+     * @param files 検索結果
+     */
+    void directoryListed(File dir, String pattern, File[] files) {
+        // デフォルトでは何もしない
+    }
+
     /**
      * ワーニングログを出力する。
      * @param message ログメッセージ
@@ -767,4 +1167,92 @@ public class XmlComponentDefinitionLoader implements ComponentDefinitionLoader {
             LOGGER.logWarn(message);
         }
     }
+
+    /**
+     * 1回のロードの状態。
+     * <p/>
+     * ロードの呼び出しごとに作成し、引数で受け渡す。
+     * <p/>
+     * 同じクラスのコンポーネントを多数定義した場合に、
+     * {@link ObjectUtil}によるメソッドの検索を繰り返さないよう、ロード中は検索結果を保持する。
+     * コンポーネント定義の作成は単一のスレッドで行うため、同期化しない。
+     */
+    static final class LoadContext {
+
+        /** import したファイルのスタック。(参照ループが発生しないようにするため。) */
+        private final Deque<URL> importStack = new ArrayDeque<URL>();
+
+        /** 読み込み中に記録した環境設定ファイルの読み込み元 */
+        private final List<ConfigFileSource> configFileSources = new ArrayList<ConfigFileSource>();
+
+        /** ディレクトリ指定でインポートしたファイルを解析するスレッドプール(並列に解析していない場合はnull) */
+        private ExecutorService executor;
+
+        /** クラスごとの書き込み可能なプロパティ名 */
+        private final Map<Class<?>, List<String>> writablePropertyNames = new HashMap<Class<?>, List<String>>();
+
+        /** クラスごとの、プロパティ名をキーにしたセッタメソッド */
+        private final Map<Class<?>, Map<String, Method>> setterMethods = new HashMap<Class<?>, Map<String, Method>>();
+
+        /** クラスごとの、プロパティ名をキーにしたプロパティの型(プロパティが存在しない場合はnull) */
+        private final Map<Class<?>, Map<String, Class<?>>> propertyTypes = new HashMap<Class<?>, Map<String, Class<?>>>();
+
+        /**
+         * 書き込み可能なプロパティ名を取得する。
+         *
+         * @param type クラス
+         * @return 書き込み可能なプロパティ名
+         * @see ObjectUtil#getWritablePropertyNames(Class)
+         */
+        List<String> getWritablePropertyNames(Class<?> type) {
+            List<String> names = writablePropertyNames.get(type);
+            if (names == null) {
+                names = ObjectUtil.getWritablePropertyNames(type);
+                writablePropertyNames.put(type, names);
+            }
+            return names;
+        }
+
+        /**
+         * セッタメソッドを取得する。
+         *
+         * @param type クラス
+         * @param propertyName プロパティ名
+         * @return セッタメソッド
+         * @see ObjectUtil#getSetterMethod(Class, String)
+         */
+        Method getSetterMethod(Class<?> type, String propertyName) {
+            Map<String, Method> methods = setterMethods.get(type);
+            if (methods == null) {
+                methods = new HashMap<String, Method>();
+                setterMethods.put(type, methods);
+            }
+            Method method = methods.get(propertyName);
+            if (method == null) {
+                method = ObjectUtil.getSetterMethod(type, propertyName);
+                methods.put(propertyName, method);
+            }
+            return method;
+        }
+
+        /**
+         * プロパティの型を取得する。
+         *
+         * @param type クラス
+         * @param propertyName プロパティ名
+         * @return プロパティの型(プロパティが存在しない場合はnull)
+         * @see ObjectUtil#getPropertyType(Class, String)
+         */
+        Class<?> getPropertyType(Class<?> type, String propertyName) {
+            Map<String, Class<?>> types = propertyTypes.get(type);
+            if (types == null) {
+                types = new HashMap<String, Class<?>>();
+                propertyTypes.put(type, types);
+            }
+            if (!types.containsKey(propertyName)) {
+                types.put(propertyName, ObjectUtil.getPropertyType(type, propertyName));
+            }
+            return types.get(propertyName);
+        }
+    }
 }
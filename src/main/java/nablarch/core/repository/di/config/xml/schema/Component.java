@@ -29,6 +29,8 @@ import java.util.List;
  *       &lt;attribute name="name" type="{http://www.w3.org/2001/XMLSchema}string" />
  *       &lt;attribute name="class" use="required" type="{http://www.w3.org/2001/XMLSchema}string" />
  *       &lt;attribute name="autowireType" type="{http://tis.co.jp/nablarch/component-configuration}AutowireType" default="ByType" />
+ *       &lt;attribute name="lazy-init" type="{http://www.w3.org/2001/XMLSchema}boolean" default="false" />
+ *       &lt;attribute name="factory-method" type="{http://www.w3.org/2001/XMLSchema}string" />
  *     &lt;/restriction>
  *   &lt;/complexContent>
  * &lt;/complexType>
@@ -42,6 +44,8 @@ public class Component {
     protected String name;
     protected String clazz;
     protected AutowireType autowireType;
+    protected Boolean lazyInit;
+    protected String factoryMethod;
 
     /**
      * Gets the value of the property property.
@@ -148,4 +152,56 @@ public class Component {
         this.autowireType = value;
     }
 
+    /**
+     * Gets the value of the lazyInit property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Boolean }
+     *     
+     */
+    public boolean isLazyInit() {
+        if (lazyInit == null) {
+            return false;
+        } else {
+            return lazyInit;
+        }
+    }
+
+    /**
+     * Sets the value of the lazyInit property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Boolean }
+     *     
+     */
+    public void setLazyInit(Boolean value) {
+        this.lazyInit = value;
+    }
+
+    /**
+     * Gets the value of the factoryMethod property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getFactoryMethod() {
+        return factoryMethod;
+    }
+
+    /**
+     * Sets the value of the factoryMethod property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setFactoryMethod(String value) {
+        this.factoryMethod = value;
+    }
+
 }
@@ -1,13 +1,15 @@
 package nablarch.core.repository.initialization;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 /**
  * {@link Initializable}を実装したコンポーネントを指定した順序で初期化するクラス。<br>
  *
  * @author Hisaaki Sioiri
  */
-public class BasicApplicationInitializer implements ApplicationInitializer {
+public class BasicApplicationInitializer implements SelectiveApplicationInitializer {
 
     /** 初期化対象オブジェクトリスト */
     private List<Object> initializeList;
@@ -22,6 +24,18 @@ public class BasicApplicationInitializer implements ApplicationInitializer {
      * <b>本メソッドは、同期化を行わない。</b>
      */
     public void initialize() {
+        initialize(Collections.emptySet());
+    }
+
+    /**
+     * 初期化済みのオブジェクトを除いて、初期化処理を行う。<br>
+     * <br>
+     * 初期化済みのオブジェクト以外は、{@link #initialize()}と同じ順序で初期化する。<br>
+     * <b>本メソッドは、同期化を行わない。</b>
+     *
+     * @param initialized 初期化済みのオブジェクト
+     */
+    public void initialize(Set<?> initialized) {
         if (initializeList == null) {
             return;
         }
@@ -31,6 +45,9 @@ public class BasicApplicationInitializer implements ApplicationInitializer {
                         "not initializable class." 
                         + " class name = " + initializeObject.getClass().getName());
             }
+            if (initialized.contains(initializeObject)) {
+                continue;
+            }
             // 初期化処理を実行
             ((Initializable) initializeObject).initialize();
         }
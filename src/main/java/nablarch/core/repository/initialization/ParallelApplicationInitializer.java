@@ -0,0 +1,511 @@
+package nablarch.core.repository.initialization;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+
+/**
+ * {@link Initializable}を実装したコンポーネントを、宣言した依存関係に従って並列に初期化するクラス。<br>
+ * <br>
+ * 依存関係は、初期化対象のオブジェクトをキー、先に初期化が完了している必要があるオブジェクト
+ * (またはそのList)を値とするMapで設定する。
+ * 依存関係を設定しないオブジェクトは、互いに並行して初期化する。
+ * <pre>
+ * {@code
+ * <component name="initializer"
+ *     class="nablarch.core.repository.initialization.ParallelApplicationInitializer">
+ *   <property name="initializeList">
+ *     <list>
+ *       <component-ref name="connectionPool" />
+ *       <component-ref name="codeCache" />
+ *       <component-ref name="messageCache" />
+ *     </list>
+ *   </property>
+ *   <property name="dependencies">
+ *     <map>
+ *       <entry key-name="codeCache" value-name="connectionPool" />
+ *       <entry key-name="messageCache" value-name="connectionPool" />
+ *     </map>
+ *   </property>
+ *   <property name="threadCount" value="4" />
+ *   <property name="timeoutSeconds" value="60" />
+ * </component>
+ * }
+ * </pre>
+ * DIコンテナの参照関係からは依存関係を推測しない。
+ * 初期化処理が他のコンポーネントの初期化完了を前提とする場合は、依存関係を明示すること。
+ *
+ * @see BasicApplicationInitializer
+ */
+public class ParallelApplicationInitializer implements SelectiveApplicationInitializer {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(ParallelApplicationInitializer.class);
+
+    /** 初期化対象オブジェクトリスト */
+    private List<Object> initializeList;
+
+    /** 初期化対象オブジェクトと、先に初期化するオブジェクト(またはそのList) */
+    private Map<Object, Object> dependencies;
+
+    /** 初期化を行うスレッド数 */
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+
+    /** 1つのオブジェクトの初期化に許容する秒数(0以下の場合は無制限) */
+    private long timeoutSeconds = 0;
+
+    /**
+     * 初期化処理を行う。<br>
+     * <br>
+     * 依存関係に従い、先に初期化するオブジェクトの初期化が全て完了したオブジェクトから順に並列で初期化する。<br>
+     * 初期化処理で例外が発生した場合、または初期化処理が許容時間内に完了しなかった場合には、
+     * 以降の初期化は行わず、実行中の初期化処理に割り込みを行った上で呼び出し元に例外を送出する。
+     * 複数の初期化処理で例外が発生した場合、全ての例外の内容を含む例外を送出する。<br>
+     * 初期化対象オブジェクトと設定されているクラスが、Initializableインタフェースを実装していない場合や、
+     * 依存関係が循環している場合には、初期化を行わずに例外を送出する。<br>
+     * <b>本メソッドは、同期化を行わない。</b>
+     */
+    public void initialize() {
+        initialize(Collections.emptySet());
+    }
+
+    /**
+     * 初期化済みのオブジェクトを除いて、初期化処理を行う。<br>
+     * <br>
+     * 初期化済みのオブジェクトは初期化が完了しているものとして扱い、依存関係は{@link #initialize()}と同じく判定する。<br>
+     * <b>本メソッドは、同期化を行わない。</b>
+     *
+     * @param initialized 初期化済みのオブジェクト
+     */
+    public void initialize(Set<?> initialized) {
+        if (initializeList == null || initializeList.isEmpty()) {
+            return;
+        }
+        List<Task> tasks = createTasks(initialized);
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(threadCount, tasks.size())), new InitializerThreadFactory());
+        try {
+            run(tasks, new ExecutorCompletionService<Task>(executor));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 初期化対象オブジェクトと依存関係から、初期化タスクを作成する。
+     *
+     * @param initialized 初期化済みのオブジェクト
+     * @return 初期化タスクのリスト
+     */
+    private List<Task> createTasks(Set<?> initialized) {
+        Map<Object, Task> taskMap = new IdentityHashMap<Object, Task>();
+        List<Task> tasks = new ArrayList<Task>(initializeList.size());
+        for (Object initializeObject : initializeList) {
+            if (!(initializeObject instanceof Initializable)) {
+                throw new RuntimeException(
+                        "not initializable class."
+                        + " class name = " + initializeObject.getClass().getName());
+            }
+            if (!taskMap.containsKey(initializeObject)) {
+                Task task = new Task((Initializable) initializeObject, initialized.contains(initializeObject));
+                taskMap.put(initializeObject, task);
+                tasks.add(task);
+            }
+        }
+
+        if (dependencies != null) {
+            for (Map.Entry<Object, Object> entry : dependencies.entrySet()) {
+                Task task = findTask(taskMap, entry.getKey());
+                List<?> prerequisites = entry.getValue() instanceof List
+                        ? (List<?>) entry.getValue()
+                        : Collections.singletonList(entry.getValue());
+                for (Object prerequisite : prerequisites) {
+                    Task prerequisiteTask = findTask(taskMap, prerequisite);
+                    if (!prerequisiteTask.dependents.contains(task)) {
+                        prerequisiteTask.dependents.add(task);
+                        task.pending++;
+                    }
+                }
+            }
+        }
+        checkCircularDependency(tasks);
+        return tasks;
+    }
+
+    /**
+     * 初期化対象オブジェクトの初期化タスクを取得する。
+     *
+     * @param taskMap 初期化対象オブジェクトと初期化タスク
+     * @param object 初期化対象オブジェクト
+     * @return 初期化タスク
+     */
+    private static Task findTask(Map<Object, Task> taskMap, Object object) {
+        Task task = taskMap.get(object);
+        if (task == null) {
+            throw new RuntimeException(
+                    "dependency object was not found in initializeList."
+                    + " class name = " + (object == null ? "null" : object.getClass().getName()));
+        }
+        return task;
+    }
+
+    /**
+     * 依存関係が循環していないことを確認する。
+     *
+     * @param tasks 初期化タスクのリスト
+     */
+    private static void checkCircularDependency(List<Task> tasks) {
+        Map<Task, Integer> pending = new IdentityHashMap<Task, Integer>();
+        List<Task> ready = new ArrayList<Task>();
+        for (Task task : tasks) {
+            pending.put(task, task.pending);
+            if (task.pending == 0) {
+                ready.add(task);
+            }
+        }
+        int resolved = 0;
+        while (!ready.isEmpty()) {
+            Task task = ready.remove(ready.size() - 1);
+            resolved++;
+            for (Task dependent : task.dependents) {
+                int count = pending.get(dependent) - 1;
+                pending.put(dependent, count);
+                if (count == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (resolved != tasks.size()) {
+            List<String> names = new ArrayList<String>();
+            for (Task task : tasks) {
+                if (pending.get(task) > 0) {
+                    names.add(task.target.getClass().getName());
+                }
+            }
+            throw new RuntimeException(
+                    "circular dependency was found."
+                    + " class names = " + names);
+        }
+    }
+
+    /**
+     * 初期化タスクを依存関係に従って実行する。
+     *
+     * @param tasks 初期化タスクのリスト
+     * @param completionService 初期化タスクを実行するサービス
+     */
+    private void run(List<Task> tasks, CompletionService<Task> completionService) {
+        List<Task> running = new ArrayList<Task>();
+        for (Task task : tasks) {
+            if (task.pending == 0) {
+                submit(completionService, task, running);
+            }
+        }
+
+        int completed = 0;
+        while (completed < tasks.size()) {
+            Future<Task> future;
+            try {
+                future = poll(completionService, running);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("initialization was interrupted.", e);
+            }
+            if (future == null) {
+                throw new RuntimeException(
+                        "initialization timed out."
+                        + " timeout seconds = " + timeoutSeconds
+                        + ", class names = " + getClassNames(findTimedOut(running)));
+            }
+
+            Task task = getResult(future, completionService, running);
+            running.remove(task);
+            completed++;
+            for (Task dependent : task.dependents) {
+                if (--dependent.pending == 0) {
+                    submit(completionService, dependent, running);
+                }
+            }
+        }
+    }
+
+    /**
+     * 初期化タスクを投入する。
+     *
+     * @param completionService 初期化タスクを実行するサービス
+     * @param task 初期化タスク
+     * @param running 実行中の初期化タスク
+     */
+    private static void submit(CompletionService<Task> completionService, Task task, List<Task> running) {
+        running.add(task);
+        task.future = completionService.submit(task);
+    }
+
+    /**
+     * 初期化タスクの完了を待つ。
+     * <p/>
+     * 許容時間が設定されている場合は、実行中の初期化タスクのうち最も早く許容時間を迎えるものの期限まで待つ。
+     * 実行待ちの初期化タスクは、実行が開始されるまで許容時間の計測を開始しない。
+     *
+     * @param completionService 初期化タスクを実行するサービス
+     * @param running 実行中の初期化タスク
+     * @return 完了した初期化タスク(許容時間を超えた場合はnull)
+     * @throws InterruptedException 待機中に割り込みが発生した場合
+     */
+    private Future<Task> poll(CompletionService<Task> completionService, List<Task> running)
+            throws InterruptedException {
+        if (timeoutSeconds <= 0) {
+            return completionService.take();
+        }
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        while (true) {
+            long now = System.nanoTime();
+            long wait = timeoutNanos;
+            for (Task task : running) {
+                if (task.started) {
+                    wait = Math.min(wait, task.startTime + timeoutNanos - now);
+                }
+            }
+            if (wait <= 0) {
+                // 期限を迎えた時点で完了しているものは完了として扱う
+                return completionService.poll();
+            }
+            Future<Task> future = completionService.poll(wait, TimeUnit.NANOSECONDS);
+            if (future != null) {
+                return future;
+            }
+        }
+    }
+
+    /**
+     * 許容時間を超えて実行中の初期化タスクを取得する。
+     *
+     * @param running 実行中の初期化タスク
+     * @return 許容時間を超えた初期化タスク
+     */
+    private List<Task> findTimedOut(List<Task> running) {
+        List<Task> result = new ArrayList<Task>();
+        long now = System.nanoTime();
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        for (Task task : running) {
+            if (task.started && now - task.startTime >= timeoutNanos) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 完了した初期化タスクの結果を取得する。
+     * <p/>
+     * 初期化処理で例外が発生していた場合、同時に実行中の初期化処理に割り込みを行い、
+     * その時点で完了している他の初期化処理の例外とあわせて送出する。
+     *
+     * @param future 完了した初期化タスク
+     * @param completionService 初期化タスクを実行するサービス
+     * @param running 実行中の初期化タスク
+     * @return 初期化タスク
+     */
+    private static Task getResult(Future<Task> future, CompletionService<Task> completionService,
+            List<Task> running) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("initialization was interrupted.", e);
+        } catch (ExecutionException e) {
+            for (Task task : running) {
+                task.future.cancel(true);
+            }
+            List<Throwable> errors = new ArrayList<Throwable>();
+            errors.add(e.getCause());
+            Future<Task> other;
+            while ((other = completionService.poll()) != null) {
+                if (other.isCancelled()) {
+                    // 割り込みにより取り消された初期化処理は集約しない。
+                    continue;
+                }
+                try {
+                    other.get();
+                } catch (ExecutionException otherException) {
+                    errors.add(otherException.getCause());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            throw aggregate(errors);
+        }
+    }
+
+    /**
+     * 初期化処理で発生した例外を集約する。
+     * <p/>
+     * 例外が1つの場合は、その例外をそのまま送出する。
+     *
+     * @param errors 発生した例外
+     * @return 送出する例外
+     */
+    private static RuntimeException aggregate(List<Throwable> errors) {
+        Throwable first = errors.get(0);
+        if (errors.size() == 1) {
+            if (first instanceof RuntimeException) {
+                return (RuntimeException) first;
+            } else if (first instanceof Error) {
+                throw (Error) first;
+            }
+        }
+        StringBuilder message = new StringBuilder("initialization failed. error count = ").append(errors.size());
+        for (Throwable error : errors) {
+            message.append("\n\t").append(error);
+        }
+        return new RuntimeException(message.toString(), first);
+    }
+
+    /**
+     * 初期化タスクの初期化対象のクラス名を取得する。
+     *
+     * @param tasks 初期化タスク
+     * @return クラス名のリスト
+     */
+    private static List<String> getClassNames(List<Task> tasks) {
+        List<String> names = new ArrayList<String>();
+        for (Task task : tasks) {
+            names.add(task.target.getClass().getName());
+        }
+        return names;
+    }
+
+    /**
+     * 初期化対象オブジェクトリストを設定する。
+     *
+     * @param initializeList 初期化対象のオブジェクトが設定されたList
+     */
+    public void setInitializeList(List<Object> initializeList) {
+        this.initializeList = initializeList;
+    }
+
+    /**
+     * 初期化の依存関係を設定する。<br>
+     * キーに初期化対象のオブジェクト、値に先に初期化が完了している必要があるオブジェクト(またはそのList)を設定する。
+     * いずれのオブジェクトも、初期化対象オブジェクトリストに含まれている必要がある。
+     *
+     * @param dependencies 初期化の依存関係
+     */
+    public void setDependencies(Map<Object, Object> dependencies) {
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * 初期化を行うスレッド数を設定する。<br>
+     * デフォルトは、実行環境のプロセッサ数。
+     *
+     * @param threadCount 初期化を行うスレッド数
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * 1つのオブジェクトの初期化に許容する秒数を設定する。<br>
+     * 0以下の場合(デフォルト)、許容時間を設けない。
+     *
+     * @param timeoutSeconds 許容する秒数
+     */
+    public void setTimeoutSeconds(long timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * 1つのオブジェクトの初期化を行うタスク。
+     * <p/>
+     * 依存関係の管理は初期化を呼び出したスレッドのみで行う。
+     */
+    private static final class Task implements Callable<Task> {
+
+        /** 初期化対象オブジェクト */
+        private final Initializable target;
+
+        /** 初期化済みか否か */
+        private final boolean initialized;
+
+        /** このタスクの完了を待つタスク */
+        private final List<Task> dependents = new ArrayList<Task>();
+
+        /** 完了していない先行タスクの数 */
+        private int pending;
+
+        /** 実行を開始した時刻 */
+        private volatile long startTime;
+
+        /** 実行を開始したか否か */
+        private volatile boolean started;
+
+        /** 実行結果 */
+        private Future<Task> future;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param target 初期化対象オブジェクト
+         * @param initialized 初期化済みの場合 true
+         */
+        Task(Initializable target, boolean initialized) {
+            this.target = target;
+            this.initialized = initialized;
+        }
+
+        /**
+         * 初期化を行う。
+         *
+         * @return このタスク
+         */
+        public Task call() {
+            long start = System.nanoTime();
+            startTime = start;
+            started = true;
+            if (initialized) {
+                return this;
+            }
+            target.initialize();
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.logDebug("initialized. class name = " + target.getClass().getName()
+                        + ", elapsed time = " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+            }
+            return this;
+        }
+    }
+
+    /**
+     * 初期化を行うスレッドを作成するファクトリ。
+     */
+    private static final class InitializerThreadFactory implements ThreadFactory {
+
+        /** スレッドの連番 */
+        private final AtomicInteger count = new AtomicInteger();
+
+        /** {@inheritDoc} */
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "ParallelApplicationInitializer-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package nablarch.core.repository.initialization;
+
+import java.util.Set;
+
+/**
+ * 初期化済みのオブジェクトを除いて、コンポーネントの初期化を行うインタフェース。
+ * <p/>
+ * DIコンテナの差分再読み込みでinitializerを再生成した場合、
+ * 再読み込み前から引き継いだコンポーネントは初期化済みのオブジェクトとして渡される。
+ * 本インタフェースを実装しないinitializerは、引き継いだコンポーネントも含めて初期化する。
+ *
+ * @see nablarch.core.repository.di.DiContainer#reloadIncrementally()
+ */
+public interface SelectiveApplicationInitializer extends ApplicationInitializer {
+
+    /**
+     * 初期化済みのオブジェクトを除いて、初期化処理を行う。
+     * <p/>
+     * 初期化済みのオブジェクトは、同一のインスタンスか否かで判定する。
+     *
+     * @param initialized 初期化済みのオブジェクト
+     */
+    void initialize(Set<?> initialized);
+}
@@ -0,0 +1,140 @@
+package nablarch.core.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * {@link CompactStringMap}のテスト。
+ */
+public class CompactStringMapTest {
+
+    /**
+     * 元のMapと同じキーと値を取得できること。
+     */
+    @Test
+    public void testGet() {
+        Map<String, Object> expected = new HashMap<String, Object>();
+        expected.put("key1", "value1");
+        expected.put("key2", "");
+        expected.put("", "empty key");
+        expected.put("キー", "あいうえお");
+        expected.put("clé", "deux octets");
+        expected.put("same1", "same value");
+        expected.put("same2", "same value");
+
+        Map<String, Object> map = new CompactStringMap(expected);
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertEquals(7, map.size());
+        for (Map.Entry<String, Object> entry : expected.entrySet()) {
+            assertTrue(map.containsKey(entry.getKey()));
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        assertEquals("same value", map.get("same2"));
+
+        assertNull(map.get("key3"));
+        assertNull(map.get(null));
+        assertNull(map.get(1));
+        assertFalse(map.containsKey("key3"));
+        assertFalse(map.containsKey("key"));
+        assertFalse(map.containsKey("key10"));
+        assertFalse(map.containsKey("cle"));
+        assertFalse(map.containsKey(null));
+
+        Map<String, Object> empty = new CompactStringMap(new HashMap<String, Object>());
+        assertTrue(empty.isEmpty());
+        assertNull(empty.get("key1"));
+        assertFalse(empty.entrySet().iterator().hasNext());
+    }
+
+    /**
+     * サロゲートを含む文字列と文字列以外の値も、元のMapと同じ値を取得できること。
+     */
+    @Test
+    public void testUnpackable() {
+        Map<String, Object> expected = new LinkedHashMap<String, Object>();
+        expected.put("key1", "value1");
+        expected.put("𠮷", "pair");
+        expected.put("broken\uD842", "broken key");
+        expected.put("broken value", "\uDFB7");
+        expected.put("number", 1);
+
+        Map<String, Object> map = new CompactStringMap(expected);
+        assertEquals(expected, map);
+        assertEquals(5, map.size());
+        assertEquals("broken key", map.get("broken\uD842"));
+        assertEquals("\uDFB7", map.get("broken value"));
+        assertEquals(1, map.get("number"));
+        assertTrue(map.containsKey("𠮷"));
+    }
+
+    /**
+     * ハッシュ値が衝突するキーを含む大量のキーで、元のMapと同じ値を取得できること。
+     */
+    @Test
+    public void testManyKeys() {
+        Map<String, Object> expected = new HashMap<String, Object>();
+        // "Aa"と"BB"は同じハッシュ値
+        expected.put("Aa", "1");
+        expected.put("BB", "2");
+        expected.put("AaAa", "3");
+        expected.put("BBBB", "4");
+        expected.put("AaBB", "5");
+        Random random = new Random(1);
+        List<String> keys = new ArrayList<String>();
+        for (int i = 0; i < 10000; i++) {
+            String key = "key." + random.nextInt();
+            keys.add(key);
+            expected.put(key, "value." + random.nextInt(100));
+        }
+
+        Map<String, Object> map = new CompactStringMap(expected);
+        assertEquals(expected, map);
+        for (String key : keys) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        assertEquals("2", map.get("BB"));
+        assertFalse(map.containsKey("AaBBx"));
+    }
+
+    /**
+     * 変更できないこと。
+     */
+    @Test
+    public void testUnmodifiable() {
+        Map<String, Object> values = new HashMap<String, Object>();
+        values.put("key1", "value1");
+        Map<String, Object> map = new CompactStringMap(values);
+        try {
+            map.put("key2", "value2");
+            fail("例外が発生するはず");
+        } catch (UnsupportedOperationException e) {
+            // OK
+        }
+        try {
+            map.remove("key1");
+            fail("例外が発生するはず");
+        } catch (UnsupportedOperationException e) {
+            // OK
+        }
+        try {
+            map.entrySet().iterator().next().setValue("value2");
+            fail("例外が発生するはず");
+        } catch (UnsupportedOperationException e) {
+            // OK
+        }
+        assertEquals("value1", map.get("key1"));
+    }
+}
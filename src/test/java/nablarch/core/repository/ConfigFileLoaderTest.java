@@ -2,12 +2,16 @@ package nablarch.core.repository;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.UnsupportedEncodingException;
 import java.util.Map;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -261,7 +265,82 @@ public class ConfigFileLoaderTest {
     
         assertEquals("あいうえお", valueMap.get("key"));
     }
-    
-    
-    
+
+    /**
+     * 一括で解析した場合も、1行ずつ読み込んだ場合と同じ結果となること。
+     */
+    @Test
+    public void testBulkParse() throws Exception {
+        String[] contents = {
+                "",
+                "key1=value1",
+                "key1=value1\n",
+                "#コメント\r\n\tkey1\\=value1\\\r\nkey2 = value2 # comment\rkey3=value3 \\\n   continued",
+                "key1 = value1,\\    # comment\n  value2",
+                "key1 = value1,\\\n# comment\n  value2\nkey2 = a\\\\\nkey3 = b\\\\\\\nc",
+                "key1=value1=value2\n=nokey\nnovalue=\n \\  =escaped space\nkey\\#1=\\#\\=\\\\",
+                "key1=value1\nkey1=value2\nkey2=あいうえお\\\n",
+                "\ufeffkey1=bom\n\u0001key2=control\u0001",
+                "key1=value1 \\",
+        };
+        for (String content : contents) {
+            assertSameAsLineParse(content);
+        }
+
+        // 区切り文字を多く含む文字列で確認する。
+        Random random = new Random(1);
+        char[] candidates = {'a', 'b', ' ', '\t', '=', '#', '\\', '\r', '\n'};
+        for (int n = 0; n < 500; n++) {
+            StringBuilder content = new StringBuilder();
+            int length = random.nextInt(80);
+            for (int i = 0; i < length; i++) {
+                content.append(candidates[random.nextInt(candidates.length)]);
+            }
+            assertSameAsLineParse(content.toString());
+        }
+
+        ConfigFileLoader loader = new ConfigFileLoader(new ByteArrayInputStream(new byte[0]), "unkown encoding");
+        loader.setBulkParse(true);
+        try {
+            loader.load();
+            fail("例外が発生するはず");
+        } catch (RuntimeException re) {
+            assertTrue(re.getCause() instanceof UnsupportedEncodingException);
+        }
+    }
+
+    /**
+     * 読み取り専用のMapで返却した結果が、{@link java.util.HashMap}で返却した結果と同じこと。
+     */
+    @Test
+    public void testCompactValues() throws Exception {
+        byte[] bytes = "key1=value1\nkey1=value2\nkey2=あいうえお\nkey3=value2\n#comment".getBytes("UTF-8");
+        Map<String, Object> expected = new ConfigFileLoader(new ByteArrayInputStream(bytes)).load();
+        for (boolean bulkParse : new boolean[] {false, true}) {
+            ConfigFileLoader loader = new ConfigFileLoader(new ByteArrayInputStream(bytes));
+            loader.setBulkParse(bulkParse);
+            loader.setCompactValues(true);
+            assertTrue(loader.isCompactValues());
+            Map<String, Object> values = loader.load();
+            assertTrue(values instanceof CompactStringMap);
+            assertEquals(expected, values);
+            assertEquals("value2", values.get("key1"));
+            assertEquals("あいうえお", values.get("key2"));
+            assertEquals("value2", values.get("key3"));
+        }
+        assertFalse(new ConfigFileLoader("dummy").isCompactValues());
+    }
+
+    /**
+     * 一括で解析した結果が、1行ずつ読み込んだ結果と同じことを確認する。
+     * 
+     * @param content 設定ファイルの内容
+     */
+    private static void assertSameAsLineParse(String content) throws Exception {
+        byte[] bytes = content.getBytes("UTF-8");
+        Map<String, Object> expected = new ConfigFileLoader(new ByteArrayInputStream(bytes)).load();
+        ConfigFileLoader loader = new ConfigFileLoader(new ByteArrayInputStream(bytes), "UTF-8");
+        loader.setBulkParse(true);
+        assertEquals(content, expected, loader.load());
+    }
 }
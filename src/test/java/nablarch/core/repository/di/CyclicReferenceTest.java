@@ -101,6 +101,45 @@ public class CyclicReferenceTest {
         }
     }
 
+    /**
+     * 深い階層を経て循環参照が発生した場合、例外が発生すること。
+     * 例外には、参照を解決する際の全てのスタックが含まれること。
+     */
+    @Test
+    public void testDeepReferenceCyclical() {
+        try {
+            load("deepReferenceCyclic.xml");
+            fail();
+        } catch (ContainerProcessException e) {
+            StringBuilder expected = new StringBuilder();
+            for (int i = 2; i <= 21; i++) {
+                int n = (i - 1) % 20 + 1;
+                expected.append("\tid=[").append(n - 1).append("] name=[component").append(n)
+                        .append("] component type=[nablarch.core.repository.di.test.CyclicReferenceChainComponent] \n");
+            }
+            assertThat(e.getMessage(), IgnoringLS.contains(expected.toString()));
+        }
+    }
+
+    /**
+     * 並列数を指定した場合でも、コンポーネントの参照が循環した場合、逐次生成した場合と同じ例外が発生すること。
+     */
+    @Test
+    public void testReferenceCyclicalInParallel() {
+        DiContainerOptions options = new DiContainerOptions();
+        options.setParallelism(4);
+        try {
+            new DiContainer(new XmlComponentDefinitionLoader(PREFIX + "referenceCyclic.xml"), options);
+            fail();
+        } catch (ContainerProcessException e) {
+            String expected = Builder.lines(
+                    "\tid=[1] name=[component2] component type=[nablarch.core.repository.di.test.CyclicReferenceComponent2] ",
+                    "\tid=[2] name=[component3] component type=[nablarch.core.repository.di.test.CyclicReferenceComponent3] ",
+                    "\tid=[0] name=[component1] component type=[nablarch.core.repository.di.test.CyclicReferenceComponent1] ");
+            assertThat(e.getMessage(), IgnoringLS.contains(expected));
+        }
+    }
+
     private static final String PREFIX = "nablarch/core/repository/di/";
 
     private DiContainer load(String file) {
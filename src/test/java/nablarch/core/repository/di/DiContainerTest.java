@@ -3,34 +3,55 @@ package nablarch.core.repository.di;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.junit.matchers.JUnitMatchers.containsString;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URI;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import nablarch.core.repository.ObjectLoader;
+import nablarch.core.repository.di.config.BeanComponentCreator;
 import nablarch.core.repository.di.config.DuplicateDefinitionPolicy;
 import nablarch.core.repository.di.config.xml.XmlComponentDefinitionLoader;
 import nablarch.core.repository.di.test.Component1;
 import nablarch.core.repository.di.test.Component2;
+import nablarch.core.repository.di.test.Component2ComponentFactory;
 import nablarch.core.repository.di.test.Component3;
 import nablarch.core.repository.di.test.Component4;
 import nablarch.core.repository.di.test.Component6;
 import nablarch.core.repository.di.test.Component8;
+import nablarch.core.repository.di.test.FactoryMethodComponent;
+import nablarch.core.repository.di.test.Interface1;
+import nablarch.core.repository.di.test.LazyComponent;
 import nablarch.core.repository.di.test.NestedComponent;
+import nablarch.core.repository.di.test.OverloadedSetterComponent;
+import nablarch.core.repository.initialization.Initializable;
 import nablarch.core.repository.test.SystemPropertyResource;
 import nablarch.test.support.tool.Hereis;
 
@@ -85,6 +106,54 @@ public class DiContainerTest {
         assertEquals("val9", container.getComponentByName("key1"));
     }
 
+    /**
+     * ObjectLoader のロードのみを並列に行った場合も、逐次にロードした場合と同じ順序で登録されることを確認する。
+     */
+    @Test
+    public void testObjectLoaderConcurrent() {
+        final List<String> threadNames = Collections.synchronizedList(new ArrayList<String>());
+        ComponentDefinitionLoader cdl = new ComponentDefinitionLoader() {
+            public List<ComponentDefinition> load(DiContainer container) {
+                List<ComponentDefinition> defs = new ArrayList<ComponentDefinition>();
+                for (int i = 0; i < 10; i++) {
+                    final Map<String, Object> values = new LinkedHashMap<String, Object>();
+                    values.put("key1", "val" + i);
+                    values.put("key" + (i + 2), "val" + i);
+                    ObjectLoader loader = new ObjectLoader() {
+                        public Map<String, Object> load() {
+                            threadNames.add(Thread.currentThread().getName());
+                            return values;
+                        }
+                    };
+                    defs.add(new ComponentDefinition(container.generateId(), "child" + i,
+                            new StoredValueComponentCreator(loader), loader.getClass()));
+                }
+                return defs;
+            }
+        };
+        DiContainer sequential = new DiContainer(cdl);
+        assertEquals(10, threadNames.size());
+        threadNames.clear();
+
+        DiContainerOptions options = new DiContainerOptions();
+        options.setObjectLoaderParallelism(4);
+        DiContainer container = new DiContainer(cdl, options);
+        assertEquals(10, threadNames.size());
+        for (String threadName : threadNames) {
+            assertTrue(threadName, threadName.startsWith("DiContainer-loader-"));
+        }
+
+        assertEquals("val9", container.getComponentByName("key1"));
+        for (int i = 0; i < 10; i++) {
+            String name = "key" + (i + 2);
+            assertEquals(sequential.load().get(name), container.getComponentByName(name));
+        }
+        // コンポーネントIDも逐次にロードした場合と同じ
+        for (int id = 10; id < 30; id++) {
+            assertEquals(sequential.getComponentById(id), container.getComponentById(id));
+        }
+    }
+
     private ObjectLoader createSimpleLoader(final String key, final Object value) {
         return new ObjectLoader() {
             
@@ -1358,6 +1427,63 @@ public class DiContainerTest {
         assertEquals("str02", comp2.getProp1());
     }
 
+    /**
+     * ディレクトリ指定のインポートと環境設定ファイルを並列に読み込んだ場合も、
+     * 逐次に読み込んだ場合と同じコンポーネントIDと順序でコンポーネント定義が作成されること。
+     * 解析に失敗したファイルがある場合は、例外が送出されること。
+     */
+    @Test
+    public void testLoadDirInParallel() throws Throwable {
+        File importDir = temp.newFolder("parallel-imports");
+        File configDir = temp.newFolder("parallel-configs");
+        for (int i = 0; i < 8; i++) {
+            writeFile(new File(importDir, "comp" + i + ".xml"),
+                    "<component-configuration xmlns=\"http://tis.co.jp/nablarch/component-configuration\">\n"
+                    + "  <component name=\"comp" + i + "\" class=\"nablarch.core.repository.di.test.Component2\">\n"
+                    + "    <property name=\"prop1\" value=\"${value" + i + "}\" />\n"
+                    + "  </component>\n"
+                    + "</component-configuration>\n");
+            writeFile(new File(configDir, "value" + i + ".config"), "value" + i + " = value of " + i + "\n");
+        }
+        File file = new File(temp.getRoot(), "parallel.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <config-file dir="parallel-configs" file="*.config" />
+            <import dir="parallel-imports" file="*.xml" />
+        </component-configuration>
+        */
+
+        XmlComponentDefinitionLoader sequential = new XmlComponentDefinitionLoader(file.toURI().toString());
+        List<ComponentDefinition> expected = sequential.load(new DiContainer(sequential));
+        XmlComponentDefinitionLoader parallel = new XmlComponentDefinitionLoader(file.toURI().toString());
+        parallel.setParallelism(4);
+        DiContainerOptions options = new DiContainerOptions();
+        options.setParallelism(4);
+        DiContainer container = new DiContainer(parallel, options);
+        List<ComponentDefinition> actual = parallel.load(container);
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getName(), actual.get(i).getName());
+        }
+        for (int i = 0; i < 8; i++) {
+            Component2 comp = container.getComponentByName("comp" + i);
+            assertEquals("value of " + i, comp.getProp1());
+        }
+
+        Hereis.file(new File(importDir, "comp4.xml").getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="broken"
+        */
+        try {
+            parallel.load(container);
+            fail("例外が発生するはず。");
+        } catch (ConfigurationLoadException e) {
+            assertThat(e.getCause().getMessage(), containsString("component definition load failed."));
+        }
+    }
+
     
     @Test
     public void testLoadExtendTypeInjection() throws Throwable {
@@ -2368,6 +2494,1273 @@ public class DiContainerTest {
         }
     }
     
+    /**
+     * 初期化完了後は、名前・型・IDのいずれで取得しても同一のインスタンスが返却されること。
+     * 再生成後は、再生成したインスタンスが返却されること。
+     */
+    @Test
+    public void testFrozenLookup() {
+        ComponentDefinitionLoader loader = new ComponentDefinitionLoader() {
+            public List<ComponentDefinition> load(DiContainer container) {
+                List<ComponentDefinition> defs = new ArrayList<ComponentDefinition>();
+                defs.add(new ComponentDefinition(container.generateId(), "comp2",
+                        new BeanComponentCreator(), Component2.class));
+                defs.add(new ComponentDefinition(container.generateId(), "factory",
+                        new BeanComponentCreator(), Component2ComponentFactory.class));
+                return defs;
+            }
+        };
+        DiContainer container = new DiContainer(loader);
+
+        Component2 comp2 = container.getComponentByName("comp2");
+        assertTrue(comp2 == container.getComponentById(0));
+        assertTrue(comp2 == container.getComponentByName("comp2"));
+
+        // ComponentFactoryの場合は、作成したオブジェクトが返却される
+        Object created = container.getComponentByName("factory");
+        assertTrue(created instanceof Component2);
+        assertTrue(created == container.getComponentById(1));
+
+        // 複数登録された型、存在しない名前は取得できない
+        assertNull(container.getComponentByType(Component2.class));
+        assertNull(container.getComponentByName("notFound"));
+        assertTrue(container.getComponentByType(Component2ComponentFactory.class) == null);
+
+        try {
+            container.getComponentById(100);
+            fail("例外が発生するはず");
+        } catch (ContainerProcessException e) {
+            assertThat(e.getMessage(), containsString("component id was not found."));
+        }
+
+        // load()は同じMapを返却する
+        Map<String, Object> loaded = container.load();
+        assertTrue(comp2 == loaded.get("comp2"));
+        assertTrue(created == loaded.get("factory"));
+        assertTrue(loaded == container.load());
+
+        container.reload();
+        Component2 reloaded = container.getComponentByName("comp2");
+        assertTrue(reloaded != comp2);
+        assertTrue(reloaded == container.getComponentById(0));
+        Map<String, Object> reloadedValues = container.load();
+        assertTrue(reloadedValues != loaded);
+        assertTrue(reloaded == reloadedValues.get("comp2"));
+    }
+
+    /**
+     * 並列数を指定した場合でも、逐次生成した場合と同じ状態のコンポーネントが取得できること。
+     */
+    @Test
+    public void testParallelCreation() throws Throwable {
+        System.setProperty("parallel.value", "from system property");
+        File file = temp.newFile("parallel.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="comp1" class="nablarch.core.repository.di.test.Component1">
+                <property name="prop1" value="string value" />
+                <property name="component2" ref="comp2"/>
+            </component>
+            <component name="comp2" class="nablarch.core.repository.di.test.Component2">
+                <property name="prop1" value="${parallel.value}" />
+            </component>
+            <component name="factory" class="nablarch.core.repository.di.test.Component2ComponentFactory">
+                <property name="factoryProperty" value="[${parallel.value}]" />
+            </component>
+            <component name="comp3" class="nablarch.core.repository.di.test.Component3">
+                <property name="listProp">
+                    <list>
+                        <component-ref name="comp1"/>
+                        <component-ref name="factory"/>
+                        <component class="nablarch.core.repository.di.test.Component2">
+                            <property name="prop1" value="nested" />
+                        </component>
+                    </list>
+                </property>
+                <property name="mapProp">
+                    <map>
+                        <entry key="key1" value="${parallel.value}"/>
+                        <entry key="key2" value-name="comp2"/>
+                    </map>
+                </property>
+            </component>
+            <component name="initializer" class="nablarch.core.repository.initialization.BasicApplicationInitializer">
+                <property name="initializeList">
+                    <list>
+                        <component-ref name="comp2"/>
+                        <component-ref name="comp1"/>
+                    </list>
+                </property>
+            </component>
+        </component-configuration>
+        */
+
+        DiContainerOptions options = new DiContainerOptions();
+        options.setParallelism(4);
+        DiContainer container = new DiContainer(
+                new XmlComponentDefinitionLoader(file.toURI().toString()), options);
+
+        Component1 comp1 = container.getComponentByName("comp1");
+        Component2 comp2 = container.getComponentByName("comp2");
+        assertEquals("string value", comp1.getProp1());
+        assertTrue(comp2 == comp1.getComponent2());
+        assertEquals("from system property", comp2.getProp1());
+        assertEquals("init", comp1.getInitValue());
+        assertEquals("10", comp2.getInitMap().get("1"));
+
+        Component2 created = container.getComponentByName("factory");
+        assertEquals("[from system property]", created.getProp1());
+
+        Component3 comp3 = container.getComponentByName("comp3");
+        List<Object> list = comp3.getListProp();
+        assertEquals(3, list.size());
+        assertTrue(comp1 == list.get(0));
+        assertTrue(created == list.get(1));
+        assertEquals("nested", ((Component2) list.get(2)).getProp1());
+        assertEquals("from system property", comp3.getMapProp().get("key1"));
+        assertTrue(comp2 == comp3.getMapProp().get("key2"));
+    }
+
+    /**
+     * 並列数を指定した場合でも、依存関係を公開しないComponentCreatorで生成するコンポーネントは、
+     * 逐次生成され、参照先のコンポーネントを取得できること。
+     */
+    @Test
+    public void testParallelCreationWithUnknownDependencies() {
+        ComponentDefinitionLoader loader = new ComponentDefinitionLoader() {
+            public List<ComponentDefinition> load(DiContainer container) {
+                List<ComponentDefinition> defs = new ArrayList<ComponentDefinition>();
+                ComponentDefinition comp2 = new ComponentDefinition(container.generateId(), "comp2",
+                        new BeanComponentCreator(), Component2.class);
+                defs.add(comp2);
+                defs.add(new ComponentDefinition(container.generateId(), "custom", new ComponentCreator() {
+                    public Object createComponent(DiContainer container, ComponentDefinition def) {
+                        Component2 comp2 = container.getComponentByName("comp2");
+                        return "custom:" + comp2.getProp1();
+                    }
+                }, String.class));
+                ComponentDefinition comp1 = new ComponentDefinition(container.generateId(), "comp1",
+                        new BeanComponentCreator(), Component1.class);
+                comp1.addReference(new ComponentReference("prop1", "custom", String.class, InjectionType.REF, -1));
+                defs.add(comp1);
+                comp2.addReference(new ComponentReference("prop1", "value", String.class, InjectionType.REF, -1));
+                defs.add(new ComponentDefinition(container.generateId(), "value",
+                        new StoredValueComponentCreator("stored"), String.class));
+                return defs;
+            }
+        };
+        DiContainerOptions options = new DiContainerOptions();
+        options.setParallelism(2);
+        DiContainer container = new DiContainer(loader, options);
+
+        Component1 comp1 = container.getComponentByName("comp1");
+        assertEquals("custom:stored", comp1.getProp1());
+    }
+
+    /**
+     * 並列数を指定した場合に、コンポーネントの生成に失敗すると、逐次生成した場合と同じ例外が送出されること。
+     */
+    @Test
+    public void testParallelCreationFail() throws Throwable {
+        File file = temp.newFile("parallelFail.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="comp2" class="nablarch.core.repository.di.test.Component2" />
+            <component name="component3" class="nablarch.core.repository.di.test.DefaultConstructorLessObject" />
+        </component-configuration>
+        */
+        DiContainerOptions options = new DiContainerOptions();
+        options.setParallelism(4);
+        try {
+            new DiContainer(new XmlComponentDefinitionLoader(file.toURI().toString()), options);
+            fail("例外が発生するはず");
+        } catch (ContainerProcessException e) {
+            assertThat(e.getMessage(), containsString("component instantiation failed."));
+        }
+    }
+
+    /**
+     * lazy-init属性を指定したコンポーネントは、最初に取得された時点で生成されること。
+     * 遅延しないコンポーネントから参照されるコンポーネントは、構築時に生成されること。
+     */
+    @Test
+    public void testLazyInit() throws Throwable {
+        LazyComponent.INJECTED_NAMES.clear();
+        File file = temp.newFile("lazyInit.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="lazy" class="nablarch.core.repository.di.test.LazyComponent" lazy-init="true">
+                <property name="name" value="lazy" />
+            </component>
+            <component name="lazyDep" class="nablarch.core.repository.di.test.LazyComponent" lazy-init="true">
+                <property name="name" value="lazyDep" />
+            </component>
+            <component name="eager" class="nablarch.core.repository.di.test.LazyComponent" lazy-init="false">
+                <property name="name" value="eager" />
+                <property name="child" ref="lazyDep" />
+            </component>
+            <component name="factory" class="nablarch.core.repository.di.test.Component2ComponentFactory" lazy-init="1">
+                <property name="factoryProperty" value="created by factory" />
+            </component>
+        </component-configuration>
+        */
+        DiContainer container = new DiContainer(new XmlComponentDefinitionLoader(file.toURI().toString()));
+        assertEquals(2, LazyComponent.INJECTED_NAMES.size());
+        assertTrue(LazyComponent.INJECTED_NAMES.contains("eager"));
+        assertTrue(LazyComponent.INJECTED_NAMES.contains("lazyDep"));
+
+        LazyComponent eager = container.getComponentByName("eager");
+        assertTrue(eager.getChild() == container.getComponentByName("lazyDep"));
+
+        LazyComponent lazy = container.getComponentByName("lazy");
+        assertEquals("lazy", lazy.getName());
+        assertTrue(lazy == container.getComponentByName("lazy"));
+        assertEquals(3, LazyComponent.INJECTED_NAMES.size());
+
+        // ComponentFactoryの場合は、作成したオブジェクトが取得できること。
+        Component2 created = container.getComponentByType(Component2.class);
+        assertEquals("created by factory", created.getProp1());
+        assertTrue(created == container.getComponentByName("factory"));
+
+        Map<String, Object> loaded = container.load();
+        assertTrue(lazy == loaded.get("lazy"));
+        assertTrue(created == loaded.get("factory"));
+    }
+
+    /**
+     * 全てのコンポーネントの生成を遅延した場合、構築時には初期化対象のコンポーネントのみ生成され、
+     * その他のコンポーネントは複数スレッドから同時に取得しても一度だけ生成されること。
+     */
+    @Test
+    public void testLazyInitOption() throws Throwable {
+        LazyComponent.INJECTED_NAMES.clear();
+        File file = temp.newFile("lazyInitOption.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="lazy" class="nablarch.core.repository.di.test.LazyComponent" autowireType="None">
+                <property name="name" value="lazy" />
+                <property name="child">
+                    <component class="nablarch.core.repository.di.test.LazyComponent">
+                        <property name="name" value="nested" />
+                    </component>
+                </property>
+            </component>
+            <component name="comp1" class="nablarch.core.repository.di.test.Component1" />
+            <component name="initializer" class="nablarch.core.repository.initialization.BasicApplicationInitializer">
+                <property name="initializeList">
+                    <list>
+                        <component-ref name="comp1"/>
+                    </list>
+                </property>
+            </component>
+        </component-configuration>
+        */
+        DiContainerOptions options = new DiContainerOptions();
+        options.setLazyInit(true);
+        options.setParallelism(2);
+        final DiContainer container = new DiContainer(
+                new XmlComponentDefinitionLoader(file.toURI().toString()), options);
+        assertTrue(LazyComponent.INJECTED_NAMES.isEmpty());
+        Component1 comp1 = container.getComponentByName("comp1");
+        assertEquals("init", comp1.getInitValue());
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<LazyComponent>> futures = new ArrayList<Future<LazyComponent>>();
+            for (int i = 0; i < 32; i++) {
+                futures.add(executor.submit(new Callable<LazyComponent>() {
+                    public LazyComponent call() {
+                        return container.getComponentByName("lazy");
+                    }
+                }));
+            }
+            LazyComponent lazy = futures.get(0).get();
+            for (Future<LazyComponent> future : futures) {
+                assertTrue(lazy == future.get());
+            }
+            assertEquals("nested", lazy.getChild().getName());
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(2, LazyComponent.INJECTED_NAMES.size());
+    }
+
+    /**
+     * 生成を遅延したコンポーネントを別のスレッドが生成している間も、
+     * 生成済みのコンポーネントの取得と、見つからないコンポーネントの取得は待機しないこと。
+     * 見つからなかったことは保持せず、後から設定されたシステムプロパティを取得できること。
+     */
+    @Test
+    public void testLookupWithoutLockDuringLazyCreation() throws Throwable {
+        File file = temp.newFile("lookupWithoutLock.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="blocking" class="nablarch.core.repository.di.DiContainerTest$BlockingComponent" lazy-init="true" />
+            <component name="comp1" class="nablarch.core.repository.di.test.Component1" />
+            <component name="comp2a" class="nablarch.core.repository.di.test.Component2" />
+            <component name="comp2b" class="nablarch.core.repository.di.test.Component2" />
+        </component-configuration>
+        */
+        DiContainerOptions options = new DiContainerOptions();
+        options.setSystemPropertyOverlay(true);
+        final DiContainer container = new DiContainer(
+                new XmlComponentDefinitionLoader(file.toURI().toString()), options);
+        Component1 comp1 = container.getComponentByName("comp1");
+
+        BlockingComponent.entered = new CountDownLatch(1);
+        BlockingComponent.release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> blocking = executor.submit(new Callable<Object>() {
+                public Object call() {
+                    return container.getComponentByName("blocking");
+                }
+            });
+            assertTrue(BlockingComponent.entered.await(10, TimeUnit.SECONDS));
+
+            // 別のスレッドがロックを保持したまま生成中でも、待機せずに取得できる
+            assertSame(comp1, container.getComponentByName("comp1"));
+            assertSame(comp1, container.getComponentByType(Component1.class));
+            assertSame(comp1, container.getComponentById(1));
+            assertNull(container.getComponentByName("lookupWithoutLock.missing"));
+            assertNull(container.getComponentByType(Component2.class));
+            assertNull(container.getComponentByType(Component3.class));
+            assertFalse(blocking.isDone());
+
+            BlockingComponent.release.countDown();
+            assertTrue(blocking.get() instanceof BlockingComponent);
+            assertSame(blocking.get(), container.getComponentByName("blocking"));
+        } finally {
+            BlockingComponent.release.countDown();
+            executor.shutdown();
+        }
+
+        System.setProperty("lookupWithoutLock.missing", "set later");
+        try {
+            String value = container.getComponentByName("lookupWithoutLock.missing");
+            assertEquals("set later", value);
+        } finally {
+            System.clearProperty("lookupWithoutLock.missing");
+        }
+    }
+
+    /**
+     * 複数のスレッドが同時に生成を遅延したコンポーネントを取得しても、
+     * 全てのスレッドがインジェクションを完了した同じコンポーネントを取得できること。
+     */
+    @Test
+    public void testConcurrentLazyCreation() throws Throwable {
+        File file = temp.newFile("concurrentLazyCreation.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="slow" class="nablarch.core.repository.di.DiContainerTest$SlowInjectedComponent" lazy-init="true">
+                <property name="prop" value="injected" />
+            </component>
+        </component-configuration>
+        */
+        final int threadCount = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            for (int i = 0; i < 20; i++) {
+                final DiContainer container = new DiContainer(
+                        new XmlComponentDefinitionLoader(file.toURI().toString()));
+                final CountDownLatch start = new CountDownLatch(1);
+                List<Future<Object>> results = new ArrayList<Future<Object>>();
+                for (int j = 0; j < threadCount; j++) {
+                    final int kind = j % 3;
+                    results.add(executor.submit(new Callable<Object>() {
+                        public Object call() throws Exception {
+                            start.await();
+                            switch (kind) {
+                            case 0:
+                                return container.getComponentByName("slow");
+                            case 1:
+                                return container.getComponentByType(SlowInjectedComponent.class);
+                            default:
+                                return container.getComponentById(0);
+                            }
+                        }
+                    }));
+                }
+                start.countDown();
+                Object expected = results.get(0).get(10, TimeUnit.SECONDS);
+                for (Future<Object> result : results) {
+                    SlowInjectedComponent component = (SlowInjectedComponent) result.get(10, TimeUnit.SECONDS);
+                    assertSame(expected, component);
+                    assertEquals("injected", component.getProp());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * インジェクションに時間を要するコンポーネント。
+     */
+    public static class SlowInjectedComponent {
+
+        /** プロパティ */
+        private String prop;
+
+        public String getProp() {
+            return prop;
+        }
+
+        public void setProp(String prop) throws InterruptedException {
+            Thread.sleep(5);
+            this.prop = prop;
+        }
+    }
+
+    /**
+     * 生成を待ち合わせるコンポーネント。
+     */
+    public static class BlockingComponent {
+
+        /** 生成を開始したことを通知するラッチ */
+        static CountDownLatch entered;
+
+        /** 生成の完了を待つラッチ */
+        static CountDownLatch release;
+
+        public BlockingComponent() throws InterruptedException {
+            entered.countDown();
+            release.await(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * setterがオーバーロードされている場合、値の型に合うsetterが呼び出されること。
+     * 再生成後も同じ結果となること。
+     */
+    @Test
+    public void testInjectOverloadedSetter() throws Throwable {
+        File file = temp.newFile("overloadedSetter.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="comp1" class="nablarch.core.repository.di.test.Component1" />
+            <component name="comp2" class="nablarch.core.repository.di.test.Component2" />
+            <component name="overloaded1" class="nablarch.core.repository.di.test.OverloadedSetterComponent" autowireType="None">
+                <property name="target" ref="comp1" />
+            </component>
+            <component name="overloaded2" class="nablarch.core.repository.di.test.OverloadedSetterComponent" autowireType="None">
+                <property name="target" ref="comp2" />
+            </component>
+        </component-configuration>
+        */
+        DiContainer container = new DiContainer(new XmlComponentDefinitionLoader(file.toURI().toString()));
+        for (int i = 0; i < 2; i++) {
+            OverloadedSetterComponent overloaded1 = container.getComponentByName("overloaded1");
+            assertTrue(overloaded1.getTarget() == container.getComponentByName("comp1"));
+            OverloadedSetterComponent overloaded2 = container.getComponentByName("overloaded2");
+            assertTrue(overloaded2.getTarget() == container.getComponentByName("comp2"));
+            container.reload();
+        }
+    }
+
+    /**
+     * 値の型に合うsetterが存在しない場合や、setterが例外を送出した場合は、従来と同じ例外が送出されること。
+     */
+    @Test
+    public void testInjectSetterError() throws Throwable {
+        File file = temp.newFile("setterError.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="comp2" class="nablarch.core.repository.di.test.Component2" />
+            <component name="overloaded" class="nablarch.core.repository.di.test.OverloadedSetterComponent">
+                <property name="failure" ref="comp2" />
+            </component>
+        </component-configuration>
+        */
+        try {
+            new DiContainer(new XmlComponentDefinitionLoader(file.toURI().toString()));
+            fail("does not run.");
+        } catch (RuntimeException e) {
+            assertEquals("can't set property [failure]", e.getMessage());
+            assertTrue(e.getCause().getCause() instanceof IllegalStateException);
+        }
+
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="comp3" class="nablarch.core.repository.di.test.Component3" />
+            <component name="overloaded" class="nablarch.core.repository.di.test.OverloadedSetterComponent">
+                <property name="target" ref="comp3" />
+            </component>
+        </component-configuration>
+        */
+        try {
+            new DiContainer(new XmlComponentDefinitionLoader(file.toURI().toString()));
+            fail("does not run.");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("can't find method [setTarget]"));
+        }
+    }
+
+    /**
+     * factory-method属性を指定したコンポーネントは、ファクトリメソッドで生成されること。
+     * 指定しない場合は、private以外の非publicなコンストラクタでも生成できること。
+     */
+    @Test
+    public void testFactoryMethod() throws Throwable {
+        File file = temp.newFile("factoryMethod.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="factory" class="nablarch.core.repository.di.test.FactoryMethodComponent"
+                    factory-method="create">
+                <property name="name" value="factory" />
+            </component>
+            <component name="hidden" class="nablarch.core.repository.di.test.FactoryMethodComponent"
+                    factory-method="createHidden" />
+            <component name="constructor" class="nablarch.core.repository.di.test.FactoryMethodComponent" />
+        </component-configuration>
+        */
+        DiContainer container = new DiContainer(new XmlComponentDefinitionLoader(file.toURI().toString()));
+        FactoryMethodComponent factory = container.getComponentByName("factory");
+        assertEquals("factory", factory.getCreatedBy());
+        assertEquals("factory", factory.getName());
+        FactoryMethodComponent hidden = container.getComponentByName("hidden");
+        assertEquals("hidden factory", hidden.getCreatedBy());
+        FactoryMethodComponent constructor = container.getComponentByName("constructor");
+        assertEquals("constructor", constructor.getCreatedBy());
+
+        container.reload();
+        assertTrue(factory != container.getComponentByName("factory"));
+        assertEquals("factory", ((FactoryMethodComponent) container.getComponentByName("factory")).getCreatedBy());
+    }
+
+    /**
+     * ファクトリメソッドとして使用できないメソッドを指定した場合、例外が送出されること。
+     */
+    @Test
+    public void testFactoryMethodNotFound() throws Throwable {
+        for (String factoryMethod : new String[] {"notExists", "createNotStatic", "createOtherType"}) {
+            BeanComponentCreator creator = new BeanComponentCreator(factoryMethod);
+            try {
+                creator.createComponent(null,
+                        new ComponentDefinition(0, "factory", creator, FactoryMethodComponent.class));
+                fail("does not run.");
+            } catch (ContainerProcessException e) {
+                assertThat(e.getMessage(), containsString("component factory method was not found."));
+                assertThat(e.getMessage(), containsString("factory method name = " + factoryMethod));
+            }
+        }
+    }
+
+    /**
+     * ファクトリメソッドが送出した検査例外はラップされ、実行時例外はそのまま送出されること。
+     */
+    @Test
+    public void testFactoryMethodThrowsException() throws Throwable {
+        File file = temp.newFile("factoryMethodChecked.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="factory" class="nablarch.core.repository.di.test.FactoryMethodComponent"
+                    factory-method="createWithCheckedException" />
+        </component-configuration>
+        */
+        try {
+            new DiContainer(new XmlComponentDefinitionLoader(file.toURI().toString()));
+            fail("does not run.");
+        } catch (ContainerProcessException e) {
+            assertThat(e.getMessage(), containsString("component instantiation failed."));
+            assertEquals("checked exception in factory", e.getCause().getMessage());
+        }
+
+        file = temp.newFile("factoryMethodRuntime.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="factory" class="nablarch.core.repository.di.test.FactoryMethodComponent"
+                    factory-method="createWithRuntimeException" />
+        </component-configuration>
+        */
+        try {
+            new DiContainer(new XmlComponentDefinitionLoader(file.toURI().toString()));
+            fail("does not run.");
+        } catch (IllegalStateException e) {
+            assertEquals("runtime exception in factory", e.getMessage());
+        }
+    }
+
+    /**
+     * 抽象クラスとインタフェースは、従来通り生成に失敗すること。
+     */
+    @Test
+    public void testInstantiateAbstractClass() throws Throwable {
+        BeanComponentCreator creator = new BeanComponentCreator();
+        for (Class<?> type : new Class<?>[] {AbstractList.class, Interface1.class}) {
+            try {
+                creator.createComponent(null, new ComponentDefinition(0, "abstract", creator, type));
+                fail("does not run.");
+            } catch (ContainerProcessException e) {
+                assertThat(e.getMessage(), containsString("component instantiation failed."));
+                assertThat(e.getMessage(), containsString(type.getName()));
+            }
+        }
+    }
+
+    /**
+     * 差分再読み込みでは、設定が変更されたコンポーネントと、それを参照するコンポーネントのみ再生成されること。
+     */
+    @Test
+    public void testReloadIncrementally() throws Throwable {
+        File config = new File(temp.getRoot(), "incremental.config");
+        Hereis.file(config.getAbsolutePath()); /*
+        reload.value = before
+        */
+        File file = new File(temp.getRoot(), "incremental.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <config-file file="incremental.config" dir="." />
+            <component name="comp2" class="nablarch.core.repository.di.test.Component2">
+                <property name="prop1" value="${reload.value}" />
+            </component>
+            <component name="comp1" class="nablarch.core.repository.di.test.Component1">
+                <property name="prop1" value="fixed" />
+                <property name="component2" ref="comp2" />
+            </component>
+            <component name="comp3" class="nablarch.core.repository.di.test.Component3">
+                <property name="listProp">
+                    <list>
+                        <component class="nablarch.core.repository.di.test.Component2">
+                            <property name="prop1" value="nested" />
+                        </component>
+                    </list>
+                </property>
+            </component>
+            <component name="independent" class="nablarch.core.repository.di.test.Component2">
+                <property name="prop1" value="independent" />
+            </component>
+            <component name="factory" class="nablarch.core.repository.di.test.Component2ComponentFactory">
+                <property name="factoryProperty" value="created by factory" />
+            </component>
+        </component-configuration>
+        */
+        DiContainer container = new DiContainer(new XmlComponentDefinitionLoader(file.toURI().toString()));
+        Component1 comp1 = container.getComponentByName("comp1");
+        Component2 comp2 = container.getComponentByName("comp2");
+        Component3 comp3 = container.getComponentByName("comp3");
+        Component2 independent = container.getComponentByName("independent");
+        Component2 factory = container.getComponentByName("factory");
+        assertEquals("before", comp2.getProp1());
+
+        // 環境設定ファイルの値を変更すると、値を参照するコンポーネントと、その参照元のみ再生成される。
+        Hereis.file(config.getAbsolutePath()); /*
+        reload.value = after
+        */
+        container.reloadIncrementally();
+        Component1 reloadedComp1 = container.getComponentByName("comp1");
+        Component2 reloadedComp2 = container.getComponentByName("comp2");
+        assertEquals("after", reloadedComp2.getProp1());
+        assertTrue(comp2 != reloadedComp2);
+        assertTrue(comp1 != reloadedComp1);
+        assertTrue(reloadedComp2 == reloadedComp1.getComponent2());
+        assertTrue(comp3 == container.getComponentByName("comp3"));
+        assertTrue(comp3.getListProp().get(0) == ((Component3) container.getComponentByName("comp3")).getListProp().get(0));
+        assertTrue(independent == container.getComponentByName("independent"));
+        assertTrue(factory == container.getComponentByName("factory"));
+
+        // リテラル値を変更したコンポーネントのみ再生成される。
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <config-file file="incremental.config" dir="." />
+            <component name="comp2" class="nablarch.core.repository.di.test.Component2">
+                <property name="prop1" value="${reload.value}" />
+            </component>
+            <component name="comp1" class="nablarch.core.repository.di.test.Component1">
+                <property name="prop1" value="fixed" />
+                <property name="component2" ref="comp2" />
+            </component>
+            <component name="comp3" class="nablarch.core.repository.di.test.Component3">
+                <property name="listProp">
+                    <list>
+                        <component class="nablarch.core.repository.di.test.Component2">
+                            <property name="prop1" value="nested" />
+                        </component>
+                    </list>
+                </property>
+            </component>
+            <component name="independent" class="nablarch.core.repository.di.test.Component2">
+                <property name="prop1" value="changed" />
+            </component>
+            <component name="factory" class="nablarch.core.repository.di.test.Component2ComponentFactory">
+                <property name="factoryProperty" value="created by factory" />
+            </component>
+        </component-configuration>
+        */
+        container.reloadIncrementally();
+        assertTrue(reloadedComp1 == container.getComponentByName("comp1"));
+        assertTrue(reloadedComp2 == container.getComponentByName("comp2"));
+        assertTrue(comp3 == container.getComponentByName("comp3"));
+        assertTrue(factory == container.getComponentByName("factory"));
+        Component2 changed = container.getComponentByName("independent");
+        assertTrue(independent != changed);
+        assertEquals("changed", changed.getProp1());
+
+        // 通常の再読み込みでは、全てのコンポーネントを再生成する。
+        container.reload();
+        assertTrue(reloadedComp1 != container.getComponentByName("comp1"));
+        assertTrue(comp3 != container.getComponentByName("comp3"));
+        assertTrue(factory != container.getComponentByName("factory"));
+        assertTrue(changed != container.getComponentByName("independent"));
+    }
+
+    /**
+     * 差分再読み込みでは、型で参照するコンポーネントが変わった場合も、参照元のコンポーネントが再生成されること。
+     * 変更が無い場合は初期化処理を実行しないこと。
+     */
+    @Test
+    public void testReloadIncrementallyAutowire() throws Throwable {
+        File file = new File(temp.getRoot(), "incrementalAutowire.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="comp1" class="nablarch.core.repository.di.test.Component1">
+                <property name="prop1" value="fixed" />
+            </component>
+            <component name="comp2" class="nablarch.core.repository.di.test.Component2">
+                <property name="prop1" value="first" />
+            </component>
+            <component name="initializer" class="nablarch.core.repository.initialization.BasicApplicationInitializer">
+                <property name="initializeList">
+                    <list>
+                        <component-ref name="initializable" />
+                    </list>
+                </property>
+            </component>
+            <component name="initializable" class="nablarch.core.repository.di.DiContainerTest$CountingInitializable" />
+        </component-configuration>
+        */
+        DiContainer container = new DiContainer(new XmlComponentDefinitionLoader(file.toURI().toString()));
+        Component1 comp1 = container.getComponentByName("comp1");
+        Component2 comp2 = container.getComponentByName("comp2");
+        assertTrue(comp2 == comp1.getComponent2());
+        CountingInitializable initializable = container.getComponentByName("initializable");
+        assertEquals(1, initializable.count);
+
+        container.reloadIncrementally();
+        assertTrue(comp1 == container.getComponentByName("comp1"));
+        assertTrue(initializable == container.getComponentByName("initializable"));
+        assertEquals(1, initializable.count);
+
+        // 型で参照していたコンポーネントが別の定義に置き換わる。
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="comp1" class="nablarch.core.repository.di.test.Component1">
+                <property name="prop1" value="fixed" />
+            </component>
+            <component name="comp2Replaced" class="nablarch.core.repository.di.test.Component2">
+                <property name="prop1" value="first" />
+            </component>
+            <component name="initializer" class="nablarch.core.repository.initialization.BasicApplicationInitializer">
+                <property name="initializeList">
+                    <list>
+                        <component-ref name="initializable" />
+                    </list>
+                </property>
+            </component>
+            <component name="initializable" class="nablarch.core.repository.di.DiContainerTest$CountingInitializable" />
+        </component-configuration>
+        */
+        container.reloadIncrementally();
+        Component1 reloaded = container.getComponentByName("comp1");
+        assertTrue(comp1 != reloaded);
+        assertTrue(container.getComponentByName("comp2Replaced") == reloaded.getComponent2());
+        assertTrue(initializable == container.getComponentByName("initializable"));
+        assertEquals(1, initializable.count);
+    }
+
+    /**
+     * 差分再読み込みでinitializerの初期化対象が変わった場合、
+     * 再生成したコンポーネントのみを初期化し、引き継いだコンポーネントは初期化しないこと。
+     */
+    @Test
+    public void testReloadIncrementallyInitializer() throws Throwable {
+        File file = new File(temp.getRoot(), "incrementalInitializer.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="initializer" class="nablarch.core.repository.initialization.BasicApplicationInitializer">
+                <property name="initializeList">
+                    <list>
+                        <component-ref name="pool" />
+                    </list>
+                </property>
+            </component>
+            <component name="pool" class="nablarch.core.repository.di.DiContainerTest$CountingInitializable" />
+        </component-configuration>
+        */
+        DiContainer container = new DiContainer(new XmlComponentDefinitionLoader(file.toURI().toString()));
+        CountingInitializable pool = container.getComponentByName("pool");
+        assertEquals(1, pool.count);
+
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="initializer" class="nablarch.core.repository.initialization.BasicApplicationInitializer">
+                <property name="initializeList">
+                    <list>
+                        <component-ref name="pool" />
+                        <component-ref name="cache" />
+                    </list>
+                </property>
+            </component>
+            <component name="pool" class="nablarch.core.repository.di.DiContainerTest$CountingInitializable" />
+            <component name="cache" class="nablarch.core.repository.di.DiContainerTest$CountingInitializable" />
+        </component-configuration>
+        */
+        container.reloadIncrementally();
+        assertSame(pool, container.getComponentByName("pool"));
+        assertEquals(1, pool.count);
+        CountingInitializable cache = container.getComponentByName("cache");
+        assertEquals(1, cache.count);
+
+        // 全て再読み込みする場合は、全てのコンポーネントを初期化する。
+        container.reload();
+        assertEquals(1, ((CountingInitializable) container.getComponentByName("pool")).count);
+        assertEquals(1, pool.count);
+    }
+
+    /**
+     * システムプロパティを上書きに使用するもののみ登録する場合、
+     * 上書きに使用するものとプレフィックスに一致するもの以外は、名前で取得した時点で解決すること。
+     */
+    @Test
+    public void testSystemPropertyOverlay() throws Throwable {
+        Hereis.file(new File(temp.getRoot(), "overlay.config").getAbsolutePath()); /*
+        overlay.value = from config file
+        overlay.fixed = fixed
+        */
+        File file = new File(temp.getRoot(), "overlay.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <config-file file="overlay.config" dir="." />
+            <component name="comp2" class="nablarch.core.repository.di.test.Component2">
+                <property name="prop1" value="${overlay.value}" />
+            </component>
+            <component name="lazyResolved" class="nablarch.core.repository.di.test.Component2">
+                <property name="prop1" value="${overlay.lazy}" />
+            </component>
+        </component-configuration>
+        */
+        System.setProperty("overlay.value", "from system property");
+        System.setProperty("overlay.lazy", "resolved by name");
+        System.setProperty("app.overlay", "registered by prefix");
+
+        DiContainerOptions options = new DiContainerOptions();
+        options.setSystemPropertyOverlay(true);
+        options.setSystemPropertyPrefixes(Collections.singletonList("app."));
+        DiContainer container = new DiContainer(new XmlComponentDefinitionLoader(file.toURI().toString()), options);
+
+        assertEquals("from system property", ((Component2) container.getComponentByName("comp2")).getProp1());
+        assertEquals("resolved by name", ((Component2) container.getComponentByName("lazyResolved")).getProp1());
+        assertEquals("resolved by name", container.getComponentByName("overlay.lazy"));
+        assertEquals(System.getProperty("java.version"), container.getComponentByName("java.version"));
+        assertNull(container.getComponentByName("overlay.notFound"));
+
+        Map<String, Object> loaded = container.load();
+        assertEquals("from system property", loaded.get("overlay.value"));
+        assertEquals("fixed", loaded.get("overlay.fixed"));
+        assertEquals("registered by prefix", loaded.get("app.overlay"));
+        assertFalse(loaded.containsKey("overlay.lazy"));
+        assertFalse(loaded.containsKey("java.version"));
+
+        // 登録しなかったシステムプロパティと同じ名前の値は、従来通り更新しない
+        container.updateValues(Collections.singletonMap("overlay.lazy", "updated"));
+        assertEquals("resolved by name", container.getComponentByName("overlay.lazy"));
+
+        // 指定しない場合は、全てのシステムプロパティを登録する
+        container = new DiContainer(new XmlComponentDefinitionLoader(file.toURI().toString()));
+        loaded = container.load();
+        assertEquals("resolved by name", loaded.get("overlay.lazy"));
+        assertEquals(System.getProperty("java.version"), loaded.get("java.version"));
+    }
+
+    /**
+     * ObjectLoaderからロードした値を参照されるまで登録しない場合、
+     * 参照されている値と上書きする値のみを登録し、その他の値は名前で取得できること。
+     */
+    @Test
+    public void testLazyObjectLoaderValues() throws Throwable {
+        File file = new File(temp.getRoot(), "lazyValues.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="overridden" class="nablarch.core.repository.di.test.Component1" />
+            <component name="comp1" class="nablarch.core.repository.di.test.Component1">
+                <property name="prop1" value="${lazy.literal}" />
+                <property name="component2" ref="lazy.ref" />
+            </component>
+            <component name="loader" class="nablarch.core.repository.di.DiContainerTest$LazyValuesLoader" />
+        </component-configuration>
+        */
+        System.setProperty("lazy.system", "from system property");
+
+        DiContainerOptions options = new DiContainerOptions();
+        options.setLazyObjectLoaderValues(true);
+        DiContainer container = new DiContainer(new XmlComponentDefinitionLoader(file.toURI().toString()), options);
+
+        Component1 comp1 = container.getComponentByName("comp1");
+        assertEquals("literal value", comp1.getProp1());
+        assertSame(container.getComponentByName("lazy.ref"), comp1.getComponent2());
+        assertEquals("from loader", container.getComponentByName("overridden"));
+        assertEquals("from system property", container.getComponentByName("lazy.system"));
+
+        // 参照されていない値は、名前でのみ取得できる
+        assertTrue(container.getComponentByName("lazy.unreferenced") instanceof HierarchyProduct);
+        assertNull(container.getComponentByType(HierarchyProduct.class));
+        assertSame(comp1.getComponent2(), container.getComponentByType(Component2.class));
+        assertNull(container.getComponentByName("lazy.notFound"));
+
+        Map<String, Object> loaded = container.load();
+        assertEquals("literal value", loaded.get("lazy.literal"));
+        assertSame(container.getComponentByName("lazy.unreferenced"), loaded.get("lazy.unreferenced"));
+        assertEquals("from loader", loaded.get("overridden"));
+        assertEquals("from system property", loaded.get("lazy.system"));
+
+        // 参照されている値の更新では、値を参照するコンポーネントが再生成される
+        container.updateValues(Collections.singletonMap("lazy.literal", "updated"));
+        assertEquals("updated", ((Component1) container.getComponentByName("comp1")).getProp1());
+        assertTrue(container.getComponentByName("lazy.unreferenced") instanceof HierarchyProduct);
+
+        // 指定しない場合は、全ての値を登録する
+        container = new DiContainer(new XmlComponentDefinitionLoader(file.toURI().toString()));
+        assertTrue(container.getComponentByType(HierarchyProduct.class) instanceof HierarchyProduct);
+        assertEquals("literal value", ((Component1) container.getComponentByName("comp1")).getProp1());
+        assertEquals("from loader", container.getComponentByName("overridden"));
+    }
+
+    /**
+     * 環境設定ファイルの読み込み結果を読み取り専用のMapで保持し、参照されるまで登録しない場合も、
+     * 後に読み込んだ環境設定ファイルの値で上書きされ、全ての値を名前で取得できること。
+     */
+    @Test
+    public void testCompactConfigFileValues() throws Throwable {
+        File first = new File(temp.getRoot(), "compact1.properties");
+        Hereis.file(first.getAbsolutePath()); /*
+        compact.literal = first
+        compact.unreferenced = first
+        compact.overridden = first
+        */
+        File second = new File(temp.getRoot(), "compact2.properties");
+        Hereis.file(second.getAbsolutePath()); /*
+        compact.overridden = second
+        compact.same = second
+        */
+        String firstPath = first.toURI().toString();
+        String secondPath = second.toURI().toString();
+        File file = new File(temp.getRoot(), "compact.xml");
+        Hereis.file(file.getAbsolutePath(), firstPath, secondPath); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <config-file file="${firstPath}" />
+            <config-file file="${secondPath}" />
+            <component name="comp1" class="nablarch.core.repository.di.test.Component1">
+                <property name="prop1" value="${compact.literal}-${compact.overridden}" />
+            </component>
+        </component-configuration>
+        */
+        DiContainerOptions options = new DiContainerOptions();
+        options.setLazyObjectLoaderValues(true);
+        XmlComponentDefinitionLoader loader = new XmlComponentDefinitionLoader(file.toURI().toString());
+        loader.setCompactConfigFileValues(true);
+        DiContainer container = new DiContainer(loader, options);
+
+        assertEquals("first-second", ((Component1) container.getComponentByName("comp1")).getProp1());
+        assertEquals("first", container.getComponentByName("compact.unreferenced"));
+        assertEquals("second", container.getComponentByName("compact.overridden"));
+        assertEquals("second", container.getComponentByName("compact.same"));
+
+        // 登録していない値は、取得の都度ロード結果から取得し、保持しない
+        String unreferenced = container.getComponentByName("compact.unreferenced");
+        assertEquals(unreferenced, container.getComponentByName("compact.unreferenced"));
+        assertTrue(unreferenced != container.getComponentByName("compact.unreferenced"));
+
+        Map<String, Object> loaded = container.load();
+        assertSame(loaded, container.load());
+        assertEquals("first", loaded.get("compact.unreferenced"));
+        assertEquals("second", loaded.get("compact.overridden"));
+        assertTrue(loaded.get("compact.unreferenced") != loaded.get("compact.unreferenced"));
+        assertTrue(loaded.containsKey("compact.same"));
+        assertFalse(loaded.containsKey("compact.notFound"));
+
+        Map<String, Object> expected = new HashMap<String, Object>();
+        expected.put("compact.literal", "first");
+        expected.put("compact.unreferenced", "first");
+        expected.put("compact.overridden", "second");
+        expected.put("compact.same", "second");
+        expected.put("comp1", container.getComponentByName("comp1"));
+        Map<String, Object> copied = new HashMap<String, Object>(loaded);
+        copied.keySet().retainAll(expected.keySet());
+        assertEquals(expected, copied);
+        assertEquals(loaded.size(), new HashMap<String, Object>(loaded).size());
+    }
+
+    /**
+     * 参照されるまで登録しない値のテストで使用するObjectLoader。
+     */
+    public static class LazyValuesLoader implements ObjectLoader {
+        public Map<String, Object> load() {
+            Map<String, Object> values = new LinkedHashMap<String, Object>();
+            values.put("lazy.literal", "literal value");
+            values.put("lazy.ref", new Component2());
+            values.put("lazy.unreferenced", new HierarchyProduct());
+            values.put("overridden", "from loader");
+            values.put("lazy.system", "from loader");
+            return values;
+        }
+    }
+
+    /**
+     * 値の更新では、値を参照するコンポーネントだけが再生成され、
+     * システムプロパティで上書きした値は更新されないこと。
+     * 値以外のコンポーネントは更新できないこと。
+     */
+    @Test
+    public void testUpdateValues() throws Throwable {
+        Hereis.file(new File(temp.getRoot(), "update.config").getAbsolutePath()); /*
+        update.value = before
+        update.overridden = from config file
+        */
+        File file = new File(temp.getRoot(), "update.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <config-file file="update.config" dir="." />
+            <component name="comp2" class="nablarch.core.repository.di.test.Component2">
+                <property name="prop1" value="${update.value}" />
+            </component>
+            <component name="overridden" class="nablarch.core.repository.di.test.Component2">
+                <property name="prop1" value="${update.overridden}" />
+            </component>
+        </component-configuration>
+        */
+        System.setProperty("update.overridden", "from system property");
+        DiContainer container = new DiContainer(new XmlComponentDefinitionLoader(file.toURI().toString()));
+        Component2 overridden = container.getComponentByName("overridden");
+        Component2 comp2 = container.getComponentByName("comp2");
+        assertEquals("before", comp2.getProp1());
+        assertEquals("from system property", overridden.getProp1());
+
+        Map<String, Object> values = new LinkedHashMap<String, Object>();
+        values.put("update.value", "after");
+        values.put("update.overridden", "updated");
+        values.put("update.added", "added");
+        container.updateValues(values);
+        assertEquals("after", ((Component2) container.getComponentByName("comp2")).getProp1());
+        assertEquals("before", comp2.getProp1());
+        assertTrue(overridden == container.getComponentByName("overridden"));
+        assertEquals("from system property", container.getComponentByName("update.overridden"));
+        assertEquals("added", container.getComponentByName("update.added"));
+
+        try {
+            container.updateValues(Collections.singletonMap("overridden", "value"));
+            fail("例外が発生するはず。");
+        } catch (ValueUpdateRejectedException e) {
+            assertThat(e.getMessage(), containsString("name = [overridden]"));
+            assertEquals(Collections.singleton("overridden"), e.getRejectedNames());
+        }
+        assertTrue(overridden == container.getComponentByName("overridden"));
+
+        Map<String, Object> nullValue = new LinkedHashMap<String, Object>();
+        nullValue.put("update.value", "again");
+        nullValue.put("update.null", null);
+        try {
+            container.updateValues(nullValue);
+            fail("例外が発生するはず。");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("name = [update.null]"));
+        }
+        assertEquals("after", ((Component2) container.getComponentByName("comp2")).getProp1());
+    }
+
+    /**
+     * 再生成中も、他のスレッドは再生成前のコンポーネントを待機せずに取得できること。
+     * 生成を遅延したコンポーネントは、再生成前の世代で生成されること。
+     * 再生成の完了後は、再生成後のコンポーネントを取得できること。
+     */
+    @Test
+    public void testLookupDuringReload() throws Throwable {
+        File file = temp.newFile("lookupDuringReload.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="comp1" class="nablarch.core.repository.di.test.Component1" />
+            <component name="lazy" class="nablarch.core.repository.di.test.Component2" lazy-init="true">
+                <property name="prop1" value="lazy" />
+            </component>
+            <component name="blocking" class="nablarch.core.repository.di.DiContainerTest$BlockingComponent" />
+        </component-configuration>
+        */
+        BlockingComponent.entered = new CountDownLatch(1);
+        BlockingComponent.release = new CountDownLatch(0);
+        final DiContainer container = new DiContainer(new XmlComponentDefinitionLoader(file.toURI().toString()));
+        Component1 comp1 = container.getComponentByName("comp1");
+        Object blocking = container.getComponentByName("blocking");
+
+        BlockingComponent.entered = new CountDownLatch(1);
+        BlockingComponent.release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> reload = executor.submit(new Runnable() {
+                public void run() {
+                    container.reload();
+                }
+            });
+            assertTrue(BlockingComponent.entered.await(10, TimeUnit.SECONDS));
+
+            assertSame(comp1, container.getComponentByName("comp1"));
+            assertSame(comp1, container.getComponentByType(Component1.class));
+            assertSame(blocking, container.getComponentByName("blocking"));
+            Component2 lazy = container.getComponentByName("lazy");
+            assertEquals("lazy", lazy.getProp1());
+            assertSame(lazy, container.getComponentByType(Component2.class));
+            assertFalse(reload.isDone());
+
+            BlockingComponent.release.countDown();
+            reload.get(10, TimeUnit.SECONDS);
+        } finally {
+            BlockingComponent.release.countDown();
+            executor.shutdown();
+        }
+        assertFalse(comp1 == container.getComponentByName("comp1"));
+        assertFalse(blocking == container.getComponentByName("blocking"));
+        assertEquals("lazy", ((Component2) container.getComponentByName("lazy")).getProp1());
+    }
+
+    /**
+     * 型のインデックスは、コンポーネントごとに従来と同じ回数だけ型を登録した結果となること。
+     * <p/>
+     * 祖先クラスと、複数の階層で実装したインタフェースは、コンポーネントが1つでも複数回登録するため、型では取得できない。
+     * 同じクラスのコンポーネントを複数定義した場合は、全ての型が型では取得できない。
+     */
+    @Test
+    public void testTypeIndex() throws Throwable {
+        File file = temp.newFile("typeIndex.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="leaf" class="nablarch.core.repository.di.DiContainerTest$HierarchyLeaf" />
+            <component name="factory" class="nablarch.core.repository.di.DiContainerTest$HierarchyFactory" />
+        </component-configuration>
+        */
+        DiContainer container = new DiContainer(new XmlComponentDefinitionLoader(file.toURI().toString()));
+        for (int i = 0; i < 2; i++) {
+            Object leaf = container.getComponentByName("leaf");
+            assertSame(leaf, container.getComponentByType(HierarchyLeaf.class));
+            assertSame(leaf, container.getComponentByType(HierarchyMiddle.class));
+            assertNull(container.getComponentByType(HierarchyBase.class));
+            assertNull(container.getComponentByType(HierarchyInterface.class));
+            assertSame(leaf, container.getComponentByType(Cloneable.class));
+            // ComponentFactoryは生成するオブジェクトの型で登録する。
+            assertTrue(container.getComponentByType(HierarchyProduct.class) instanceof HierarchyProduct);
+            assertNull(container.getComponentByType(HierarchyFactory.class));
+            container.reload();
+        }
+
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="middle1" class="nablarch.core.repository.di.DiContainerTest$HierarchyMiddle" />
+            <component name="middle2" class="nablarch.core.repository.di.DiContainerTest$HierarchyMiddle" />
+        </component-configuration>
+        */
+        container.reload();
+        assertNull(container.getComponentByType(HierarchyMiddle.class));
+        assertNull(container.getComponentByType(HierarchyBase.class));
+    }
+
+    /**
+     * 型をキーに、その型で登録した全てのコンポーネントを定義順に取得できること。
+     * 型では取得できない型や、生成を遅延したコンポーネントも取得できること。
+     */
+    @Test
+    public void testGetComponentsByType() throws Throwable {
+        File file = temp.newFile("componentsByType.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="middle" class="nablarch.core.repository.di.DiContainerTest$HierarchyMiddle" />
+            <component name="leaf" class="nablarch.core.repository.di.DiContainerTest$HierarchyLeaf" lazy-init="true" />
+            <component name="base" class="nablarch.core.repository.di.DiContainerTest$HierarchyBase" />
+            <component name="factory" class="nablarch.core.repository.di.DiContainerTest$HierarchyFactory" />
+        </component-configuration>
+        */
+        DiContainer container = new DiContainer(new XmlComponentDefinitionLoader(file.toURI().toString()));
+        List<HierarchyInterface> components = container.getComponentsByType(HierarchyInterface.class);
+        assertEquals(3, components.size());
+        assertSame(container.getComponentByName("middle"), components.get(0));
+        assertSame(container.getComponentByName("leaf"), components.get(1));
+        assertSame(container.getComponentByName("base"), components.get(2));
+        assertSame(components, container.getComponentsByType(HierarchyInterface.class));
+        try {
+            components.add(new HierarchyBase());
+            fail("変更できないはず");
+        } catch (UnsupportedOperationException e) {
+            // OK
+        }
+
+        List<HierarchyMiddle> middles = container.getComponentsByType(HierarchyMiddle.class);
+        assertEquals(2, middles.size());
+        assertSame(components.get(0), middles.get(0));
+        assertSame(components.get(1), middles.get(1));
+        assertEquals(1, container.getComponentsByType(HierarchyLeaf.class).size());
+        // ComponentFactoryは生成するオブジェクトの型で登録する。
+        assertSame(container.getComponentByName("factory"),
+                container.getComponentsByType(HierarchyProduct.class).get(0));
+        assertTrue(container.getComponentsByType(HierarchyFactory.class).isEmpty());
+        assertTrue(container.getComponentsByType(Component1.class).isEmpty());
+
+        // 再読み込み後は、再生成したコンポーネントを取得する。
+        container.reload();
+        List<HierarchyInterface> reloaded = container.getComponentsByType(HierarchyInterface.class);
+        assertEquals(3, reloaded.size());
+        assertTrue(components.get(0) != reloaded.get(0));
+        assertSame(container.getComponentByName("middle"), reloaded.get(0));
+    }
+
+    /** 型のインデックスのテストで使用するインタフェース。 */
+    public interface HierarchyInterface {
+    }
+
+    /** 型のインデックスのテストで使用する基底クラス。 */
+    public static class HierarchyBase implements HierarchyInterface {
+    }
+
+    /** 型のインデックスのテストで使用する中間のクラス。 */
+    public static class HierarchyMiddle extends HierarchyBase {
+    }
+
+    /** 型のインデックスのテストで使用するクラス。 */
+    public static class HierarchyLeaf extends HierarchyMiddle implements HierarchyInterface, Cloneable {
+    }
+
+    /** 型のインデックスのテストで使用するファクトリ。 */
+    public static class HierarchyFactory implements ComponentFactory<HierarchyProduct> {
+        public HierarchyProduct createObject() {
+            return new HierarchyProduct();
+        }
+    }
+
+    /** 型のインデックスのテストで使用するファクトリが生成するクラス。 */
+    public static class HierarchyProduct {
+    }
+
+    /**
+     * ファイルに文字列を書き込む。
+     *
+     * @param file ファイル
+     * @param content 書き込む文字列
+     */
+    private static void writeFile(File file, String content) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * 初期化回数を記録するコンポーネント。
+     */
+    public static class CountingInitializable implements Initializable {
+        private int count;
+        public void initialize() {
+            count++;
+        }
+    }
+
     private static final class MockObjectLoader implements ObjectLoader {
         private Map<String, Object> values;
         public MockObjectLoader(Map<String, Object> values) {
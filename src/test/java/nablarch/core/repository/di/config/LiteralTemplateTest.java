@@ -0,0 +1,95 @@
+package nablarch.core.repository.di.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import nablarch.core.repository.di.ComponentDefinition;
+import nablarch.core.repository.di.ComponentDefinitionLoader;
+import nablarch.core.repository.di.DiContainer;
+import nablarch.core.repository.di.StoredValueComponentCreator;
+
+/**
+ * {@link LiteralTemplate}のテスト。
+ */
+public class LiteralTemplateTest {
+
+    /**
+     * 変数を含まないリテラル表現は、そのまま返却すること。
+     */
+    @Test
+    public void testNoVariable() {
+        DiContainer container = createContainer();
+        String literal = "no variable } ${";
+        LiteralTemplate template = LiteralTemplate.compile(literal);
+        assertSame(literal, template.resolve(container));
+        assertTrue(template.getVariableNames().isEmpty());
+
+        assertTrue(LiteralTemplate.compile(null).getVariableNames().isEmpty());
+    }
+
+    /**
+     * 変数を先頭から順に置き換えること。
+     * 置き換えた値に含まれる変数は、置き換えないこと。
+     */
+    @Test
+    public void testResolve() {
+        DiContainer container = createContainer();
+        LiteralTemplate template = LiteralTemplate.compile("${a}-${b}/${a}");
+        assertEquals("A-B/A", template.resolve(container));
+        assertEquals(Arrays.asList("a", "b", "a"), template.getVariableNames());
+
+        assertEquals("[${b}]", LiteralTemplate.compile("[${nested}]").resolve(container));
+    }
+
+    /**
+     * 値が見つからない変数と値が文字列でない変数は、置き換えずに残すこと。
+     */
+    @Test
+    public void testUnresolved() {
+        DiContainer container = createContainer();
+        assertEquals("${missing}-A-${number}", LiteralTemplate.compile("${missing}-${a}-${number}").resolve(container));
+
+        // 変数は"${"から最初の"}"まで
+        LiteralTemplate template = LiteralTemplate.compile("${a${b}}${}${a");
+        assertEquals(Arrays.asList("a${b", ""), template.getVariableNames());
+        assertEquals("${a${b}}${}${a", template.resolve(container));
+    }
+
+    /**
+     * テストで使用するコンテナを作成する。
+     *
+     * @return コンテナ
+     */
+    private static DiContainer createContainer() {
+        return new DiContainer(new ComponentDefinitionLoader() {
+            public List<ComponentDefinition> load(DiContainer container) {
+                List<ComponentDefinition> defs = new ArrayList<ComponentDefinition>();
+                defs.add(value(container, "a", "A"));
+                defs.add(value(container, "b", "B"));
+                defs.add(value(container, "nested", "${b}"));
+                defs.add(value(container, "number", 1));
+                return defs;
+            }
+        });
+    }
+
+    /**
+     * 値のコンポーネント定義を作成する。
+     *
+     * @param container コンテナ
+     * @param name 名前
+     * @param value 値
+     * @return コンポーネント定義
+     */
+    private static ComponentDefinition value(DiContainer container, String name, Object value) {
+        return new ComponentDefinition(container.generateId(), name,
+                new StoredValueComponentCreator(value), value.getClass());
+    }
+}
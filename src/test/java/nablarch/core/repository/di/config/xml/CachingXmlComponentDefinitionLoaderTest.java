@@ -0,0 +1,270 @@
+package nablarch.core.repository.di.config.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import nablarch.core.repository.di.ComponentDefinition;
+import nablarch.core.repository.di.ComponentReference;
+import nablarch.core.repository.di.DiContainer;
+import nablarch.core.repository.di.config.DuplicateDefinitionPolicy;
+import nablarch.core.repository.di.test.Component1;
+import nablarch.core.repository.di.test.Component2;
+import nablarch.core.repository.di.test.Component3;
+import nablarch.core.util.FileUtil;
+import nablarch.test.support.tool.Hereis;
+
+/**
+ * {@link CachingXmlComponentDefinitionLoader}のテスト。
+ */
+public class CachingXmlComponentDefinitionLoaderTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    /** ルートとなるコンポーネント設定ファイル */
+    private File rootFile;
+
+    /** キャッシュファイル */
+    private File cacheFile;
+
+    @Before
+    public void setUp() throws Exception {
+        File importDir = temp.newFolder("components");
+        rootFile = new File(temp.getRoot(), "root.xml");
+        cacheFile = new File(temp.getRoot(), "cache/definitions.bin");
+
+        Hereis.file(new File(temp.getRoot(), "env.config").getAbsolutePath()); /*
+        env.value = value from config file
+        */
+        Hereis.file(rootFile.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <config-file file="env.config" dir="." />
+            <import dir="components" file="*.xml" />
+            <component name="comp1" class="nablarch.core.repository.di.test.Component1">
+                <property name="prop1" value="${env.value}" />
+                <property name="intProp" value="10" />
+                <property name="arrayProp1" value="a,b" />
+                <property name="component2" ref="comp2" />
+            </component>
+            <component name="comp3" class="nablarch.core.repository.di.test.Component3" lazy-init="true">
+                <property name="listProp">
+                    <list>
+                        <component-ref name="comp1" />
+                        <value>literal</value>
+                        <component class="nablarch.core.repository.di.test.Component2">
+                            <property name="prop1" value="nested in list" />
+                        </component>
+                    </list>
+                </property>
+                <property name="mapProp">
+                    <map>
+                        <entry key="key1" value="value1" />
+                        <entry key="key2" value-name="comp2" />
+                        <entry key-name="comp1">
+                            <value-component class="nablarch.core.repository.di.test.Component2">
+                                <property name="prop1" value="nested in map" />
+                            </value-component>
+                        </entry>
+                    </map>
+                </property>
+            </component>
+        </component-configuration>
+        */
+        Hereis.file(new File(importDir, "comp2.xml").getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="comp2" class="nablarch.core.repository.di.test.Component2">
+                <property name="prop1" value="original" />
+            </component>
+            <component name="comp2" class="nablarch.core.repository.di.test.Component2">
+                <property name="prop1" value="overridden" />
+            </component>
+        </component-configuration>
+        */
+    }
+
+    /**
+     * 初回の読み込みでキャッシュファイルが保存され、
+     * 2回目の読み込みではキャッシュファイルから同じコンポーネント定義が復元されること。
+     */
+    @Test
+    public void testLoadFromCache() throws Exception {
+        DiContainer parsed = new DiContainer(new CachingXmlComponentDefinitionLoader(url(), cacheFile));
+        assertTrue(cacheFile.isFile());
+        // キャッシュファイルが読み込まれた場合は、キャッシュファイルを再保存しない。
+        assertTrue(cacheFile.setLastModified(0));
+
+        DiContainer cached = new DiContainer(new CachingXmlComponentDefinitionLoader(url(), cacheFile));
+        assertEquals(0, cacheFile.lastModified());
+
+        assertComponents(parsed);
+        assertComponents(cached);
+        assertDefinitions(
+                new XmlComponentDefinitionLoader(url()).load(new DiContainer(new XmlComponentDefinitionLoader(url()))),
+                new CachingXmlComponentDefinitionLoader(url(), cacheFile).load(
+                        new DiContainer(new XmlComponentDefinitionLoader(url()))));
+    }
+
+    /**
+     * 設定ファイルの内容が変更された場合、キャッシュファイルを使用せずに読み込み、キャッシュファイルを再保存すること。
+     */
+    @Test
+    public void testChangedResource() throws Exception {
+        new DiContainer(new CachingXmlComponentDefinitionLoader(url(), cacheFile));
+        assertTrue(cacheFile.setLastModified(0));
+
+        Hereis.file(new File(temp.getRoot(), "env.config").getAbsolutePath()); /*
+        env.value = changed value
+        */
+        DiContainer container = new DiContainer(new CachingXmlComponentDefinitionLoader(url(), cacheFile));
+        assertTrue(cacheFile.lastModified() != 0);
+        Component1 comp1 = container.getComponentByName("comp1");
+        assertEquals("changed value", comp1.getProp1());
+    }
+
+    /**
+     * ディレクトリ指定で読み込むファイルが追加された場合、キャッシュファイルを使用せずに読み込むこと。
+     */
+    @Test
+    public void testAddedFile() throws Exception {
+        new DiContainer(new CachingXmlComponentDefinitionLoader(url(), cacheFile));
+
+        Hereis.file(new File(temp.getRoot(), "components/comp4.xml").getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="comp4" class="nablarch.core.repository.di.test.Component2">
+                <property name="prop1" value="added" />
+            </component>
+        </component-configuration>
+        */
+        DiContainer container = new DiContainer(new CachingXmlComponentDefinitionLoader(url(), cacheFile));
+        Component2 comp4 = container.getComponentByName("comp4");
+        assertEquals("added", comp4.getProp1());
+    }
+
+    /**
+     * ルートとなるファイルや重複定義のポリシーが異なる場合、キャッシュファイルを使用しないこと。
+     */
+    @Test
+    public void testDifferentKey() throws Exception {
+        new DiContainer(new CachingXmlComponentDefinitionLoader(url(), cacheFile));
+        assertTrue(cacheFile.setLastModified(0));
+
+        new DiContainer(new CachingXmlComponentDefinitionLoader(url(), DuplicateDefinitionPolicy.OVERRIDE, cacheFile));
+        assertEquals(0, cacheFile.lastModified());
+
+        File other = new File(temp.getRoot(), "other.xml");
+        Hereis.file(other.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="other" class="nablarch.core.repository.di.test.Component2" />
+        </component-configuration>
+        */
+        DiContainer container = new DiContainer(
+                new CachingXmlComponentDefinitionLoader(other.toURI().toString(), cacheFile));
+        assertTrue(container.getComponentByName("other") instanceof Component2);
+        assertTrue(container.getComponentByName("comp1") == null);
+    }
+
+    /**
+     * キャッシュファイルが破損している場合、設定ファイルから読み込み、キャッシュファイルを再保存すること。
+     */
+    @Test
+    public void testBrokenCache() throws Exception {
+        new DiContainer(new CachingXmlComponentDefinitionLoader(url(), cacheFile));
+        long length = cacheFile.length();
+        FileOutputStream out = new FileOutputStream(cacheFile);
+        try {
+            out.write(new byte[] {0x4e, 0x43, 0x44, 0x43, 0, 0, 0, 1, 0, 0});
+        } finally {
+            FileUtil.closeQuietly(out);
+        }
+
+        DiContainer container = new DiContainer(new CachingXmlComponentDefinitionLoader(url(), cacheFile));
+        assertComponents(container);
+        assertEquals(length, cacheFile.length());
+    }
+
+    /**
+     * コンテナが保持するコンポーネントを確認する。
+     *
+     * @param container コンテナ
+     */
+    private static void assertComponents(DiContainer container) {
+        Component1 comp1 = container.getComponentByName("comp1");
+        assertEquals("value from config file", comp1.getProp1());
+        assertEquals(10, comp1.getIntProp());
+        assertEquals(2, comp1.getArrayProp1().length);
+        Component2 comp2 = container.getComponentByName("comp2");
+        assertEquals("overridden", comp2.getProp1());
+        assertTrue(comp2 == comp1.getComponent2());
+
+        Component3 comp3 = container.getComponentByName("comp3");
+        List<Object> list = comp3.getListProp();
+        assertEquals(3, list.size());
+        assertTrue(comp1 == list.get(0));
+        assertEquals("literal", list.get(1));
+        assertEquals("nested in list", ((Component2) list.get(2)).getProp1());
+        Map<Object, Object> map = comp3.getMapProp();
+        assertEquals("value1", map.get("key1"));
+        assertTrue(comp2 == map.get("key2"));
+        assertEquals("nested in map", ((Component2) map.get(comp1)).getProp1());
+    }
+
+    /**
+     * 復元したコンポーネント定義が、設定ファイルから読み込んだものと同じであることを確認する。
+     * <p/>
+     * コンポーネントIDは採番し直されるため、定義の順序と参照の構造で比較する。
+     *
+     * @param expected 設定ファイルから読み込んだ定義
+     * @param actual キャッシュファイルから復元した定義
+     */
+    private static void assertDefinitions(List<ComponentDefinition> expected, List<ComponentDefinition> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            ComponentDefinition e = expected.get(i);
+            ComponentDefinition a = actual.get(i);
+            assertEquals(e.getName(), a.getName());
+            assertEquals(e.getType(), a.getType());
+            assertEquals(e.isUseIdOnly(), a.isUseIdOnly());
+            assertEquals(e.isLazyInit(), a.isLazyInit());
+            assertEquals(e.getCreator().getClass(), a.getCreator().getClass());
+            assertEquals(normalizeIds(e.getCreator().toString()), normalizeIds(a.getCreator().toString()));
+            assertEquals(e.getReferences().size(), a.getReferences().size());
+            for (int j = 0; j < e.getReferences().size(); j++) {
+                ComponentReference er = e.getReferences().get(j);
+                ComponentReference ar = a.getReferences().get(j);
+                assertEquals(er.getPropertyName(), ar.getPropertyName());
+                assertEquals(er.getReferenceName(), ar.getReferenceName());
+                assertEquals(er.getRequiredType(), ar.getRequiredType());
+                assertEquals(er.getInjectionType(), ar.getInjectionType());
+            }
+        }
+    }
+
+    /**
+     * 文字列表現に含まれるコンポーネントIDとハッシュコードを除去する。
+     *
+     * @param value 文字列表現
+     * @return コンポーネントIDとハッシュコードを除去した文字列表現
+     */
+    private static String normalizeIds(String value) {
+        return value.replaceAll("@[0-9a-f]+|\\d+", "");
+    }
+
+    /**
+     * ルートとなるコンポーネント設定ファイルのURL表現を取得する。
+     *
+     * @return URL表現
+     */
+    private String url() {
+        return rootFile.toURI().toString();
+    }
+}
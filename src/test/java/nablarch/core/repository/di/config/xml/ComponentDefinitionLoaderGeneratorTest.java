@@ -0,0 +1,358 @@
+package nablarch.core.repository.di.config.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import nablarch.core.repository.di.ComponentDefinition;
+import nablarch.core.repository.di.ComponentDefinitionLoader;
+import nablarch.core.repository.di.ComponentReference;
+import nablarch.core.repository.di.DiContainer;
+import nablarch.core.repository.di.DiContainerOptions;
+import nablarch.core.repository.di.config.BeanComponentCreator;
+import nablarch.core.repository.di.config.GeneratedComponentCreator;
+import nablarch.core.repository.di.test.Component1;
+import nablarch.core.repository.di.test.Component2;
+import nablarch.core.repository.di.test.Component3;
+import nablarch.core.repository.di.test.FactoryMethodComponent;
+import nablarch.core.repository.di.test.NestedComponent;
+import nablarch.test.support.tool.Hereis;
+
+/**
+ * {@link ComponentDefinitionLoaderGenerator}のテスト。
+ */
+public class ComponentDefinitionLoaderGeneratorTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    /** 生成するクラスの完全修飾名 */
+    private static final String CLASS_NAME = "generated.test.TestComponentDefinitionLoader";
+
+    /** ルートとなるコンポーネント設定ファイル */
+    private File rootFile;
+
+    /** ソースコードの出力先 */
+    private File outputDir;
+
+    @Before
+    public void setUp() throws Exception {
+        rootFile = new File(temp.getRoot(), "root.xml");
+        outputDir = temp.newFolder("generated");
+
+        Hereis.file(new File(temp.getRoot(), "env.config").getAbsolutePath()); /*
+        env.value = value from config file
+        */
+        Hereis.file(rootFile.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <config-file file="env.config" dir="." />
+            <component name="comp1" class="nablarch.core.repository.di.test.Component1">
+                <property name="prop1" value="${env.value}" />
+                <property name="intProp" value="10" />
+                <property name="boolProp" value="true" />
+                <property name="arrayProp1" value="a,b" />
+                <property name="component2" ref="comp2" />
+            </component>
+            <component name="comp2" class="nablarch.core.repository.di.test.Component2">
+                <property name="prop1" value="comp2 &quot;value&quot;" />
+            </component>
+            <component name="comp3" class="nablarch.core.repository.di.test.Component3" lazy-init="true">
+                <property name="listProp">
+                    <list>
+                        <component-ref name="comp1" />
+                        <value>literal</value>
+                        <component class="nablarch.core.repository.di.test.Component2">
+                            <property name="prop1" value="nested in list" />
+                        </component>
+                    </list>
+                </property>
+                <property name="mapProp">
+                    <map>
+                        <entry key="key1" value="value1" />
+                        <entry key="key2" value-name="comp2" />
+                        <entry key-name="comp1">
+                            <value-component class="nablarch.core.repository.di.test.Component2">
+                                <property name="prop1" value="nested in map" />
+                            </value-component>
+                        </entry>
+                    </map>
+                </property>
+            </component>
+            <component name="factory" class="nablarch.core.repository.di.test.Component2ComponentFactory">
+                <property name="factoryProperty" value="created by factory" />
+            </component>
+            <component name="nested" class="nablarch.core.repository.di.test.NestedComponent" autowireType="ByName">
+                <property name="stringProp" value="parent" />
+            </component>
+            <component name="child" class="nablarch.core.repository.di.test.NestedComponent">
+                <property name="stringProp" value="child" />
+            </component>
+            <component name="created" class="nablarch.core.repository.di.test.FactoryMethodComponent" factory-method="create">
+                <property name="name" value="created" />
+            </component>
+            <component name="hiddenCreated" class="nablarch.core.repository.di.test.FactoryMethodComponent" factory-method="createHidden" />
+            <component name="holder" class="nablarch.core.repository.di.config.xml.ComponentDefinitionLoaderGeneratorTest$Holder">
+                <property name="hidden">
+                    <component class="nablarch.core.repository.di.config.xml.ComponentDefinitionLoaderGeneratorTest$Hidden$Component">
+                        <property name="prop1" value="hidden" />
+                    </component>
+                </property>
+            </component>
+        </component-configuration>
+        */
+    }
+
+    /**
+     * 生成したクラスから、設定ファイルと同じコンポーネント定義が作成され、
+     * 同じ内容のコンポーネントが生成されること。
+     */
+    @Test
+    public void testGenerate() throws Exception {
+        ComponentDefinitionLoader loader = generateAndCompile(rootFile);
+
+        DiContainer generated = new DiContainer(loader);
+        assertComponents(generated);
+        assertComponents(new DiContainer(new XmlComponentDefinitionLoader(url())));
+
+        List<ComponentDefinition> definitions = loader.load(new DiContainer(new EmptyLoader()));
+        assertDefinitions(new XmlComponentDefinitionLoader(url()).load(new DiContainer(new EmptyLoader())),
+                definitions);
+        for (ComponentDefinition def : definitions) {
+            if ("comp1".equals(def.getName()) || "holder".equals(def.getName()) || "created".equals(def.getName())) {
+                assertTrue(def.getCreator() instanceof GeneratedComponentCreator);
+                assertTrue(def.getInjector() == def.getCreator());
+            } else if (def.getType() == Hidden.Component.class || "hiddenCreated".equals(def.getName())) {
+                // 生成したソースコードから参照できないクラスは、リフレクションで生成する。
+                assertTrue(def.getCreator() instanceof BeanComponentCreator);
+                assertTrue(def.getInjector() == null);
+            }
+        }
+    }
+
+    /**
+     * 並行してコンポーネントを生成する場合も、依存先のコンポーネントが先に生成されること。
+     */
+    @Test
+    public void testGenerateWithParallelCreation() throws Exception {
+        ComponentDefinitionLoader loader = generateAndCompile(rootFile);
+
+        DiContainerOptions options = new DiContainerOptions();
+        options.setParallelism(2);
+        assertComponents(new DiContainer(loader, options));
+    }
+
+    /**
+     * ネストクラスの分割単位を超える数のコンポーネント定義から生成できること。
+     */
+    @Test
+    public void testManyDefinitions() throws Exception {
+        File file = new File(temp.getRoot(), "many.xml");
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            out.write("<component-configuration xmlns=\"http://tis.co.jp/nablarch/component-configuration\">\n");
+            for (int i = 0; i < 150; i++) {
+                out.write("<component name=\"comp" + i + "\" class=\"" + Component2.class.getName() + "\">\n");
+                out.write("  <property name=\"prop1\" value=\"値" + i + "\" />\n");
+                out.write("</component>\n");
+            }
+            out.write("</component-configuration>\n");
+        } finally {
+            out.close();
+        }
+
+        DiContainer container = new DiContainer(generateAndCompile(file));
+        for (int i = 0; i < 150; i++) {
+            Component2 comp = container.getComponentByName("comp" + i);
+            assertEquals("値" + i, comp.getProp1());
+        }
+    }
+
+    /**
+     * mainメソッドの引数が不正な場合、例外が送出されること。
+     */
+    @Test
+    public void testMainInvalidArguments() throws Exception {
+        try {
+            ComponentDefinitionLoaderGenerator.main(new String[] {url(), CLASS_NAME});
+            fail("does not run.");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().startsWith("usage: "));
+        }
+    }
+
+    /**
+     * コンテナが保持するコンポーネントを確認する。
+     *
+     * @param container コンテナ
+     */
+    private static void assertComponents(DiContainer container) {
+        Component1 comp1 = container.getComponentByName("comp1");
+        assertEquals("value from config file", comp1.getProp1());
+        assertEquals(10, comp1.getIntProp());
+        assertTrue(comp1.isBoolProp());
+        assertEquals(2, comp1.getArrayProp1().length);
+        Component2 comp2 = container.getComponentByName("comp2");
+        assertEquals("comp2 \"value\"", comp2.getProp1());
+        assertTrue(comp2 == comp1.getComponent2());
+
+        Component3 comp3 = container.getComponentByName("comp3");
+        List<Object> list = comp3.getListProp();
+        assertEquals(3, list.size());
+        assertTrue(comp1 == list.get(0));
+        assertEquals("literal", list.get(1));
+        assertEquals("nested in list", ((Component2) list.get(2)).getProp1());
+        Map<Object, Object> map = comp3.getMapProp();
+        assertEquals("value1", map.get("key1"));
+        assertTrue(comp2 == map.get("key2"));
+        assertEquals("nested in map", ((Component2) map.get(comp1)).getProp1());
+
+        Component2 factory = container.getComponentByName("factory");
+        assertEquals("created by factory", factory.getProp1());
+
+        NestedComponent nested = container.getComponentByName("nested");
+        assertEquals("parent", nested.getStringProp());
+        assertTrue(container.getComponentByName("child") == nested.getChild());
+
+        FactoryMethodComponent created = container.getComponentByName("created");
+        assertEquals("factory", created.getCreatedBy());
+        assertEquals("created", created.getName());
+        FactoryMethodComponent hiddenCreated = container.getComponentByName("hiddenCreated");
+        assertEquals("hidden factory", hiddenCreated.getCreatedBy());
+
+        Holder holder = container.getComponentByName("holder");
+        assertNotNull(holder.hidden);
+        assertEquals("hidden", holder.hidden.prop1);
+    }
+
+    /**
+     * 生成したクラスのコンポーネント定義が、設定ファイルから読み込んだものと同じであることを確認する。
+     *
+     * @param expected 設定ファイルから読み込んだ定義
+     * @param actual 生成したクラスが作成した定義
+     */
+    private static void assertDefinitions(List<ComponentDefinition> expected, List<ComponentDefinition> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            ComponentDefinition e = expected.get(i);
+            ComponentDefinition a = actual.get(i);
+            assertEquals(e.getName(), a.getName());
+            assertEquals(e.getType(), a.getType());
+            assertEquals(e.isUseIdOnly(), a.isUseIdOnly());
+            assertEquals(e.isLazyInit(), a.isLazyInit());
+            assertEquals(e.getReferences().size(), a.getReferences().size());
+            for (int j = 0; j < e.getReferences().size(); j++) {
+                ComponentReference er = e.getReferences().get(j);
+                ComponentReference ar = a.getReferences().get(j);
+                assertEquals(er.getPropertyName(), ar.getPropertyName());
+                assertEquals(er.getReferenceName(), ar.getReferenceName());
+                assertEquals(er.getRequiredType(), ar.getRequiredType());
+                assertEquals(er.getInjectionType(), ar.getInjectionType());
+            }
+        }
+    }
+
+    /**
+     * ソースコードを生成してコンパイルし、生成したクラスのインスタンスを作成する。
+     * <p/>
+     * コンパイラを使用できない環境(JREのみの環境)では、テストをスキップする。
+     *
+     * @param file コンポーネント設定ファイル
+     * @return 生成したクラスのインスタンス
+     * @throws Exception 生成またはコンパイルに失敗した場合
+     */
+    private ComponentDefinitionLoader generateAndCompile(File file) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeNotNull(compiler);
+
+        ComponentDefinitionLoaderGenerator.main(new String[] {
+                file.toURI().toString(), CLASS_NAME, outputDir.getPath()});
+        File source = new File(outputDir, CLASS_NAME.replace('.', '/') + ".java");
+        assertTrue(source.isFile());
+
+        List<String> args = new ArrayList<String>();
+        args.add("-nowarn");
+        args.add("-encoding");
+        args.add("UTF-8");
+        args.add("-classpath");
+        args.add(System.getProperty("java.class.path"));
+        args.add("-d");
+        args.add(outputDir.getPath());
+        args.add(source.getPath());
+        assertEquals(0, compiler.run(null, null, null, args.toArray(new String[args.size()])));
+
+        ClassLoader classLoader = new URLClassLoader(new URL[] {outputDir.toURI().toURL()},
+                getClass().getClassLoader());
+        return (ComponentDefinitionLoader) classLoader.loadClass(CLASS_NAME).newInstance();
+    }
+
+    /**
+     * ルートとなるコンポーネント設定ファイルのURL表現を取得する。
+     *
+     * @return URL表現
+     */
+    private String url() {
+        return rootFile.toURI().toString();
+    }
+
+    /**
+     * setterの引数の型を、生成したソースコードから参照できないコンポーネント。
+     */
+    public static class Holder {
+
+        /** 参照できないクラスのコンポーネント */
+        private Hidden.Component hidden;
+
+        public void setHidden(Hidden.Component hidden) {
+            this.hidden = hidden;
+        }
+    }
+
+    /**
+     * 生成したソースコードから参照できないクラスを保持するクラス。
+     */
+    private static class Hidden {
+
+        /**
+         * 生成したソースコードから参照できないが、リフレクションでは生成できるコンポーネント。
+         */
+        public static class Component {
+
+            /** プロパティ */
+            private String prop1;
+
+            public void setProp1(String prop1) {
+                this.prop1 = prop1;
+            }
+        }
+    }
+
+    /**
+     * コンポーネント定義を持たないローダ。
+     */
+    private static class EmptyLoader implements ComponentDefinitionLoader {
+        /** {@inheritDoc} */
+        public List<ComponentDefinition> load(DiContainer container) {
+            return new ArrayList<ComponentDefinition>();
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package nablarch.core.repository.di.config.xml;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import nablarch.core.repository.di.ComponentDefinition;
+import nablarch.core.repository.di.ComponentDefinitionLoader;
+import nablarch.core.repository.di.ConfigurationLoadException;
+import nablarch.core.repository.di.DiContainer;
+import nablarch.core.repository.di.config.DuplicateDefinitionPolicy;
+import nablarch.core.repository.di.test.Component1;
+import nablarch.core.repository.di.test.Component2;
+import nablarch.test.support.tool.Hereis;
+
+/**
+ * {@link ComponentDefinitionStreamParser}のテスト。
+ */
+public class ComponentDefinitionStreamParserTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * 既存の設定ファイルから、ツリーで解析した場合と同じコンポーネント定義を作成すること。
+     */
+    @Test
+    public void testSameAsTree() throws Exception {
+        String[] urls = {
+                "classpath:nablarch/core/repository/di/example/collection/collection.xml",
+                "classpath:nablarch/core/repository/di/example/nested/hello-nested.xml",
+                "classpath:nablarch/core/repository/di/example/autowire/hello-autowire.xml",
+                "classpath:nablarch/core/repository/di/example/primitivevalue/primitivevalue.xml",
+                "classpath:nablarch/core/repository/di/example/factory/factory-example.xml",
+                "classpath:nablarch/core/repository/di/example/imp/import.xml",
+                "classpath:nablarch/core/repository/di/example/imp/importDirParent.xml",
+                "classpath:nablarch/core/repository/di/example/override/hello-override.xml",
+                "classpath:nablarch/core/repository/di/config_override/override.xml",
+                "classpath:nablarch/core/repository/di/config/importfile_test_context.xml",
+                "classpath:nablarch/core/repository/di/config/configfile_test_context.xml",
+        };
+        for (String url : urls) {
+            assertSameDefinitions(url, DuplicateDefinitionPolicy.OVERRIDE);
+        }
+    }
+
+    /**
+     * 複数の設定を記述した場合に、ツリーで解析した場合と同じ設定を優先し、
+     * 使用しない子要素からはコンポーネント定義を作成しないこと。
+     */
+    @Test
+    public void testPriority() throws Exception {
+        File file = temp.newFile("priority.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <?xml version="1.0" encoding="UTF-8"?>
+        <!-- コメント -->
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="comp1" class="nablarch.core.repository.di.test.Component1" autowireType="None">
+                <property name="prop1" value="value wins">
+                    <component class="nablarch.core.repository.di.test.Component2" />
+                </property>
+                <property name="component2" ref="comp2">
+                    <component name="inner" class="nablarch.core.repository.di.test.Component2" lazy-init="1">
+                        <property name="prop1" value="inner &amp; value" />
+                    </component>
+                </property>
+            </component>
+            <component name="comp2" class="nablarch.core.repository.di.test.Component2" autowireType="ByName" />
+            <map name="map">
+                <entry key="key wins" value="value wins">
+                    <key-component class="nablarch.core.repository.di.test.Component2" />
+                    <value-component class="nablarch.core.repository.di.test.Component2" />
+                </entry>
+                <entry key-name="comp2">
+                    <value-component name="valueComp" class="nablarch.core.repository.di.test.Component2" />
+                </entry>
+            </map>
+            <list name="list">
+                <value>  text  </value>
+                <value><![CDATA[<cdata>]]>&amp;</value>
+                <component-ref name="comp2" />
+            </list>
+            <component name="comp1" class="nablarch.core.repository.di.test.Component1">
+                <property name="prop1" value="override" />
+            </component>
+        </component-configuration>
+        */
+        String url = file.toURI().toString();
+        assertSameDefinitions(url, DuplicateDefinitionPolicy.OVERRIDE);
+
+        XmlComponentDefinitionLoader loader = new XmlComponentDefinitionLoader(url);
+        loader.setStreamingParse(true);
+        DiContainer container = new DiContainer(loader);
+        Component1 comp1 = container.getComponentByName("comp1");
+        assertEquals("override", comp1.getProp1());
+        assertEquals("inner & value", comp1.getComponent2().getProp1());
+        Map<?, ?> map = container.getComponentByName("map");
+        assertEquals("value wins", map.get("key wins"));
+        assertTrue(map.get(container.getComponentByName("comp2")) instanceof Component2);
+        List<?> list = container.getComponentByName("list");
+        assertEquals("  text  ", list.get(0));
+        assertEquals("<cdata>&", list.get(1));
+        assertTrue(list.get(2) instanceof Component2);
+    }
+
+    /**
+     * 重複を許可しない場合も、ツリーで解析した場合と同じ例外を送出すること。
+     */
+    @Test
+    public void testDuplicateName() throws Exception {
+        File file = temp.newFile("duplicate.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="comp2" class="nablarch.core.repository.di.test.Component2" />
+            <component name="comp2" class="nablarch.core.repository.di.test.Component2" />
+        </component-configuration>
+        */
+        try {
+            load(file.toURI().toString(), DuplicateDefinitionPolicy.DENY, true);
+            fail("例外が発生するはず");
+        } catch (ConfigurationLoadException e) {
+            assertEquals("component name was duplicated. name = comp2", e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * 記述できない要素がある場合は、例外を送出すること。
+     */
+    @Test
+    public void testInvalidElement() throws Exception {
+        assertInvalid("processor was not found. element name = componen",
+                "<componen name='comp1' class='nablarch.core.repository.di.test.Component1' />");
+        assertInvalid("xml format was not valid.",
+                "<component-configuration />");
+        assertInvalid("xml format was not valid.",
+                "<property name='prop1' value='a' />");
+        assertInvalid("xml format was not valid.",
+                "<import file='a.xml'><component class='nablarch.core.repository.di.test.Component2' /></import>");
+        assertInvalid("processor was not found. element name = unknown",
+                "<component class='nablarch.core.repository.di.test.Component1'>"
+                + "<property name='prop1' value='a'><unknown /></property></component>");
+        assertInvalid("property value was not found. propertyName = prop1",
+                "<component class='nablarch.core.repository.di.test.Component2'><property name='prop1' /></component>");
+        assertInvalid("map entry must have key value.",
+                "<map><entry key='a' /></map>");
+        // XMLスキーマで1つまでとしている子要素
+        assertInvalid("xml format was not valid.",
+                "<component class='nablarch.core.repository.di.test.Component1'><property name='component2'>"
+                + "<component class='nablarch.core.repository.di.test.Component2' />"
+                + "<component class='nablarch.core.repository.di.test.Component2' /></property></component>");
+        assertInvalid("xml format was not valid.",
+                "<map><entry>"
+                + "<value-component class='nablarch.core.repository.di.test.Component2' />"
+                + "<key-component class='nablarch.core.repository.di.test.Component2' /></entry></map>");
+
+        File file = temp.newFile("broken.xml");
+        Hereis.file(file.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <component name="comp2" class="nablarch.core.repository.di.test.Component2">
+        </component-configuration>
+        */
+        try {
+            load(file.toURI().toString(), DuplicateDefinitionPolicy.OVERRIDE, true);
+            fail("例外が発生するはず");
+        } catch (ConfigurationLoadException e) {
+            assertEquals("component definition load failed.", e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * component-configuration要素の子要素が不正な場合に、例外を送出することを確認する。
+     *
+     * @param message 期待する例外のメッセージ
+     * @param content component-configuration要素の内容
+     */
+    private void assertInvalid(String message, String content) throws Exception {
+        File file = File.createTempFile("invalid", ".xml", temp.getRoot());
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write("<component-configuration xmlns=\"http://tis.co.jp/nablarch/component-configuration\">"
+                    + content + "</component-configuration>");
+        } finally {
+            writer.close();
+        }
+        try {
+            load(file.toURI().toString(), DuplicateDefinitionPolicy.OVERRIDE, true);
+            fail("例外が発生するはず: " + content);
+        } catch (ConfigurationLoadException e) {
+            assertEquals(content, message, e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * ストリームで解析した場合と、ツリーで解析した場合のコンポーネント定義が同じことを確認する。
+     * <p/>
+     * コンポーネント定義をキャッシュファイルの形式で出力し、比較する。
+     *
+     * @param url 設定ファイルのURL表現
+     * @param policy 重複した設定値を検出した際の動作ポリシー
+     */
+    private void assertSameDefinitions(String url, DuplicateDefinitionPolicy policy) throws Exception {
+        File expected = File.createTempFile("tree", ".bin", temp.getRoot());
+        File actual = File.createTempFile("stream", ".bin", temp.getRoot());
+        new ComponentDefinitionCache(url).write(expected, load(url, policy, false));
+        new ComponentDefinitionCache(url).write(actual, load(url, policy, true));
+        assertArrayEquals(url, readAll(expected), readAll(actual));
+    }
+
+    /**
+     * ファイルの内容を読み込む。
+     *
+     * @param file ファイル
+     * @return ファイルの内容
+     */
+    private static byte[] readAll(File file) throws Exception {
+        InputStream in = new FileInputStream(file);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                out.write(buf, 0, len);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * コンポーネント定義を読み込む。
+     *
+     * @param url 設定ファイルのURL表現
+     * @param policy 重複した設定値を検出した際の動作ポリシー
+     * @param streaming ストリームで解析する場合 true
+     * @return コンポーネント定義
+     */
+    private static List<ComponentDefinition> load(String url, DuplicateDefinitionPolicy policy, boolean streaming) {
+        XmlComponentDefinitionLoader loader = new XmlComponentDefinitionLoader(url, policy);
+        loader.setStreamingParse(streaming);
+        return loader.load(new DiContainer(new ComponentDefinitionLoader() {
+            public List<ComponentDefinition> load(DiContainer container) {
+                return Collections.emptyList();
+            }
+        }));
+    }
+}
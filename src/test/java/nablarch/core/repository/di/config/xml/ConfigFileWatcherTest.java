@@ -0,0 +1,317 @@
+package nablarch.core.repository.di.config.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import nablarch.core.repository.di.DiContainer;
+import nablarch.core.repository.di.test.Component1;
+import nablarch.core.repository.di.test.Component2;
+import nablarch.test.support.tool.Hereis;
+
+/**
+ * {@link ConfigFileWatcher}のテスト。
+ */
+public class ConfigFileWatcherTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    /** ルートとなるコンポーネント設定ファイル */
+    private File rootFile;
+
+    /** ファイル指定で読み込む環境設定ファイル */
+    private File envFile;
+
+    @Before
+    public void setUp() throws Exception {
+        File confDir = temp.newFolder("conf");
+        rootFile = new File(temp.getRoot(), "root.xml");
+        envFile = new File(temp.getRoot(), "env.config");
+
+        Hereis.file(envFile.getAbsolutePath()); /*
+        env.value = original
+        */
+        Hereis.file(new File(confDir, "a.config").getAbsolutePath()); /*
+        dir.value = original in dir
+        */
+        Hereis.file(rootFile.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <config-file file="env.config" dir="." />
+            <config-file file="*.config" dir="conf" />
+            <component name="comp1" class="nablarch.core.repository.di.test.Component1">
+                <property name="prop1" value="${env.value}" />
+                <property name="component2" ref="comp2" />
+            </component>
+            <component name="comp2" class="nablarch.core.repository.di.test.Component2">
+                <property name="prop1" value="${dir.value}" />
+            </component>
+            <component name="comp3" class="nablarch.core.repository.di.test.Component2">
+                <property name="prop1" value="fixed" />
+            </component>
+        </component-configuration>
+        */
+    }
+
+    /**
+     * 変更された値を参照するコンポーネントだけが再生成され、
+     * 変更前に取得したコンポーネントは変更前の値を保持したままであること。
+     */
+    @Test
+    public void testCheck() throws Exception {
+        XmlComponentDefinitionLoader loader = new XmlComponentDefinitionLoader(rootFile.toURI().toString());
+        DiContainer container = new DiContainer(loader);
+        ConfigFileWatcher watcher = new ConfigFileWatcher(container, loader);
+        watcher.setQuietPeriod(0);
+        Component1 comp1 = container.getComponentByName("comp1");
+        Component2 comp2 = container.getComponentByName("comp2");
+        Component2 comp3 = container.getComponentByName("comp3");
+
+        assertFalse(watcher.check());
+
+        Hereis.file(envFile.getAbsolutePath()); /*
+        env.value = changed
+        */
+        assertTrue(envFile.setLastModified(envFile.lastModified() + 2000));
+        assertTrue(watcher.check());
+
+        Component1 updated = container.getComponentByName("comp1");
+        assertEquals("changed", updated.getProp1());
+        assertEquals("changed", container.getComponentByName("env.value"));
+        assertEquals("original", comp1.getProp1());
+        assertSame(comp2, updated.getComponent2());
+        assertSame(comp2, container.getComponentByName("comp2"));
+        assertSame(comp3, container.getComponentByName("comp3"));
+
+        // 値が変わらない変更は反映しない。
+        Hereis.file(envFile.getAbsolutePath()); /*
+        # comment
+        env.value = changed
+        */
+        assertTrue(envFile.setLastModified(envFile.lastModified() + 4000));
+        assertFalse(watcher.check());
+        assertSame(updated, container.getComponentByName("comp1"));
+    }
+
+    /**
+     * ファイルが変化しなくなるまで、変更を反映しないこと。
+     */
+    @Test
+    public void testQuietPeriod() throws Exception {
+        XmlComponentDefinitionLoader loader = new XmlComponentDefinitionLoader(rootFile.toURI().toString());
+        DiContainer container = new DiContainer(loader);
+        ConfigFileWatcher watcher = new ConfigFileWatcher(container, loader);
+        watcher.setQuietPeriod(60000);
+
+        Hereis.file(envFile.getAbsolutePath()); /*
+        env.value = changed
+        */
+        assertTrue(envFile.setLastModified(envFile.lastModified() + 2000));
+        assertFalse(watcher.check());
+        assertEquals("original", container.getComponentByName("env.value"));
+
+        watcher.setQuietPeriod(0);
+        assertTrue(watcher.check());
+        assertEquals("changed", container.getComponentByName("env.value"));
+    }
+
+    /**
+     * ディレクトリ指定の場合、ファイルの変更と追加を反映すること。
+     */
+    @Test
+    public void testDirectory() throws Exception {
+        XmlComponentDefinitionLoader loader = new XmlComponentDefinitionLoader(rootFile.toURI().toString());
+        DiContainer container = new DiContainer(loader);
+        ConfigFileWatcher watcher = new ConfigFileWatcher(container, loader);
+        watcher.setQuietPeriod(0);
+        Component1 comp1 = container.getComponentByName("comp1");
+
+        File dirFile = new File(temp.getRoot(), "conf/a.config");
+        Hereis.file(dirFile.getAbsolutePath()); /*
+        dir.value = changed in dir
+        */
+        assertTrue(dirFile.setLastModified(dirFile.lastModified() + 2000));
+        Hereis.file(new File(temp.getRoot(), "conf/b.config").getAbsolutePath()); /*
+        added.value = added
+        */
+        assertTrue(watcher.check());
+
+        Component2 comp2 = container.getComponentByName("comp2");
+        assertEquals("changed in dir", comp2.getProp1());
+        Component1 updated = container.getComponentByName("comp1");
+        assertTrue(comp1 != updated);
+        assertSame(comp2, updated.getComponent2());
+        assertEquals("added", container.getComponentByName("added.value"));
+    }
+
+    /**
+     * 後のconfig-file要素で上書きされているキーは、前の環境設定ファイルで変更されても反映しないこと。
+     * 複数のファイルが同時に変更された場合も、config-file要素の順に上書きした値を反映すること。
+     */
+    @Test
+    public void testOverrideOrder() throws Exception {
+        File aFile = new File(temp.getRoot(), "a.config");
+        Hereis.file(aFile.getAbsolutePath()); /*
+        k = fromA
+        onlyA = fromA
+        */
+        File bFile = new File(temp.getRoot(), "b.config");
+        Hereis.file(bFile.getAbsolutePath()); /*
+        k = fromB
+        */
+        File orderFile = new File(temp.getRoot(), "order.xml");
+        Hereis.file(orderFile.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <config-file file="a.config" dir="." />
+            <config-file file="b.config" dir="." />
+        </component-configuration>
+        */
+        XmlComponentDefinitionLoader loader = new XmlComponentDefinitionLoader(orderFile.toURI().toString());
+        DiContainer container = new DiContainer(loader);
+        ConfigFileWatcher watcher = new ConfigFileWatcher(container, loader);
+        watcher.setQuietPeriod(0);
+        assertEquals("fromB", container.getComponentByName("k"));
+
+        Hereis.file(aFile.getAbsolutePath()); /*
+        k = fromA2
+        onlyA = fromA2
+        */
+        assertTrue(aFile.setLastModified(aFile.lastModified() + 2000));
+        assertTrue(watcher.check());
+        assertEquals("fromB", container.getComponentByName("k"));
+        assertEquals("fromA2", container.getComponentByName("onlyA"));
+
+        // 両方のファイルを変更した場合も、後のファイルの値を反映する。
+        Hereis.file(aFile.getAbsolutePath()); /*
+        k = fromA3
+        onlyA = fromA2
+        */
+        assertTrue(aFile.setLastModified(aFile.lastModified() + 4000));
+        Hereis.file(bFile.getAbsolutePath()); /*
+        k = fromB2
+        */
+        assertTrue(bFile.setLastModified(bFile.lastModified() + 4000));
+        assertTrue(watcher.check());
+        assertEquals("fromB2", container.getComponentByName("k"));
+    }
+
+    /**
+     * DIコンテナへの反映に失敗した場合は、ファイルを変更しなくても次の監視で改めて反映すること。
+     */
+    @Test
+    public void testRetryAfterFailure() throws Exception {
+        File failingFile = new File(temp.getRoot(), "failing.xml");
+        Hereis.file(failingFile.getAbsolutePath()); /*
+        <component-configuration xmlns="http://tis.co.jp/nablarch/component-configuration">
+            <config-file file="env.config" dir="." />
+            <component name="failing" class="nablarch.core.repository.di.config.xml.ConfigFileWatcherTest$FailingComponent">
+                <property name="value" value="${env.value}" />
+            </component>
+        </component-configuration>
+        */
+        XmlComponentDefinitionLoader loader = new XmlComponentDefinitionLoader(failingFile.toURI().toString());
+        DiContainer container = new DiContainer(loader);
+        ConfigFileWatcher watcher = new ConfigFileWatcher(container, loader);
+        watcher.setQuietPeriod(0);
+
+        Hereis.file(envFile.getAbsolutePath()); /*
+        env.value = changed
+        */
+        assertTrue(envFile.setLastModified(envFile.lastModified() + 2000));
+        FailingComponent.failing = true;
+        try {
+            assertFalse(watcher.check());
+        } finally {
+            FailingComponent.failing = false;
+        }
+        assertEquals("original", ((FailingComponent) container.getComponentByName("failing")).getValue());
+
+        assertTrue(watcher.check());
+        assertEquals("changed", ((FailingComponent) container.getComponentByName("failing")).getValue());
+        assertFalse(watcher.check());
+    }
+
+    /**
+     * DIコンテナが受け付けない値は反映せずに残りの値を反映し、再度変更されるまで反映を試みないこと。
+     */
+    @Test
+    public void testRejectedValue() throws Exception {
+        XmlComponentDefinitionLoader loader = new XmlComponentDefinitionLoader(rootFile.toURI().toString());
+        DiContainer container = new DiContainer(loader);
+        ConfigFileWatcher watcher = new ConfigFileWatcher(container, loader);
+        watcher.setQuietPeriod(0);
+        Component2 comp3 = container.getComponentByName("comp3");
+
+        Hereis.file(envFile.getAbsolutePath()); /*
+        env.value = changed
+        comp3 = not a component
+        */
+        assertTrue(envFile.setLastModified(envFile.lastModified() + 2000));
+        assertTrue(watcher.check());
+        assertEquals("changed", ((Component1) container.getComponentByName("comp1")).getProp1());
+        assertSame(comp3, container.getComponentByName("comp3"));
+        assertFalse(watcher.check());
+
+        Hereis.file(envFile.getAbsolutePath()); /*
+        env.value = changed again
+        comp3 = not a component
+        */
+        assertTrue(envFile.setLastModified(envFile.lastModified() + 4000));
+        assertTrue(watcher.check());
+        assertEquals("changed again", ((Component1) container.getComponentByName("comp1")).getProp1());
+        assertSame(comp3, container.getComponentByName("comp3"));
+    }
+
+    /**
+     * 値の設定に失敗させることができるコンポーネント。
+     */
+    public static class FailingComponent {
+
+        /** 値の設定に失敗させる場合 true */
+        static boolean failing = false;
+
+        /** 値 */
+        private String value;
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            if (failing) {
+                throw new IllegalStateException("failing");
+            }
+            this.value = value;
+        }
+    }
+
+    /**
+     * キャッシュファイルから復元した場合も、読み込んだファイルの変更を反映すること。
+     */
+    @Test
+    public void testCachingLoader() throws Exception {
+        File cacheFile = new File(temp.getRoot(), "cache/definitions.bin");
+        new DiContainer(new CachingXmlComponentDefinitionLoader(rootFile.toURI().toString(), cacheFile));
+        XmlComponentDefinitionLoader loader =
+                new CachingXmlComponentDefinitionLoader(rootFile.toURI().toString(), cacheFile);
+        DiContainer container = new DiContainer(loader);
+        ConfigFileWatcher watcher = new ConfigFileWatcher(container, loader);
+        watcher.setQuietPeriod(0);
+
+        Hereis.file(envFile.getAbsolutePath()); /*
+        env.value = changed
+        */
+        assertTrue(envFile.setLastModified(envFile.lastModified() + 2000));
+        assertTrue(watcher.check());
+        Component1 comp1 = container.getComponentByName("comp1");
+        assertEquals("changed", comp1.getProp1());
+    }
+}
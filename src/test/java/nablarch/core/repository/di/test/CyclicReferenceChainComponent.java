@@ -0,0 +1,9 @@
+package nablarch.core.repository.di.test;
+
+public class CyclicReferenceChainComponent {
+
+	private CyclicReferenceChainComponent next;
+	public void setNext(CyclicReferenceChainComponent next) {
+		this.next = next;
+	}
+}
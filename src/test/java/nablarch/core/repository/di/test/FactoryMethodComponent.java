@@ -0,0 +1,43 @@
+package nablarch.core.repository.di.test;
+
+public class FactoryMethodComponent {
+
+	private final String createdBy;
+	private String name;
+
+	FactoryMethodComponent() {
+		this("constructor");
+	}
+	private FactoryMethodComponent(String createdBy) {
+		this.createdBy = createdBy;
+	}
+
+	public static FactoryMethodComponent create() {
+		return new FactoryMethodComponent("factory");
+	}
+	static FactoryMethodComponent createHidden() {
+		return new FactoryMethodComponent("hidden factory");
+	}
+	public static FactoryMethodComponent createWithCheckedException() throws Exception {
+		throw new Exception("checked exception in factory");
+	}
+	public static FactoryMethodComponent createWithRuntimeException() {
+		throw new IllegalStateException("runtime exception in factory");
+	}
+	public static String createOtherType() {
+		return "other";
+	}
+	public FactoryMethodComponent createNotStatic() {
+		return new FactoryMethodComponent("not static");
+	}
+
+	public String getCreatedBy() {
+		return createdBy;
+	}
+	public void setName(String name) {
+		this.name = name;
+	}
+	public String getName() {
+		return name;
+	}
+}
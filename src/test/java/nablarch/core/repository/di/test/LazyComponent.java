@@ -0,0 +1,27 @@
+package nablarch.core.repository.di.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class LazyComponent {
+
+	public static final List<String> INJECTED_NAMES = Collections.synchronizedList(new ArrayList<String>());
+
+	private String name;
+	private LazyComponent child;
+
+	public void setName(String name) {
+		this.name = name;
+		INJECTED_NAMES.add(name);
+	}
+	public String getName() {
+		return name;
+	}
+	public void setChild(LazyComponent child) {
+		this.child = child;
+	}
+	public LazyComponent getChild() {
+		return child;
+	}
+}
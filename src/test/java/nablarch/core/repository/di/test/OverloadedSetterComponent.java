@@ -0,0 +1,22 @@
+package nablarch.core.repository.di.test;
+
+public class OverloadedSetterComponent {
+
+    private Object target;
+
+    public void setTarget(Component1 target) {
+        this.target = target;
+    }
+
+    public void setTarget(Component2 target) {
+        this.target = target;
+    }
+
+    public Object getTarget() {
+        return target;
+    }
+
+    public void setFailure(Component2 failure) {
+        throw new IllegalStateException("setter failed.");
+    }
+}
@@ -0,0 +1,317 @@
+package nablarch.core.repository.initialization;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * {@link ParallelApplicationInitializer}のテスト。
+ */
+public class ParallelApplicationInitializerTest {
+
+    /**
+     * 初期化対象を設定しない場合、空のListを設定した場合は、何もせずに正常終了すること。
+     */
+    @Test
+    public void testEmpty() {
+        new ParallelApplicationInitializer().initialize();
+
+        ParallelApplicationInitializer initializer = new ParallelApplicationInitializer();
+        initializer.setInitializeList(new ArrayList<Object>());
+        initializer.initialize();
+    }
+
+    /**
+     * 依存関係に従って初期化されること。
+     * 依存関係を持たないオブジェクトは並行して初期化されること。
+     */
+    @Test
+    public void testInitializeInDependencyOrder() {
+        List<String> log = Collections.synchronizedList(new ArrayList<String>());
+        // a と b は互いの初期化を待ち合わせるため、並行して初期化されなければ完了しない。
+        CountDownLatch latch = new CountDownLatch(2);
+        Recorder a = new Recorder("a", log, latch);
+        Recorder b = new Recorder("b", log, latch);
+        Recorder c = new Recorder("c", log, null);
+        Recorder d = new Recorder("d", log, null);
+
+        Map<Object, Object> dependencies = new HashMap<Object, Object>();
+        dependencies.put(c, a);
+        dependencies.put(d, Arrays.<Object>asList(b, c));
+
+        ParallelApplicationInitializer initializer = new ParallelApplicationInitializer();
+        initializer.setInitializeList(Arrays.<Object>asList(d, c, b, a));
+        initializer.setDependencies(dependencies);
+        initializer.setThreadCount(2);
+        initializer.setTimeoutSeconds(10);
+        initializer.initialize();
+
+        assertEquals(4, log.size());
+        assertTrue(log.indexOf("a") < log.indexOf("c"));
+        assertTrue(log.indexOf("b") < log.indexOf("d"));
+        assertTrue(log.indexOf("c") < log.indexOf("d"));
+    }
+
+    /**
+     * 初期化済みのオブジェクトは初期化せず、初期化が完了しているものとして依存関係を判定すること。
+     */
+    @Test
+    public void testInitializeExceptInitialized() {
+        List<String> log = Collections.synchronizedList(new ArrayList<String>());
+        Recorder a = new Recorder("a", log, null);
+        Recorder b = new Recorder("b", log, null);
+        Recorder c = new Recorder("c", log, null);
+
+        Map<Object, Object> dependencies = new HashMap<Object, Object>();
+        dependencies.put(c, Arrays.<Object>asList(a, b));
+
+        ParallelApplicationInitializer initializer = new ParallelApplicationInitializer();
+        initializer.setInitializeList(Arrays.<Object>asList(a, b, c));
+        initializer.setDependencies(dependencies);
+        initializer.setThreadCount(2);
+        initializer.initialize(Collections.singleton(b));
+
+        assertEquals(2, log.size());
+        assertTrue(log.indexOf("a") < log.indexOf("c"));
+        assertFalse(log.contains("b"));
+    }
+
+    /**
+     * Initializableを実装していないオブジェクトが設定された場合、初期化を行わずに例外が送出されること。
+     */
+    @Test
+    public void testNotInitializable() {
+        List<String> log = Collections.synchronizedList(new ArrayList<String>());
+        ParallelApplicationInitializer initializer = new ParallelApplicationInitializer();
+        initializer.setInitializeList(Arrays.<Object>asList(new Recorder("a", log, null), "string"));
+        try {
+            initializer.initialize();
+            fail("does not run.");
+        } catch (RuntimeException e) {
+            assertEquals("not initializable class. class name = java.lang.String", e.getMessage());
+        }
+        assertTrue(log.isEmpty());
+    }
+
+    /**
+     * 依存先が初期化対象に含まれない場合、例外が送出されること。
+     */
+    @Test
+    public void testDependencyNotFound() {
+        List<String> log = Collections.synchronizedList(new ArrayList<String>());
+        Recorder a = new Recorder("a", log, null);
+        Map<Object, Object> dependencies = new HashMap<Object, Object>();
+        dependencies.put(a, new Recorder("b", log, null));
+
+        ParallelApplicationInitializer initializer = new ParallelApplicationInitializer();
+        initializer.setInitializeList(Arrays.<Object>asList(a));
+        initializer.setDependencies(dependencies);
+        try {
+            initializer.initialize();
+            fail("does not run.");
+        } catch (RuntimeException e) {
+            assertThat(e.getMessage(), containsString("dependency object was not found in initializeList."));
+        }
+        assertTrue(log.isEmpty());
+    }
+
+    /**
+     * 依存関係が循環している場合、初期化を行わずに例外が送出されること。
+     */
+    @Test
+    public void testCircularDependency() {
+        List<String> log = Collections.synchronizedList(new ArrayList<String>());
+        Recorder a = new Recorder("a", log, null);
+        Recorder b = new Recorder("b", log, null);
+        Recorder c = new Recorder("c", log, null);
+        Map<Object, Object> dependencies = new HashMap<Object, Object>();
+        dependencies.put(a, b);
+        dependencies.put(b, a);
+
+        ParallelApplicationInitializer initializer = new ParallelApplicationInitializer();
+        initializer.setInitializeList(Arrays.<Object>asList(a, b, c));
+        initializer.setDependencies(dependencies);
+        try {
+            initializer.initialize();
+            fail("does not run.");
+        } catch (RuntimeException e) {
+            assertThat(e.getMessage(), containsString("circular dependency was found."));
+        }
+        assertTrue(log.isEmpty());
+    }
+
+    /**
+     * 初期化処理で例外が発生した場合、その例外がそのまま送出され、依存するオブジェクトは初期化されないこと。
+     */
+    @Test
+    public void testFail() {
+        List<String> log = Collections.synchronizedList(new ArrayList<String>());
+        IllegalStateException cause = new IllegalStateException("error");
+        Failure a = new Failure(cause);
+        Recorder b = new Recorder("b", log, null);
+        Map<Object, Object> dependencies = new HashMap<Object, Object>();
+        dependencies.put(b, a);
+
+        ParallelApplicationInitializer initializer = new ParallelApplicationInitializer();
+        initializer.setInitializeList(Arrays.<Object>asList(a, b));
+        initializer.setDependencies(dependencies);
+        try {
+            initializer.initialize();
+            fail("does not run.");
+        } catch (IllegalStateException e) {
+            assertSame(cause, e);
+        }
+        assertTrue(log.isEmpty());
+    }
+
+    /**
+     * 複数の初期化処理で例外が発生した場合、全ての例外の内容を含む例外が送出されること。
+     */
+    @Test
+    public void testMultipleFailures() {
+        // 2つの初期化処理が揃ってから例外を送出させ、同時に失敗した状態を作る。
+        CountDownLatch latch = new CountDownLatch(2);
+        Failure a = new Failure(new IllegalStateException("error a"), latch);
+        Failure b = new Failure(new IllegalArgumentException("error b"), latch);
+
+        ParallelApplicationInitializer initializer = new ParallelApplicationInitializer();
+        initializer.setInitializeList(Arrays.<Object>asList(a, b));
+        initializer.setThreadCount(2);
+        for (int i = 0; i < 100; i++) {
+            try {
+                initializer.initialize();
+                fail("does not run.");
+            } catch (RuntimeException e) {
+                if (e.getMessage().startsWith("initialization failed. error count = 2")) {
+                    assertThat(e.getMessage(), containsString("error a"));
+                    assertThat(e.getMessage(), containsString("error b"));
+                    return;
+                }
+            }
+            latch = new CountDownLatch(2);
+            a = new Failure(new IllegalStateException("error a"), latch);
+            b = new Failure(new IllegalArgumentException("error b"), latch);
+            initializer.setInitializeList(Arrays.<Object>asList(a, b));
+        }
+        fail("errors were not aggregated.");
+    }
+
+    /**
+     * 初期化処理が許容時間内に完了しない場合、例外が送出され、実行中の初期化処理に割り込みが行われること。
+     */
+    @Test
+    public void testTimeout() throws Exception {
+        Sleeper sleeper = new Sleeper();
+        ParallelApplicationInitializer initializer = new ParallelApplicationInitializer();
+        initializer.setInitializeList(Arrays.<Object>asList(sleeper));
+        initializer.setTimeoutSeconds(1);
+        try {
+            initializer.initialize();
+            fail("does not run.");
+        } catch (RuntimeException e) {
+            assertThat(e.getMessage(), containsString("initialization timed out. timeout seconds = 1"));
+            assertThat(e.getMessage(), containsString(Sleeper.class.getName()));
+        }
+        assertTrue("interrupted", sleeper.interrupted.await(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * 初期化の順序を記録するクラス。
+     */
+    private static class Recorder implements Initializable {
+
+        /** 名前 */
+        private final String name;
+
+        /** 記録先 */
+        private final List<String> log;
+
+        /** 待ち合わせに使用するラッチ */
+        private final CountDownLatch latch;
+
+        Recorder(String name, List<String> log, CountDownLatch latch) {
+            this.name = name;
+            this.log = log;
+            this.latch = latch;
+        }
+
+        public void initialize() {
+            if (latch != null) {
+                latch.countDown();
+                try {
+                    if (!latch.await(10, TimeUnit.SECONDS)) {
+                        throw new IllegalStateException("not initialized in parallel.");
+                    }
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            log.add(name);
+        }
+    }
+
+    /**
+     * 初期化に失敗するクラス。
+     */
+    private static class Failure implements Initializable {
+
+        /** 送出する例外 */
+        private final RuntimeException error;
+
+        /** 待ち合わせに使用するラッチ */
+        private final CountDownLatch latch;
+
+        Failure(RuntimeException error) {
+            this(error, null);
+        }
+
+        Failure(RuntimeException error, CountDownLatch latch) {
+            this.error = error;
+            this.latch = latch;
+        }
+
+        public void initialize() {
+            if (latch != null) {
+                latch.countDown();
+                try {
+                    latch.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            throw error;
+        }
+    }
+
+    /**
+     * 初期化が完了しないクラス。
+     */
+    private static class Sleeper implements Initializable {
+
+        /** 割り込みが行われたことを通知するラッチ */
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+
+        public void initialize() {
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        }
+    }
+}